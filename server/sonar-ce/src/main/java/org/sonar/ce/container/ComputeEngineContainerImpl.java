@@ -78,6 +78,8 @@ import org.sonar.db.purge.PurgeProfiler;
 import org.sonar.process.NetworkUtilsImpl;
 import org.sonar.process.Props;
 import org.sonar.process.logging.LogbackHelper;
+import org.sonar.server.cache.ClusterNearCacheVersions;
+import org.sonar.server.cache.NearCaches;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.component.index.ComponentIndexer;
 import org.sonar.server.computation.task.projectanalysis.ProjectAnalysisTaskModule;
@@ -260,6 +262,7 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
 
       // DB
       DaoModule.class,
+      NearCaches.class,
       ReadOnlyPropertiesDao.class,
       DBSessionsImpl.class,
       DbClient.class,
@@ -443,7 +446,10 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
 
         // system info
         DbSection.class,
-        ProcessInfoProvider.class);
+        ProcessInfoProvider.class,
+
+        // cache
+        ClusterNearCacheVersions.class);
     } else {
       container.add(StandaloneCeDistributedInformation.class);
     }
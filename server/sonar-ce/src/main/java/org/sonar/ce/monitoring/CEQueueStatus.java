@@ -21,6 +21,17 @@ package org.sonar.ce.monitoring;
 
 public interface CEQueueStatus {
 
+  /**
+   * Categories of tasks for which the time spent waiting in queue is measured separately.
+   */
+  enum TaskCategory {
+    /**
+     * Analyses of short living branches, usually small and expected to be processed quickly.
+     */
+    SHORT_LIVING_BRANCH,
+    OTHER
+  }
+
   /**
    * Adds 1 to the count of batch reports under processing and removes 1 from the count of batch reports waiting for
    * processing.
@@ -61,6 +72,19 @@ public interface CEQueueStatus {
    */
   long addError(long processingTime);
 
+  /**
+   * Adds 1 to the count of tasks of the specified category which started being processed and adds the specified
+   * time to the waiting time counter of this category.
+   *
+   * @param waitingTime duration between the submission of the task and the start of its processing, in ms
+   *
+   * @see #getStartedCount(TaskCategory)
+   * @see #getWaitingTime(TaskCategory)
+   *
+   * @throws IllegalArgumentException if waitingTime is < 0
+   */
+  void addWaitingTime(TaskCategory category, long waitingTime);
+
   /**
    * Count of batch reports waiting for processing since startup, including reports received before instance startup.
    */
@@ -85,4 +109,14 @@ public interface CEQueueStatus {
    * Time spent processing batch reports since startup, in milliseconds.
    */
   long getProcessingTime();
+
+  /**
+   * Count of tasks of the specified category which started being processed since startup.
+   */
+  long getStartedCount(TaskCategory category);
+
+  /**
+   * Time spent in queue by tasks of the specified category before being processed, since startup, in milliseconds.
+   */
+  long getWaitingTime(TaskCategory category);
 }
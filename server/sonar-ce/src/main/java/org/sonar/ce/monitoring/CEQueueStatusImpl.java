@@ -19,6 +19,8 @@
  */
 package org.sonar.ce.monitoring;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -33,9 +35,15 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   private final AtomicLong error = new AtomicLong(0);
   private final AtomicLong success = new AtomicLong(0);
   private final AtomicLong processingTime = new AtomicLong(0);
+  private final Map<TaskCategory, AtomicLong> startedCounts = new EnumMap<>(TaskCategory.class);
+  private final Map<TaskCategory, AtomicLong> waitingTimes = new EnumMap<>(TaskCategory.class);
 
   public CEQueueStatusImpl(DbClient dbClient) {
     this.dbClient = dbClient;
+    for (TaskCategory category : TaskCategory.values()) {
+      startedCounts.put(category, new AtomicLong(0));
+      waitingTimes.put(category, new AtomicLong(0));
+    }
   }
 
   @Override
@@ -62,6 +70,13 @@ public class CEQueueStatusImpl implements CEQueueStatus {
     processingTime.addAndGet(ms);
   }
 
+  @Override
+  public void addWaitingTime(TaskCategory category, long waitingTimeInMs) {
+    checkArgument(waitingTimeInMs >= 0, "Waiting time can not be < 0");
+    startedCounts.get(category).incrementAndGet();
+    waitingTimes.get(category).addAndGet(waitingTimeInMs);
+  }
+
   @Override
   public long getPendingCount() {
     try (DbSession dbSession = dbClient.openSession(false)) {
@@ -88,4 +103,14 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   public long getProcessingTime() {
     return processingTime.get();
   }
+
+  @Override
+  public long getStartedCount(TaskCategory category) {
+    return startedCounts.get(category).get();
+  }
+
+  @Override
+  public long getWaitingTime(TaskCategory category) {
+    return waitingTimes.get(category).get();
+  }
 }
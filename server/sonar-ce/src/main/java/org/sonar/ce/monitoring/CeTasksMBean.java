@@ -48,6 +48,17 @@ public interface CeTasksMBean {
    */
   long getProcessingTime();
 
+  /**
+   * Time spent in queue by analyses of short living branches before being processed, since startup, in milliseconds.
+   */
+  long getShortLivingBranchWaitingTime();
+
+  /**
+   * Time spent in queue by tasks other than analyses of short living branches before being processed, since startup,
+   * in milliseconds.
+   */
+  long getOtherTasksWaitingTime();
+
   /**
    * Configured maximum number of workers.
    */
@@ -72,6 +72,16 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     return queueStatus.getProcessingTime();
   }
 
+  @Override
+  public long getShortLivingBranchWaitingTime() {
+    return queueStatus.getWaitingTime(CEQueueStatus.TaskCategory.SHORT_LIVING_BRANCH);
+  }
+
+  @Override
+  public long getOtherTasksWaitingTime() {
+    return queueStatus.getWaitingTime(CEQueueStatus.TaskCategory.OTHER);
+  }
+
   @Override
   public int getWorkerMaxCount() {
     return ceConfiguration.getWorkerMaxCount();
@@ -91,6 +101,8 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     builder.addAttributesBuilder().setKey("Processed With Error").setLongValue(getErrorCount()).build();
     builder.addAttributesBuilder().setKey("Processed With Success").setLongValue(getSuccessCount()).build();
     builder.addAttributesBuilder().setKey("Processing Time (ms)").setLongValue(getProcessingTime()).build();
+    builder.addAttributesBuilder().setKey("Short Living Branches Waiting Time (ms)").setLongValue(getShortLivingBranchWaitingTime()).build();
+    builder.addAttributesBuilder().setKey("Other Tasks Waiting Time (ms)").setLongValue(getOtherTasksWaitingTime()).build();
     builder.addAttributesBuilder().setKey("Worker Count").setLongValue(getWorkerCount()).build();
     builder.addAttributesBuilder().setKey("Max Worker Count").setLongValue(getWorkerMaxCount()).build();
     return builder.build();
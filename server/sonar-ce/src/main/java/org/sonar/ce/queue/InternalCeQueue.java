@@ -40,6 +40,9 @@ public interface InternalCeQueue extends CeQueue {
    *
    * <p>Only a single task can be peeked by project.</p>
    *
+   * <p>Tasks which are not analyses of short living branches may be skipped in favor of newer ones which are, so that
+   * a worker is kept available for them and the heap of the Compute Engine is not exhausted.</p>
+   *
    * <p>An unchecked exception may be thrown on technical errors (db connection, ...).</p>
    *
    * <p>Tasks which have been executed twice already but are still {@link org.sonar.db.ce.CeQueueDto.Status#PENDING}
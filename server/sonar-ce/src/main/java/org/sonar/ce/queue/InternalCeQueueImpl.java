@@ -19,27 +19,33 @@
  */
 package org.sonar.ce.queue;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.log4j.Logger;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.ce.container.ComputeEngineStatus;
 import org.sonar.ce.monitoring.CEQueueStatus;
+import org.sonar.ce.monitoring.CEQueueStatus.TaskCategory;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDao;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskCharacteristicDto;
 import org.sonar.server.computation.task.projectanalysis.component.VisitException;
 import org.sonar.server.computation.task.step.TypedException;
 import org.sonar.server.organization.DefaultOrganizationProvider;
@@ -53,19 +59,34 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
   private static final org.sonar.api.utils.log.Logger LOG = Loggers.get(InternalCeQueueImpl.class);
 
   private static final int MAX_EXECUTION_COUNT = 1;
+  /**
+   * Minimum ratio of the max heap which must be free to start a task which is not the analysis of a short living
+   * branch while another such task is already in progress.
+   */
+  private static final double MIN_FREE_HEAP_RATIO_FOR_LARGE_TASK = 0.3;
 
   private final System2 system2;
   private final DbClient dbClient;
   private final CEQueueStatus queueStatus;
   private final ComputeEngineStatus computeEngineStatus;
+  private final CeConfiguration ceConfiguration;
+  /**
+   * Value of {@link #largeTasksByWorkerUuid} for a worker which is allowed to peek a large task but has not peeked it yet.
+   */
+  private static final String RESERVED_FOR_LARGE_TASK = "";
+  /**
+   * Uuids of the tasks which are not analyses of short living branches, by uuid of the worker of this node processing them.
+   */
+  private final Map<String, String> largeTasksByWorkerUuid = new ConcurrentHashMap<>();
 
   public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
-    DefaultOrganizationProvider defaultOrganizationProvider, ComputeEngineStatus computeEngineStatus) {
+    DefaultOrganizationProvider defaultOrganizationProvider, ComputeEngineStatus computeEngineStatus, CeConfiguration ceConfiguration) {
     super(dbClient, uuidFactory, defaultOrganizationProvider);
     this.system2 = system2;
     this.dbClient = dbClient;
     this.queueStatus = queueStatus;
     this.computeEngineStatus = computeEngineStatus;
+    this.ceConfiguration = ceConfiguration;
   }
 
   @Override
@@ -81,16 +102,80 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       if (i > 0) {
         LOG.debug("{} in progress tasks reset for worker uuid {}", i, workerUuid);
       }
-      Optional<CeQueueDto> dto = ceQueueDao.peek(dbSession, workerUuid, MAX_EXECUTION_COUNT);
-      CeTask task = null;
-      if (dto.isPresent()) {
-        task = loadTask(dbSession, dto.get());
-        queueStatus.addInProgress();
+      // a worker which peeks is not processing any task
+      largeTasksByWorkerUuid.remove(workerUuid);
+      boolean largeTaskReserved = reserveLargeTask(workerUuid);
+      boolean largeTaskPeeked = false;
+      try {
+        Optional<CeQueueDto> dto = ceQueueDao.peek(dbSession, workerUuid, MAX_EXECUTION_COUNT, !largeTaskReserved);
+        CeTask task = null;
+        if (dto.isPresent()) {
+          CeQueueDto queueDto = dto.get();
+          task = loadTask(dbSession, queueDto);
+          largeTaskPeeked = largeTaskReserved && !isShortLivingBranch(dbSession, queueDto);
+          if (largeTaskPeeked) {
+            largeTasksByWorkerUuid.put(workerUuid, queueDto.getUuid());
+          }
+          TaskCategory category = largeTaskPeeked ? TaskCategory.OTHER : TaskCategory.SHORT_LIVING_BRANCH;
+          queueStatus.addInProgress();
+          queueStatus.addWaitingTime(category, Math.max(0L, system2.now() - queueDto.getCreatedAt()));
+        }
+        return Optional.ofNullable(task);
+      } finally {
+        if (largeTaskReserved && !largeTaskPeeked) {
+          largeTasksByWorkerUuid.remove(workerUuid);
+        }
       }
-      return Optional.ofNullable(task);
     }
   }
 
+  /**
+   * Checking whether a large task can be started and counting it must be atomic, otherwise several workers peeking
+   * at the same time could all start a large task. The slot is reserved before peeking the queue and released if
+   * no large task is peeked.
+   */
+  private synchronized boolean reserveLargeTask(String workerUuid) {
+    if (!canStartLargeTask()) {
+      return false;
+    }
+    largeTasksByWorkerUuid.put(workerUuid, RESERVED_FOR_LARGE_TASK);
+    return true;
+  }
+
+  /**
+   * Analyses of short living branches (hence of pull requests) are small and their result is awaited by developers,
+   * they must not wait behind analyses of big projects:
+   * <ul>
+   *   <li>when several workers are enabled, one of them is always kept available for short living branches</li>
+   *   <li>other tasks are started only if enough heap is available, unless no other one is already in progress</li>
+   * </ul>
+   */
+  private boolean canStartLargeTask() {
+    int largeTaskCount = largeTasksByWorkerUuid.size();
+    if (largeTaskCount == 0) {
+      return true;
+    }
+    if (largeTaskCount >= ceConfiguration.getWorkerCount() - 1) {
+      return false;
+    }
+    return getFreeHeapRatio() >= MIN_FREE_HEAP_RATIO_FOR_LARGE_TASK;
+  }
+
+  @VisibleForTesting
+  double getFreeHeapRatio() {
+    Runtime runtime = Runtime.getRuntime();
+    long maxMemory = runtime.maxMemory();
+    long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+    return (double) (maxMemory - usedMemory) / maxMemory;
+  }
+
+  private boolean isShortLivingBranch(DbSession dbSession, CeQueueDto queueDto) {
+    return dbClient.ceTaskCharacteristicsDao().selectByTaskUuid(dbSession, queueDto.getUuid())
+      .stream()
+      .anyMatch(c -> CeTaskCharacteristicDto.BRANCH_TYPE_KEY.equals(c.getKey())
+        && CeTaskCharacteristicDto.SHORT_LIVING_BRANCH_TYPE.equals(c.getValue()));
+  }
+
   @Override
   public int clear() {
     return cancelAll(true);
@@ -99,6 +184,7 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
   @Override
   public void remove(CeTask task, CeActivityDto.Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error) {
     checkArgument(error == null || status == CeActivityDto.Status.FAILED, "Error can be provided only when status is FAILED");
+    largeTasksByWorkerUuid.values().remove(task.getUuid());
     try (DbSession dbSession = dbClient.openSession(false)) {
       CeQueueDto queueDto = dbClient.ceQueueDao().selectByUuid(dbSession, task.getUuid())
       .orElseThrow(() -> new IllegalStateException("Task does not exist anymore: " + task));
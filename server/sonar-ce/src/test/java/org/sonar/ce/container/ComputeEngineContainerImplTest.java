@@ -103,7 +103,7 @@ public class ComputeEngineContainerImplTest {
           + 7 // content of CeTaskProcessorModule
           + 4 // content of ReportAnalysisFailureNotificationModule
           + 3 // CeCleaningModule + its content
-          + 4 // WebhookModule
+          + 5 // WebhookModule
           + 1 // CeDistributedInformation
     );
     assertThat(picoContainer.getParent().getComponentAdapters()).hasSize(
@@ -117,8 +117,8 @@ public class ComputeEngineContainerImplTest {
     );
     assertThat(picoContainer.getParent().getParent().getParent().getComponentAdapters()).hasSize(
       COMPONENTS_IN_LEVEL_1_AT_CONSTRUCTION
-        + 26 // level 1
-        + 52 // content of DaoModule
+        + 27 // level 1
+        + 53 // content of DaoModule
         + 3 // content of EsSearchModule
         + 60 // content of CorePropertyDefinitions
         + 1 // StopFlagContainer
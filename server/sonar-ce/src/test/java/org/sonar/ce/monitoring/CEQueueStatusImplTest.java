@@ -133,6 +133,27 @@ public class CEQueueStatusImplTest {
     assertThat(underTest.getProcessingTime()).isEqualTo(calls);
   }
 
+  @Test
+  public void addWaitingTime_throws_IAE_if_time_is_less_than_0() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Waiting time can not be < 0");
+
+    underTest.addWaitingTime(CEQueueStatus.TaskCategory.OTHER, -1);
+  }
+
+  @Test
+  public void addWaitingTime_is_measured_by_task_category() {
+    underTest.addWaitingTime(CEQueueStatus.TaskCategory.SHORT_LIVING_BRANCH, 10);
+    underTest.addWaitingTime(CEQueueStatus.TaskCategory.SHORT_LIVING_BRANCH, 20);
+    underTest.addWaitingTime(CEQueueStatus.TaskCategory.OTHER, 500);
+
+    assertThat(underTest.getStartedCount(CEQueueStatus.TaskCategory.SHORT_LIVING_BRANCH)).isEqualTo(2);
+    assertThat(underTest.getWaitingTime(CEQueueStatus.TaskCategory.SHORT_LIVING_BRANCH)).isEqualTo(30);
+    assertThat(underTest.getStartedCount(CEQueueStatus.TaskCategory.OTHER)).isEqualTo(1);
+    assertThat(underTest.getWaitingTime(CEQueueStatus.TaskCategory.OTHER)).isEqualTo(500);
+    assertThat(underTest.getInProgressCount()).isEqualTo(0);
+  }
+
   @Test
   public void count_Pending_from_database() {
     when(dbClient.ceQueueDao().countByStatus(any(DbSession.class), eq(CeQueueDto.Status.PENDING))).thenReturn(42);
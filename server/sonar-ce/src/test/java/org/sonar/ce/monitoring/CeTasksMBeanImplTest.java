@@ -36,6 +36,8 @@ public class CeTasksMBeanImplTest {
   private static final long ERROR_COUNT = 10;
   private static final long SUCCESS_COUNT = 13;
   private static final long PROCESSING_TIME = 987;
+  private static final long SHORT_LIVING_BRANCH_WAITING_TIME = 1_345;
+  private static final long OTHER_TASKS_WAITING_TIME = 8_712;
   private static final int WORKER_MAX_COUNT = 666;
   private static final int WORKER_COUNT = 56;
 
@@ -72,6 +74,8 @@ public class CeTasksMBeanImplTest {
     assertThat(underTest.getErrorCount()).isEqualTo(ERROR_COUNT);
     assertThat(underTest.getSuccessCount()).isEqualTo(SUCCESS_COUNT);
     assertThat(underTest.getProcessingTime()).isEqualTo(PROCESSING_TIME);
+    assertThat(underTest.getShortLivingBranchWaitingTime()).isEqualTo(SHORT_LIVING_BRANCH_WAITING_TIME);
+    assertThat(underTest.getOtherTasksWaitingTime()).isEqualTo(OTHER_TASKS_WAITING_TIME);
   }
 
   @Test
@@ -88,7 +92,7 @@ public class CeTasksMBeanImplTest {
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
     assertThat(section.getName()).isEqualTo("Compute Engine Tasks");
-    assertThat(section.getAttributesCount()).isEqualTo(7);
+    assertThat(section.getAttributesCount()).isEqualTo(9);
   }
   private static class DumbCEQueueStatus implements CEQueueStatus {
 
@@ -132,6 +136,21 @@ public class CeTasksMBeanImplTest {
     public long getProcessingTime() {
       return PROCESSING_TIME;
     }
+
+    @Override
+    public void addWaitingTime(TaskCategory category, long waitingTime) {
+      methodNotImplemented();
+    }
+
+    @Override
+    public long getStartedCount(TaskCategory category) {
+      return methodNotImplemented();
+    }
+
+    @Override
+    public long getWaitingTime(TaskCategory category) {
+      return category == TaskCategory.SHORT_LIVING_BRANCH ? SHORT_LIVING_BRANCH_WAITING_TIME : OTHER_TASKS_WAITING_TIME;
+    }
     private long methodNotImplemented() {
       throw new UnsupportedOperationException("Not Implemented");
     }
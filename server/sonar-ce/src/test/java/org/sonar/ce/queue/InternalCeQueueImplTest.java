@@ -22,9 +22,14 @@ package org.sonar.ce.queue;
 import com.google.common.collect.ImmutableSet;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.Nullable;
 import org.junit.Before;
 import org.junit.Rule;
@@ -32,6 +37,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.internal.AlwaysIncreasingSystem2;
+import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.ce.container.ComputeEngineStatus;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.ce.monitoring.CEQueueStatusImpl;
@@ -41,6 +47,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskCharacteristicDto;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
@@ -51,6 +58,7 @@ import org.sonar.server.organization.DefaultOrganizationProvider;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -76,7 +84,15 @@ public class InternalCeQueueImplTest {
   private CEQueueStatus queueStatus = new CEQueueStatusImpl(db.getDbClient());
   private DefaultOrganizationProvider defaultOrganizationProvider = mock(DefaultOrganizationProvider.class);
   private ComputeEngineStatus computeEngineStatus = mock(ComputeEngineStatus.class);
-  private InternalCeQueue underTest = new InternalCeQueueImpl(system2, db.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider, computeEngineStatus);
+  private CeConfiguration ceConfiguration = mock(CeConfiguration.class);
+  private double freeHeapRatio = 1;
+  private InternalCeQueue underTest = new InternalCeQueueImpl(system2, db.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider, computeEngineStatus,
+    ceConfiguration) {
+    @Override
+    double getFreeHeapRatio() {
+      return freeHeapRatio;
+    }
+  };
 
   @Before
   public void setUp() {
@@ -89,6 +105,7 @@ public class InternalCeQueueImplTest {
       .setUpdatedAt(defaultOrganization.getUpdatedAt())
       .build());
     when(computeEngineStatus.getStatus()).thenReturn(STARTED);
+    when(ceConfiguration.getWorkerCount()).thenReturn(10);
   }
 
   @Test
@@ -164,6 +181,73 @@ public class InternalCeQueueImplTest {
     underTest.peek(null);
   }
 
+  @Test
+  public void peek_keeps_a_worker_available_for_short_living_branches() {
+    when(ceConfiguration.getWorkerCount()).thenReturn(2);
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+    CeTask shortLivingBranchTask = submitShortLivingBranch("PROJECT_3");
+
+    assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo(task1.getUuid());
+    assertThat(underTest.peek(WORKER_UUID_2).get().getUuid()).isEqualTo(shortLivingBranchTask.getUuid());
+    assertThat(queueStatus.getStartedCount(CEQueueStatus.TaskCategory.OTHER)).isEqualTo(1);
+    assertThat(queueStatus.getStartedCount(CEQueueStatus.TaskCategory.SHORT_LIVING_BRANCH)).isEqualTo(1);
+
+    // second worker is done with the short living branch, but first one is still busy
+    assertThat(underTest.peek(WORKER_UUID_2).isPresent()).isFalse();
+
+    underTest.remove(task1, CeActivityDto.Status.SUCCESS, null, null);
+    assertThat(underTest.peek(WORKER_UUID_2).get().getUuid()).isEqualTo(task2.getUuid());
+  }
+
+  @Test
+  public void peek_does_not_start_a_second_large_task_if_heap_is_low() {
+    when(ceConfiguration.getWorkerCount()).thenReturn(3);
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_2");
+    freeHeapRatio = 0.1;
+
+    // heap is not taken into account for the first task
+    assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo(task1.getUuid());
+    assertThat(underTest.peek(WORKER_UUID_2).isPresent()).isFalse();
+
+    freeHeapRatio = 0.8;
+    assertThat(underTest.peek(WORKER_UUID_2).get().getUuid()).isEqualTo(task2.getUuid());
+  }
+
+  @Test
+  public void concurrent_peeks_do_not_start_more_large_tasks_than_allowed() throws Exception {
+    int workers = 6;
+    when(ceConfiguration.getWorkerCount()).thenReturn(workers);
+    for (int i = 0; i < workers; i++) {
+      submit(CeTaskTypes.REPORT, "PROJECT_" + i);
+    }
+
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(workers);
+    try {
+      List<Future<Optional<CeTask>>> futures = new ArrayList<>();
+      for (int i = 0; i < workers; i++) {
+        String workerUuid = "worker uuid " + i;
+        futures.add(executor.submit(() -> {
+          start.await();
+          return underTest.peek(workerUuid);
+        }));
+      }
+      start.countDown();
+      int peekedTasks = 0;
+      for (Future<Optional<CeTask>> future : futures) {
+        peekedTasks += future.get().isPresent() ? 1 : 0;
+      }
+
+      // one worker is kept available for short living branches
+      assertThat(peekedTasks).isEqualTo(workers - 1);
+      assertThat(queueStatus.getStartedCount(CEQueueStatus.TaskCategory.OTHER)).isEqualTo(workers - 1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   @Test
   public void test_remove() {
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
@@ -734,6 +818,17 @@ public class InternalCeQueueImplTest {
     return underTest.submit(createTaskSubmit(reportType, componentUuid, null));
   }
 
+  private CeTask submitShortLivingBranch(String componentUuid) {
+    CeTask task = submit(CeTaskTypes.REPORT, componentUuid);
+    db.getDbClient().ceTaskCharacteristicsDao().insert(session, singletonList(new CeTaskCharacteristicDto()
+      .setUuid(uuidFactory.create())
+      .setTaskUuid(task.getUuid())
+      .setKey(CeTaskCharacteristicDto.BRANCH_TYPE_KEY)
+      .setValue(CeTaskCharacteristicDto.SHORT_LIVING_BRANCH_TYPE)));
+    session.commit();
+    return task;
+  }
+
   private CeTaskSubmit createTaskSubmit(String type) {
     return createTaskSubmit(type, null, null);
   }
@@ -19,7 +19,6 @@
  */
 package org.sonar.db;
 
-import ch.qos.logback.classic.Level;
 import com.google.common.annotations.VisibleForTesting;
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -36,10 +35,8 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.dialect.Dialect;
 import org.sonar.db.dialect.DialectUtils;
-import org.sonar.db.profiling.NullConnectionInterceptor;
 import org.sonar.db.profiling.ProfiledConnectionInterceptor;
 import org.sonar.db.profiling.ProfiledDataSource;
-import org.sonar.process.logging.LogbackHelper;
 
 import static java.lang.String.format;
 import static org.sonar.process.ProcessProperties.Property.JDBC_URL;
@@ -56,14 +53,12 @@ public class DefaultDatabase implements Database {
   private static final String SONAR_JDBC_DIALECT = "sonar.jdbc.dialect";
   private static final String SONAR_JDBC_DRIVER = "sonar.jdbc.driverClassName";
 
-  private final LogbackHelper logbackHelper;
   private final Settings settings;
   private ProfiledDataSource datasource;
   private Dialect dialect;
   private Properties properties;
 
-  public DefaultDatabase(LogbackHelper logbackHelper, Settings settings) {
-    this.logbackHelper = logbackHelper;
+  public DefaultDatabase(Settings settings) {
     this.settings = settings;
   }
 
@@ -94,10 +89,9 @@ public class DefaultDatabase implements Database {
     // but it's correctly caught by start()
     LOG.info("Create JDBC data source for {}", properties.getProperty(JDBC_URL.getKey()), DEFAULT_URL);
     BasicDataSource basicDataSource = (BasicDataSource) BasicDataSourceFactory.createDataSource(extractCommonsDbcpProperties(properties));
-    datasource = new ProfiledDataSource(basicDataSource, NullConnectionInterceptor.INSTANCE);
+    datasource = new ProfiledDataSource(basicDataSource, ProfiledConnectionInterceptor.INSTANCE);
     datasource.setConnectionInitSqls(dialect.getConnectionInitStatements());
     datasource.setValidationQuery(dialect.getValidationQuery());
-    enableSqlLogging(datasource, logbackHelper.getLoggerLevel("sql") == Level.TRACE);
   }
 
   private void checkConnection() {
@@ -136,15 +130,6 @@ public class DefaultDatabase implements Database {
     return properties;
   }
 
-  @Override
-  public void enableSqlLogging(boolean enable) {
-    enableSqlLogging(datasource, enable);
-  }
-
-  private static void enableSqlLogging(ProfiledDataSource ds, boolean enable) {
-    ds.setConnectionInterceptor(enable ? ProfiledConnectionInterceptor.INSTANCE : NullConnectionInterceptor.INSTANCE);
-  }
-
   /**
    * Override this method to add JDBC properties at runtime
    */
@@ -23,6 +23,7 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.sql.PreparedStatement;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.core.util.RequestStatistics;
 
 class ProfilingPreparedStatementHandler implements InvocationHandler {
 
@@ -39,16 +40,20 @@ class ProfilingPreparedStatementHandler implements InvocationHandler {
   @Override
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
     if (method.getName().startsWith("execute")) {
-      Profiler profiler = Profiler.create(ProfiledDataSource.SQL_LOGGER).start();
+      long start = System.nanoTime();
+      Profiler profiler = Profiler.createIfTrace(ProfiledDataSource.SQL_LOGGER).start();
       Object result = null;
       try {
         result = InvocationUtils.invokeQuietly(statement, method, args);
       } finally {
-        profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
-        if (sqlParams.length > 0) {
-          profiler.addContext("params", SqlLogFormatter.formatParams(sqlParams));
+        RequestStatistics.SQL.record(System.nanoTime() - start);
+        if (profiler.isTraceEnabled()) {
+          profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
+          if (sqlParams.length > 0) {
+            profiler.addContext("params", SqlLogFormatter.formatParams(sqlParams));
+          }
+          profiler.stopTrace("");
         }
-        profiler.stopTrace("");
       }
       return result;
     } else if (method.getName().startsWith("set") && args.length > 1) {
@@ -62,6 +62,7 @@ public final class SqTables {
     "duplications_index",
     "es_queue",
     "events",
+    "file_source_blobs",
     "file_sources",
     "groups",
     "groups_users",
@@ -71,6 +72,7 @@ public final class SqTables {
     "issue_changes",
     "live_measures",
     "manual_measures",
+    "measure_histories",
     "metrics",
     "notifications",
     "organizations",
@@ -41,7 +41,6 @@ import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.dialect.H2;
-import org.sonar.process.logging.LogbackHelper;
 
 import static org.sonar.process.ProcessProperties.Property.JDBC_USERNAME;
 
@@ -82,7 +81,7 @@ class CoreTestDb {
       }
       String dialect = settings.getString("sonar.jdbc.dialect");
       if (dialect != null && !"h2".equals(dialect)) {
-        db = new DefaultDatabase(new LogbackHelper(), settings);
+        db = new DefaultDatabase(settings);
       } else {
         db = new H2Database("h2Tests" + DigestUtils.md5Hex(StringUtils.defaultString(schemaPath)), schemaPath == null);
       }
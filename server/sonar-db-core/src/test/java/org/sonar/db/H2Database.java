@@ -110,11 +110,6 @@ public class H2Database implements Database {
     return new H2();
   }
 
-  @Override
-  public void enableSqlLogging(boolean enable) {
-    throw new UnsupportedOperationException();
-  }
-
   @Override
   public String toString() {
     return format("H2 Database[%s]", name);
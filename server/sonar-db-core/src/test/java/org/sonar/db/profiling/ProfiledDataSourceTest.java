@@ -32,6 +32,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.core.util.RequestStatistics;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -132,6 +133,25 @@ public class ProfiledDataSourceTest {
       .doesNotContain("params=");
   }
 
+  @Test
+  public void record_statistics_without_logging() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    String sql = "select from dual";
+    when(connection.prepareStatement(sql)).thenReturn(mock(PreparedStatement.class));
+    when(connection.createStatement()).thenReturn(mock(Statement.class));
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, ProfiledConnectionInterceptor.INSTANCE);
+
+    RequestStatistics.Recording statistics = RequestStatistics.SQL.startRecording();
+    underTest.getConnection().prepareStatement(sql).execute();
+    underTest.getConnection().createStatement().execute(sql);
+    statistics.stopRecording();
+    underTest.getConnection().createStatement().execute(sql);
+
+    assertThat(statistics.getCount()).isEqualTo(2);
+    assertThat(logTester.logs()).isEmpty();
+  }
+
   @Test
   public void delegate_to_underlying_data_source() throws Exception {
     ProfiledDataSource proxy = new ProfiledDataSource(originDataSource, ProfiledConnectionInterceptor.INSTANCE);
@@ -0,0 +1,40 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+/**
+ * Listener of the changes of reference data, like metrics or quality gates, which can be cached by the application.
+ * It is called by DAOs when rows of the given table are inserted, updated or deleted.
+ * <p>
+ * Note that the transaction is not committed yet when the listener is called. Another thread may still read the
+ * previous rows and cache them after the notification, so caches must expire their entries after a short delay
+ * which bounds the staleness.
+ * </p>
+ */
+public interface DaoChangeListener {
+
+  void onChange(String table);
+
+  static void notifyChange(DaoChangeListener[] listeners, String table) {
+    for (DaoChangeListener listener : listeners) {
+      listener.onChange(table);
+    }
+  }
+}
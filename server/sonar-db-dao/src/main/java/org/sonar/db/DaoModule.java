@@ -41,6 +41,7 @@ import org.sonar.db.issue.IssueChangeDao;
 import org.sonar.db.issue.IssueDao;
 import org.sonar.db.measure.LiveMeasureDao;
 import org.sonar.db.measure.MeasureDao;
+import org.sonar.db.measure.MeasureHistoryDao;
 import org.sonar.db.measure.custom.CustomMeasureDao;
 import org.sonar.db.metric.MetricDao;
 import org.sonar.db.notification.NotificationQueueDao;
@@ -107,6 +108,7 @@ public class DaoModule extends Module {
     IssueChangeDao.class,
     IssueDao.class,
     MeasureDao.class,
+    MeasureHistoryDao.class,
     MetricDao.class,
     NotificationQueueDao.class,
     OrganizationDao.class,
@@ -39,6 +39,7 @@ import org.sonar.db.issue.IssueChangeDao;
 import org.sonar.db.issue.IssueDao;
 import org.sonar.db.measure.LiveMeasureDao;
 import org.sonar.db.measure.MeasureDao;
+import org.sonar.db.measure.MeasureHistoryDao;
 import org.sonar.db.measure.custom.CustomMeasureDao;
 import org.sonar.db.metric.MetricDao;
 import org.sonar.db.notification.NotificationQueueDao;
@@ -132,6 +133,7 @@ public class DbClient {
   private final QProfileEditUsersDao qProfileEditUsersDao;
   private final QProfileEditGroupsDao qProfileEditGroupsDao;
   private final LiveMeasureDao liveMeasureDao;
+  private final MeasureHistoryDao measureHistoryDao;
 
   public DbClient(Database database, MyBatis myBatis, DBSessions dbSessions, Dao... daos) {
     this.database = database;
@@ -194,6 +196,7 @@ public class DbClient {
     qProfileEditUsersDao = getDao(map, QProfileEditUsersDao.class);
     qProfileEditGroupsDao = getDao(map, QProfileEditGroupsDao.class);
     liveMeasureDao = getDao(map, LiveMeasureDao.class);
+    measureHistoryDao = getDao(map, MeasureHistoryDao.class);
   }
 
   public DbSession openSession(boolean batch) {
@@ -412,6 +415,10 @@ public class DbClient {
     return liveMeasureDao;
   }
 
+  public MeasureHistoryDao measureHistoryDao() {
+    return measureHistoryDao;
+  }
+
   protected <K extends Dao> K getDao(Map<Class, Dao> map, Class<K> clazz) {
     return (K) map.get(clazz);
   }
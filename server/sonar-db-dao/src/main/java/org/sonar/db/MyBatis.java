@@ -64,6 +64,7 @@ import org.sonar.db.issue.IssueMapper;
 import org.sonar.db.issue.ShortBranchIssueDto;
 import org.sonar.db.measure.LiveMeasureMapper;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureHistoryMapper;
 import org.sonar.db.measure.MeasureMapper;
 import org.sonar.db.measure.custom.CustomMeasureDto;
 import org.sonar.db.measure.custom.CustomMeasureMapper;
@@ -222,6 +223,7 @@ public class MyBatis implements Startable {
       IsAliveMapper.class,
       IssueChangeMapper.class,
       IssueMapper.class,
+      MeasureHistoryMapper.class,
       MeasureMapper.class,
       MetricMapper.class,
       NotificationQueueMapper.class,
@@ -136,7 +136,16 @@ public class CeQueueDao implements Dao {
   }
 
   public Optional<CeQueueDto> peek(DbSession session, String workerUuid, int maxExecutionCount) {
-    List<EligibleTaskDto> eligibles = mapper(session).selectEligibleForPeek(maxExecutionCount, ONE_RESULT_PAGINATION);
+    return peek(session, workerUuid, maxExecutionCount, false);
+  }
+
+  /**
+   * @param onlyShortLivingBranches if {@code true}, only tasks with characteristic {@link CeTaskCharacteristicDto#BRANCH_TYPE_KEY}
+   *                                set to {@link CeTaskCharacteristicDto#SHORT_LIVING_BRANCH_TYPE} can be peeked
+   */
+  public Optional<CeQueueDto> peek(DbSession session, String workerUuid, int maxExecutionCount, boolean onlyShortLivingBranches) {
+    List<EligibleTaskDto> eligibles = mapper(session).selectEligibleForPeek(maxExecutionCount, onlyShortLivingBranches,
+      CeTaskCharacteristicDto.BRANCH_TYPE_KEY, CeTaskCharacteristicDto.SHORT_LIVING_BRANCH_TYPE, ONE_RESULT_PAGINATION);
     if (eligibles.isEmpty()) {
       return Optional.empty();
     }
@@ -23,6 +23,7 @@ public class CeTaskCharacteristicDto {
 
   public static final String BRANCH_KEY = "branch";
   public static final String BRANCH_TYPE_KEY = "branchType";
+  public static final String SHORT_LIVING_BRANCH_TYPE = "SHORT";
 
   private String uuid;
   private String taskUuid;
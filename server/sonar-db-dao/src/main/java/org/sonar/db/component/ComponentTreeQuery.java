@@ -21,7 +21,9 @@ package org.sonar.db.component;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.db.WildcardPosition;
@@ -37,6 +39,19 @@ public class ComponentTreeQuery {
     CHILDREN, LEAVES
   }
 
+  /**
+   * Columns on which descendants can be sorted in database. Sort is case-insensitive, with null values last.
+   */
+  public enum SortField {
+    NAME("name"), QUALIFIER("qualifier"), PATH("path");
+
+    private final String column;
+
+    SortField(String column) {
+      this.column = column;
+    }
+  }
+
   @CheckForNull
   private final String nameOrKeyQuery;
   // SONAR-7681 a public implementation of List must be used in MyBatis - potential concurrency exceptions otherwise
@@ -46,6 +61,9 @@ public class ComponentTreeQuery {
   private final ArrayList<String> scopes;
   private final String baseUuid;
   private final Strategy strategy;
+  @CheckForNull
+  private final ArrayList<String> sortColumns;
+  private final boolean asc;
 
   private ComponentTreeQuery(Builder builder) {
     this.nameOrKeyQuery = builder.nameOrKeyQuery;
@@ -53,6 +71,8 @@ public class ComponentTreeQuery {
     this.scopes = builder.scopes == null ? null : newArrayList(builder.scopes);
     this.baseUuid = builder.baseUuid;
     this.strategy = requireNonNull(builder.strategy);
+    this.sortColumns = builder.sortFields == null ? null : builder.sortFields.stream().map(f -> f.column).collect(Collectors.toCollection(ArrayList::new));
+    this.asc = builder.asc;
   }
 
   @CheckForNull
@@ -86,6 +106,18 @@ public class ComponentTreeQuery {
     return strategy;
   }
 
+  /**
+   * Used by MyBatis mapper
+   */
+  @CheckForNull
+  public List<String> getSortColumns() {
+    return sortColumns;
+  }
+
+  public boolean isAsc() {
+    return asc;
+  }
+
   public String getUuidPath(ComponentDto component) {
     switch (strategy) {
       case CHILDREN:
@@ -110,6 +142,9 @@ public class ComponentTreeQuery {
     private Collection<String> scopes;
     private String baseUuid;
     private Strategy strategy;
+    @CheckForNull
+    private List<SortField> sortFields;
+    private boolean asc = true;
 
     private Builder() {
       // private constructor
@@ -144,5 +179,14 @@ public class ComponentTreeQuery {
       this.strategy = requireNonNull(strategy);
       return this;
     }
+
+    /**
+     * Components are sorted on the given fields, then by ascending name.
+     */
+    public Builder setSort(List<SortField> sortFields, boolean asc) {
+      this.sortFields = requireNonNull(sortFields);
+      this.asc = asc;
+      return this;
+    }
   }
 }
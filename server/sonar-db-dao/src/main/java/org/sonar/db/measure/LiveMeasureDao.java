@@ -19,10 +19,17 @@
  */
 package org.sonar.db.measure;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Table;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import javax.annotation.Nullable;
 import org.apache.ibatis.session.ResultHandler;
 import org.sonar.api.utils.System2;
@@ -32,7 +39,9 @@ import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 
 import static java.util.Collections.singletonList;
+import static org.sonar.core.util.stream.MoreCollectors.toSet;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+import static org.sonar.db.DatabaseUtils.executeLargeUpdates;
 
 public class LiveMeasureDao implements Dao {
 
@@ -90,6 +99,54 @@ public class LiveMeasureDao implements Dao {
     }
   }
 
+  /**
+   * Persists a set of measures, for instance all the measures of some components.
+   * Existing measures are loaded in bulk, so that:
+   * <ul>
+   *   <li>missing measures are inserted</li>
+   *   <li>measures with a different value are updated</li>
+   *   <li>unchanged measures are not written. If a marker is defined, it is set with a single statement per component.</li>
+   * </ul>
+   * Statements are sent to database in JDBC batches when session is a batch session.
+   */
+  public void upsert(DbSession dbSession, Collection<LiveMeasureDto> dtos, @Nullable String marker) {
+    if (dtos.isEmpty()) {
+      return;
+    }
+    Set<String> componentUuids = dtos.stream().map(LiveMeasureDto::getComponentUuid).collect(toSet());
+    Set<Integer> metricIds = dtos.stream().map(LiveMeasureDto::getMetricId).collect(toSet());
+    Table<String, Integer, LiveMeasureDto> dbMeasures = HashBasedTable.create(componentUuids.size(), metricIds.size());
+    selectByComponentUuidsAndMetricIds(dbSession, componentUuids, metricIds)
+      .forEach(dbMeasure -> dbMeasures.put(dbMeasure.getComponentUuid(), dbMeasure.getMetricId(), dbMeasure));
+
+    LiveMeasureMapper mapper = mapper(dbSession);
+    long now = system2.now();
+    ListMultimap<String, Integer> unchangedMetricIdsByComponentUuid = ArrayListMultimap.create();
+    for (LiveMeasureDto dto : dtos) {
+      LiveMeasureDto dbMeasure = dbMeasures.get(dto.getComponentUuid(), dto.getMetricId());
+      if (dbMeasure == null) {
+        mapper.insert(dto, Uuids.create(), marker, now);
+        dbMeasures.put(dto.getComponentUuid(), dto.getMetricId(), dto);
+      } else if (hasSameValue(dto, dbMeasure)) {
+        unchangedMetricIdsByComponentUuid.put(dto.getComponentUuid(), dto.getMetricId());
+      } else {
+        mapper.update(dto, marker, now);
+        dbMeasures.put(dto.getComponentUuid(), dto.getMetricId(), dto);
+      }
+    }
+    if (marker != null) {
+      unchangedMetricIdsByComponentUuid.asMap().forEach((componentUuid, unchangedMetricIds) -> executeLargeUpdates(unchangedMetricIds,
+        partition -> mapper.updateMarker(componentUuid, partition, marker)));
+    }
+  }
+
+  private static boolean hasSameValue(LiveMeasureDto dto, LiveMeasureDto dbMeasure) {
+    return Objects.equals(dto.getValue(), dbMeasure.getValue())
+      && Objects.equals(dto.getVariation(), dbMeasure.getVariation())
+      && Objects.equals(dto.getTextValue(), dbMeasure.getTextValue())
+      && Arrays.equals(dto.getData(), dbMeasure.getData());
+  }
+
   /**
    * Delete the rows that do NOT have the specified marker
    */
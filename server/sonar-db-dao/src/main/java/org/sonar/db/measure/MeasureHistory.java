@@ -0,0 +1,216 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.LongPredicate;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Time series of the measures of a metric on a component, ordered by date of analysis. It is stored in a single
+ * blob, in which dates are encoded as variable-length deltas from the previous point, so that a point costs
+ * a few bytes plus the size of its values.
+ */
+public class MeasureHistory {
+
+  private static final int FORMAT_VERSION = 1;
+  private static final int HAS_VALUE = 1;
+  private static final int HAS_VARIATION = 1 << 1;
+  private static final int HAS_DATA = 1 << 2;
+
+  private final List<Point> points;
+
+  /**
+   * @param points in any order. When several points have the same date, only the last one is kept.
+   */
+  public MeasureHistory(Collection<Point> points) {
+    TreeMap<Long, Point> pointsByDate = new TreeMap<>();
+    points.forEach(point -> pointsByDate.put(point.getDate(), point));
+    this.points = Collections.unmodifiableList(new ArrayList<>(pointsByDate.values()));
+  }
+
+  /**
+   * Points ordered by ascending date
+   */
+  public List<Point> getPoints() {
+    return points;
+  }
+
+  /**
+   * Returns a copy of this history, with the given point replacing any point at the same date
+   */
+  public MeasureHistory add(Point point) {
+    List<Point> result = new ArrayList<>(points.size() + 1);
+    result.addAll(points);
+    result.add(point);
+    return new MeasureHistory(result);
+  }
+
+  /**
+   * Returns a copy of this history with only the points the dates of which match the predicate
+   */
+  public MeasureHistory filterDates(LongPredicate datePredicate) {
+    List<Point> result = new ArrayList<>(points.size());
+    for (Point point : points) {
+      if (datePredicate.test(point.getDate())) {
+        result.add(point);
+      }
+    }
+    return new MeasureHistory(result);
+  }
+
+  public byte[] encode() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeByte(FORMAT_VERSION);
+      writeVarLong(output, points.size());
+      long previousDate = 0L;
+      for (Point point : points) {
+        writeVarLong(output, point.getDate() - previousDate);
+        previousDate = point.getDate();
+        output.writeByte(flags(point));
+        if (point.getValue() != null) {
+          output.writeDouble(point.getValue());
+        }
+        if (point.getVariation() != null) {
+          output.writeDouble(point.getVariation());
+        }
+        if (point.getData() != null) {
+          byte[] data = point.getData().getBytes(StandardCharsets.UTF_8);
+          writeVarLong(output, data.length);
+          output.write(data);
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to encode measure history", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static MeasureHistory decode(byte[] bytes) {
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      int version = input.readUnsignedByte();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalStateException("Unsupported format of measure history: " + version);
+      }
+      int size = (int) readVarLong(input);
+      List<Point> points = new ArrayList<>(size);
+      long date = 0L;
+      for (int i = 0; i < size; i++) {
+        date += readVarLong(input);
+        int flags = input.readUnsignedByte();
+        Double value = (flags & HAS_VALUE) == 0 ? null : input.readDouble();
+        Double variation = (flags & HAS_VARIATION) == 0 ? null : input.readDouble();
+        String data = null;
+        if ((flags & HAS_DATA) != 0) {
+          byte[] dataBytes = new byte[(int) readVarLong(input)];
+          input.readFully(dataBytes);
+          data = new String(dataBytes, StandardCharsets.UTF_8);
+        }
+        points.add(new Point(date, value, variation, data));
+      }
+      return new MeasureHistory(points);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to decode measure history", e);
+    }
+  }
+
+  private static int flags(Point point) {
+    int flags = 0;
+    if (point.getValue() != null) {
+      flags |= HAS_VALUE;
+    }
+    if (point.getVariation() != null) {
+      flags |= HAS_VARIATION;
+    }
+    if (point.getData() != null) {
+      flags |= HAS_DATA;
+    }
+    return flags;
+  }
+
+  private static void writeVarLong(DataOutputStream output, long value) throws IOException {
+    long remaining = value;
+    while ((remaining & ~0x7FL) != 0L) {
+      output.writeByte((int) ((remaining & 0x7F) | 0x80));
+      remaining >>>= 7;
+    }
+    output.writeByte((int) remaining);
+  }
+
+  private static long readVarLong(DataInputStream input) throws IOException {
+    long result = 0L;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = input.readUnsignedByte();
+      result |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+    throw new IllegalStateException("Malformed variable-length number in measure history");
+  }
+
+  public static class Point {
+    private final long date;
+    private final Double value;
+    private final Double variation;
+    private final String data;
+
+    public Point(long date, @Nullable Double value, @Nullable Double variation, @Nullable String data) {
+      this.date = date;
+      this.value = value;
+      this.variation = variation;
+      this.data = data;
+    }
+
+    /**
+     * Date of the analysis
+     */
+    public long getDate() {
+      return date;
+    }
+
+    @CheckForNull
+    public Double getValue() {
+      return value;
+    }
+
+    @CheckForNull
+    public Double getVariation() {
+      return variation;
+    }
+
+    @CheckForNull
+    public String getData() {
+      return data;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.sonar.api.utils.System2;
+import org.sonar.db.Dao;
+import org.sonar.db.DbSession;
+
+import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+
+/**
+ * Histories of the measures of root components (projects, branches and views), one row per component and metric.
+ * They are maintained by the Compute Engine in addition to the table PROJECT_MEASURES.
+ */
+public class MeasureHistoryDao implements Dao {
+
+  private final System2 system2;
+
+  public MeasureHistoryDao(System2 system2) {
+    this.system2 = system2;
+  }
+
+  public List<MeasureHistoryDto> selectByComponentUuidAndMetricIds(DbSession dbSession, String componentUuid, Collection<Integer> metricIds) {
+    if (metricIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return executeLargeInputs(metricIds, ids -> mapper(dbSession).selectByComponentUuidAndMetricIds(componentUuid, ids));
+  }
+
+  public void insert(DbSession dbSession, MeasureHistoryDto dto) {
+    dto.setUpdatedAt(system2.now());
+    mapper(dbSession).insert(dto);
+  }
+
+  public void update(DbSession dbSession, MeasureHistoryDto dto) {
+    dto.setUpdatedAt(system2.now());
+    mapper(dbSession).update(dto);
+  }
+
+  /**
+   * Must not be used with a batch session: the number of updated rows is not known before the session is flushed.
+   * Use {@link #insert(DbSession, MeasureHistoryDto)} or {@link #update(DbSession, MeasureHistoryDto)} instead.
+   */
+  public void insertOrUpdate(DbSession dbSession, MeasureHistoryDto dto) {
+    MeasureHistoryMapper mapper = mapper(dbSession);
+    dto.setUpdatedAt(system2.now());
+    if (mapper.update(dto) == 0) {
+      mapper.insert(dto);
+    }
+  }
+
+  private static MeasureHistoryMapper mapper(DbSession dbSession) {
+    return dbSession.getMapper(MeasureHistoryMapper.class);
+  }
+}
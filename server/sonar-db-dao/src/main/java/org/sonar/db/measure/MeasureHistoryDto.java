@@ -0,0 +1,76 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+public class MeasureHistoryDto {
+
+  private String componentUuid;
+  private int metricId;
+  private byte[] points;
+  private long updatedAt;
+
+  public String getComponentUuid() {
+    return componentUuid;
+  }
+
+  public MeasureHistoryDto setComponentUuid(String componentUuid) {
+    this.componentUuid = componentUuid;
+    return this;
+  }
+
+  public int getMetricId() {
+    return metricId;
+  }
+
+  public MeasureHistoryDto setMetricId(int metricId) {
+    this.metricId = metricId;
+    return this;
+  }
+
+  /**
+   * Points encoded by {@link MeasureHistory#encode()}
+   */
+  public byte[] getPoints() {
+    return points;
+  }
+
+  public MeasureHistoryDto setPoints(byte[] points) {
+    this.points = points;
+    return this;
+  }
+
+  public MeasureHistory getHistory() {
+    return MeasureHistory.decode(points);
+  }
+
+  public MeasureHistoryDto setHistory(MeasureHistory history) {
+    this.points = history.encode();
+    return this;
+  }
+
+  public long getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public MeasureHistoryDto setUpdatedAt(long updatedAt) {
+    this.updatedAt = updatedAt;
+    return this;
+  }
+}
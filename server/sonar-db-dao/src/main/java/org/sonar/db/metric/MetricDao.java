@@ -33,15 +33,29 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.ibatis.session.RowBounds;
 import org.sonar.db.Dao;
+import org.sonar.db.DaoChangeListener;
 import org.sonar.db.DbSession;
 import org.sonar.db.RowNotFoundException;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static org.sonar.db.DaoChangeListener.notifyChange;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 import static org.sonar.db.DatabaseUtils.executeLargeInputsWithoutOutput;
 
 public class MetricDao implements Dao {
 
+  public static final String TABLE = "metrics";
+
+  private final DaoChangeListener[] changeListeners;
+
+  public MetricDao(DaoChangeListener[] changeListeners) {
+    this.changeListeners = changeListeners;
+  }
+
+  public MetricDao() {
+    this(new DaoChangeListener[0]);
+  }
+
   @CheckForNull
   public MetricDto selectByKey(DbSession session, String key) {
     return mapper(session).selectByKey(key);
@@ -82,6 +96,7 @@ public class MetricDao implements Dao {
 
   public MetricDto insert(DbSession session, MetricDto dto) {
     mapper(session).insert(dto);
+    notifyChange(changeListeners, TABLE);
 
     return dto;
   }
@@ -122,6 +137,7 @@ public class MetricDao implements Dao {
 
   public void disableCustomByIds(final DbSession session, List<Integer> ids) {
     executeLargeInputsWithoutOutput(ids, input -> mapper(session).disableByIds(input));
+    notifyChange(changeListeners, TABLE);
   }
 
   /**
@@ -129,11 +145,14 @@ public class MetricDao implements Dao {
    * or is already disabled.
    */
   public boolean disableCustomByKey(DbSession session, String key) {
-    return mapper(session).disableByKey(key) == 1;
+    boolean disabled = mapper(session).disableByKey(key) == 1;
+    notifyChange(changeListeners, TABLE);
+    return disabled;
   }
 
   public void update(DbSession session, MetricDto metric) {
     mapper(session).update(metric);
+    notifyChange(changeListeners, TABLE);
   }
 
   @CheckForNull
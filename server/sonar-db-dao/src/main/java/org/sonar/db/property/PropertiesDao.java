@@ -102,6 +102,18 @@ public class PropertiesDao implements Dao {
     }
   }
 
+  /**
+   * Version of the global properties, which changes each time a global property is inserted, updated or deleted.
+   * Properties are never updated in place but deleted then re-inserted, so any change either removes a row or
+   * creates a row with a greater id.
+   * Note that keys renamed with {@link #renamePropertyKey(String, String)} do not change the version.
+   */
+  public String selectGlobalPropertiesVersion(DbSession session) {
+    PropertiesMapper mapper = getMapper(session);
+    Long maxId = mapper.selectMaxGlobalPropertyId();
+    return mapper.countGlobalProperties() + ":" + (maxId == null ? 0L : maxId);
+  }
+
   public List<PropertyDto> selectGlobalProperties(DbSession session) {
     return getMapper(session).selectGlobalProperties();
   }
@@ -21,6 +21,7 @@ package org.sonar.db.property;
 
 import java.util.List;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.ibatis.annotations.Param;
 
@@ -30,6 +31,11 @@ public interface PropertiesMapper {
 
   List<PropertyDto> selectGlobalProperties();
 
+  long countGlobalProperties();
+
+  @CheckForNull
+  Long selectMaxGlobalPropertyId();
+
   List<PropertyDto> selectProjectProperties(String resourceKey);
 
   PropertyDto selectByKey(PropertyDto key);
@@ -240,10 +240,21 @@ class PurgeCommands {
   }
 
   void deleteFileSources(String rootUuid) {
+    List<String> dataHashes = purgeMapper.selectFileSourceDataHashesByProjectUuid(rootUuid);
+
     profiler.start("deleteFileSources (file_sources)");
     purgeMapper.deleteFileSourcesByProjectUuid(rootUuid);
     session.commit();
     profiler.stop();
+
+    deleteOrphanFileSourceBlobs(dataHashes);
+  }
+
+  void deleteOrphanFileSourceBlobs(List<String> dataHashes) {
+    profiler.start("deleteOrphanFileSourceBlobs (file_source_blobs)");
+    Lists.partition(dataHashes, MAX_RESOURCES_PER_QUERY).forEach(purgeMapper::deleteOrphanFileSourceBlobs);
+    session.commit();
+    profiler.stop();
   }
 
   void deleteCeActivity(String rootUuid) {
@@ -280,4 +291,11 @@ class PurgeCommands {
     session.commit();
     profiler.stop();
   }
+
+  void deleteMeasureHistories(String rootUuid) {
+    profiler.start("deleteMeasureHistories (measure_histories)");
+    purgeMapper.deleteMeasureHistoriesByComponentUuid(rootUuid);
+    session.commit();
+    profiler.stop();
+  }
 }
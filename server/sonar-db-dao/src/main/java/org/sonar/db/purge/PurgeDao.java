@@ -42,6 +42,7 @@ import org.sonar.db.component.ComponentTreeQuery.Strategy;
 import static java.util.Collections.emptyList;
 import static org.sonar.api.utils.DateUtils.dateToLong;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+import static org.sonar.db.DatabaseUtils.executeLargeInputsWithoutOutput;
 
 public class PurgeDao implements Dao {
   private static final Logger LOG = Loggers.get(PurgeDao.class);
@@ -144,12 +145,14 @@ public class PurgeDao implements Dao {
 
   private void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
     PurgeMapper mapper = mapper(session);
-    executeLargeInputs(conf.getDisabledComponentUuids(),
+    List<String> dataHashes = executeLargeInputs(conf.getDisabledComponentUuids(),
       input -> {
+        List<String> hashes = mapper.selectFileSourceDataHashesByFileUuid(input);
         mapper.deleteFileSourcesByFileUuid(input);
         mapper.resolveComponentIssuesNotAlreadyResolved(input, system2.now());
-        return emptyList();
+        return hashes;
       });
+    executeLargeInputsWithoutOutput(dataHashes, mapper::deleteOrphanFileSourceBlobs);
 
     listener.onComponentsDisabling(conf.rootProjectIdUuid().getUuid(), conf.getDisabledComponentUuids());
 
@@ -204,6 +207,7 @@ public class PurgeDao implements Dao {
     commands.deleteWebhookDeliveries(rootUuid);
     commands.deleteBranch(rootUuid);
     commands.deleteLiveMeasures(rootUuid);
+    commands.deleteMeasureHistories(rootUuid);
   }
 
   /**
@@ -86,10 +86,16 @@ public interface PurgeMapper {
 
   void deleteIssueChangesFromIssueKeys(@Param("issueKeys") List<String> issueKeys);
 
+  List<String> selectFileSourceDataHashesByProjectUuid(@Param("rootProjectUuid") String rootProjectUuid);
+
+  List<String> selectFileSourceDataHashesByFileUuid(@Param("fileUuids") List<String> fileUuids);
+
   void deleteFileSourcesByProjectUuid(String rootProjectUuid);
 
   void deleteFileSourcesByFileUuid(@Param("fileUuids") List<String> fileUuids);
 
+  void deleteOrphanFileSourceBlobs(@Param("dataHashes") List<String> dataHashes);
+
   void deleteCeActivityByProjectUuid(@Param("projectUuid") String projectUuid);
 
   void deleteCeQueueByProjectUuid(@Param("projectUuid") String projectUuid);
@@ -99,4 +105,6 @@ public interface PurgeMapper {
   void deleteBranchByUuid(@Param("uuid") String uuid);
 
   void deleteLiveMeasuresByProjectUuid(@Param("projectUuid") String projectUuid);
+
+  void deleteMeasureHistoriesByComponentUuid(@Param("componentUuid") String componentUuid);
 }
@@ -22,12 +22,28 @@ package org.sonar.db.qualitygate;
 import java.util.Collection;
 import java.util.Date;
 import org.sonar.db.Dao;
+import org.sonar.db.DaoChangeListener;
 import org.sonar.db.DbSession;
 
+import static org.sonar.db.DaoChangeListener.notifyChange;
+
 public class QualityGateConditionDao implements Dao {
 
+  public static final String TABLE = "quality_gate_conditions";
+
+  private final DaoChangeListener[] changeListeners;
+
+  public QualityGateConditionDao(DaoChangeListener[] changeListeners) {
+    this.changeListeners = changeListeners;
+  }
+
+  public QualityGateConditionDao() {
+    this(new DaoChangeListener[0]);
+  }
+
   public void insert(QualityGateConditionDto newQualityGate, DbSession session) {
     mapper(session).insert(newQualityGate.setCreatedAt(new Date()));
+    notifyChange(changeListeners, TABLE);
   }
 
   public Collection<QualityGateConditionDto> selectForQualityGate(DbSession session, long qGateId) {
@@ -40,14 +56,17 @@ public class QualityGateConditionDao implements Dao {
 
   public void delete(QualityGateConditionDto qGate, DbSession session) {
     mapper(session).delete(qGate.getId());
+    notifyChange(changeListeners, TABLE);
   }
 
   public void update(QualityGateConditionDto qGate, DbSession session) {
     mapper(session).update(qGate.setUpdatedAt(new Date()));
+    notifyChange(changeListeners, TABLE);
   }
 
   public void deleteConditionsWithInvalidMetrics(DbSession session) {
     mapper(session).deleteConditionsWithInvalidMetrics();
+    notifyChange(changeListeners, TABLE);
   }
 
   private static QualityGateConditionMapper mapper(DbSession session) {
@@ -23,14 +23,30 @@ import java.util.Collection;
 import java.util.Date;
 import javax.annotation.CheckForNull;
 import org.sonar.db.Dao;
+import org.sonar.db.DaoChangeListener;
 import org.sonar.db.DatabaseUtils;
 import org.sonar.db.DbSession;
 import org.sonar.db.organization.OrganizationDto;
 
+import static org.sonar.db.DaoChangeListener.notifyChange;
+
 public class QualityGateDao implements Dao {
 
+  public static final String TABLE = "quality_gates";
+
+  private final DaoChangeListener[] changeListeners;
+
+  public QualityGateDao(DaoChangeListener[] changeListeners) {
+    this.changeListeners = changeListeners;
+  }
+
+  public QualityGateDao() {
+    this(new DaoChangeListener[0]);
+  }
+
   public QualityGateDto insert(DbSession session, QualityGateDto newQualityGate) {
     mapper(session).insertQualityGate(newQualityGate.setCreatedAt(new Date()));
+    notifyChange(changeListeners, TABLE);
 
     return newQualityGate;
   }
@@ -75,11 +91,13 @@ public class QualityGateDao implements Dao {
   public void delete(QualityGateDto qGate, DbSession session) {
     mapper(session).delete(qGate.getUuid());
     mapper(session).deleteOrgQualityGatesByQualityGateUuid(qGate.getUuid());
+    notifyChange(changeListeners, TABLE);
   }
 
   public void deleteByUuids(DbSession session, Collection<String> uuids) {
     QualityGateMapper mapper = mapper(session);
     DatabaseUtils.executeLargeUpdates(uuids, mapper::deleteByUuids);
+    notifyChange(changeListeners, TABLE);
   }
 
   public void deleteOrgQualityGatesByOrganization(DbSession session, OrganizationDto organization) {
@@ -88,10 +106,12 @@ public class QualityGateDao implements Dao {
 
   public void update(QualityGateDto qGate, DbSession session) {
     mapper(session).update(qGate.setUpdatedAt(new Date()));
+    notifyChange(changeListeners, TABLE);
   }
 
   public void ensureOneBuiltInQualityGate(DbSession dbSession, String builtInName) {
     mapper(dbSession).ensureOneBuiltInQualityGate(builtInName);
+    notifyChange(changeListeners, TABLE);
   }
 
   public QualityGateDto selectBuiltIn(DbSession dbSession) {
@@ -31,6 +31,7 @@ import java.util.function.Function;
 import javax.annotation.CheckForNull;
 import org.apache.commons.dbutils.DbUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.ibatis.session.ResultHandler;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.source.FileSourceDto.Type;
@@ -39,9 +40,33 @@ public class FileSourceDao implements Dao {
 
   private static final Splitter END_OF_LINE_SPLITTER = Splitter.on('\n');
 
+  /**
+   * Data of the returned source is loaded from table FILE_SOURCE_BLOBS when it is not stored in
+   * the row of FILE_SOURCES, see {@link #insertBlob(DbSession, String, byte[], long)}.
+   *
+   * @return {@code null} if the file has no source, or if its data is missing from FILE_SOURCE_BLOBS. In the latter
+   * case the source is persisted again by the next analysis of the file.
+   */
   @CheckForNull
   public FileSourceDto selectSourceByFileUuid(DbSession session, String fileUuid) {
-    return mapper(session).select(fileUuid, Type.SOURCE);
+    FileSourceMapper mapper = mapper(session);
+    FileSourceDto dto = mapper.select(fileUuid, Type.SOURCE);
+    if (dto == null || dto.getBinaryData() != null) {
+      return dto;
+    }
+    FileSourceDto blob = dto.getDataHash() == null ? null : mapper.selectBlob(dto.getDataHash());
+    if (blob == null) {
+      return null;
+    }
+    return dto.setBinaryData(blob.getBinaryData());
+  }
+
+  /**
+   * Scrolls the sources of all the files of the project (or branch). Only the uuid of file, the source hash and the line hashes
+   * are loaded. Data must be loaded with {@link #selectSourceByFileUuid(DbSession, String)}.
+   */
+  public void scrollLineHashesByProjectUuid(DbSession dbSession, String projectUuid, ResultHandler<FileSourceDto> handler) {
+    mapper(dbSession).scrollLineHashesForProject(projectUuid, Type.SOURCE, handler);
   }
 
   @CheckForNull
@@ -106,6 +131,25 @@ public class FileSourceDao implements Dao {
     mapper(session).update(dto);
   }
 
+  public boolean blobExists(DbSession session, String dataHash) {
+    return mapper(session).countBlobsByDataHash(dataHash) > 0;
+  }
+
+  /**
+   * Stores data shared by all the sources having the same DATA_HASH, whatever their project or branch.
+   * Such sources are persisted with a null BINARY_DATA.
+   */
+  public void insertBlob(DbSession session, String dataHash, byte[] binaryData, long createdAt) {
+    mapper(session).insertBlob(dataHash, binaryData, createdAt);
+  }
+
+  /**
+   * Deletes the data of the specified hash if it's not referenced by any source anymore.
+   */
+  public void deleteBlobIfOrphan(DbSession session, String dataHash) {
+    mapper(session).deleteOrphanBlob(dataHash);
+  }
+
   private static FileSourceMapper mapper(DbSession session) {
     return session.getMapper(FileSourceMapper.class);
   }
@@ -21,6 +21,7 @@ package org.sonar.db.source;
 
 import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -40,6 +41,11 @@ public class FileSourceDto {
 
   private static final String SIZE_LIMIT_EXCEEDED_EXCEPTION_MESSAGE = "Protocol message was too large.  May be malicious.  " +
     "Use CodedInputStream.setSizeLimit() to increase the size limit.";
+  private static final int LINES_TAG = tag(DbFileSources.Data.LINES_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+  private static final int LINE_TAG = tag(DbFileSources.Line.LINE_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
+  private static final int SCM_REVISION_TAG = tag(DbFileSources.Line.SCM_REVISION_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+  private static final int SCM_AUTHOR_TAG = tag(DbFileSources.Line.SCM_AUTHOR_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+  private static final int SCM_DATE_TAG = tag(DbFileSources.Line.SCM_DATE_FIELD_NUMBER, WireFormat.WIRETYPE_VARINT);
 
   private Long id;
   private String projectUuid;
@@ -122,6 +128,54 @@ public class FileSourceDto {
     }
   }
 
+  /**
+   * Decompress the column BINARY_DATA but deserialize only the line numbers and the SCM fields of lines. Other
+   * fields (source, highlighting, coverage, ...) are skipped without being decoded.
+   */
+  public static DbFileSources.Data decodeScmData(byte[] binaryData) {
+    DbFileSources.Data.Builder data = DbFileSources.Data.newBuilder();
+    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
+      CodedInputStream input = CodedInputStream.newInstance(lz4Input);
+      input.setSizeLimit(Integer.MAX_VALUE);
+      int tag;
+      while ((tag = input.readTag()) != 0) {
+        if (tag == LINES_TAG) {
+          int oldLimit = input.pushLimit(input.readRawVarint32());
+          data.addLines(decodeScmLine(input));
+          input.popLimit(oldLimit);
+        } else {
+          input.skipField(tag);
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to decompress and deserialize SCM data", e);
+    }
+    return data.build();
+  }
+
+  private static DbFileSources.Line decodeScmLine(CodedInputStream input) throws IOException {
+    DbFileSources.Line.Builder line = DbFileSources.Line.newBuilder();
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag == LINE_TAG) {
+        line.setLine(input.readInt32());
+      } else if (tag == SCM_REVISION_TAG) {
+        line.setScmRevision(input.readString());
+      } else if (tag == SCM_AUTHOR_TAG) {
+        line.setScmAuthor(input.readString());
+      } else if (tag == SCM_DATE_TAG) {
+        line.setScmDate(input.readInt64());
+      } else {
+        input.skipField(tag);
+      }
+    }
+    return line.build();
+  }
+
+  private static int tag(int fieldNumber, int wireType) {
+    return (fieldNumber << 3) | wireType;
+  }
+
   /**
    * Serialize and compress protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
    * in the column BINARY_DATA.
@@ -22,15 +22,27 @@ package org.sonar.db.source;
 import java.util.List;
 import javax.annotation.CheckForNull;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 public interface FileSourceMapper {
 
   List<FileSourceDto> selectHashesForProject(@Param("projectUuid") String projectUuid, @Param("dataType") String dataType);
 
+  void scrollLineHashesForProject(@Param("projectUuid") String projectUuid, @Param("dataType") String dataType, ResultHandler<FileSourceDto> handler);
+
   @CheckForNull
   FileSourceDto select(@Param("fileUuid") String fileUuid, @Param("dataType") String dataType);
 
+  @CheckForNull
+  FileSourceDto selectBlob(@Param("dataHash") String dataHash);
+
+  int countBlobsByDataHash(@Param("dataHash") String dataHash);
+
   void insert(FileSourceDto dto);
 
+  void insertBlob(@Param("dataHash") String dataHash, @Param("binaryData") byte[] binaryData, @Param("createdAt") long createdAt);
+
+  void deleteOrphanBlob(@Param("dataHash") String dataHash);
+
   void update(FileSourceDto dto);
 }
@@ -426,6 +426,22 @@ public class CeQueueDaoTest {
     assertThat(peek.get().getExecutionCount()).isEqualTo(1);
   }
 
+  @Test
+  public void peek_only_short_living_branches_if_requested() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 3_000_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
+    insertCharacteristic(TASK_UUID_1, CeTaskCharacteristicDto.BRANCH_TYPE_KEY, "LONG");
+    insertCharacteristic(TASK_UUID_2, CeTaskCharacteristicDto.BRANCH_TYPE_KEY, CeTaskCharacteristicDto.SHORT_LIVING_BRANCH_TYPE);
+
+    Optional<CeQueueDto> peek = underTest.peek(db.getSession(), WORKER_UUID_1, MAX_EXECUTION_COUNT, true);
+    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
+    verifyCeQueueStatuses(TASK_UUID_1, PENDING, TASK_UUID_2, IN_PROGRESS);
+
+    assertThat(underTest.peek(db.getSession(), WORKER_UUID_2, MAX_EXECUTION_COUNT, true).isPresent()).isFalse();
+    assertThat(underTest.peek(db.getSession(), WORKER_UUID_2, MAX_EXECUTION_COUNT, false).get().getUuid()).isEqualTo(TASK_UUID_1);
+  }
+
   @Test
   public void peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount_0() {
     peek_ignores_rows_with_executionCount_greater_or_equal_to_specified_maxExecutionCount(0, null);
@@ -597,6 +613,15 @@ public class CeQueueDaoTest {
     assertThat(underTest.countByStatus(db.getSession(), IN_PROGRESS)).isEqualTo(2);
   }
 
+  private void insertCharacteristic(String taskUuid, String key, String value) {
+    db.getDbClient().ceTaskCharacteristicsDao().insert(db.getSession(), singletonList(new CeTaskCharacteristicDto()
+      .setUuid(taskUuid + key)
+      .setTaskUuid(taskUuid)
+      .setKey(key)
+      .setValue(value)));
+    db.commit();
+  }
+
   private void insert(CeQueueDto dto) {
     underTest.insert(db.getSession(), dto);
     db.commit();
@@ -1370,6 +1370,41 @@ public class ComponentDaoTest {
     assertThat(result).extracting("uuid").containsOnly("file-1-uuid", "file-2-uuid", "module-1-uuid");
   }
 
+  @Test
+  public void select_page_of_descendants_sorted_in_db() {
+    ComponentDto project = newPrivateProjectDto(db.getDefaultOrganization(), PROJECT_UUID);
+    db.components().insertProjectAndSnapshot(project);
+    ComponentDto fileB = db.components().insertComponent(newFileDto(project, null, "file-b-uuid").setName("b").setPath("src/z"));
+    ComponentDto fileA = db.components().insertComponent(newFileDto(project, null, "file-a-uuid").setName("A").setPath("src/y"));
+    ComponentDto fileC = db.components().insertComponent(newFileDto(project, null, "file-c-uuid").setName("c").setPath(null));
+    ComponentDto directory = db.components().insertComponent(newDirectory(project, "dir-uuid", "src").setName("C"));
+    db.commit();
+
+    ComponentTreeQuery byName = newTreeQuery(PROJECT_UUID).setSort(singletonList(ComponentTreeQuery.SortField.NAME), true).build();
+    assertThat(underTest.selectDescendants(dbSession, byName, 0, 10)).extracting(ComponentDto::uuid)
+      .containsExactly(fileA.uuid(), fileB.uuid(), directory.uuid(), fileC.uuid());
+    assertThat(underTest.selectDescendants(dbSession, byName, 1, 2)).extracting(ComponentDto::uuid)
+      .containsExactly(fileB.uuid(), directory.uuid());
+    assertThat(underTest.countDescendants(dbSession, byName)).isEqualTo(4);
+
+    // null paths are last, whatever the direction
+    ComponentTreeQuery byPathDesc = newTreeQuery(PROJECT_UUID).setSort(singletonList(ComponentTreeQuery.SortField.PATH), false).build();
+    assertThat(underTest.selectDescendants(dbSession, byPathDesc, 0, 10)).extracting(ComponentDto::uuid)
+      .containsExactly(fileB.uuid(), fileA.uuid(), directory.uuid(), fileC.uuid());
+
+    // ties are sorted by ascending name
+    ComponentTreeQuery byQualifier = newTreeQuery(PROJECT_UUID).setSort(singletonList(ComponentTreeQuery.SortField.QUALIFIER), true)
+      .setQualifiers(asList(Qualifiers.FILE)).build();
+    assertThat(underTest.selectDescendants(dbSession, byQualifier, 0, 10)).extracting(ComponentDto::uuid)
+      .containsExactly(fileA.uuid(), fileB.uuid(), fileC.uuid());
+    assertThat(underTest.countDescendants(dbSession, byQualifier)).isEqualTo(3);
+  }
+
+  @Test
+  public void count_descendants_returns_zero_if_base_component_does_not_exist() {
+    assertThat(underTest.countDescendants(dbSession, newTreeQuery(PROJECT_UUID).build())).isZero();
+  }
+
   @Test
   public void select_descendants_returns_empty_list_if_base_component_does_not_exist() {
     ComponentTreeQuery query = newTreeQuery(PROJECT_UUID).setStrategy(CHILDREN).build();
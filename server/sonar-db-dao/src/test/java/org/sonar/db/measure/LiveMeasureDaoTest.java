@@ -231,6 +231,59 @@ public class LiveMeasureDaoTest {
     verifyTableSize(1);
   }
 
+  @Test
+  public void upsert_inserts_missing_measures_and_updates_changed_measures() {
+    LiveMeasureDto unchanged = newLiveMeasure();
+    LiveMeasureDto changed = newLiveMeasure();
+    underTest.insertOrUpdate(db.getSession(), unchanged, "old");
+    underTest.insertOrUpdate(db.getSession(), changed, "old");
+    LiveMeasureDto missing = newLiveMeasure();
+
+    changed.setValue(changed.getValue() + 1);
+    changed.setData(changed.getDataAsString() + "_new");
+    underTest.upsert(db.getSession(), asList(unchanged, changed, missing), "new");
+
+    verifyTableSize(3);
+    verifyPersisted(unchanged);
+    verifyPersisted(changed);
+    verifyPersisted(missing);
+    assertThat(selectMarker(unchanged)).isEqualTo("new");
+    assertThat(selectMarker(changed)).isEqualTo("new");
+    assertThat(selectMarker(missing)).isEqualTo("new");
+  }
+
+  @Test
+  public void upsert_does_not_change_marker_of_unchanged_measures_if_marker_is_null() {
+    LiveMeasureDto unchanged = newLiveMeasure();
+    underTest.insertOrUpdate(db.getSession(), unchanged, "old");
+
+    underTest.upsert(db.getSession(), singletonList(unchanged), null);
+
+    verifyPersisted(unchanged);
+    assertThat(selectMarker(unchanged)).isEqualTo("old");
+  }
+
+  @Test
+  public void upsert_supports_several_measures_of_same_component_and_metric() {
+    LiveMeasureDto measure = newLiveMeasure();
+    LiveMeasureDto sameKey = newLiveMeasure()
+      .setComponentUuid(measure.getComponentUuid())
+      .setProjectUuid(measure.getProjectUuid())
+      .setMetricId(measure.getMetricId());
+
+    underTest.upsert(db.getSession(), asList(measure, sameKey), "foo");
+
+    verifyTableSize(1);
+    verifyPersisted(sameKey);
+  }
+
+  @Test
+  public void upsert_does_nothing_if_no_measures() {
+    underTest.upsert(db.getSession(), emptyList(), "foo");
+
+    verifyTableSize(0);
+  }
+
   @Test
   public void deleteByProjectUuidExcludingMarker() {
     LiveMeasureDto measure1 = newLiveMeasure().setProjectUuid("P1");
@@ -252,6 +305,11 @@ public class LiveMeasureDaoTest {
     verifyPersisted(measure5OtherProject);
   }
 
+  private String selectMarker(LiveMeasureDto dto) {
+    return (String) db.selectFirst(db.getSession(), "select update_marker as \"marker\" from live_measures where component_uuid='"
+      + dto.getComponentUuid() + "' and metric_id=" + dto.getMetricId()).get("marker");
+  }
+
   private void verifyTableSize(int expectedSize) {
     assertThat(db.countRowsOfTable(db.getSession(), "live_measures")).isEqualTo(expectedSize);
   }
@@ -0,0 +1,89 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+public class MeasureHistoryDaoTest {
+
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000L);
+
+  @Rule
+  public DbTester db = DbTester.create(system2);
+
+  private MeasureHistoryDao underTest = db.getDbClient().measureHistoryDao();
+
+  @Test
+  public void insert_then_update() {
+    underTest.insertOrUpdate(db.getSession(), newDto("P1", 10, 1.0));
+    underTest.insertOrUpdate(db.getSession(), newDto("P1", 11, 2.0));
+    system2.setNow(2_000L);
+    underTest.insertOrUpdate(db.getSession(), newDto("P1", 10, 3.0));
+
+    assertThat(underTest.selectByComponentUuidAndMetricIds(db.getSession(), "P1", asList(10, 11, 12)))
+      .extracting(MeasureHistoryDto::getMetricId, dto -> dto.getHistory().getPoints().get(0).getValue(), MeasureHistoryDto::getUpdatedAt)
+      .containsExactlyInAnyOrder(tuple(10, 3.0, 2_000L), tuple(11, 2.0, 1_000L));
+  }
+
+  @Test
+  public void insert_then_update_in_batch_session() {
+    try (DbSession batchSession = db.getDbClient().openSession(true)) {
+      underTest.insert(batchSession, newDto("P1", 10, 1.0));
+      batchSession.commit();
+      system2.setNow(2_000L);
+      underTest.update(batchSession, newDto("P1", 10, 3.0));
+      batchSession.commit();
+    }
+
+    assertThat(underTest.selectByComponentUuidAndMetricIds(db.getSession(), "P1", singletonList(10)))
+      .extracting(MeasureHistoryDto::getMetricId, dto -> dto.getHistory().getPoints().get(0).getValue(), MeasureHistoryDto::getUpdatedAt)
+      .containsExactly(tuple(10, 3.0, 2_000L));
+  }
+
+  @Test
+  public void select_by_component_and_metrics() {
+    underTest.insertOrUpdate(db.getSession(), newDto("P1", 10, 1.0));
+    underTest.insertOrUpdate(db.getSession(), newDto("P1", 11, 1.0));
+    underTest.insertOrUpdate(db.getSession(), newDto("P2", 10, 1.0));
+
+    assertThat(underTest.selectByComponentUuidAndMetricIds(db.getSession(), "P1", singletonList(10)))
+      .extracting(MeasureHistoryDto::getComponentUuid, MeasureHistoryDto::getMetricId)
+      .containsExactly(tuple("P1", 10));
+    assertThat(underTest.selectByComponentUuidAndMetricIds(db.getSession(), "P3", singletonList(10))).isEmpty();
+    assertThat(underTest.selectByComponentUuidAndMetricIds(db.getSession(), "P1", emptyList())).isEmpty();
+  }
+
+  private static MeasureHistoryDto newDto(String componentUuid, int metricId, double value) {
+    return new MeasureHistoryDto()
+      .setComponentUuid(componentUuid)
+      .setMetricId(metricId)
+      .setHistory(new MeasureHistory(singletonList(new MeasureHistory.Point(500L, value, null, null))));
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.measure;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+public class MeasureHistoryTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void points_are_sorted_by_date_and_unique_by_date() {
+    MeasureHistory underTest = new MeasureHistory(asList(
+      new MeasureHistory.Point(3_000L, 3.0, null, null),
+      new MeasureHistory.Point(1_000L, 1.0, null, null),
+      new MeasureHistory.Point(3_000L, 4.0, null, null)));
+
+    assertThat(underTest.getPoints())
+      .extracting(MeasureHistory.Point::getDate, MeasureHistory.Point::getValue)
+      .containsExactly(tuple(1_000L, 1.0), tuple(3_000L, 4.0));
+  }
+
+  @Test
+  public void encode_and_decode() {
+    MeasureHistory history = new MeasureHistory(asList(
+      new MeasureHistory.Point(1_500_000_000_000L, 12.5, -3.0, null),
+      new MeasureHistory.Point(1_500_000_086_400L, null, null, "OK"),
+      new MeasureHistory.Point(1_600_000_000_000L, 0.0, null, "h\u00e9llo"),
+      new MeasureHistory.Point(1_600_000_000_001L, null, 7.25, null)));
+
+    MeasureHistory decoded = MeasureHistory.decode(history.encode());
+
+    assertThat(decoded.getPoints())
+      .extracting(MeasureHistory.Point::getDate, MeasureHistory.Point::getValue, MeasureHistory.Point::getVariation, MeasureHistory.Point::getData)
+      .containsExactly(
+        tuple(1_500_000_000_000L, 12.5, -3.0, null),
+        tuple(1_500_000_086_400L, null, null, "OK"),
+        tuple(1_600_000_000_000L, 0.0, null, "h\u00e9llo"),
+        tuple(1_600_000_000_001L, null, 7.25, null));
+  }
+
+  @Test
+  public void dates_are_delta_encoded() {
+    MeasureHistory history = new MeasureHistory(asList(
+      new MeasureHistory.Point(1_500_000_000_000L, 1.0, null, null),
+      new MeasureHistory.Point(1_500_000_000_100L, 1.0, null, null)));
+
+    // version + size + (6 bytes for first date + flags + value) + (1 byte for delta + flags + value)
+    assertThat(history.encode()).hasSize(1 + 1 + (6 + 1 + 8) + (1 + 1 + 8));
+  }
+
+  @Test
+  public void encode_and_decode_empty_history() {
+    assertThat(MeasureHistory.decode(new MeasureHistory(emptyList()).encode()).getPoints()).isEmpty();
+  }
+
+  @Test
+  public void add_replaces_point_at_same_date() {
+    MeasureHistory history = new MeasureHistory(asList(new MeasureHistory.Point(1_000L, 1.0, null, null)))
+      .add(new MeasureHistory.Point(2_000L, 2.0, null, null))
+      .add(new MeasureHistory.Point(1_000L, 3.0, null, null));
+
+    assertThat(history.getPoints())
+      .extracting(MeasureHistory.Point::getDate, MeasureHistory.Point::getValue)
+      .containsExactly(tuple(1_000L, 3.0), tuple(2_000L, 2.0));
+  }
+
+  @Test
+  public void filterDates() {
+    MeasureHistory history = new MeasureHistory(asList(
+      new MeasureHistory.Point(1_000L, 1.0, null, null),
+      new MeasureHistory.Point(2_000L, 2.0, null, null)));
+
+    assertThat(history.filterDates(date -> date > 1_500L).getPoints())
+      .extracting(MeasureHistory.Point::getDate)
+      .containsExactly(2_000L);
+  }
+
+  @Test
+  public void fail_to_decode_unknown_format() {
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Unsupported format of measure history: 2");
+
+    MeasureHistory.decode(new byte[] {2, 0});
+  }
+}
@@ -178,6 +178,32 @@ public class PropertiesDaoTest {
       .hasValue("two");
   }
 
+  @Test
+  public void selectGlobalPropertiesVersion_changes_when_global_properties_change() {
+    String initial = underTest.selectGlobalPropertiesVersion(session);
+
+    underTest.saveProperty(session, new PropertyDto().setKey("global.one").setValue("one"));
+    String afterInsert = underTest.selectGlobalPropertiesVersion(session);
+    assertThat(afterInsert).isNotEqualTo(initial);
+
+    underTest.saveProperty(session, new PropertyDto().setKey("global.one").setValue("two"));
+    String afterUpdate = underTest.selectGlobalPropertiesVersion(session);
+    assertThat(afterUpdate).isNotEqualTo(afterInsert);
+
+    underTest.deleteGlobalProperty("global.one", session);
+    assertThat(underTest.selectGlobalPropertiesVersion(session)).isNotEqualTo(afterUpdate);
+  }
+
+  @Test
+  public void selectGlobalPropertiesVersion_ignores_project_and_user_properties() {
+    String initial = underTest.selectGlobalPropertiesVersion(session);
+
+    insertProperty("project.one", "one", 10L, null);
+    insertProperty("user.one", "one", null, 100);
+
+    assertThat(underTest.selectGlobalPropertiesVersion(session)).isEqualTo(initial);
+  }
+
   @Test
   @UseDataProvider("allValuesForSelect")
   public void selectGlobalProperties_supports_all_values(String dbValue, String expected) throws SQLException {
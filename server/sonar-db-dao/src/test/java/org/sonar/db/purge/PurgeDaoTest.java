@@ -49,10 +49,13 @@ import org.sonar.db.component.ComponentDbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureHistory;
+import org.sonar.db.measure.MeasureHistoryDto;
 import org.sonar.db.measure.custom.CustomMeasureDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.property.PropertyDto;
 import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.db.source.FileSourceDto;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
@@ -204,6 +207,23 @@ public class PurgeDaoTest {
     assertThat(dbTester.countRowsOfTable("projects")).isEqualTo(1);
   }
 
+  @Test
+  public void delete_file_source_blobs_not_shared_with_another_branch_when_deleting_branch() {
+    ComponentDto project = dbTester.components().insertMainBranch();
+    ComponentDto branch = dbTester.components().insertProjectBranch(project);
+    insertSharedFileSource(project, "file1", "SHARED_HASH");
+    insertSharedFileSource(branch, "file2", "SHARED_HASH");
+    insertSharedFileSource(branch, "file3", "BRANCH_HASH");
+    dbSession.commit();
+
+    underTest.deleteBranch(dbSession, branch.uuid());
+    dbSession.commit();
+
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(1);
+    assertThat(dbClient.fileSourceDao().blobExists(dbSession, "SHARED_HASH")).isTrue();
+    assertThat(dbClient.fileSourceDao().blobExists(dbSession, "BRANCH_HASH")).isFalse();
+  }
+
   @Test
   public void delete_project_in_ce_activity_when_deleting_project() {
     ComponentDto projectToBeDeleted = ComponentTesting.newPrivateProjectDto(dbTester.getDefaultOrganization());
@@ -416,6 +436,21 @@ public class PurgeDaoTest {
     assertThat(dbClient.liveMeasureDao().selectByComponentUuidsAndMetricIds(dbSession, asList(project2.uuid(), module2.uuid()), asList(metric.getId()))).hasSize(2);
   }
 
+  @Test
+  public void delete_measure_histories_when_deleting_project() {
+    MetricDto metric = dbTester.measures().insertMetric();
+    ComponentDto project1 = dbTester.components().insertPublicProject();
+    ComponentDto project2 = dbTester.components().insertPublicProject();
+    MeasureHistory history = new MeasureHistory(singletonList(new MeasureHistory.Point(1_000L, 2.0, null, null)));
+    dbClient.measureHistoryDao().insertOrUpdate(dbSession, new MeasureHistoryDto().setComponentUuid(project1.uuid()).setMetricId(metric.getId()).setHistory(history));
+    dbClient.measureHistoryDao().insertOrUpdate(dbSession, new MeasureHistoryDto().setComponentUuid(project2.uuid()).setMetricId(metric.getId()).setHistory(history));
+
+    underTest.deleteProject(dbSession, project1.uuid());
+
+    assertThat(dbClient.measureHistoryDao().selectByComponentUuidAndMetricIds(dbSession, project1.uuid(), asList(metric.getId()))).isEmpty();
+    assertThat(dbClient.measureHistoryDao().selectByComponentUuidAndMetricIds(dbSession, project2.uuid(), asList(metric.getId()))).hasSize(1);
+  }
+
   private void verifyNoEffect(ComponentDto firstRoot, ComponentDto... otherRoots) {
     DbSession dbSession = mock(DbSession.class);
 
@@ -656,4 +691,16 @@ public class PurgeDaoTest {
     return new PurgeConfiguration(new IdUuidPair(THE_PROJECT_ID, rootProjectUuid), emptyList(), 30, Optional.of(30), system2, asList(disabledComponentUuids));
   }
 
+  private void insertSharedFileSource(ComponentDto project, String fileUuid, String dataHash) {
+    dbClient.fileSourceDao().insert(dbSession, new FileSourceDto()
+      .setProjectUuid(project.uuid())
+      .setFileUuid(fileUuid)
+      .setDataType(FileSourceDto.Type.SOURCE)
+      .setDataHash(dataHash)
+      .setCreatedAt(1_500_000_000_000L)
+      .setUpdatedAt(1_500_000_000_000L));
+    if (!dbClient.fileSourceDao().blobExists(dbSession, dataHash)) {
+      dbClient.fileSourceDao().insertBlob(dbSession, dataHash, dataHash.getBytes(), 1_500_000_000_000L);
+    }
+  }
 }
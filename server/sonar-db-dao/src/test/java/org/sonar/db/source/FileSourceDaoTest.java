@@ -21,6 +21,8 @@ package org.sonar.db.source;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
@@ -59,6 +61,114 @@ public class FileSourceDaoTest {
     assertThat(fileSourceDto.getRevision()).isEqualTo("123456789");
   }
 
+  @Test
+  public void select_loads_data_shared_by_sources_having_same_data_hash() {
+    underTest.insert(session, new FileSourceDto()
+      .setProjectUuid("PRJ_UUID")
+      .setFileUuid("FILE2_UUID")
+      .setDataHash("FILE2_DATA_HASH")
+      .setDataType(Type.SOURCE)
+      .setCreatedAt(1500000000000L)
+      .setUpdatedAt(1500000000001L));
+    underTest.insertBlob(session, "FILE2_DATA_HASH", "FILE2_BINARY_DATA".getBytes(), 1500000000000L);
+    session.commit();
+
+    FileSourceDto fileSourceDto = underTest.selectSourceByFileUuid(session, "FILE2_UUID");
+
+    assertThat(fileSourceDto.getBinaryData()).isEqualTo("FILE2_BINARY_DATA".getBytes());
+    assertThat(underTest.blobExists(session, "FILE2_DATA_HASH")).isTrue();
+    assertThat(underTest.blobExists(session, "unknown")).isFalse();
+  }
+
+  @Test
+  public void select_returns_null_if_shared_data_is_missing() {
+    underTest.insert(session, new FileSourceDto()
+      .setProjectUuid("PRJ_UUID")
+      .setFileUuid("FILE2_UUID")
+      .setDataHash("FILE2_DATA_HASH")
+      .setDataType(Type.SOURCE)
+      .setCreatedAt(1500000000000L)
+      .setUpdatedAt(1500000000001L));
+    session.commit();
+
+    assertThat(underTest.selectSourceByFileUuid(session, "FILE2_UUID")).isNull();
+  }
+
+  @Test
+  public void deleteBlobIfOrphan_deletes_only_data_not_referenced_by_sources() {
+    underTest.insert(session, new FileSourceDto()
+      .setProjectUuid("PRJ_UUID")
+      .setFileUuid("FILE2_UUID")
+      .setDataHash("FILE2_DATA_HASH")
+      .setDataType(Type.SOURCE)
+      .setCreatedAt(1500000000000L)
+      .setUpdatedAt(1500000000001L));
+    underTest.insertBlob(session, "FILE2_DATA_HASH", "FILE2_BINARY_DATA".getBytes(), 1500000000000L);
+    underTest.insertBlob(session, "ORPHAN_DATA_HASH", "ORPHAN_BINARY_DATA".getBytes(), 1500000000000L);
+    session.commit();
+
+    underTest.deleteBlobIfOrphan(session, "FILE2_DATA_HASH");
+    underTest.deleteBlobIfOrphan(session, "ORPHAN_DATA_HASH");
+    session.commit();
+
+    assertThat(underTest.blobExists(session, "FILE2_DATA_HASH")).isTrue();
+    assertThat(underTest.blobExists(session, "ORPHAN_DATA_HASH")).isFalse();
+  }
+
+  @Test
+  public void scrollLineHashesByProjectUuid() {
+    underTest.insert(session, new FileSourceDto()
+      .setProjectUuid("PRJ_UUID")
+      .setFileUuid("FILE1_UUID")
+      .setBinaryData("FILE1_BINARY_DATA".getBytes())
+      .setDataHash("FILE1_DATA_HASH")
+      .setLineHashes("LINE1_HASH\nLINE2_HASH")
+      .setSrcHash("FILE1_HASH")
+      .setDataType(Type.SOURCE)
+      .setCreatedAt(1500000000000L)
+      .setUpdatedAt(1500000000001L));
+    underTest.insert(session, new FileSourceDto()
+      .setProjectUuid("PRJ_UUID")
+      .setFileUuid("FILE2_UUID")
+      .setDataHash("FILE2_DATA_HASH")
+      .setSrcHash("FILE2_HASH")
+      .setDataType(Type.SOURCE)
+      .setCreatedAt(1500000000000L)
+      .setUpdatedAt(1500000000001L));
+    underTest.insertBlob(session, "FILE2_DATA_HASH", "FILE2_BINARY_DATA".getBytes(), 1500000000000L);
+    underTest.insert(session, new FileSourceDto()
+      .setProjectUuid("PRJ_UUID")
+      .setFileUuid("TEST_UUID")
+      .setBinaryData("TEST_BINARY_DATA".getBytes())
+      .setDataType(Type.TEST)
+      .setCreatedAt(1500000000000L)
+      .setUpdatedAt(1500000000001L));
+    underTest.insert(session, new FileSourceDto()
+      .setProjectUuid("OTHER_PRJ_UUID")
+      .setFileUuid("OTHER_FILE_UUID")
+      .setBinaryData("OTHER_BINARY_DATA".getBytes())
+      .setDataType(Type.SOURCE)
+      .setCreatedAt(1500000000000L)
+      .setUpdatedAt(1500000000001L));
+    session.commit();
+
+    Map<String, FileSourceDto> dtosByFileUuid = new HashMap<>();
+    underTest.scrollLineHashesByProjectUuid(session, "PRJ_UUID", context -> {
+      FileSourceDto dto = context.getResultObject();
+      dtosByFileUuid.put(dto.getFileUuid(), dto);
+    });
+
+    assertThat(dtosByFileUuid).containsOnlyKeys("FILE1_UUID", "FILE2_UUID");
+    FileSourceDto file1 = dtosByFileUuid.get("FILE1_UUID");
+    assertThat(file1.getSrcHash()).isEqualTo("FILE1_HASH");
+    assertThat(file1.getLineHashes()).isEqualTo("LINE1_HASH\nLINE2_HASH");
+    assertThat(file1.getBinaryData()).isNull();
+    FileSourceDto file2 = dtosByFileUuid.get("FILE2_UUID");
+    assertThat(file2.getSrcHash()).isEqualTo("FILE2_HASH");
+    assertThat(file2.getLineHashes()).isNull();
+    assertThat(file2.getBinaryData()).isNull();
+  }
+
   @Test
   public void select_line_hashes() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
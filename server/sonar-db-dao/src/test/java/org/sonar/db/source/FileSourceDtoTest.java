@@ -54,6 +54,35 @@ public class FileSourceDtoTest {
     assertThat(underTest.getTestData().get(0).getName()).isEqualTo("name#1");
   }
 
+  @Test
+  public void decodeScmData_reads_only_line_numbers_and_scm_fields() {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder()
+        .setLine(1)
+        .setSource("class Foo {")
+        .setScmRevision("rev1")
+        .setScmAuthor("john")
+        .setScmDate(1500000000000L)
+        .setHighlighting("0,5,k")
+        .addDuplication(2)
+        .setLineHits(3))
+      .addLines(DbFileSources.Line.newBuilder()
+        .setLine(2)
+        .setSource("}")
+        .setScmRevision("rev2")
+        .setScmDate(1500000000001L))
+      .addLines(DbFileSources.Line.newBuilder()
+        .setLine(3))
+      .build();
+
+    DbFileSources.Data scmData = FileSourceDto.decodeScmData(FileSourceDto.encodeSourceData(data));
+
+    assertThat(scmData.getLinesList()).containsExactly(
+      DbFileSources.Line.newBuilder().setLine(1).setScmRevision("rev1").setScmAuthor("john").setScmDate(1500000000000L).build(),
+      DbFileSources.Line.newBuilder().setLine(2).setScmRevision("rev2").setScmDate(1500000000001L).build(),
+      DbFileSources.Line.newBuilder().setLine(3).build());
+  }
+
   @Test
   public void getSourceData_throws_ISE_with_id_fileUuid_and_projectUuid_in_message_when_data_cant_be_read() {
     long id = 12L;
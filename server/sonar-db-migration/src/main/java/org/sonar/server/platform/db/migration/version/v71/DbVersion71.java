@@ -27,6 +27,9 @@ public class DbVersion71 implements DbVersion {
   @Override
   public void addSteps(MigrationStepRegistry registry) {
     registry
-      .add(2000, "Delete settings defined in sonar.properties from PROPERTIES table", DeleteSettingsDefinedInSonarDotProperties.class);
+      .add(2000, "Delete settings defined in sonar.properties from PROPERTIES table", DeleteSettingsDefinedInSonarDotProperties.class)
+      .add(2001, "Create table FILE_SOURCE_BLOBS", CreateTableFileSourceBlobs.class)
+      .add(2002, "Add index on FILE_SOURCES.DATA_HASH", AddIndexOnDataHashOfFileSources.class)
+      .add(2003, "Create table MEASURE_HISTORIES", CreateTableMeasureHistories.class);
   }
 }
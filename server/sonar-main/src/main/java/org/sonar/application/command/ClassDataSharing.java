@@ -0,0 +1,202 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.application.command;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.lang.String.format;
+
+/**
+ * Application Class-Data Sharing (AppCDS) of the Java processes, available since Java 11:
+ * <ul>
+ *   <li>first startup records the list of the classes loaded by the process</li>
+ *   <li>next startup dumps these classes into an archive, which is memory-mapped by the JVM
+ *   instead of loading and verifying classes from jar files</li>
+ * </ul>
+ * Files are stored in a directory named after the fingerprint of the JVM, of the jars of the
+ * classpath and of the installed plugins. Upgrading SonarQube, the JVM or a plugin changes the fingerprint,
+ * so the obsolete files are dropped and the class list is recorded again.
+ */
+class ClassDataSharing {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ClassDataSharing.class);
+  private static final int MIN_JAVA_VERSION = 11;
+  private static final long DUMP_TIMEOUT_MINUTES = 5;
+  private static final String CLASS_LIST_FILENAME = "classes.lst";
+  private static final String ARCHIVE_FILENAME = "classes.jsa";
+
+  private final File homeDir;
+  private final File cdsDir;
+  private final File javaHome;
+  private final String javaVersion;
+
+  ClassDataSharing(File homeDir, File dataDir, File javaHome, String javaVersion) {
+    this.homeDir = homeDir;
+    this.cdsDir = new File(dataDir, "cds");
+    this.javaHome = javaHome;
+    this.javaVersion = javaVersion;
+  }
+
+  static ClassDataSharing create(File homeDir, File dataDir) {
+    return new ClassDataSharing(homeDir, dataDir, new File(System.getProperty("java.home")), System.getProperty("java.version"));
+  }
+
+  /**
+   * Adds the JVM options required to either record the list of loaded classes or to use
+   * the archive of these classes. The archive is dumped synchronously if the class list
+   * has been recorded by a previous startup.
+   */
+  void configure(JavaCommand<?> command) {
+    if (!isSupported(javaVersion)) {
+      LOG.warn("Class data sharing of process [{}] is ignored. It requires Java {} or greater.", command.getProcessId().getKey(), MIN_JAVA_VERSION);
+      return;
+    }
+    String processKey = command.getProcessId().getKey();
+    String dirName = processKey + "-" + fingerprint(command);
+    File dir = new File(cdsDir, dirName);
+    deleteObsoleteDirs(processKey, dirName);
+    File classList = new File(dir, CLASS_LIST_FILENAME);
+    File archive = new File(dir, ARCHIVE_FILENAME);
+
+    if (!archive.exists() && classList.exists()) {
+      dumpArchive(command, classList, archive);
+    }
+    if (archive.exists()) {
+      command.getJvmOptions()
+        .add("-XX:SharedArchiveFile=" + archive.getAbsolutePath())
+        .add("-Xshare:auto");
+    } else {
+      mkdirs(dir);
+      command.getJvmOptions().add("-XX:DumpLoadedClassList=" + classList.getAbsolutePath());
+    }
+  }
+
+  private void dumpArchive(JavaCommand<?> command, File classList, File archive) {
+    String processKey = command.getProcessId().getKey();
+    long start = System.currentTimeMillis();
+    ProcessBuilder processBuilder = new ProcessBuilder(
+      new File(javaHome, "bin/java").getAbsolutePath(),
+      "-Xshare:dump",
+      "-XX:SharedClassListFile=" + classList.getAbsolutePath(),
+      "-XX:SharedArchiveFile=" + archive.getAbsolutePath(),
+      "-cp", String.join(File.pathSeparator, command.getClasspath()))
+        .directory(command.getWorkDir())
+        .redirectErrorStream(true)
+        .redirectOutput(new File(classList.getParentFile(), "dump.log"));
+    try {
+      Process process = processBuilder.start();
+      if (!process.waitFor(DUMP_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+        process.destroyForcibly();
+      }
+      if (!process.isAlive() && process.exitValue() == 0 && archive.exists()) {
+        LOG.info("Class data sharing archive of process [{}] generated in {}ms", processKey, System.currentTimeMillis() - start);
+        return;
+      }
+    } catch (IOException e) {
+      LOG.warn(format("Fail to generate class data sharing archive of process [%s]", processKey), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    LOG.warn("Class data sharing archive of process [{}] can't be generated. See {}", processKey, new File(classList.getParentFile(), "dump.log"));
+    // class list is recorded again on next startup
+    FileUtils.deleteQuietly(classList);
+    FileUtils.deleteQuietly(archive);
+  }
+
+  private String fingerprint(JavaCommand<?> command) {
+    Hasher hasher = Hashing.sha1().newHasher()
+      .putString(javaHome.getAbsolutePath(), StandardCharsets.UTF_8)
+      .putString(javaVersion, StandardCharsets.UTF_8);
+    for (String entry : command.getClasspath()) {
+      hasher.putString(entry, StandardCharsets.UTF_8);
+      if (entry.endsWith("*")) {
+        putJars(hasher, resolve(entry.substring(0, entry.length() - 1)));
+      } else {
+        putFile(hasher, resolve(entry));
+      }
+    }
+    putJars(hasher, new File(homeDir, "extensions/plugins"));
+    return hasher.hash().toString();
+  }
+
+  private File resolve(String path) {
+    File file = new File(path);
+    return file.isAbsolute() ? file : new File(homeDir, path);
+  }
+
+  private static void putJars(Hasher hasher, File dir) {
+    File[] jars = dir.listFiles((d, name) -> name.endsWith(".jar"));
+    if (jars == null) {
+      return;
+    }
+    Arrays.sort(jars);
+    for (File jar : jars) {
+      putFile(hasher, jar);
+    }
+  }
+
+  private static void putFile(Hasher hasher, File file) {
+    hasher
+      .putString(file.getName(), StandardCharsets.UTF_8)
+      .putLong(file.length())
+      .putLong(file.lastModified());
+  }
+
+  private void deleteObsoleteDirs(String processKey, String dirName) {
+    File[] dirs = cdsDir.listFiles((d, name) -> name.startsWith(processKey + "-") && !name.equals(dirName));
+    if (dirs != null) {
+      for (File dir : dirs) {
+        FileUtils.deleteQuietly(dir);
+      }
+    }
+  }
+
+  private static void mkdirs(File dir) {
+    try {
+      FileUtils.forceMkdir(dir);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to create directory " + dir, e);
+    }
+  }
+
+  static boolean isSupported(String javaVersion) {
+    return majorVersion(javaVersion) >= MIN_JAVA_VERSION;
+  }
+
+  private static int majorVersion(String javaVersion) {
+    List<String> tokens = Arrays.asList(javaVersion.split("[^0-9]+"));
+    if (tokens.isEmpty() || tokens.get(0).isEmpty()) {
+      return 0;
+    }
+    // 1.8.0_161 for Java 8, 11.0.2 for Java 11
+    String major = "1".equals(tokens.get(0)) && tokens.size() > 1 ? tokens.get(1) : tokens.get(0);
+    return Integer.parseInt(major);
+  }
+}
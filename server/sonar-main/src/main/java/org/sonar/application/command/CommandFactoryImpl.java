@@ -33,6 +33,7 @@ import org.sonar.process.System2;
 
 import static org.sonar.process.ProcessProperties.Property.CE_JAVA_ADDITIONAL_OPTS;
 import static org.sonar.process.ProcessProperties.Property.CE_JAVA_OPTS;
+import static org.sonar.process.ProcessProperties.Property.CLASS_DATA_SHARING_ENABLED;
 import static org.sonar.process.ProcessProperties.Property.HTTPS_PROXY_HOST;
 import static org.sonar.process.ProcessProperties.Property.HTTPS_PROXY_PORT;
 import static org.sonar.process.ProcessProperties.Property.HTTP_AUTH_NLM_DOMAN;
@@ -40,6 +41,7 @@ import static org.sonar.process.ProcessProperties.Property.HTTP_NON_PROXY_HOSTS;
 import static org.sonar.process.ProcessProperties.Property.HTTP_PROXY_HOST;
 import static org.sonar.process.ProcessProperties.Property.HTTP_PROXY_PORT;
 import static org.sonar.process.ProcessProperties.Property.JDBC_DRIVER_PATH;
+import static org.sonar.process.ProcessProperties.Property.PATH_DATA;
 import static org.sonar.process.ProcessProperties.Property.PATH_HOME;
 import static org.sonar.process.ProcessProperties.Property.PATH_LOGS;
 import static org.sonar.process.ProcessProperties.Property.SEARCH_JAVA_ADDITIONAL_OPTS;
@@ -159,6 +161,7 @@ public class CommandFactoryImpl implements CommandFactory {
       command.addClasspath(driverPath);
     }
     command.suppressEnvVariable(ENV_VAR_JAVA_TOOL_OPTIONS);
+    configureClassDataSharing(homeDir, command);
     return command;
   }
 
@@ -184,9 +187,16 @@ public class CommandFactoryImpl implements CommandFactory {
       command.addClasspath(driverPath);
     }
     command.suppressEnvVariable(ENV_VAR_JAVA_TOOL_OPTIONS);
+    configureClassDataSharing(homeDir, command);
     return command;
   }
 
+  private void configureClassDataSharing(File homeDir, JavaCommand<?> command) {
+    if (props.valueAsBoolean(CLASS_DATA_SHARING_ENABLED.getKey())) {
+      ClassDataSharing.create(homeDir, props.nonNullValueAsFile(PATH_DATA.getKey())).configure(command);
+    }
+  }
+
   private <T extends JvmOptions> void addProxyJvmOptions(JvmOptions<T> jvmOptions) {
     for (String key : PROXY_PROPERTY_KEYS) {
       getPropsValue(key).ifPresent(val -> jvmOptions.add("-D" + key + "=" + val));
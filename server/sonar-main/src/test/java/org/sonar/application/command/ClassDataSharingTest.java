@@ -0,0 +1,153 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.application.command;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.process.ProcessId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClassDataSharingTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private File homeDir;
+  private File dataDir;
+  private File javaHome;
+
+  @Before
+  public void setUp() throws Exception {
+    homeDir = temp.newFolder();
+    dataDir = temp.newFolder();
+    javaHome = temp.newFolder();
+    FileUtils.touch(new File(homeDir, "lib/common/common.jar"));
+    FileUtils.touch(new File(homeDir, "lib/server/server.jar"));
+  }
+
+  @Test
+  public void is_supported_since_java_11() {
+    assertThat(ClassDataSharing.isSupported("1.8.0_161")).isFalse();
+    assertThat(ClassDataSharing.isSupported("9.0.4")).isFalse();
+    assertThat(ClassDataSharing.isSupported("10")).isFalse();
+    assertThat(ClassDataSharing.isSupported("11")).isTrue();
+    assertThat(ClassDataSharing.isSupported("11.0.2")).isTrue();
+    assertThat(ClassDataSharing.isSupported("12-ea")).isTrue();
+    assertThat(ClassDataSharing.isSupported("")).isFalse();
+  }
+
+  @Test
+  public void does_not_change_jvm_options_if_java_is_not_supported() {
+    JavaCommand<WebJvmOptions> command = newCommand();
+
+    newUnderTest("1.8.0_161").configure(command);
+
+    assertThat(command.getJvmOptions().getAll()).isEmpty();
+    assertThat(new File(dataDir, "cds")).doesNotExist();
+  }
+
+  @Test
+  public void records_list_of_loaded_classes_on_first_startup() {
+    JavaCommand<WebJvmOptions> command = newCommand();
+
+    newUnderTest("11.0.2").configure(command);
+
+    File classList = findFile("classes.lst");
+    assertThat(classList.getParentFile()).isDirectory();
+    assertThat(classList.getParentFile().getName()).startsWith("web-");
+    assertThat(command.getJvmOptions().getAll()).containsExactly("-XX:DumpLoadedClassList=" + classList.getAbsolutePath());
+  }
+
+  @Test
+  public void uses_existing_archive() throws IOException {
+    newUnderTest("11.0.2").configure(newCommand());
+    File archive = new File(findFile("classes.lst").getParentFile(), "classes.jsa");
+    FileUtils.touch(archive);
+
+    JavaCommand<WebJvmOptions> command = newCommand();
+    newUnderTest("11.0.2").configure(command);
+
+    assertThat(command.getJvmOptions().getAll()).containsExactly("-XX:SharedArchiveFile=" + archive.getAbsolutePath(), "-Xshare:auto");
+  }
+
+  @Test
+  public void records_classes_again_when_plugins_change() throws IOException {
+    newUnderTest("11.0.2").configure(newCommand());
+    File initialDir = findFile("classes.lst").getParentFile();
+    FileUtils.touch(new File(initialDir, "classes.jsa"));
+
+    FileUtils.touch(new File(homeDir, "extensions/plugins/sonar-foo-plugin.jar"));
+    JavaCommand<WebJvmOptions> command = newCommand();
+    newUnderTest("11.0.2").configure(command);
+
+    assertThat(initialDir).doesNotExist();
+    File classList = findFile("classes.lst");
+    assertThat(command.getJvmOptions().getAll()).containsExactly("-XX:DumpLoadedClassList=" + classList.getAbsolutePath());
+  }
+
+  @Test
+  public void records_classes_again_when_java_is_upgraded() throws IOException {
+    newUnderTest("11.0.2").configure(newCommand());
+    File initialDir = findFile("classes.lst").getParentFile();
+    FileUtils.touch(new File(initialDir, "classes.jsa"));
+
+    newUnderTest("11.0.3").configure(newCommand());
+
+    assertThat(initialDir).doesNotExist();
+    assertThat(findFile("classes.lst").getParentFile()).isNotEqualTo(initialDir);
+  }
+
+  @Test
+  public void files_of_processes_are_isolated() {
+    newUnderTest("11.0.2").configure(newCommand());
+    JavaCommand<CeJvmOptions> ceCommand = new JavaCommand<CeJvmOptions>(ProcessId.COMPUTE_ENGINE, homeDir)
+      .setJvmOptions(new CeJvmOptions(temp.getRoot()))
+      .addClasspath("./lib/common/*");
+
+    newUnderTest("11.0.2").configure(ceCommand);
+
+    assertThat(new File(dataDir, "cds").list()).hasSize(2);
+  }
+
+  private ClassDataSharing newUnderTest(String javaVersion) {
+    return new ClassDataSharing(homeDir, dataDir, javaHome, javaVersion);
+  }
+
+  private JavaCommand<WebJvmOptions> newCommand() {
+    JvmOptions<WebJvmOptions> jvmOptions = new JvmOptions<>();
+    return new JavaCommand<WebJvmOptions>(ProcessId.WEB_SERVER, homeDir)
+      .setJvmOptions(jvmOptions)
+      .addClasspath("./lib/common/*")
+      .addClasspath("./lib/server/*");
+  }
+
+  private File findFile(String name) {
+    return FileUtils.listFiles(new File(dataDir, "cds"), null, true).stream()
+      .filter(f -> f.getName().equals(name))
+      .findFirst()
+      .orElseThrow(() -> new IllegalStateException("File not found: " + name));
+  }
+}
@@ -70,6 +70,8 @@ public class ProcessProperties {
     CE_JAVA_OPTS("sonar.ce.javaOpts", "-Xmx512m -Xms128m -XX:+HeapDumpOnOutOfMemoryError"),
     CE_JAVA_ADDITIONAL_OPTS("sonar.ce.javaAdditionalOpts", ""),
 
+    CLASS_DATA_SHARING_ENABLED("sonar.classDataSharing.enabled", "false"),
+
     HTTP_PROXY_HOST("http.proxyHost"),
     HTTPS_PROXY_HOST("https.proxyHost"),
     HTTP_PROXY_PORT("http.proxyPort"),
@@ -57,4 +57,8 @@ public final class HazelcastObjects {
    * THe key of the replicated map holding the health state information of all SQ nodes.
    */
   public static final String SQ_HEALTH_STATE = "sq_health_state";
+  /**
+   * The key of replicated map holding the versions of the tables cached by near-caches
+   */
+  public static final String NEAR_CACHE_TABLE_VERSIONS = "NEAR_CACHE_TABLE_VERSIONS";
 }
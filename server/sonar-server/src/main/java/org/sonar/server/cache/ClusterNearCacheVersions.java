@@ -0,0 +1,56 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.cache;
+
+import org.picocontainer.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.server.ServerSide;
+import org.sonar.process.cluster.hz.HazelcastMember;
+
+import static org.sonar.process.cluster.hz.HazelcastObjects.NEAR_CACHE_TABLE_VERSIONS;
+
+/**
+ * Shares the versions of the tables cached by {@link NearCaches} between the nodes of the cluster.
+ * <p>
+ * {@link NearCaches} is required by DAOs, hence by the first level of the container, while {@link HazelcastMember}
+ * is only available in the last level when cluster is enabled.
+ */
+@ComputeEngineSide
+@ServerSide
+public class ClusterNearCacheVersions implements Startable {
+
+  private final NearCaches nearCaches;
+  private final HazelcastMember hazelcastMember;
+
+  public ClusterNearCacheVersions(NearCaches nearCaches, HazelcastMember hazelcastMember) {
+    this.nearCaches = nearCaches;
+    this.hazelcastMember = hazelcastMember;
+  }
+
+  @Override
+  public void start() {
+    nearCaches.shareTableVersions(hazelcastMember.getReplicatedMap(NEAR_CACHE_TABLE_VERSIONS));
+  }
+
+  @Override
+  public void stop() {
+    // nothing to do
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.cache;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Cache of reference data which is local to the node. Entries are dropped as soon as one of the tables
+ * the data is loaded from is changed, on any node of the cluster (see {@link NearCaches#onChange(String)}).
+ * <p>
+ * Entries also expire after a short delay, as the DAOs notify the changes before the transaction is committed
+ * (see {@link org.sonar.db.DaoChangeListener}): rows read by another thread between the notification and the commit
+ * may be cached although they are stale, until they expire.
+ * </p>
+ */
+public class NearCache<K, V> implements NearCacheMBean {
+
+  private final String name;
+  private final String[] tables;
+  private final Function<String, String> tableVersions;
+  private final Cache<K, V> cache;
+  private volatile List<String> knownVersions;
+
+  NearCache(String name, Function<String, String> tableVersions, long expirationMs, String... tables) {
+    this.name = name;
+    this.tables = tables;
+    this.tableVersions = tableVersions;
+    this.cache = CacheBuilder.newBuilder()
+      .expireAfterWrite(expirationMs, TimeUnit.MILLISECONDS)
+      .recordStats()
+      .build();
+    this.knownVersions = currentVersions();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the value associated to the key, calling {@code loader} if the value is not cached yet.
+   * The loader must not return {@code null}.
+   */
+  public V get(K key, Function<K, V> loader) {
+    checkVersions();
+    try {
+      return cache.get(key, () -> requireNonNull(loader.apply(key), "Loaded value can't be null"));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  private void checkVersions() {
+    List<String> versions = currentVersions();
+    if (!versions.equals(knownVersions)) {
+      cache.invalidateAll();
+      knownVersions = versions;
+    }
+  }
+
+  private List<String> currentVersions() {
+    // versions are null as long as tables have not been changed since startup of cluster
+    List<String> versions = new ArrayList<>(tables.length);
+    for (String table : tables) {
+      versions.add(tableVersions.apply(table));
+    }
+    return versions;
+  }
+
+  @Override
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  @Override
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return cache.stats().evictionCount();
+  }
+
+  @Override
+  public long getSize() {
+    return cache.size();
+  }
+
+  @Override
+  public void clear() {
+    cache.invalidateAll();
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.picocontainer.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.server.ServerSide;
+import org.sonar.core.util.Uuids;
+import org.sonar.db.DaoChangeListener;
+import org.sonar.process.Jmx;
+
+/**
+ * Registry of the {@link NearCache}s of the node. The version of each cached table is stored in
+ * a Hazelcast replicated map when cluster is enabled (see {@link ClusterNearCacheVersions}), so that a change
+ * made by any node drops the entries cached by all the nodes. Reading the replicated map does not involve
+ * network calls.
+ */
+@ComputeEngineSide
+@ServerSide
+public class NearCaches implements DaoChangeListener, Startable {
+
+  /**
+   * Maximum staleness of cached rows, as changes are notified before the transactions are committed
+   */
+  private static final long DEFAULT_EXPIRATION_MS = 60_000L;
+
+  private volatile Map<String, String> tableVersions = new ConcurrentHashMap<>();
+  private final List<NearCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+  private volatile boolean started = false;
+
+  /**
+   * Stores the versions of tables in the specified map, shared by all the nodes of the cluster, instead
+   * of the map local to the node. Tables changed so far by this node are reported into the shared map.
+   */
+  void shareTableVersions(Map<String, String> sharedTableVersions) {
+    sharedTableVersions.putAll(tableVersions);
+    this.tableVersions = sharedTableVersions;
+  }
+
+  /**
+   * Creates a cache which is invalidated when any of the given tables is changed.
+   */
+  public <K, V> NearCache<K, V> create(String name, String... tables) {
+    NearCache<K, V> cache = new NearCache<>(name, table -> tableVersions.get(table), DEFAULT_EXPIRATION_MS, tables);
+    caches.add(cache);
+    if (started) {
+      register(cache);
+    }
+    return cache;
+  }
+
+  @Override
+  public void onChange(String table) {
+    tableVersions.put(table, Uuids.createFast());
+  }
+
+  @Override
+  public void start() {
+    caches.forEach(NearCaches::register);
+    started = true;
+  }
+
+  @Override
+  public void stop() {
+    if (started) {
+      caches.forEach(cache -> Jmx.unregister(NearCacheMBean.OBJECT_NAME_PREFIX + cache.getName()));
+      started = false;
+    }
+  }
+
+  private static void register(NearCache<?, ?> cache) {
+    Jmx.register(NearCacheMBean.OBJECT_NAME_PREFIX + cache.getName(), cache);
+  }
+}
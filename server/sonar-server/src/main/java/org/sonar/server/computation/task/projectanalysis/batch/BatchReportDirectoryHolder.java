@@ -20,6 +20,7 @@
 package org.sonar.server.computation.task.projectanalysis.batch;
 
 import java.io.File;
+import java.util.Optional;
 import org.sonar.ce.queue.CeTask;
 
 public interface BatchReportDirectoryHolder {
@@ -30,4 +31,9 @@ public interface BatchReportDirectoryHolder {
    */
   File getDirectory();
 
+  /**
+   * The zip archive of the Batch report, when files have not been extracted to {@link #getDirectory()}.
+   */
+  Optional<File> getArchive();
+
 }
@@ -31,4 +31,11 @@ public interface MutableBatchReportDirectoryHolder extends BatchReportDirectoryH
    * @throws NullPointerException if {@code newDirectory} is {@code null}
    */
   void setDirectory(File newDirectory);
+
+  /**
+   * Sets the zip archive from which report files are read, instead of being extracted beforehand.
+   *
+   * @throws NullPointerException if {@code archive} is {@code null}
+   */
+  void setArchive(File archive);
 }
@@ -19,7 +19,9 @@
  */
 package org.sonar.server.computation.task.projectanalysis.component;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
@@ -62,6 +64,12 @@ public class ComponentTreeBuilder {
   @Nullable
   private final SnapshotDto baseAnalysis;
 
+  /**
+   * Values repeated on many components of the tree (language keys, versions, ...) are shared rather than held
+   * once per component, which matters on projects with hundred thousands of files.
+   */
+  private final Map<String, String> sharedStrings = new HashMap<>();
+
   public ComponentTreeBuilder(
     ComponentKeyGenerator keyGenerator,
     ComponentKeyGenerator publicKeyGenerator,
@@ -97,7 +105,7 @@ public class ComponentTreeBuilder {
       case PROJECT:
         String projectKey = keyGenerator.generateKey(component, null);
         String uuid = uuidSupplier.apply(projectKey);
-        String projectPublicKey = publicKeyGenerator.generateKey(component, null);
+        String projectPublicKey = sharedPublicKey(projectKey, publicKeyGenerator.generateKey(component, null));
         return ComponentImpl.builder(Component.Type.PROJECT)
           .setUuid(uuid)
           .setKey(projectKey)
@@ -106,14 +114,14 @@ public class ComponentTreeBuilder {
           .setStatus(convertStatus(component.getStatus()))
           .setDescription(trimToNull(component.getDescription()))
           .setReportAttributes(createAttributesBuilder(component, scmBasePath)
-            .setVersion(createProjectVersion(component))
+            .setVersion(share(createProjectVersion(component)))
             .build())
           .addChildren(buildChildren(component, component, scmBasePath))
           .build();
 
       case MODULE:
         String moduleKey = keyGenerator.generateKey(component, null);
-        String modulePublicKey = publicKeyGenerator.generateKey(component, null);
+        String modulePublicKey = sharedPublicKey(moduleKey, publicKeyGenerator.generateKey(component, null));
         return ComponentImpl.builder(Component.Type.MODULE)
           .setUuid(uuidSupplier.apply(moduleKey))
           .setKey(moduleKey)
@@ -128,7 +136,7 @@ public class ComponentTreeBuilder {
       case DIRECTORY:
       case FILE:
         String key = keyGenerator.generateKey(closestModule, component);
-        String publicKey = publicKeyGenerator.generateKey(closestModule, component);
+        String publicKey = sharedPublicKey(key, publicKeyGenerator.generateKey(closestModule, component));
         return ComponentImpl.builder(convertDirOrFileType(component.getType()))
           .setUuid(uuidSupplier.apply(key))
           .setKey(key)
@@ -186,9 +194,24 @@ public class ComponentTreeBuilder {
     return DEFAULT_PROJECT_VERSION;
   }
 
-  private static ReportAttributes.Builder createAttributesBuilder(ScannerReport.Component component, @Nullable String scmBasePath) {
+  /**
+   * Public key is the same as the key outside of branches: don't keep two copies of it.
+   */
+  private static String sharedPublicKey(String key, String publicKey) {
+    return key.equals(publicKey) ? key : publicKey;
+  }
+
+  @CheckForNull
+  private String share(@Nullable String s) {
+    if (s == null) {
+      return null;
+    }
+    return sharedStrings.computeIfAbsent(s, Function.identity());
+  }
+
+  private ReportAttributes.Builder createAttributesBuilder(ScannerReport.Component component, @Nullable String scmBasePath) {
     return ReportAttributes.newBuilder(component.getRef())
-      .setVersion(trimToNull(component.getVersion()))
+      .setVersion(share(trimToNull(component.getVersion())))
       .setPath(trimToNull(component.getPath()))
       .setScmPath(computeScmPath(scmBasePath, component.getProjectRelativePath()));
   }
@@ -205,7 +228,7 @@ public class ComponentTreeBuilder {
   }
 
   @CheckForNull
-  private static FileAttributes createFileAttributes(ScannerReport.Component component) {
+  private FileAttributes createFileAttributes(ScannerReport.Component component) {
     if (component.getType() != ScannerReport.Component.ComponentType.FILE) {
       return null;
     }
@@ -213,7 +236,7 @@ public class ComponentTreeBuilder {
     checkArgument(component.getLines() > 0, "File '%s' has no line", component.getPath());
     return new FileAttributes(
       component.getIsTest(),
-      trimToNull(component.getLanguage()),
+      share(trimToNull(component.getLanguage())),
       component.getLines());
   }
 
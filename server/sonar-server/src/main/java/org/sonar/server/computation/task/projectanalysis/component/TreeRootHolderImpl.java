@@ -19,8 +19,10 @@
  */
 package org.sonar.server.computation.task.projectanalysis.component;
 
-import com.google.common.collect.ImmutableMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import javax.annotation.CheckForNull;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -32,8 +34,14 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
  * Holds the reference to the root of the {@link Component} tree for the current CE run.
  */
 public class TreeRootHolderImpl implements MutableTreeRootHolder {
+  /**
+   * Refs of the components of the tree, sorted, and the components in the same order. Two arrays are much lighter
+   * than a map of boxed refs on projects with a large number of files.
+   */
   @CheckForNull
-  private Map<Integer, Component> componentsByRef;
+  private int[] sortedRefs;
+  @CheckForNull
+  private Component[] componentsBySortedRef;
 
   private Component root;
 
@@ -54,25 +62,33 @@ public class TreeRootHolderImpl implements MutableTreeRootHolder {
   public Component getComponentByRef(int ref) {
     checkInitialized();
     ensureComponentByRefIsPopulated();
-    Component component = componentsByRef.get(ref);
-    checkArgument(component != null, "Component with ref '%s' can't be found", ref);
-    return component;
+    int index = Arrays.binarySearch(sortedRefs, ref);
+    checkArgument(index >= 0, "Component with ref '%s' can't be found", ref);
+    return componentsBySortedRef[index];
   }
 
   private void ensureComponentByRefIsPopulated() {
-    if (componentsByRef != null) {
+    if (sortedRefs != null) {
       return;
     }
 
-    final ImmutableMap.Builder<Integer, Component> builder = ImmutableMap.builder();
+    List<Component> components = new ArrayList<>();
     new DepthTraversalTypeAwareCrawler(
       new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, POST_ORDER) {
         @Override
         public void visitAny(Component component) {
-          builder.put(component.getReportAttributes().getRef(), component);
+          components.add(component);
         }
       }).visit(this.root);
-    this.componentsByRef = builder.build();
+    components.sort(Comparator.comparingInt(c -> c.getReportAttributes().getRef()));
+
+    int[] refs = new int[components.size()];
+    for (int i = 0; i < refs.length; i++) {
+      refs[i] = components.get(i).getReportAttributes().getRef();
+      checkArgument(i == 0 || refs[i] != refs[i - 1], "Multiple components with ref '%s'", refs[i]);
+    }
+    this.componentsBySortedRef = components.toArray(new Component[0]);
+    this.sortedRefs = refs;
   }
 
   private void checkInitialized() {
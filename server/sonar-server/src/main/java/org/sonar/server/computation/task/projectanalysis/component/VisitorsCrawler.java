@@ -24,8 +24,11 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Loggers;
@@ -44,6 +47,16 @@ public class VisitorsCrawler implements ComponentCrawler {
   private final Map<ComponentVisitor, VisitorDuration> visitorCumulativeDurations;
   private final List<VisitorWrapper> preOrderVisitorWrappers;
   private final List<VisitorWrapper> postOrderVisitorWrappers;
+  /**
+   * Visitors to execute on each type of component, computed once instead of filtering on the max depth of
+   * the visitors for each visited component
+   */
+  private final Map<Component.Type, List<VisitorWrapper>> preOrderVisitorWrappersByType = new EnumMap<>(Component.Type.class);
+  private final Map<Component.Type, List<VisitorWrapper>> postOrderVisitorWrappersByType = new EnumMap<>(Component.Type.class);
+  /**
+   * Types of the components the children of which are visited by at least one visitor
+   */
+  private final Set<Component.Type> typesWithVisitedChildren = EnumSet.noneOf(Component.Type.class);
 
   public VisitorsCrawler(Iterable<ComponentVisitor> visitors) {
     this(visitors, false);
@@ -55,6 +68,14 @@ public class VisitorsCrawler implements ComponentCrawler {
     this.postOrderVisitorWrappers = from(visitorWrappers).filter(MatchPostOrderVisitor.INSTANCE).toList();
     this.computeDuration = computeDuration;
     this.visitorCumulativeDurations = computeDuration ? from(visitors).toMap(VisitorWrapperToInitialDuration.INSTANCE) : Collections.emptyMap();
+    for (Component.Type type : Component.Type.values()) {
+      MatchVisitorMaxDepth visitorMaxDepth = MatchVisitorMaxDepth.forType(type);
+      preOrderVisitorWrappersByType.put(type, from(preOrderVisitorWrappers).filter(visitorMaxDepth).toList());
+      postOrderVisitorWrappersByType.put(type, from(postOrderVisitorWrappers).filter(visitorMaxDepth).toList());
+      if (from(visitorWrappers).anyMatch(wrapper -> wrapper.getMaxDepth().isDeeperThan(type))) {
+        typesWithVisitedChildren.add(type);
+      }
+    }
   }
 
   public Map<ComponentVisitor, Long> getCumulativeDurations() {
@@ -79,9 +100,8 @@ public class VisitorsCrawler implements ComponentCrawler {
   }
 
   private void visitImpl(Component component) {
-    MatchVisitorMaxDepth visitorMaxDepth = MatchVisitorMaxDepth.forComponent(component);
-    List<VisitorWrapper> preOrderVisitorWrappersToExecute = from(preOrderVisitorWrappers).filter(visitorMaxDepth).toList();
-    List<VisitorWrapper> postOrderVisitorWrappersToExecute = from(postOrderVisitorWrappers).filter(visitorMaxDepth).toList();
+    List<VisitorWrapper> preOrderVisitorWrappersToExecute = preOrderVisitorWrappersByType.get(component.getType());
+    List<VisitorWrapper> postOrderVisitorWrappersToExecute = postOrderVisitorWrappersByType.get(component.getType());
     if (preOrderVisitorWrappersToExecute.isEmpty() && postOrderVisitorWrappersToExecute.isEmpty()) {
       return;
     }
@@ -94,7 +114,9 @@ public class VisitorsCrawler implements ComponentCrawler {
       visitNode(component, visitorWrapper);
     }
 
-    visitChildren(component);
+    if (typesWithVisitedChildren.contains(component.getType())) {
+      visitChildren(component);
+    }
 
     for (VisitorWrapper visitorWrapper : postOrderVisitorWrappersToExecute) {
       visitNode(component, visitorWrapper);
@@ -181,8 +203,8 @@ public class VisitorsCrawler implements ComponentCrawler {
       return builder.build();
     }
 
-    public static MatchVisitorMaxDepth forComponent(Component component) {
-      return INSTANCES.get(component.getType());
+    public static MatchVisitorMaxDepth forType(Component.Type type) {
+      return INSTANCES.get(type);
     }
 
     @Override
@@ -113,6 +113,7 @@ import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRu
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoDbLoader;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.source.LastCommitVisitor;
+import org.sonar.server.computation.task.projectanalysis.source.PreviousFileSourcesLoader;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.step.ReportComputationSteps;
@@ -191,6 +192,7 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       SourceHashRepositoryImpl.class,
       ScmInfoRepositoryImpl.class,
       ScmInfoDbLoader.class,
+      PreviousFileSourcesLoader.class,
       DuplicationRepositoryImpl.class,
 
       // issues
@@ -19,30 +19,164 @@
  */
 package org.sonar.server.computation.task.projectanalysis.issue;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import org.sonar.db.DbClient;
-import org.sonar.db.DbSession;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.Startable;
+import org.sonar.api.utils.TempFolder;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.util.logs.Profiler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 
 /**
  * Loads all the project open issues from database, including manual issues.
+ * <p>
+ * Issues are loaded with a single query the first time they are requested, then stored on disk, partitioned
+ * by component. Issue tracking requests them component per component, which would otherwise require
+ * one query per file.
+ * </p>
  */
-public class BaseIssuesLoader {
+public class BaseIssuesLoader implements Startable {
+
+  private static final Logger LOG = Loggers.get(BaseIssuesLoader.class);
 
   private final TreeRootHolder treeRootHolder;
-  private final DbClient dbClient;
+  private final ComponentIssuesLoader componentIssuesLoader;
+  private final TempFolder tempFolder;
+  private final Map<String, Segment> segmentsByComponentUuid = new HashMap<>();
+  private File file;
+  private RandomAccessFile reader;
 
-  public BaseIssuesLoader(TreeRootHolder treeRootHolder, DbClient dbClient) {
+  public BaseIssuesLoader(TreeRootHolder treeRootHolder, ComponentIssuesLoader componentIssuesLoader, TempFolder tempFolder) {
     this.treeRootHolder = treeRootHolder;
-    this.dbClient = dbClient;
+    this.componentIssuesLoader = componentIssuesLoader;
+    this.tempFolder = tempFolder;
+  }
+
+  @Override
+  public void start() {
+    // issues are loaded lazily
+  }
+
+  @Override
+  public void stop() {
+    IOUtils.closeQuietly(reader);
   }
 
   /**
    * Uuids of all the components that have open issues on this project.
    */
   public Set<String> loadUuidsOfComponentsWithOpenIssues() {
-    try (DbSession dbSession = dbClient.openSession(false)) {
-      return dbClient.issueDao().selectComponentUuidsOfOpenIssuesForProjectUuid(dbSession, treeRootHolder.getRoot().getUuid());
+    ensureLoaded();
+    return new HashSet<>(segmentsByComponentUuid.keySet());
+  }
+
+  /**
+   * Open issues of the component. A new instance of each issue is returned at each call.
+   */
+  public List<DefaultIssue> loadForComponentUuid(String componentUuid) {
+    ensureLoaded();
+    Segment segment = segmentsByComponentUuid.get(componentUuid);
+    if (segment == null) {
+      return new ArrayList<>();
+    }
+    try {
+      byte[] bytes = new byte[segment.length];
+      reader.seek(segment.offset);
+      reader.readFully(bytes);
+      try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+        return (List<DefaultIssue>) input.readObject();
+      }
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Fail to read issues of component " + componentUuid + " from " + file, e);
+    }
+  }
+
+  private void ensureLoaded() {
+    if (file != null) {
+      return;
+    }
+    Profiler profiler = Profiler.create(LOG).startDebug("Load open issues of project");
+    file = tempFolder.newFile("base-issues", ".dat");
+    try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+      SegmentWriter writer = new SegmentWriter(output);
+      componentIssuesLoader.loadForBranchUuid(treeRootHolder.getRoot().getUuid(), writer::add);
+      writer.flush();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write issues into " + file, e);
+    }
+    try {
+      reader = new RandomAccessFile(file, "r");
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to open " + file, e);
+    }
+    profiler.stopDebug(String.format("Open issues of %d components loaded", segmentsByComponentUuid.size()));
+  }
+
+  /**
+   * Issues are received ordered by component, so that the issues of a single component are kept in memory
+   * before being written.
+   */
+  private class SegmentWriter {
+    private final OutputStream output;
+    private final List<DefaultIssue> issues = new ArrayList<>();
+    private String componentUuid;
+    private long offset = 0L;
+
+    private SegmentWriter(OutputStream output) {
+      this.output = output;
+    }
+
+    private void add(DefaultIssue issue) {
+      if (componentUuid != null && !componentUuid.equals(issue.componentUuid())) {
+        flush();
+      }
+      componentUuid = issue.componentUuid();
+      issues.add(issue);
+    }
+
+    private void flush() {
+      if (issues.isEmpty()) {
+        return;
+      }
+      try {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+          objectOutput.writeObject(new ArrayList<>(issues));
+        }
+        bytes.writeTo(output);
+        segmentsByComponentUuid.put(componentUuid, new Segment(offset, bytes.size()));
+        offset += bytes.size();
+        issues.clear();
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to write issues into " + file, e);
+      }
+    }
+  }
+
+  private static class Segment {
+    private final long offset;
+    private final int length;
+
+    private Segment(long offset, int length) {
+      this.offset = offset;
+      this.length = length;
     }
   }
 }
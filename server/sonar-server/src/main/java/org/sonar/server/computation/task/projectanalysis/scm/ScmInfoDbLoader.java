@@ -31,6 +31,7 @@ import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.Component.Status;
 import org.sonar.server.computation.task.projectanalysis.component.MergeBranchComponentUuids;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryImpl.NoScmInfo;
+import org.sonar.server.computation.task.projectanalysis.source.PreviousFileSourcesLoader;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepository;
 
 public class ScmInfoDbLoader {
@@ -40,13 +41,15 @@ public class ScmInfoDbLoader {
   private final DbClient dbClient;
   private final SourceHashRepository sourceHashRepository;
   private final MergeBranchComponentUuids mergeBranchComponentUuid;
+  private final PreviousFileSourcesLoader previousFileSourcesLoader;
 
   public ScmInfoDbLoader(AnalysisMetadataHolder analysisMetadataHolder, DbClient dbClient,
-    SourceHashRepository sourceHashRepository, MergeBranchComponentUuids mergeBranchComponentUuid) {
+    SourceHashRepository sourceHashRepository, MergeBranchComponentUuids mergeBranchComponentUuid, PreviousFileSourcesLoader previousFileSourcesLoader) {
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.dbClient = dbClient;
     this.sourceHashRepository = sourceHashRepository;
     this.mergeBranchComponentUuid = mergeBranchComponentUuid;
+    this.previousFileSourcesLoader = previousFileSourcesLoader;
   }
 
   public ScmInfo getScmInfoFromDb(Component file) {
@@ -57,9 +60,17 @@ public class ScmInfoDbLoader {
     }
 
     LOGGER.trace("Reading SCM info from db for file '{}'", uuid.get());
+    if (!analysisMetadataHolder.isFirstAnalysis()) {
+      // file belongs to the analyzed branch, whose source hashes are loaded all at once
+      String srcHash = previousFileSourcesLoader.getSrcHash(uuid.get());
+      if (srcHash == null || !isSrcHashValid(file, srcHash)) {
+        return NoScmInfo.INSTANCE;
+      }
+      return DbScmInfo.create(file, previousFileSourcesLoader.getScmLines(uuid.get())).or(NoScmInfo.INSTANCE);
+    }
     try (DbSession dbSession = dbClient.openSession(false)) {
       FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, uuid.get());
-      if (dto == null || !isDtoValid(file, dto)) {
+      if (dto == null || !isSrcHashValid(file, dto.getSrcHash())) {
         return NoScmInfo.INSTANCE;
       }
       return DbScmInfo.create(file, dto.getSourceData().getLinesList()).or(NoScmInfo.INSTANCE);
@@ -80,10 +91,10 @@ public class ScmInfoDbLoader {
     return Optional.empty();
   }
 
-  private boolean isDtoValid(Component file, FileSourceDto dto) {
+  private boolean isSrcHashValid(Component file, String srcHash) {
     if (file.getStatus() == Status.SAME) {
       return true;
     }
-    return sourceHashRepository.getRawSourceHash(file).equals(dto.getSrcHash());
+    return sourceHashRepository.getRawSourceHash(file).equals(srcHash);
   }
 }
@@ -0,0 +1,222 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.source;
+
+import com.google.common.base.Splitter;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.Startable;
+import org.sonar.api.utils.TempFolder;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.logs.Profiler;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+
+/**
+ * Line hashes and SCM data of the files of the project, as persisted by the previous analysis.
+ * <p>
+ * Source hashes and line hashes of all the files are loaded with a single query the first time they are requested.
+ * Line hashes are stored in a temp file for the duration of the task, only the source hashes and the positions
+ * in the file are kept in memory.
+ * </p>
+ * <p>
+ * Source data is much bigger and is required only by the files whose SCM data must be copied from the previous
+ * analysis, so it is loaded file by file. Only its SCM fields are decoded.
+ * </p>
+ */
+public class PreviousFileSourcesLoader implements Startable {
+
+  private static final Logger LOG = Loggers.get(PreviousFileSourcesLoader.class);
+  private static final Splitter END_OF_LINE_SPLITTER = Splitter.on('\n');
+
+  private final TreeRootHolder treeRootHolder;
+  private final DbClient dbClient;
+  private final TempFolder tempFolder;
+  private final Map<String, Entry> entriesByFileUuid = new HashMap<>();
+  private File file;
+  private RandomAccessFile reader;
+  private long position = 0L;
+
+  public PreviousFileSourcesLoader(TreeRootHolder treeRootHolder, DbClient dbClient, TempFolder tempFolder) {
+    this.treeRootHolder = treeRootHolder;
+    this.dbClient = dbClient;
+    this.tempFolder = tempFolder;
+  }
+
+  @Override
+  public void start() {
+    // sources are loaded lazily
+  }
+
+  @Override
+  public void stop() {
+    IOUtils.closeQuietly(reader);
+  }
+
+  /**
+   * @return {@code null} if the file has no source in database
+   */
+  @CheckForNull
+  public String getSrcHash(String fileUuid) {
+    ensureLoaded();
+    Entry entry = entriesByFileUuid.get(fileUuid);
+    return entry == null ? null : entry.srcHash;
+  }
+
+  /**
+   * @return {@code null} if the file has no source in database
+   */
+  @CheckForNull
+  public List<String> getLineHashes(String fileUuid) {
+    try (DataInputStream input = read(fileUuid)) {
+      if (input == null) {
+        return null;
+      }
+      byte[] lineHashes = readBytes(input);
+      if (lineHashes == null) {
+        return Collections.emptyList();
+      }
+      return END_OF_LINE_SPLITTER.splitToList(new String(lineHashes, StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read line hashes of file " + fileUuid + " from " + file, e);
+    }
+  }
+
+  /**
+   * Lines of the file with only the line number and the SCM fields.
+   *
+   * @return an empty list if the file has no source in database
+   */
+  public List<DbFileSources.Line> getScmLines(String fileUuid) {
+    ensureLoaded();
+    if (!entriesByFileUuid.containsKey(fileUuid)) {
+      return Collections.emptyList();
+    }
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
+      if (dto == null || dto.getBinaryData() == null) {
+        return Collections.emptyList();
+      }
+      return FileSourceDto.decodeScmData(dto.getBinaryData()).getLinesList();
+    }
+  }
+
+  @CheckForNull
+  private DataInputStream read(String fileUuid) throws IOException {
+    ensureLoaded();
+    Entry entry = entriesByFileUuid.get(fileUuid);
+    if (entry == null) {
+      return null;
+    }
+    byte[] bytes = new byte[entry.length];
+    reader.seek(entry.offset);
+    reader.readFully(bytes);
+    return new DataInputStream(new ByteArrayInputStream(bytes));
+  }
+
+  private void ensureLoaded() {
+    if (file != null) {
+      return;
+    }
+    Profiler profiler = Profiler.create(LOG).startDebug("Load line hashes of files");
+    file = tempFolder.newFile("previous-sources", ".dat");
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+      DbSession dbSession = dbClient.openSession(false)) {
+      dbClient.fileSourceDao().scrollLineHashesByProjectUuid(dbSession, treeRootHolder.getRoot().getUuid(),
+        context -> write(output, context.getResultObject()));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write line hashes into " + file, e);
+    }
+    try {
+      reader = new RandomAccessFile(file, "r");
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to open " + file, e);
+    }
+    profiler.stopDebug(String.format("Line hashes of %d files loaded", entriesByFileUuid.size()));
+  }
+
+  private void write(DataOutputStream output, FileSourceDto dto) {
+    String lineHashes = dto.getLineHashes();
+    byte[] lineHashesData = lineHashes == null ? null : lineHashes.getBytes(StandardCharsets.UTF_8);
+    try {
+      writeBytes(output, lineHashesData);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write line hashes into " + file, e);
+    }
+    int length = sizeOf(lineHashesData);
+    entriesByFileUuid.put(dto.getFileUuid(), new Entry(dto.getSrcHash(), position, length));
+    position += length;
+  }
+
+  private static void writeBytes(DataOutputStream output, @Nullable byte[] bytes) throws IOException {
+    if (bytes == null) {
+      output.writeInt(-1);
+    } else {
+      output.writeInt(bytes.length);
+      output.write(bytes);
+    }
+  }
+
+  private static int sizeOf(@Nullable byte[] bytes) {
+    return Integer.BYTES + (bytes == null ? 0 : bytes.length);
+  }
+
+  @CheckForNull
+  private static byte[] readBytes(DataInputStream input) throws IOException {
+    int length = input.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  private static class Entry {
+    @CheckForNull
+    private final String srcHash;
+    private final long offset;
+    private final int length;
+
+    private Entry(@Nullable String srcHash, long offset, int length) {
+      this.srcHash = srcHash;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+}
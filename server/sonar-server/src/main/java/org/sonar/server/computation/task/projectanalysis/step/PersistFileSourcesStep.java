@@ -34,6 +34,7 @@ import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDao;
 import org.sonar.db.source.FileSourceDto;
 import org.sonar.db.source.FileSourceDto.Type;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -138,15 +139,16 @@ public class PersistFileSourcesStep implements ComputationStep {
           .setProjectUuid(projectUuid)
           .setFileUuid(componentUuid)
           .setDataType(Type.SOURCE)
-          .setBinaryData(data)
           .setSrcHash(srcHash)
           .setDataHash(dataHash)
           .setLineHashes(lineHashes)
           .setCreatedAt(system2.now())
           .setUpdatedAt(system2.now())
           .setRevision(computeRevision(latestChange));
+        persistBlob(dataHash, data);
         dbClient.fileSourceDao().insert(session, dto);
         session.commit();
+        ensureBlobNotPurged(dataHash, data);
       } else {
         // Update only if data_hash has changed or if src_hash is missing or revision is missing (progressive migration)
         boolean binaryDataUpdated = !dataHash.equals(previousDto.getDataHash());
@@ -154,8 +156,10 @@ public class PersistFileSourcesStep implements ComputationStep {
         String revision = computeRevision(latestChange);
         boolean revisionUpdated = !ObjectUtils.equals(revision, previousDto.getRevision());
         if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
+          String previousDataHash = previousDto.getDataHash();
+          persistBlob(dataHash, data);
           previousDto
-            .setBinaryData(data)
+            .setBinaryData(null)
             .setDataHash(dataHash)
             .setSrcHash(srcHash)
             .setLineHashes(lineHashes)
@@ -163,10 +167,52 @@ public class PersistFileSourcesStep implements ComputationStep {
             .setUpdatedAt(system2.now());
           dbClient.fileSourceDao().update(session, previousDto);
           session.commit();
+          ensureBlobNotPurged(dataHash, data);
+          if (binaryDataUpdated && previousDataHash != null) {
+            deleteBlobIfOrphan(previousDataHash);
+          }
         }
       }
     }
 
+    /**
+     * Data is stored once per data hash and shared by all the files of all branches having the same data.
+     * It is committed before the row referencing it, so that the row never references missing data.
+     */
+    private void persistBlob(String dataHash, byte[] data) {
+      FileSourceDao fileSourceDao = dbClient.fileSourceDao();
+      if (fileSourceDao.blobExists(session, dataHash)) {
+        return;
+      }
+      try {
+        fileSourceDao.insertBlob(session, dataHash, data, system2.now());
+        session.commit();
+      } catch (RuntimeException e) {
+        // the same data may have been persisted concurrently by the analysis of another project or branch
+        session.rollback();
+        if (!fileSourceDao.blobExists(session, dataHash)) {
+          throw e;
+        }
+      }
+    }
+
+    /**
+     * A concurrent purge of another branch may have considered the blob as orphan and deleted it before the
+     * row referencing it was committed. The purge can't delete it anymore once the row is committed.
+     */
+    private void ensureBlobNotPurged(String dataHash, byte[] data) {
+      persistBlob(dataHash, data);
+    }
+
+    /**
+     * Data of the previous version of the file is deleted if no other file references it. A concurrent analysis
+     * referencing the same data persists it again, see {@link #ensureBlobNotPurged(String, byte[])}.
+     */
+    private void deleteBlobIfOrphan(String dataHash) {
+      dbClient.fileSourceDao().deleteBlobIfOrphan(session, dataHash);
+      session.commit();
+    }
+
     @CheckForNull
     private String computeRevision(@Nullable Changeset latestChange) {
       if (latestChange == null) {
@@ -20,9 +20,10 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.collect.Multimap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -30,7 +31,6 @@ import javax.annotation.Nonnull;
 import org.sonar.core.util.Uuids;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
-import org.sonar.db.measure.LiveMeasureDao;
 import org.sonar.db.measure.LiveMeasureDto;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
@@ -54,6 +54,13 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
 
 public class PersistLiveMeasuresStep implements ComputationStep {
 
+  /**
+   * Measures are compared with database and persisted by batches of this size. Transactions
+   * are kept short in order to avoid potential deadlocks on MySQL.
+   * https://jira.sonarsource.com/browse/SONAR-10117?focusedCommentId=153555&page=com.atlassian.jira.plugin.system.issuetabpanels:comment-tabpanel#comment-153555
+   */
+  private static final int BATCH_SIZE = 1_000;
+
   /**
    * List of metrics that should not be persisted on file measure.
    */
@@ -84,10 +91,12 @@ public class PersistLiveMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
-    try (DbSession dbSession = dbClient.openSession(false)) {
+    try (DbSession dbSession = dbClient.openSession(true)) {
       String marker = Uuids.create();
       Component root = treeRootHolder.getRoot();
-      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession, marker)).visit(root);
+      MeasureVisitor visitor = new MeasureVisitor(dbSession, marker);
+      new DepthTraversalTypeAwareCrawler(visitor).visit(root);
+      visitor.flush();
       dbClient.liveMeasureDao().deleteByProjectUuidExcludingMarker(dbSession, root.getUuid(), marker);
       dbSession.commit();
     }
@@ -96,6 +105,7 @@ public class PersistLiveMeasuresStep implements ComputationStep {
   private class MeasureVisitor extends TypeAwareVisitorAdapter {
     private final DbSession dbSession;
     private final String marker;
+    private final List<LiveMeasureDto> pending = new ArrayList<>();
 
     private MeasureVisitor(DbSession dbSession, String marker) {
       super(CrawlerDepthLimit.LEAVES, PRE_ORDER);
@@ -105,8 +115,6 @@ public class PersistLiveMeasuresStep implements ComputationStep {
 
     @Override
     public void visitAny(Component component) {
-      int count = 0;
-      LiveMeasureDao dao = dbClient.liveMeasureDao();
       Multimap<String, Measure> measures = measureRepository.getRawMeasures(component);
       for (Map.Entry<String, Collection<Measure>> measuresByMetricKey : measures.asMap().entrySet()) {
         String metricKey = measuresByMetricKey.getKey();
@@ -115,21 +123,22 @@ public class PersistLiveMeasuresStep implements ComputationStep {
         }
         Metric metric = metricRepository.getByKey(metricKey);
         Predicate<Measure> notBestValueOptimized = BestValueOptimization.from(metric, component).negate();
-        Iterator<LiveMeasureDto> liveMeasures = measuresByMetricKey.getValue().stream()
+        measuresByMetricKey.getValue().stream()
           .filter(NonEmptyMeasure.INSTANCE)
           .filter(notBestValueOptimized)
           .map(measure -> measureToMeasureDto.toLiveMeasureDto(measure, metric, component))
-          .iterator();
-        while (liveMeasures.hasNext()) {
-          dao.insertOrUpdate(dbSession, liveMeasures.next(), marker);
-          count++;
-          if (count % 100 == 0) {
-            // use short transactions to avoid potential deadlocks on MySQL
-            // https://jira.sonarsource.com/browse/SONAR-10117?focusedCommentId=153555&page=com.atlassian.jira.plugin.system.issuetabpanels:comment-tabpanel#comment-153555
-            dbSession.commit();
-          }
-        }
+          .forEach(pending::add);
       }
+      // measures of a component are kept in the same batch
+      if (pending.size() >= BATCH_SIZE) {
+        flush();
+      }
+    }
+
+    private void flush() {
+      dbClient.liveMeasureDao().upsert(dbSession, pending, marker);
+      dbSession.commit();
+      pending.clear();
     }
   }
 
@@ -21,15 +21,27 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Multimap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Predicate;
 import javax.annotation.Nonnull;
 import org.sonar.core.config.PurgeConstants;
+import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.component.SnapshotDto;
+import org.sonar.db.component.SnapshotQuery;
 import org.sonar.db.measure.MeasureDao;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureHistory;
+import org.sonar.db.measure.MeasureHistoryDto;
+import org.sonar.db.measure.PastMeasureQuery;
+import org.sonar.db.metric.MetricDto;
+import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ConfigurationRepository;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
@@ -43,6 +55,10 @@ import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
 import org.sonar.server.computation.task.step.ComputationStep;
 
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static org.sonar.db.component.SnapshotDto.STATUS_PROCESSED;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
 public class PersistMeasuresStep implements ComputationStep {
@@ -52,22 +68,24 @@ public class PersistMeasuresStep implements ComputationStep {
   private final MeasureToMeasureDto measureToMeasureDto;
   private final TreeRootHolder treeRootHolder;
   private final MeasureRepository measureRepository;
+  private final AnalysisMetadataHolder analysisMetadataHolder;
   private final boolean persistDirectories;
 
   public PersistMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto,
-    TreeRootHolder treeRootHolder, MeasureRepository measureRepository, ConfigurationRepository settings) {
-    this(dbClient, metricRepository, measureToMeasureDto, treeRootHolder,measureRepository,
+    TreeRootHolder treeRootHolder, MeasureRepository measureRepository, AnalysisMetadataHolder analysisMetadataHolder, ConfigurationRepository settings) {
+    this(dbClient, metricRepository, measureToMeasureDto, treeRootHolder, measureRepository, analysisMetadataHolder,
       !settings.getConfiguration().getBoolean(PurgeConstants.PROPERTY_CLEAN_DIRECTORY).orElseThrow(() -> new IllegalStateException("Missing default value")));
   }
 
   @VisibleForTesting
   PersistMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto, TreeRootHolder treeRootHolder,
-    MeasureRepository measureRepository, boolean persistDirectories) {
+    MeasureRepository measureRepository, AnalysisMetadataHolder analysisMetadataHolder, boolean persistDirectories) {
     this.dbClient = dbClient;
     this.metricRepository = metricRepository;
     this.measureToMeasureDto = measureToMeasureDto;
     this.treeRootHolder = treeRootHolder;
     this.measureRepository = measureRepository;
+    this.analysisMetadataHolder = analysisMetadataHolder;
     this.persistDirectories = persistDirectories;
   }
 
@@ -79,13 +97,83 @@ public class PersistMeasuresStep implements ComputationStep {
   @Override
   public void execute() {
     try (DbSession dbSession = dbClient.openSession(true)) {
-      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession)).visit(treeRootHolder.getRoot());
+      MeasureVisitor visitor = new MeasureVisitor(dbSession);
+      new DepthTraversalTypeAwareCrawler(visitor).visit(treeRootHolder.getRoot());
+      persistHistories(dbSession, treeRootHolder.getRoot().getUuid(), visitor.rootMeasures);
       dbSession.commit();
     }
   }
 
+  /**
+   * Appends the measures of the root component to its histories. Points of analyses which have been deleted
+   * by the housekeeping are dropped at the same time, so that histories don't grow more than the table
+   * SNAPSHOTS. A history which does not exist yet is initialized from the past measures of the component.
+   * <p>
+   * Histories of metrics whose historical data is deleted by the housekeeping (for example the metrics on
+   * new code) keep only the point of the last analysis, as table PROJECT_MEASURES does.
+   */
+  private void persistHistories(DbSession dbSession, String rootUuid, List<MeasureDto> rootMeasures) {
+    if (rootMeasures.isEmpty()) {
+      return;
+    }
+    Map<Integer, MeasureDto> measuresByMetricId = rootMeasures.stream().collect(toMap(MeasureDto::getMetricId, m -> m, (m1, m2) -> m2));
+    Map<String, Long> analysisDatesByUuid = dbClient.snapshotDao()
+      .selectAnalysesByQuery(dbSession, new SnapshotQuery().setComponentUuid(rootUuid).setStatus(STATUS_PROCESSED))
+      .stream()
+      .collect(toMap(SnapshotDto::getUuid, SnapshotDto::getCreatedAt));
+    Set<Long> analysisDates = analysisDatesByUuid.values().stream().collect(toSet());
+    Set<Integer> metricIdsWithoutHistoricalData = dbClient.metricDao().selectByIds(dbSession, measuresByMetricId.keySet())
+      .stream()
+      .filter(MetricDto::isDeleteHistoricalData)
+      .map(MetricDto::getId)
+      .collect(toSet());
+
+    Map<Integer, MeasureHistory> historiesByMetricId = new HashMap<>();
+    dbClient.measureHistoryDao().selectByComponentUuidAndMetricIds(dbSession, rootUuid, measuresByMetricId.keySet())
+      .forEach(dto -> historiesByMetricId.put(dto.getMetricId(), dto.getHistory()));
+    List<Integer> metricIdsWithoutHistory = measuresByMetricId.keySet().stream()
+      .filter(metricId -> !historiesByMetricId.containsKey(metricId))
+      .collect(MoreCollectors.toList());
+    if (!metricIdsWithoutHistory.isEmpty()) {
+      Map<Integer, List<MeasureHistory.Point>> pastPoints = new HashMap<>();
+      dbClient.measureDao().selectPastMeasures(dbSession, new PastMeasureQuery(rootUuid, metricIdsWithoutHistory, null, null))
+        .stream()
+        .filter(pastMeasure -> analysisDatesByUuid.containsKey(pastMeasure.getAnalysisUuid()))
+        .forEach(pastMeasure -> pastPoints.computeIfAbsent(pastMeasure.getMetricId(), k -> new ArrayList<>())
+          .add(toPoint(analysisDatesByUuid.get(pastMeasure.getAnalysisUuid()), pastMeasure)));
+      metricIdsWithoutHistory.forEach(metricId -> historiesByMetricId.put(metricId, new MeasureHistory(pastPoints.getOrDefault(metricId, new ArrayList<>()))));
+    }
+
+    long analysisDate = analysisMetadataHolder.getAnalysisDate();
+    measuresByMetricId.forEach((metricId, measure) -> {
+      MeasureHistory history;
+      if (metricIdsWithoutHistoricalData.contains(metricId)) {
+        history = new MeasureHistory(singletonList(toPoint(analysisDate, measure)));
+      } else {
+        history = historiesByMetricId.get(metricId)
+          .filterDates(analysisDates::contains)
+          .add(toPoint(analysisDate, measure));
+      }
+      MeasureHistoryDto dto = new MeasureHistoryDto()
+        .setComponentUuid(rootUuid)
+        .setMetricId(metricId)
+        .setHistory(history);
+      // session is in batch mode, number of updated rows can't be used to know whether the history exists
+      if (metricIdsWithoutHistory.contains(metricId)) {
+        dbClient.measureHistoryDao().insert(dbSession, dto);
+      } else {
+        dbClient.measureHistoryDao().update(dbSession, dto);
+      }
+    });
+  }
+
+  private static MeasureHistory.Point toPoint(long date, MeasureDto measure) {
+    return new MeasureHistory.Point(date, measure.getValue(), measure.getVariation(), measure.getData());
+  }
+
   private class MeasureVisitor extends TypeAwareVisitorAdapter {
     private final DbSession session;
+    private final List<MeasureDto> rootMeasures = new ArrayList<>();
 
     private MeasureVisitor(DbSession session) {
       super(CrawlerDepthLimit.LEAVES, PRE_ORDER);
@@ -133,6 +221,9 @@ public class PersistMeasuresStep implements ComputationStep {
         measuresByMetricKey.getValue().stream().filter(NonEmptyMeasure.INSTANCE).forEach(measure -> {
           MeasureDto measureDto = measureToMeasureDto.toMeasureDto(measure, metric, component);
           measureDao.insert(session, measureDto);
+          if (component.equals(treeRootHolder.getRoot())) {
+            rootMeasures.add(measureDto);
+          }
         });
       }
     }
@@ -20,10 +20,15 @@
 package org.sonar.server.es;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import org.elasticsearch.action.DocWriteRequest;
@@ -38,6 +43,7 @@ import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
 import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
@@ -46,6 +52,8 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHitField;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -67,6 +75,9 @@ public class BulkIndexer {
   private static final int FLUSH_ACTIONS = -1;
   private static final String REFRESH_INTERVAL_SETTING = "index.refresh_interval";
   private static final int DEFAULT_NUMBER_OF_SHARDS = 5;
+  private static final TimeValue SCROLL_TIME = TimeValue.timeValueMinutes(5);
+  private static final int DELETION_PAGE_SIZE = 500;
+  private static final int MAX_DELETION_SLICES = 8;
 
   private final EsClient client;
   private final IndexType indexType;
@@ -133,21 +144,80 @@ public class BulkIndexer {
     bulkProcessor.add(request);
   }
 
+  /**
+   * Queues the deletion of all the documents matching the given search request. The documents are
+   * scrolled in parallel slices, one per shard, so that the next pages are loaded while the previous
+   * deletions are being sent.
+   */
   public void addDeletion(SearchRequestBuilder searchRequest) {
-    // TODO to be replaced by delete_by_query that is back in ES5
     searchRequest
       .addSort("_doc", SortOrder.ASC)
-      .setScroll(TimeValue.timeValueMinutes(5))
-      .setSize(100)
+      .setScroll(SCROLL_TIME)
+      .setSize(DELETION_PAGE_SIZE)
       // load only doc ids, not _source fields
       .setFetchSource(false);
 
-    // this search is synchronous. An optimization would be to be non-blocking,
-    // but it requires to tracking pending requests in close().
-    // Same semaphore can't be reused because of potential deadlock (requires to acquire
-    // two locks)
-    SearchResponse searchResponse = searchRequest.get();
+    long startedAt = System.currentTimeMillis();
+    int slices = countSlices(searchRequest.request());
+    long deletions;
+    if (slices <= 1) {
+      deletions = scrollDeletions(searchRequest);
+    } else {
+      deletions = scrollDeletionsInSlices(searchRequest.request(), slices);
+    }
+    long duration = Math.max(1L, System.currentTimeMillis() - startedAt);
+    LOGGER.debug("{} deletions queued on index [{}] from {} scroll(s) in {}ms ({} docs/s)",
+      deletions, indexType.getIndex(), Math.max(1, slices), duration, deletions * 1_000L / duration);
+  }
+
+  /**
+   * Slicing is enabled only when the request targets the index of this indexer, with one slice per shard.
+   * More slices than shards would be expensive as Elasticsearch would have to load the document ids in memory.
+   */
+  private int countSlices(SearchRequest request) {
+    String[] indices = request.indices();
+    if (indices.length != 1 || !indexType.getIndex().equals(indices[0])) {
+      return 1;
+    }
+    GetSettingsResponse settingsResp = client.nativeClient().admin().indices().prepareGetSettings(indices[0]).get();
+    String shards = settingsResp.getSetting(indices[0], IndexMetaData.SETTING_NUMBER_OF_SHARDS);
+    return shards == null ? 1 : Math.min(Integer.parseInt(shards), MAX_DELETION_SLICES);
+  }
 
+  private long scrollDeletionsInSlices(SearchRequest request, int slices) {
+    SearchSourceBuilder source = request.source() == null ? new SearchSourceBuilder() : request.source();
+    ExecutorService executor = Executors.newFixedThreadPool(slices, new ThreadFactoryBuilder()
+      .setNameFormat("BulkIndexer-deletion-" + indexType.getIndex() + "-%d")
+      .setDaemon(true)
+      .build());
+    try {
+      List<Future<Long>> futures = new ArrayList<>();
+      for (int sliceId = 0; sliceId < slices; sliceId++) {
+        SearchRequestBuilder sliceRequest = client.prepareSearch(request.indices())
+          .setTypes(request.types())
+          .setRouting(request.routing())
+          .setScroll(SCROLL_TIME)
+          .setSource(source.copyWithNewSlice(new SliceBuilder(sliceId, slices)));
+        futures.add(executor.submit(() -> scrollDeletions(sliceRequest)));
+      }
+      long deletions = 0L;
+      for (Future<Long> future : futures) {
+        deletions += future.get();
+      }
+      return deletions;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted during deletion of documents on index " + indexType.getIndex(), e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Fail to delete documents on index " + indexType.getIndex(), e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private long scrollDeletions(SearchRequestBuilder searchRequest) {
+    long deletions = 0L;
+    SearchResponse searchResponse = searchRequest.get();
     while (true) {
       SearchHit[] hits = searchResponse.getHits().getHits();
       for (SearchHit hit : hits) {
@@ -158,13 +228,14 @@ public class BulkIndexer {
         }
         add(deleteRequestBuilder.request());
       }
+      deletions += hits.length;
 
       String scrollId = searchResponse.getScrollId();
-      searchResponse = client.prepareSearchScroll(scrollId).setScroll(TimeValue.timeValueMinutes(5)).get();
       if (hits.length == 0) {
         client.nativeClient().prepareClearScroll().addScrollId(scrollId).get();
-        break;
+        return deletions;
       }
+      searchResponse = client.prepareSearchScroll(scrollId).setScroll(SCROLL_TIME).get();
     }
   }
 
@@ -27,6 +27,7 @@ import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.unit.TimeValue;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.core.util.RequestStatistics;
 import org.sonar.server.es.EsClient;
 
 public class ProxyClusterHealthRequestBuilder extends ClusterHealthRequestBuilder {
@@ -37,12 +38,14 @@ public class ProxyClusterHealthRequestBuilder extends ClusterHealthRequestBuilde
 
   @Override
   public ClusterHealthResponse get() {
+    long start = System.nanoTime();
     Profiler profiler = Profiler.createIfTrace(EsClient.LOGGER).start();
     try {
       return super.execute().actionGet();
     } catch (Exception e) {
       throw new IllegalStateException(String.format("Fail to execute %s", toString()), e);
     } finally {
+      RequestStatistics.ELASTICSEARCH.record(System.nanoTime() - start);
       if (profiler.isTraceEnabled()) {
         profiler.stopTrace(toString());
       }
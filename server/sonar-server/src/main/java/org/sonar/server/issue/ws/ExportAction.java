@@ -0,0 +1,212 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import com.google.common.collect.Iterators;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.resources.Scopes;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.util.ProtobufJsonFormat;
+import org.sonar.server.issue.IssueQuery;
+import org.sonar.server.issue.IssueQueryFactory;
+import org.sonar.server.issue.SearchRequest;
+import org.sonar.server.issue.index.IssueIndex;
+import org.sonarqube.ws.Issues;
+
+import static java.util.Collections.emptyList;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
+import static org.sonar.server.ws.KeyExamples.KEY_BRANCH_EXAMPLE_001;
+import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
+import static org.sonarqube.ws.MediaTypes.PROTOBUF;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.ACTION_EXPORT;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.FACET_MODE_COUNT;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_ADDITIONAL_FIELDS;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_BRANCH;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_COMPONENT_KEYS;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_AFTER;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_BEFORE;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_ORGANIZATION;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_RESOLUTIONS;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_RESOLVED;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_RULES;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_SEVERITIES;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_STATUSES;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_TAGS;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_TYPES;
+
+/**
+ * Export of all the issues matching criteria, without the pagination limits of api/issues/search.
+ * Keys are scrolled from Elasticsearch and details are loaded from database by batches, while
+ * the response is being written. Next batch is loaded only when the previous one is flushed to
+ * the client, so memory does not depend on the number of exported issues.
+ */
+public class ExportAction implements IssuesWsAction {
+
+  static final int BATCH_SIZE = 500;
+
+  private final IssueIndex issueIndex;
+  private final IssueQueryFactory issueQueryFactory;
+  private final SearchResponseLoader searchResponseLoader;
+  private final SearchResponseFormat searchResponseFormat;
+
+  public ExportAction(IssueIndex issueIndex, IssueQueryFactory issueQueryFactory, SearchResponseLoader searchResponseLoader,
+    SearchResponseFormat searchResponseFormat) {
+    this.issueIndex = issueIndex;
+    this.issueQueryFactory = issueQueryFactory;
+    this.searchResponseLoader = searchResponseLoader;
+    this.searchResponseFormat = searchResponseFormat;
+  }
+
+  @Override
+  public void define(WebService.NewController controller) {
+    WebService.NewAction action = controller
+      .createAction(ACTION_EXPORT)
+      .setHandler(this)
+      .setDescription("Export all the issues matching criteria. Unlike api/issues/search, the number of issues is not limited, " +
+        "issues are not sorted and facets are not computed.<br>" +
+        "Response is streamed either as JSON or, if protobuf media type is requested, as a sequence of length-delimited Issue messages.<br>" +
+        "Requires the 'Browse' permission on the specified project(s).")
+      .setSince("7.1")
+      .setInternal(true)
+      .setResponseExample(getClass().getResource("export-example.json"));
+
+    action.createParam(PARAM_ADDITIONAL_FIELDS)
+      .setDescription("Comma-separated list of the optional fields to be returned in response.")
+      .setPossibleValues("comments");
+    action.createParam(PARAM_COMPONENT_KEYS)
+      .setDescription("Comma-separated list of component keys. Retrieve issues associated to a specific list of components (and all its descendants). " +
+        "A component can be a portfolio, project, module, directory or file.")
+      .setExampleValue(KEY_PROJECT_EXAMPLE_001);
+    action.createParam(PARAM_BRANCH)
+      .setDescription("Branch key")
+      .setExampleValue(KEY_BRANCH_EXAMPLE_001);
+    action.createParam(PARAM_ORGANIZATION)
+      .setDescription("Organization key")
+      .setExampleValue("my-org");
+    action.createParam(PARAM_SEVERITIES)
+      .setDescription("Comma-separated list of severities")
+      .setExampleValue(Severity.BLOCKER + "," + Severity.CRITICAL)
+      .setPossibleValues(Severity.ALL);
+    action.createParam(PARAM_STATUSES)
+      .setDescription("Comma-separated list of statuses")
+      .setExampleValue(Issue.STATUS_OPEN + "," + Issue.STATUS_REOPENED)
+      .setPossibleValues(Issue.STATUSES);
+    action.createParam(PARAM_RESOLUTIONS)
+      .setDescription("Comma-separated list of resolutions")
+      .setExampleValue(Issue.RESOLUTION_FIXED + "," + Issue.RESOLUTION_REMOVED)
+      .setPossibleValues(Issue.RESOLUTIONS);
+    action.createParam(PARAM_RESOLVED)
+      .setDescription("To match resolved or unresolved issues")
+      .setBooleanPossibleValues();
+    action.createParam(PARAM_RULES)
+      .setDescription("Comma-separated list of coding rule keys. Format is &lt;repository&gt;:&lt;rule&gt;")
+      .setExampleValue("squid:AvoidCycles");
+    action.createParam(PARAM_TAGS)
+      .setDescription("Comma-separated list of tags.")
+      .setExampleValue("security,convention");
+    action.createParam(PARAM_TYPES)
+      .setDescription("Comma-separated list of types.")
+      .setPossibleValues((Object[]) RuleType.values())
+      .setExampleValue(RuleType.CODE_SMELL + "," + RuleType.BUG);
+    action.createParam(PARAM_CREATED_AFTER)
+      .setDescription("To retrieve issues created after the given date (inclusive). <br>" +
+        "Either a date (server timezone) or datetime can be provided.")
+      .setExampleValue("2017-10-19 or 2017-10-19T13:00:00+0200");
+    action.createParam(PARAM_CREATED_BEFORE)
+      .setDescription("To retrieve issues created before the given date (inclusive). <br>" +
+        "Either a date (server timezone) or datetime can be provided.")
+      .setExampleValue("2017-10-19 or 2017-10-19T13:00:00+0200");
+  }
+
+  @Override
+  public void handle(Request request, Response response) throws Exception {
+    SearchRequest searchRequest = toSearchRequest(request);
+    Set<SearchAdditionalField> additionalFields = SearchAdditionalField.getFromRequest(searchRequest);
+    IssueQuery query = issueQueryFactory.create(searchRequest);
+    Iterator<String> issueKeys = issueIndex.scrollKeys(query);
+
+    if (PROTOBUF.equals(request.getMediaType())) {
+      response.stream().setMediaType(PROTOBUF);
+      try (OutputStream output = response.stream().output()) {
+        export(issueKeys, additionalFields, issue -> writeDelimited(issue, output));
+      }
+    } else {
+      try (JsonWriter json = response.newJsonWriter()) {
+        json.beginObject().name("issues").beginArray();
+        export(issueKeys, additionalFields, issue -> ProtobufJsonFormat.write(issue, json));
+        json.endArray().endObject();
+      }
+    }
+  }
+
+  private void export(Iterator<String> issueKeys, Set<SearchAdditionalField> additionalFields, Consumer<Issues.Issue> writer) {
+    Iterator<List<String>> batches = Iterators.partition(issueKeys, BATCH_SIZE);
+    SearchResponseData previousBatch = new SearchResponseData(emptyList());
+    while (batches.hasNext()) {
+      SearchResponseLoader.Collector collector = new SearchResponseLoader.Collector(additionalFields, batches.next());
+      // issues of consecutive batches often relate to the same projects and modules, which are not loaded again.
+      // Files and directories are not kept, otherwise the preloaded components would grow with the number of exported issues.
+      SearchResponseData preloaded = new SearchResponseData(emptyList());
+      preloaded.addComponents(previousBatch.getComponents().stream()
+        .filter(component -> Scopes.PROJECT.equals(component.scope()))
+        .collect(toList()));
+      SearchResponseData batch = searchResponseLoader.load(preloaded, collector, null);
+      searchResponseFormat.formatIssues(additionalFields, batch).forEach(writer);
+      previousBatch = batch;
+    }
+  }
+
+  private static void writeDelimited(Issues.Issue issue, OutputStream output) {
+    try {
+      issue.writeDelimitedTo(output);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write issue " + issue.getKey(), e);
+    }
+  }
+
+  private static SearchRequest toSearchRequest(Request request) {
+    return new SearchRequest()
+      .setAdditionalFields(request.paramAsStrings(PARAM_ADDITIONAL_FIELDS))
+      .setComponentKeys(request.paramAsStrings(PARAM_COMPONENT_KEYS))
+      .setBranch(request.param(PARAM_BRANCH))
+      .setOrganization(request.param(PARAM_ORGANIZATION))
+      .setSeverities(request.paramAsStrings(PARAM_SEVERITIES))
+      .setStatuses(request.paramAsStrings(PARAM_STATUSES))
+      .setResolutions(request.paramAsStrings(PARAM_RESOLUTIONS))
+      .setResolved(request.paramAsBoolean(PARAM_RESOLVED))
+      .setRules(request.paramAsStrings(PARAM_RULES))
+      .setTags(request.paramAsStrings(PARAM_TAGS))
+      .setTypes(request.paramAsStrings(PARAM_TYPES))
+      .setCreatedAfter(request.param(PARAM_CREATED_AFTER))
+      .setCreatedBefore(request.param(PARAM_CREATED_BEFORE))
+      .setFacetMode(FACET_MODE_COUNT);
+  }
+}
@@ -57,6 +57,7 @@ public class IssueWsModule extends Module {
       AssignAction.class,
       DoTransitionAction.class,
       SearchAction.class,
+      ExportAction.class,
       SetSeverityAction.class,
       TagsAction.class,
       SetTagsAction.class,
@@ -134,7 +134,7 @@ public class SearchResponseFormat {
     response.setPaging(commonFormat.formatPaging(paging));
   }
 
-  private List<Issues.Issue> formatIssues(Set<SearchAdditionalField> fields, SearchResponseData data) {
+  List<Issues.Issue> formatIssues(Set<SearchAdditionalField> fields, SearchResponseData data) {
     List<Issues.Issue> result = new ArrayList<>();
     Issue.Builder issueBuilder = Issue.newBuilder();
     data.getIssues().forEach(dto -> {
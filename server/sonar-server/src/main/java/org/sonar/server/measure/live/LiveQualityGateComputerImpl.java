@@ -34,10 +34,15 @@ import org.sonar.db.component.BranchDto;
 import org.sonar.db.component.BranchType;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.measure.LiveMeasureDto;
+import org.sonar.db.metric.MetricDao;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.organization.OrganizationDto;
+import org.sonar.db.qualitygate.QualityGateConditionDao;
 import org.sonar.db.qualitygate.QualityGateConditionDto;
+import org.sonar.db.qualitygate.QualityGateDao;
 import org.sonar.db.qualitygate.QualityGateDto;
+import org.sonar.server.cache.NearCache;
+import org.sonar.server.cache.NearCaches;
 import org.sonar.server.qualitygate.Condition;
 import org.sonar.server.qualitygate.EvaluatedQualityGate;
 import org.sonar.server.qualitygate.QualityGate;
@@ -54,11 +59,13 @@ public class LiveQualityGateComputerImpl implements LiveQualityGateComputer {
   private final DbClient dbClient;
   private final QualityGateFinder qGateFinder;
   private final QualityGateEvaluator evaluator;
+  private final NearCache<Long, QualityGate> gatesById;
 
-  public LiveQualityGateComputerImpl(DbClient dbClient, QualityGateFinder qGateFinder, QualityGateEvaluator evaluator) {
+  public LiveQualityGateComputerImpl(DbClient dbClient, QualityGateFinder qGateFinder, QualityGateEvaluator evaluator, NearCaches nearCaches) {
     this.dbClient = dbClient;
     this.qGateFinder = qGateFinder;
     this.evaluator = evaluator;
+    this.gatesById = nearCaches.create("quality_gates", QualityGateDao.TABLE, QualityGateConditionDao.TABLE, MetricDao.TABLE);
   }
 
   @Override
@@ -69,6 +76,10 @@ public class LiveQualityGateComputerImpl implements LiveQualityGateComputer {
 
     ComponentDto mainProject = project.getMainBranchProjectUuid() == null ? project : dbClient.componentDao().selectOrFailByKey(dbSession, project.getKey());
     QualityGateDto gateDto = qGateFinder.getQualityGate(dbSession, organization, mainProject).getQualityGate();
+    return gatesById.get(gateDto.getId(), id -> toQualityGate(dbSession, gateDto));
+  }
+
+  private QualityGate toQualityGate(DbSession dbSession, QualityGateDto gateDto) {
     Collection<QualityGateConditionDto> conditionDtos = dbClient.gateConditionDao().selectForQualityGate(dbSession, gateDto.getId());
     Set<Integer> metricIds = conditionDtos.stream().map(c -> (int) c.getMetricId())
       .collect(toHashSet(conditionDtos.size()));
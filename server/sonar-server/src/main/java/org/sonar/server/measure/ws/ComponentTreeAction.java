@@ -59,6 +59,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTreeQuery;
+import org.sonar.db.component.ComponentTreeQuery.SortField;
 import org.sonar.db.component.ComponentTreeQuery.Strategy;
 import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.measure.LiveMeasureDto;
@@ -67,6 +68,7 @@ import org.sonar.db.metric.MetricDto;
 import org.sonar.db.metric.MetricDtoFunctions;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.metric.MetricCache;
 import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.Measures;
 import org.sonarqube.ws.Measures.ComponentTreeWsResponse;
@@ -149,6 +151,10 @@ public class ComponentTreeAction implements MeasuresWsAction {
   static final String METRIC_SORT = "metric";
   static final String METRIC_PERIOD_SORT = "metricPeriod";
   static final Set<String> SORTS = ImmutableSortedSet.of(NAME_SORT, PATH_SORT, QUALIFIER_SORT, METRIC_SORT, METRIC_PERIOD_SORT);
+  private static final Map<String, SortField> SORT_FIELDS = ImmutableMap.of(
+    NAME_SORT, SortField.NAME,
+    PATH_SORT, SortField.PATH,
+    QUALIFIER_SORT, SortField.QUALIFIER);
   static final String ALL_METRIC_SORT_FILTER = "all";
   static final String WITH_MEASURES_ONLY_METRIC_SORT_FILTER = "withMeasuresOnly";
   static final Set<String> METRIC_SORT_FILTERS = ImmutableSortedSet.of(ALL_METRIC_SORT_FILTER, WITH_MEASURES_ONLY_METRIC_SORT_FILTER);
@@ -162,14 +168,16 @@ public class ComponentTreeAction implements MeasuresWsAction {
   private final UserSession userSession;
   private final I18n i18n;
   private final ResourceTypes resourceTypes;
+  private final MetricCache metricCache;
 
   public ComponentTreeAction(DbClient dbClient, ComponentFinder componentFinder, UserSession userSession, I18n i18n,
-    ResourceTypes resourceTypes) {
+    ResourceTypes resourceTypes, MetricCache metricCache) {
     this.dbClient = dbClient;
     this.componentFinder = componentFinder;
     this.userSession = userSession;
     this.i18n = i18n;
     this.resourceTypes = resourceTypes;
+    this.metricCache = metricCache;
   }
 
   @Override
@@ -403,17 +411,27 @@ public class ComponentTreeAction implements MeasuresWsAction {
       }
 
       ComponentTreeQuery componentTreeQuery = toComponentTreeQuery(wsRequest, baseComponent);
-      List<ComponentDto> components = searchComponents(dbSession, componentTreeQuery);
       List<MetricDto> metrics = searchMetrics(dbSession, wsRequest);
-      Table<String, MetricDto, ComponentTreeData.Measure> measuresByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, componentTreeQuery,
-              components,
-              metrics);
-
-      components = filterComponents(components, measuresByComponentUuidAndMetric, metrics, wsRequest);
-      components = sortComponents(components, wsRequest, metrics, measuresByComponentUuidAndMetric);
-
-      int componentCount = components.size();
-      components = paginateComponents(components, wsRequest);
+      List<ComponentDto> components;
+      int componentCount;
+      if (isSortedOnMetric(wsRequest)) {
+        // the whole tree must be ranked, but only the measures of the metric to sort on are needed to do so
+        List<ComponentDto> allComponents = searchComponents(dbSession, componentTreeQuery);
+        List<MetricDto> sortMetrics = metrics.stream().filter(m -> m.getKey().equals(wsRequest.getMetricSort())).collect(MoreCollectors.toList(1));
+        Table<String, MetricDto, ComponentTreeData.Measure> sortMeasures = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, componentTreeQuery,
+          allComponents, sortMetrics);
+
+        allComponents = filterComponents(allComponents, sortMeasures, metrics, wsRequest);
+        allComponents = sortComponents(allComponents, wsRequest, metrics, sortMeasures);
+
+        componentCount = allComponents.size();
+        components = paginateComponents(allComponents, wsRequest);
+      } else {
+        components = searchComponents(dbSession, componentTreeQuery, wsRequest);
+        componentCount = countComponents(dbSession, componentTreeQuery);
+      }
+      Table<String, MetricDto, ComponentTreeData.Measure> measuresByComponentUuidAndMetric = searchMeasuresByComponentUuidAndMetric(dbSession, baseComponent, components,
+        metrics);
 
       return ComponentTreeData.builder()
               .setBaseComponent(baseComponent)
@@ -458,9 +476,25 @@ public class ComponentTreeAction implements MeasuresWsAction {
     return dbClient.componentDao().selectDescendants(dbSession, componentTreeQuery);
   }
 
+  private List<ComponentDto> searchComponents(DbSession dbSession, ComponentTreeQuery componentTreeQuery, ComponentTreeRequest wsRequest) {
+    Collection<String> qualifiers = componentTreeQuery.getQualifiers();
+    if (qualifiers != null && qualifiers.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return dbClient.componentDao().selectDescendants(dbSession, componentTreeQuery, offset(wsRequest.getPage(), wsRequest.getPageSize()), wsRequest.getPageSize());
+  }
+
+  private int countComponents(DbSession dbSession, ComponentTreeQuery componentTreeQuery) {
+    Collection<String> qualifiers = componentTreeQuery.getQualifiers();
+    if (qualifiers != null && qualifiers.isEmpty()) {
+      return 0;
+    }
+    return dbClient.componentDao().countDescendants(dbSession, componentTreeQuery);
+  }
+
   private List<MetricDto> searchMetrics(DbSession dbSession, ComponentTreeRequest request) {
     List<String> metricKeys = requireNonNull(request.getMetricKeys());
-    List<MetricDto> metrics = dbClient.metricDao().selectByKeys(dbSession, metricKeys);
+    List<MetricDto> metrics = metricCache.selectByKeys(dbSession, metricKeys);
     if (metrics.size() < metricKeys.size()) {
       List<String> foundMetricKeys = Lists.transform(metrics, MetricDto::getKey);
       Set<String> missingMetricKeys = Sets.difference(
@@ -503,6 +537,29 @@ public class ComponentTreeAction implements MeasuresWsAction {
     return measuresByComponentUuidAndMetric;
   }
 
+  /**
+   * Measures of the base component and of the given page of its descendants
+   */
+  private Table<String, MetricDto, ComponentTreeData.Measure> searchMeasuresByComponentUuidAndMetric(DbSession dbSession, ComponentDto baseComponent,
+    List<ComponentDto> components, List<MetricDto> metrics) {
+
+    Map<Integer, MetricDto> metricsById = Maps.uniqueIndex(metrics, MetricDto::getId);
+    List<String> componentUuids = new ArrayList<>(components.size() + 1);
+    componentUuids.add(baseComponent.uuid());
+    components.forEach(c -> componentUuids.add(c.uuid()));
+
+    Table<String, MetricDto, ComponentTreeData.Measure> measuresByComponentUuidAndMetric = HashBasedTable.create(componentUuids.size(), metrics.size());
+    dbClient.liveMeasureDao().selectByComponentUuidsAndMetricIds(dbSession, componentUuids, metricsById.keySet())
+      .forEach(measureDto -> measuresByComponentUuidAndMetric.put(
+        measureDto.getComponentUuid(),
+        metricsById.get(measureDto.getMetricId()),
+        ComponentTreeData.Measure.createFromMeasureDto(measureDto)));
+
+    addBestValuesToMeasures(measuresByComponentUuidAndMetric, components, metrics);
+
+    return measuresByComponentUuidAndMetric;
+  }
+
   /**
    * Conditions for best value measure:
    * <ul>
@@ -547,6 +604,11 @@ public class ComponentTreeAction implements MeasuresWsAction {
             .collect(MoreCollectors.toList(components.size()));
   }
 
+  private static boolean isSortedOnMetric(ComponentTreeRequest wsRequest) {
+    List<String> sorts = wsRequest.getSort();
+    return sorts != null && (sorts.contains(METRIC_SORT) || sorts.contains(METRIC_PERIOD_SORT));
+  }
+
   private static boolean componentWithMeasuresOnly(ComponentTreeRequest wsRequest) {
     return WITH_MEASURES_ONLY_METRIC_SORT_FILTER.equals(wsRequest.getMetricSortFilter());
   }
@@ -597,6 +659,10 @@ public class ComponentTreeAction implements MeasuresWsAction {
     if (childrenQualifiers != null) {
       componentTreeQueryBuilder.setQualifiers(childrenQualifiers);
     }
+    if (!isSortedOnMetric(wsRequest)) {
+      List<String> sorts = Optional.ofNullable(wsRequest.getSort()).orElse(emptyList());
+      componentTreeQueryBuilder.setSort(sorts.stream().map(SORT_FIELDS::get).collect(MoreCollectors.toList(sorts.size())), wsRequest.getAsc());
+    }
     return componentTreeQueryBuilder.build();
   }
 
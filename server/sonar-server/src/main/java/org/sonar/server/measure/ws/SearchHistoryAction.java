@@ -20,8 +20,11 @@
 package org.sonar.server.measure.ws;
 
 import com.google.common.collect.Sets;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -39,6 +42,8 @@ import org.sonar.db.component.SnapshotQuery;
 import org.sonar.db.component.SnapshotQuery.SORT_FIELD;
 import org.sonar.db.component.SnapshotQuery.SORT_ORDER;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureHistory;
+import org.sonar.db.measure.MeasureHistoryDto;
 import org.sonar.db.measure.PastMeasureQuery;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.server.component.ComponentFinder;
@@ -162,11 +167,47 @@ public class SearchHistoryAction implements MeasuresWsAction {
   }
 
   private List<MeasureDto> searchMeasures(DbSession dbSession, SearchHistoryRequest request, SearchHistoryResult result) {
+    ComponentDto component = result.getComponent();
+    List<Integer> metricIds = result.getMetrics().stream().map(MetricDto::getId).collect(MoreCollectors.toList());
+    if (!component.uuid().equals(component.projectUuid())) {
+      return searchPastMeasures(dbSession, request, component, metricIds);
+    }
+
+    // histories of root components are stored in a single row per metric
+    List<MeasureDto> measures = new ArrayList<>();
+    Map<Long, String> analysisUuidsByDate = new HashMap<>();
+    result.getAnalyses().forEach(analysis -> analysisUuidsByDate.put(analysis.getCreatedAt(), analysis.getUuid()));
+    List<MeasureHistoryDto> histories = dbClient.measureHistoryDao().selectByComponentUuidAndMetricIds(dbSession, component.uuid(), metricIds);
+    for (MeasureHistoryDto history : histories) {
+      for (MeasureHistory.Point point : history.getHistory().getPoints()) {
+        String analysisUuid = analysisUuidsByDate.get(point.getDate());
+        if (analysisUuid != null) {
+          measures.add(new MeasureDto()
+            .setAnalysisUuid(analysisUuid)
+            .setComponentUuid(component.uuid())
+            .setMetricId(history.getMetricId())
+            .setValue(point.getValue())
+            .setVariation(point.getVariation())
+            .setData(point.getData()));
+        }
+      }
+    }
+
+    // metrics which have not been analyzed since the creation of histories
+    Set<Integer> metricIdsWithHistory = histories.stream().map(MeasureHistoryDto::getMetricId).collect(MoreCollectors.toSet());
+    List<Integer> metricIdsWithoutHistory = metricIds.stream().filter(id -> !metricIdsWithHistory.contains(id)).collect(MoreCollectors.toList());
+    if (!metricIdsWithoutHistory.isEmpty()) {
+      measures.addAll(searchPastMeasures(dbSession, request, component, metricIdsWithoutHistory));
+    }
+    return measures;
+  }
+
+  private List<MeasureDto> searchPastMeasures(DbSession dbSession, SearchHistoryRequest request, ComponentDto component, List<Integer> metricIds) {
     Date from = parseStartingDateOrDateTime(request.getFrom());
     Date to = parseEndingDateOrDateTime(request.getTo());
     PastMeasureQuery dbQuery = new PastMeasureQuery(
-      result.getComponent().uuid(),
-      result.getMetrics().stream().map(MetricDto::getId).collect(MoreCollectors.toList()),
+      component.uuid(),
+      metricIds,
       from == null ? null : from.getTime(),
       to == null ? null : (to.getTime() + 1_000L));
     return dbClient.measureDao().selectPastMeasures(dbSession, dbQuery);
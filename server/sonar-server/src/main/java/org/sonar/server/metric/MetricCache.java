@@ -0,0 +1,85 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.metric;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.server.ServerSide;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.metric.MetricDao;
+import org.sonar.db.metric.MetricDto;
+import org.sonar.server.cache.NearCache;
+import org.sonar.server.cache.NearCaches;
+
+import static org.sonar.core.util.stream.MoreCollectors.toList;
+import static org.sonar.core.util.stream.MoreCollectors.uniqueIndex;
+
+/**
+ * Near-cache of all the metrics, including disabled ones. Returned {@link MetricDto}s are shared
+ * between threads and must not be modified.
+ */
+@ComputeEngineSide
+@ServerSide
+public class MetricCache {
+
+  private static final String ALL_METRICS = "all";
+
+  private final DbClient dbClient;
+  private final NearCache<String, Metrics> cache;
+
+  public MetricCache(DbClient dbClient, NearCaches nearCaches) {
+    this.dbClient = dbClient;
+    this.cache = nearCaches.create("metrics", MetricDao.TABLE);
+  }
+
+  /**
+   * Same as {@link MetricDao#selectByKeys(DbSession, Collection)}: unknown keys are ignored.
+   */
+  public List<MetricDto> selectByKeys(DbSession dbSession, Collection<String> keys) {
+    Map<String, MetricDto> byKey = load(dbSession).byKey;
+    return keys.stream().distinct().map(byKey::get).filter(Objects::nonNull).collect(toList(keys.size()));
+  }
+
+  /**
+   * Same as {@link MetricDao#selectByIds(DbSession, java.util.Set)}: unknown ids are ignored.
+   */
+  public List<MetricDto> selectByIds(DbSession dbSession, Collection<Integer> ids) {
+    Map<Integer, MetricDto> byId = load(dbSession).byId;
+    return ids.stream().distinct().map(byId::get).filter(Objects::nonNull).collect(toList(ids.size()));
+  }
+
+  private Metrics load(DbSession dbSession) {
+    return cache.get(ALL_METRICS, k -> new Metrics(dbClient.metricDao().selectAll(dbSession)));
+  }
+
+  private static class Metrics {
+    private final Map<String, MetricDto> byKey;
+    private final Map<Integer, MetricDto> byId;
+
+    private Metrics(List<MetricDto> metrics) {
+      this.byKey = metrics.stream().collect(uniqueIndex(MetricDto::getKey, metrics.size()));
+      this.byId = metrics.stream().collect(uniqueIndex(MetricDto::getId, metrics.size()));
+    }
+  }
+}
@@ -25,13 +25,17 @@ import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Multimap;
 import java.io.IOException;
 import java.io.InvalidClassException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
@@ -55,6 +59,8 @@ public class DefaultNotificationManager implements NotificationManager {
   private NotificationChannel[] notificationChannels;
   private final DbClient dbClient;
 
+  private final ThreadLocal<Map<List<Object>, Multimap<String, NotificationChannel>>> recipientsCache = new ThreadLocal<>();
+
   private boolean alreadyLoggedDeserializationIssue = false;
 
   /**
@@ -78,21 +84,41 @@ public class DefaultNotificationManager implements NotificationManager {
   /**
    * Give the notification queue so that it can be processed
    */
+  @CheckForNull
   public Notification getFromQueue() {
-    int batchSize = 1;
+    List<Notification> notifications = getFromQueue(1);
+    return notifications.isEmpty() ? null : notifications.get(0);
+  }
+
+  /**
+   * Give at most {@code batchSize} of the oldest notifications of the queue, so that they can be processed. They are
+   * removed from the queue. Notifications which can't be read are ignored.
+   */
+  public List<Notification> getFromQueue(int batchSize) {
     List<NotificationQueueDto> notificationDtos = dbClient.notificationQueueDao().selectOldest(batchSize);
     if (notificationDtos.isEmpty()) {
-      return null;
+      return Collections.emptyList();
     }
     dbClient.notificationQueueDao().delete(notificationDtos);
 
-    return convertToNotification(notificationDtos);
+    return convertToNotifications(notificationDtos);
+  }
+
+  private List<Notification> convertToNotifications(List<NotificationQueueDto> notificationDtos) {
+    List<Notification> notifications = new ArrayList<>(notificationDtos.size());
+    for (NotificationQueueDto notificationDto : notificationDtos) {
+      Notification notification = convertToNotification(notificationDto);
+      if (notification != null) {
+        notifications.add(notification);
+      }
+    }
+    return notifications;
   }
 
-  private Notification convertToNotification(List<NotificationQueueDto> notifications) {
+  @CheckForNull
+  private Notification convertToNotification(NotificationQueueDto notificationDto) {
     try {
-      // If batchSize is increased then we should return a list instead of a single element
-      return notifications.get(0).toNotification();
+      return notificationDto.toNotification();
     } catch (InvalidClassException e) {
       // SONAR-4739
       if (!alreadyLoggedDeserializationIssue) {
@@ -122,6 +148,26 @@ public class DefaultNotificationManager implements NotificationManager {
     String projectKey, SubscriberPermissionsOnProject subscriberPermissionsOnProject) {
     requireNonNull(projectKey, "projectKey is mandatory");
     String dispatcherKey = dispatcher.getKey();
+    Map<List<Object>, Multimap<String, NotificationChannel>> cache = recipientsCache.get();
+    if (cache == null) {
+      return loadSubscribedRecipients(dispatcherKey, projectKey, subscriberPermissionsOnProject);
+    }
+    return cache.computeIfAbsent(Arrays.asList(dispatcherKey, projectKey, subscriberPermissionsOnProject),
+      k -> loadSubscribedRecipients(dispatcherKey, projectKey, subscriberPermissionsOnProject));
+  }
+
+  /**
+   * Keep in memory the recipients found by {@link #findSubscribedRecipientsForDispatcher(NotificationDispatcher, String, SubscriberPermissionsOnProject)}
+   * in the current thread, until the returned cache is closed. Subscribers are then loaded from DB only once per
+   * dispatcher and project when delivering a batch of notifications.
+   */
+  public RecipientsCache cacheRecipients() {
+    recipientsCache.set(new HashMap<>());
+    return recipientsCache::remove;
+  }
+
+  private Multimap<String, NotificationChannel> loadSubscribedRecipients(String dispatcherKey, String projectKey,
+    SubscriberPermissionsOnProject subscriberPermissionsOnProject) {
 
     Set<SubscriberAndChannel> subscriberAndChannels = Arrays.stream(notificationChannels)
       .flatMap(notificationChannel -> toSubscriberAndChannels(dispatcherKey, projectKey, notificationChannel))
@@ -209,6 +255,12 @@ public class DefaultNotificationManager implements NotificationManager {
     }
   }
 
+  @FunctionalInterface
+  public interface RecipientsCache extends AutoCloseable {
+    @Override
+    void close();
+  }
+
   @VisibleForTesting
   protected List<NotificationChannel> getChannels() {
     return Arrays.asList(notificationChannels);
@@ -20,15 +20,25 @@
 package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.SetMultimap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.picocontainer.Startable;
 import org.sonar.api.Properties;
 import org.sonar.api.Property;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.notifications.Notification;
+import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -43,34 +53,59 @@ import org.sonar.api.utils.log.Loggers;
     key = NotificationDaemon.PROPERTY_DELAY_BEFORE_REPORTING_STATUS,
     defaultValue = "600",
     name = "Delay before reporting notification status, in seconds",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_DELIVERY_THREADS,
+    defaultValue = "4",
+    name = "Number of threads delivering notifications",
     global = false)
 })
 @ServerSide
 public class NotificationDaemon implements Startable {
   private static final String THREAD_NAME_PREFIX = "sq-notification-service-";
+  private static final String DELIVERY_THREAD_NAME_PREFIX = "sq-notification-delivery-";
+  private static final int BATCH_SIZE = 100;
+  private static final int DELIVERY_QUEUE_SIZE_PER_THREAD = 50;
 
   private static final Logger LOG = Loggers.get(NotificationDaemon.class);
 
   public static final String PROPERTY_DELAY = "sonar.notifications.delay";
   public static final String PROPERTY_DELAY_BEFORE_REPORTING_STATUS = "sonar.notifications.runningDelayBeforeReportingStatus";
+  public static final String PROPERTY_DELIVERY_THREADS = "sonar.notifications.deliveryThreads";
 
   private final long delayInSeconds;
   private final long delayBeforeReportingStatusInSeconds;
+  private final int deliveryThreads;
   private final DefaultNotificationManager manager;
   private final NotificationService service;
 
+  private final AtomicLong deliveredCount = new AtomicLong();
+  private final AtomicLong failedDeliveryCount = new AtomicLong();
+  private final Set<Notification> requeuedNotifications = Collections.newSetFromMap(Collections.synchronizedMap(new IdentityHashMap<>()));
+
   private ScheduledExecutorService executorService;
-  private boolean stopping = false;
+  private ThreadPoolExecutor deliveryExecutor;
+  private volatile boolean stopping = false;
 
   public NotificationDaemon(Configuration config, DefaultNotificationManager manager, NotificationService service) {
     this.delayInSeconds = config.getLong(PROPERTY_DELAY).get();
     this.delayBeforeReportingStatusInSeconds = config.getLong(PROPERTY_DELAY_BEFORE_REPORTING_STATUS).get();
+    this.deliveryThreads = config.getInt(PROPERTY_DELIVERY_THREADS).get();
     this.manager = manager;
     this.service = service;
   }
 
   @Override
   public void start() {
+    // deliveries are executed by the thread processing the queue when all delivery threads are busy and the queue
+    // of deliveries is full, so that notifications are not dequeued faster than they can be delivered
+    deliveryExecutor = new ThreadPoolExecutor(deliveryThreads, deliveryThreads, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(deliveryThreads * DELIVERY_QUEUE_SIZE_PER_THREAD),
+      new ThreadFactoryBuilder()
+        .setNameFormat(DELIVERY_THREAD_NAME_PREFIX + "%d")
+        .setPriority(Thread.MIN_PRIORITY)
+        .build(),
+      this::runOrRequeue);
     executorService = Executors.newSingleThreadScheduledExecutor(
       new ThreadFactoryBuilder()
         .setNameFormat(THREAD_NAME_PREFIX + "%d")
@@ -83,20 +118,46 @@ public class NotificationDaemon implements Startable {
         LOG.error("Error in NotificationService", e);
       }
     }, 0, delayInSeconds, TimeUnit.SECONDS);
-    LOG.info("Notification service started (delay {} sec.)", delayInSeconds);
+    LOG.info("Notification service started (delay {} sec., {} delivery threads)", delayInSeconds, deliveryThreads);
   }
 
+  /**
+   * Notifications are removed from the queue before being delivered. Those whose deliveries are not executed
+   * before the timeout are queued again, so they may be delivered twice to some recipients but are not lost.
+   */
   @Override
   public void stop() {
     try {
       stopping = true;
       executorService.shutdown();
-      executorService.awaitTermination(5, TimeUnit.SECONDS);
+      executorService.awaitTermination(stopTimeoutInMs(), TimeUnit.MILLISECONDS);
+      // deliveries already submitted are still executed once the executor is shut down
+      deliveryExecutor.shutdown();
+      if (!deliveryExecutor.awaitTermination(stopTimeoutInMs(), TimeUnit.MILLISECONDS)) {
+        requeue(deliveryExecutor.shutdownNow());
+      }
     } catch (InterruptedException e) {
       LOG.error("Error during stop of notification service", e);
+      requeue(deliveryExecutor.shutdownNow());
       Thread.currentThread().interrupt();
     }
-    LOG.info("Notification service stopped");
+    LOG.info("Notification service stopped ({} notifications queued again)", requeuedNotifications.size());
+  }
+
+  private void runOrRequeue(Runnable delivery, ThreadPoolExecutor executor) {
+    if (executor.isShutdown()) {
+      // the batch is still being dispatched while the service is stopping
+      requeue(Collections.singletonList(delivery));
+    } else {
+      delivery.run();
+    }
+  }
+
+  private void requeue(List<Runnable> deliveries) {
+    deliveries.stream()
+      .map(delivery -> ((Delivery) delivery).notification)
+      .filter(requeuedNotifications::add)
+      .forEach(manager::scheduleForSending);
   }
 
   private synchronized void processQueue() {
@@ -104,10 +165,13 @@ public class NotificationDaemon implements Startable {
     long lastLog = start;
     long notifSentCount = 0;
 
-    Notification notifToSend = manager.getFromQueue();
-    while (notifToSend != null) {
-      service.deliver(notifToSend);
-      notifSentCount++;
+    List<Notification> notifsToSend = manager.getFromQueue(BATCH_SIZE);
+    while (!notifsToSend.isEmpty()) {
+      // subscribers are loaded once per dispatcher and project for the whole batch
+      try (DefaultNotificationManager.RecipientsCache recipientsCache = manager.cacheRecipients()) {
+        notifsToSend.forEach(this::dispatch);
+      }
+      notifSentCount += notifsToSend.size();
       if (stopping) {
         break;
       }
@@ -118,14 +182,49 @@ public class NotificationDaemon implements Startable {
         long spentTimeInMinutes = (now - start) / (60 * 1000);
         log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
       }
-      notifToSend = manager.getFromQueue();
+      notifsToSend = manager.getFromQueue(BATCH_SIZE);
+    }
+  }
+
+  private void dispatch(Notification notification) {
+    SetMultimap<String, NotificationChannel> recipients = service.findRecipients(notification);
+    for (Map.Entry<String, NotificationChannel> recipient : recipients.entries()) {
+      String username = recipient.getKey();
+      NotificationChannel channel = recipient.getValue();
+      deliveryExecutor.execute(new Delivery(notification, username, channel));
+    }
+  }
+
+  private class Delivery implements Runnable {
+    private final Notification notification;
+    private final String username;
+    private final NotificationChannel channel;
+
+    private Delivery(Notification notification, String username, NotificationChannel channel) {
+      this.notification = notification;
+      this.username = username;
+      this.channel = channel;
+    }
+
+    @Override
+    public void run() {
+      if (NotificationService.deliver(notification, username, channel)) {
+        deliveredCount.incrementAndGet();
+      } else {
+        failedDeliveryCount.incrementAndGet();
+      }
     }
   }
 
   @VisibleForTesting
   void log(long notifSentCount, long remainingNotifCount, long spentTimeInMinutes) {
-    LOG.info("{} notifications sent during the past {} minutes and {} still waiting to be sent",
-      notifSentCount, spentTimeInMinutes, remainingNotifCount);
+    LOG.info("{} notifications sent during the past {} minutes and {} still waiting to be sent ({} deliveries succeeded, {} failed, {} waiting)",
+      notifSentCount, spentTimeInMinutes, remainingNotifCount, deliveredCount.get(), failedDeliveryCount.get(), deliveryExecutor.getQueue().size());
+  }
+
+  @VisibleForTesting
+  long stopTimeoutInMs() {
+    return 5_000L;
   }
 
   @VisibleForTesting
@@ -60,6 +60,21 @@ public class NotificationService {
   }
 
   public void deliver(Notification notification) {
+    SetMultimap<String, NotificationChannel> recipients = findRecipients(notification);
+    for (Map.Entry<String, Collection<NotificationChannel>> entry : recipients.asMap().entrySet()) {
+      String username = entry.getKey();
+      Collection<NotificationChannel> userChannels = entry.getValue();
+      LOG.debug("For user {} via {}", username, userChannels);
+      for (NotificationChannel channel : userChannels) {
+        deliver(notification, username, channel);
+      }
+    }
+  }
+
+  /**
+   * Users to be notified, along with the channels to use for each of them.
+   */
+  SetMultimap<String, NotificationChannel> findRecipients(Notification notification) {
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationDispatcher dispatcher : dispatchers) {
       NotificationDispatcher.Context context = new ContextImpl(recipients);
@@ -70,22 +85,20 @@ public class NotificationService {
         LOG.warn(String.format("Unable to dispatch notification %s using %s", notification, dispatcher), e);
       }
     }
-    dispatch(notification, recipients);
+    return recipients;
   }
 
-  private static void dispatch(Notification notification, SetMultimap<String, NotificationChannel> recipients) {
-    for (Map.Entry<String, Collection<NotificationChannel>> entry : recipients.asMap().entrySet()) {
-      String username = entry.getKey();
-      Collection<NotificationChannel> userChannels = entry.getValue();
-      LOG.debug("For user {} via {}", username, userChannels);
-      for (NotificationChannel channel : userChannels) {
-        try {
-          channel.deliver(notification, username);
-        } catch (Exception e) {
-          // catch all exceptions in order to deliver via other channels
-          LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
-        }
-      }
+  /**
+   * @return false if the channel failed to deliver the notification
+   */
+  static boolean deliver(Notification notification, String username, NotificationChannel channel) {
+    try {
+      channel.deliver(notification, username);
+      return true;
+    } catch (Exception e) {
+      // catch all exceptions in order to deliver via other channels
+      LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
+      return false;
     }
   }
 
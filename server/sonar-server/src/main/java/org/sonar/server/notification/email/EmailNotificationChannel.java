@@ -21,15 +21,18 @@ package org.sonar.server.notification.email;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import javax.mail.MessagingException;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.mail.EmailException;
 import org.apache.commons.mail.SimpleEmail;
+import org.picocontainer.Startable;
 import org.sonar.api.config.EmailSettings;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.api.user.User;
 import org.sonar.api.user.UserFinder;
 import org.sonar.api.utils.SonarException;
+import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.emailnotifications.api.EmailMessage;
@@ -45,7 +48,7 @@ import org.sonar.plugins.emailnotifications.api.EmailTemplate;
  *
  * @since 2.10
  */
-public class EmailNotificationChannel extends NotificationChannel {
+public class EmailNotificationChannel extends NotificationChannel implements Startable {
 
   private static final Logger LOG = Loggers.get(EmailNotificationChannel.class);
 
@@ -81,9 +84,15 @@ public class EmailNotificationChannel extends NotificationChannel {
 
   private static final String SUBJECT_DEFAULT = "Notification";
 
+  private static final int MAX_IDLE_SMTP_CONNECTIONS = 8;
+  private static final long MAX_SMTP_CONNECTION_IDLE_TIME = 30_000L;
+  private static final int MAX_MESSAGES_PER_SMTP_CONNECTION = 100;
+
   private EmailSettings configuration;
   private EmailTemplate[] templates;
   private UserFinder userFinder;
+  private final SmtpTransportPool transportPool = new SmtpTransportPool(MAX_IDLE_SMTP_CONNECTIONS, MAX_SMTP_CONNECTION_IDLE_TIME,
+    MAX_MESSAGES_PER_SMTP_CONNECTION, System2.INSTANCE);
 
   public EmailNotificationChannel(EmailSettings configuration, EmailTemplate[] templates, UserFinder userFinder) {
     this.configuration = configuration;
@@ -91,6 +100,16 @@ public class EmailNotificationChannel extends NotificationChannel {
     this.userFinder = userFinder;
   }
 
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    transportPool.clear();
+  }
+
   @Override
   public void deliver(Notification notification, String username) {
     User user = userFinder.findByLogin(username);
@@ -138,53 +157,68 @@ public class EmailNotificationChannel extends NotificationChannel {
 
     try {
       LOG.debug("Sending email: {}", emailMessage);
-      String host = null;
-      try {
-        host = new URL(configuration.getServerBaseURL()).getHost();
-      } catch (MalformedURLException e) {
-        // ignore
-      }
-
-      SimpleEmail email = new SimpleEmail();
-      if (StringUtils.isNotBlank(host)) {
-        /*
-         * Set headers for proper threading: GMail will not group messages, even if they have same subject, but don't have "In-Reply-To" and
-         * "References" headers. TODO investigate threading in other clients like KMail, Thunderbird, Outlook
-         */
-        if (StringUtils.isNotEmpty(emailMessage.getMessageId())) {
-          String messageId = "<" + emailMessage.getMessageId() + "@" + host + ">";
-          email.addHeader(IN_REPLY_TO_HEADER, messageId);
-          email.addHeader(REFERENCES_HEADER, messageId);
-        }
-        // Set headers for proper filtering
-        email.addHeader(LIST_ID_HEADER, "SonarQube <sonar." + host + ">");
-        email.addHeader(LIST_ARCHIVE_HEADER, configuration.getServerBaseURL());
-      }
-      // Set general information
-      email.setCharset("UTF-8");
-      String fromName = configuration.getFromName();
-      String from = StringUtils.isBlank(emailMessage.getFrom()) ? fromName : (emailMessage.getFrom() + " (" + fromName + ")");
-      email.setFrom(configuration.getFrom(), from);
-      email.addTo(emailMessage.getTo(), " ");
-      String subject = StringUtils.defaultIfBlank(StringUtils.trimToEmpty(configuration.getPrefix()) + " ", "")
-        + StringUtils.defaultString(emailMessage.getSubject(), SUBJECT_DEFAULT);
-      email.setSubject(subject);
-      email.setMsg(emailMessage.getMessage());
-      // Send
-      email.setHostName(configuration.getSmtpHost());
-      configureSecureConnection(email);
-      if (StringUtils.isNotBlank(configuration.getSmtpUsername()) || StringUtils.isNotBlank(configuration.getSmtpPassword())) {
-        email.setAuthentication(configuration.getSmtpUsername(), configuration.getSmtpPassword());
-      }
-      email.setSocketConnectionTimeout(SOCKET_TIMEOUT);
-      email.setSocketTimeout(SOCKET_TIMEOUT);
-      email.send();
-
+      SimpleEmail email = createEmail(emailMessage);
+      email.buildMimeMessage();
+      transportPool.send(email.getMailSession(), smtpConfigurationKey(), email.getMimeMessage());
+    } catch (MessagingException e) {
+      throw new EmailException("Sending the email to the following server failed : " + configuration.getSmtpHost() + ":" + configuration.getSmtpPort(), e);
     } finally {
       Thread.currentThread().setContextClassLoader(classloader);
     }
   }
 
+  private SimpleEmail createEmail(EmailMessage emailMessage) throws EmailException {
+    String host = null;
+    try {
+      host = new URL(configuration.getServerBaseURL()).getHost();
+    } catch (MalformedURLException e) {
+      // ignore
+    }
+
+    SimpleEmail email = new SimpleEmail();
+    if (StringUtils.isNotBlank(host)) {
+      /*
+       * Set headers for proper threading: GMail will not group messages, even if they have same subject, but don't have "In-Reply-To" and
+       * "References" headers. TODO investigate threading in other clients like KMail, Thunderbird, Outlook
+       */
+      if (StringUtils.isNotEmpty(emailMessage.getMessageId())) {
+        String messageId = "<" + emailMessage.getMessageId() + "@" + host + ">";
+        email.addHeader(IN_REPLY_TO_HEADER, messageId);
+        email.addHeader(REFERENCES_HEADER, messageId);
+      }
+      // Set headers for proper filtering
+      email.addHeader(LIST_ID_HEADER, "SonarQube <sonar." + host + ">");
+      email.addHeader(LIST_ARCHIVE_HEADER, configuration.getServerBaseURL());
+    }
+    // Set general information
+    email.setCharset("UTF-8");
+    String fromName = configuration.getFromName();
+    String from = StringUtils.isBlank(emailMessage.getFrom()) ? fromName : (emailMessage.getFrom() + " (" + fromName + ")");
+    email.setFrom(configuration.getFrom(), from);
+    email.addTo(emailMessage.getTo(), " ");
+    String subject = StringUtils.defaultIfBlank(StringUtils.trimToEmpty(configuration.getPrefix()) + " ", "")
+      + StringUtils.defaultString(emailMessage.getSubject(), SUBJECT_DEFAULT);
+    email.setSubject(subject);
+    email.setMsg(emailMessage.getMessage());
+    // Send
+    email.setHostName(configuration.getSmtpHost());
+    configureSecureConnection(email);
+    if (StringUtils.isNotBlank(configuration.getSmtpUsername()) || StringUtils.isNotBlank(configuration.getSmtpPassword())) {
+      email.setAuthentication(configuration.getSmtpUsername(), configuration.getSmtpPassword());
+    }
+    email.setSocketConnectionTimeout(SOCKET_TIMEOUT);
+    email.setSocketTimeout(SOCKET_TIMEOUT);
+    return email;
+  }
+
+  /**
+   * Connections opened with previous SMTP settings must not be reused when settings are changed.
+   */
+  private String smtpConfigurationKey() {
+    return String.join("|", configuration.getSmtpHost(), String.valueOf(configuration.getSmtpPort()), configuration.getSecureConnection(),
+      configuration.getSmtpUsername(), configuration.getSmtpPassword());
+  }
+
   private void configureSecureConnection(SimpleEmail email) {
     if (StringUtils.equalsIgnoreCase(configuration.getSecureConnection(), "ssl")) {
       email.setSSLOnConnect(true);
@@ -0,0 +1,162 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification.email;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Keeps SMTP connections opened between messages, so that connection, TLS handshake and authentication are done once
+ * for several messages. Each thread sending a message borrows its own connection, which is given back to the pool
+ * when message is sent.
+ */
+class SmtpTransportPool {
+
+  private static final Logger LOG = Loggers.get(SmtpTransportPool.class);
+
+  private final int maxIdleConnections;
+  private final long maxIdleTimeInMs;
+  private final int maxMessagesPerConnection;
+  private final System2 system2;
+  private final Deque<PooledTransport> idleTransports = new ArrayDeque<>();
+  private final AtomicLong openedConnections = new AtomicLong();
+
+  SmtpTransportPool(int maxIdleConnections, long maxIdleTimeInMs, int maxMessagesPerConnection, System2 system2) {
+    this.maxIdleConnections = maxIdleConnections;
+    this.maxIdleTimeInMs = maxIdleTimeInMs;
+    this.maxMessagesPerConnection = maxMessagesPerConnection;
+    this.system2 = system2;
+  }
+
+  /**
+   * @param session the session configured with the SMTP server, which is used to open a new connection if none is available
+   * @param configurationKey identifies the configuration of the SMTP server, connections opened with another configuration are not reused
+   */
+  void send(Session session, String configurationKey, MimeMessage message) throws MessagingException {
+    PooledTransport pooledTransport = borrow(configurationKey);
+    if (pooledTransport == null) {
+      Transport transport = session.getTransport();
+      transport.connect();
+      openedConnections.incrementAndGet();
+      pooledTransport = new PooledTransport(transport, configurationKey);
+    }
+    try {
+      message.saveChanges();
+      pooledTransport.transport.sendMessage(message, message.getAllRecipients());
+      pooledTransport.sentMessages++;
+    } catch (MessagingException | RuntimeException e) {
+      close(pooledTransport);
+      throw e;
+    }
+    release(pooledTransport);
+  }
+
+  @CheckForNull
+  private PooledTransport borrow(String configurationKey) {
+    while (true) {
+      PooledTransport pooledTransport;
+      synchronized (idleTransports) {
+        pooledTransport = idleTransports.pollFirst();
+      }
+      if (pooledTransport == null) {
+        return null;
+      }
+      if (isReusable(pooledTransport, configurationKey)) {
+        return pooledTransport;
+      }
+      close(pooledTransport);
+    }
+  }
+
+  private boolean isReusable(PooledTransport pooledTransport, String configurationKey) {
+    // isConnected() checks that the server did not close the connection
+    return pooledTransport.configurationKey.equals(configurationKey)
+      && system2.now() - pooledTransport.releasedAt <= maxIdleTimeInMs
+      && pooledTransport.transport.isConnected();
+  }
+
+  private void release(PooledTransport pooledTransport) {
+    if (pooledTransport.sentMessages < maxMessagesPerConnection) {
+      pooledTransport.releasedAt = system2.now();
+      synchronized (idleTransports) {
+        if (idleTransports.size() < maxIdleConnections) {
+          idleTransports.offerFirst(pooledTransport);
+          return;
+        }
+      }
+    }
+    close(pooledTransport);
+  }
+
+  long openedConnections() {
+    return openedConnections.get();
+  }
+
+  int idleConnections() {
+    synchronized (idleTransports) {
+      return idleTransports.size();
+    }
+  }
+
+  /**
+   * Closes all idle connections
+   */
+  void clear() {
+    while (true) {
+      PooledTransport pooledTransport;
+      synchronized (idleTransports) {
+        pooledTransport = idleTransports.pollFirst();
+      }
+      if (pooledTransport == null) {
+        return;
+      }
+      close(pooledTransport);
+    }
+  }
+
+  private static void close(PooledTransport pooledTransport) {
+    try {
+      pooledTransport.transport.close();
+    } catch (MessagingException e) {
+      LOG.debug("Fail to close SMTP connection", e);
+    }
+  }
+
+  private static class PooledTransport {
+    private final Transport transport;
+    private final String configurationKey;
+    private int sentMessages = 0;
+    private long releasedAt;
+
+    private PooledTransport(Transport transport, String configurationKey) {
+      this.transport = transport;
+      this.configurationKey = configurationKey;
+    }
+  }
+}
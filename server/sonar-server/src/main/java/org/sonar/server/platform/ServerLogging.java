@@ -30,11 +30,9 @@ import org.sonar.api.config.Configuration;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.api.utils.log.Loggers;
-import org.sonar.db.Database;
 import org.sonar.process.logging.LogbackHelper;
 import org.sonar.server.app.ServerProcessLogging;
 
-import static org.sonar.api.utils.log.LoggerLevel.TRACE;
 import static org.sonar.process.ProcessProperties.Property.PATH_LOGS;
 
 @ServerSide
@@ -46,18 +44,16 @@ public class ServerLogging implements Startable {
   private final LogbackHelper helper;
   private final Configuration config;
   private final ServerProcessLogging serverProcessLogging;
-  private final Database database;
 
-  public ServerLogging(Configuration config, ServerProcessLogging serverProcessLogging, Database database) {
-    this(new LogbackHelper(), config, serverProcessLogging, database);
+  public ServerLogging(Configuration config, ServerProcessLogging serverProcessLogging) {
+    this(new LogbackHelper(), config, serverProcessLogging);
   }
 
   @VisibleForTesting
-  ServerLogging(LogbackHelper helper, Configuration config, ServerProcessLogging serverProcessLogging, Database database) {
+  ServerLogging(LogbackHelper helper, Configuration config, ServerProcessLogging serverProcessLogging) {
     this.helper = helper;
     this.config = config;
     this.serverProcessLogging = serverProcessLogging;
-    this.database = database;
   }
 
   @Override
@@ -76,7 +72,6 @@ public class ServerLogging implements Startable {
 
   public void changeLevel(LoggerLevel level) {
     Level logbackLevel = Level.toLevel(level.name());
-    database.enableSqlLogging(level == TRACE);
     helper.changeRoot(serverProcessLogging.getLogLevelConfig(), logbackLevel);
     LoggerFactory.getLogger(ServerLogging.class).info("Level of logs changed to {}", level);
   }
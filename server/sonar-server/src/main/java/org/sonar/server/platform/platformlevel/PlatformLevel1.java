@@ -43,6 +43,7 @@ import org.sonar.process.logging.LogbackHelper;
 import org.sonar.server.app.ProcessCommandWrapperImpl;
 import org.sonar.server.app.RestartFlagHolderImpl;
 import org.sonar.server.app.WebServerProcessLogging;
+import org.sonar.server.cache.NearCaches;
 import org.sonar.server.issue.index.IssueIndex;
 import org.sonar.server.platform.LogServerVersion;
 import org.sonar.server.platform.Platform;
@@ -110,6 +111,7 @@ public class PlatformLevel1 extends PlatformLevel {
       DBSessionsImpl.class,
       DbClient.class,
       DaoModule.class,
+      NearCaches.class,
 
       // Elasticsearch
       EsSearchModule.class,
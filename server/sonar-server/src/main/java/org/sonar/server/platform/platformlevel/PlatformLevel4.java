@@ -39,6 +39,7 @@ import org.sonar.server.badge.ws.ProjectBadgesWsModule;
 import org.sonar.server.batch.BatchWsModule;
 import org.sonar.server.branch.BranchFeatureProxyImpl;
 import org.sonar.server.branch.ws.BranchWsModule;
+import org.sonar.server.cache.ClusterNearCacheVersions;
 import org.sonar.server.ce.ws.CeWsModule;
 import org.sonar.server.component.ComponentCleanerService;
 import org.sonar.server.component.ComponentFinder;
@@ -95,6 +96,7 @@ import org.sonar.server.measure.ws.MeasuresWsModule;
 import org.sonar.server.measure.ws.TimeMachineWs;
 import org.sonar.server.metric.CoreCustomMetrics;
 import org.sonar.server.metric.DefaultMetricFinder;
+import org.sonar.server.metric.MetricCache;
 import org.sonar.server.metric.ws.MetricsWsModule;
 import org.sonar.server.notification.NotificationModule;
 import org.sonar.server.notification.ws.NotificationWsModule;
@@ -189,6 +191,7 @@ import org.sonar.server.rule.ws.RuleQueryFactory;
 import org.sonar.server.rule.ws.RuleWsSupport;
 import org.sonar.server.rule.ws.RulesWs;
 import org.sonar.server.rule.ws.TagsAction;
+import org.sonar.server.setting.SettingsChangeBroadcaster;
 import org.sonar.server.setting.ws.SettingsWsModule;
 import org.sonar.server.source.HtmlSourceDecorator;
 import org.sonar.server.source.SourceService;
@@ -237,6 +240,7 @@ import org.sonar.server.ws.DeprecatedPropertiesWsFilter;
 import org.sonar.server.ws.WebServiceEngine;
 import org.sonar.server.ws.WebServiceFilter;
 import org.sonar.server.ws.WebServiceReroutingFilter;
+import org.sonar.server.ws.WebServicesCost;
 import org.sonar.server.ws.ws.WebServicesWsModule;
 
 public class PlatformLevel4 extends PlatformLevel {
@@ -258,7 +262,8 @@ public class PlatformLevel4 extends PlatformLevel {
 
     addIfCluster(
       NodeHealthModule.class,
-      ChangeLogLevelClusterService.class);
+      ChangeLogLevelClusterService.class,
+      ClusterNearCacheVersions.class);
     addIfStandalone(
       ChangeLogLevelStandaloneService.class);
 
@@ -273,6 +278,7 @@ public class PlatformLevel4 extends PlatformLevel {
       ResourceTypes.class,
       DefaultResourceTypes.get(),
       SettingsChangeNotifier.class,
+      SettingsChangeBroadcaster.class,
       PageDecorations.class,
       Periods.class,
       ServerWs.class,
@@ -355,11 +361,13 @@ public class PlatformLevel4 extends PlatformLevel {
       CustomMeasuresWsModule.class,
       CoreCustomMetrics.class,
       DefaultMetricFinder.class,
+      MetricCache.class,
       TimeMachineWs.class,
 
       QualityGateModule.class,
 
       // web services
+      WebServicesCost.class,
       WebServiceEngine.class,
       WebServicesWsModule.class,
       WebServiceFilter.class,
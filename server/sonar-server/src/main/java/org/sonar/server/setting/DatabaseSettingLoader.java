@@ -53,4 +53,11 @@ public class DatabaseSettingLoader implements SettingLoader {
     }
   }
 
+  @Override
+  public String loadVersion() {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      return dbClient.propertiesDao().selectGlobalPropertiesVersion(dbSession);
+    }
+  }
+
 }
@@ -33,4 +33,9 @@ public class NopSettingLoader implements SettingLoader {
     return Collections.emptyMap();
   }
 
+  @Override
+  public String loadVersion() {
+    return "";
+  }
+
 }
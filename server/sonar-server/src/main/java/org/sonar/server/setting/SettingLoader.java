@@ -29,4 +29,9 @@ public interface SettingLoader {
 
   Map<String,String> loadAll();
 
+  /**
+   * Version of the settings returned by {@link #loadAll()}. It changes each time a setting is changed.
+   */
+  String loadVersion();
+
 }
@@ -0,0 +1,78 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.setting;
+
+import javax.annotation.CheckForNull;
+import org.sonar.api.config.GlobalPropertyChangeHandler;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.process.ProcessId;
+import org.sonar.process.cluster.hz.DistributedCall;
+import org.sonar.process.cluster.hz.HazelcastMember;
+import org.sonar.process.cluster.hz.HazelcastMemberSelectors;
+
+/**
+ * Invalidates the snapshot of db properties loaded by {@link ThreadLocalSettings} when a global
+ * property is changed. In cluster mode, the snapshots of all the web and compute engine processes
+ * are invalidated. Changes which are not notified are detected later by the version check of
+ * {@link ThreadLocalSettings}.
+ */
+@ServerSide
+public class SettingsChangeBroadcaster extends GlobalPropertyChangeHandler {
+
+  private static final long CLUSTER_TIMEOUT_MILLIS = 5000;
+  private static final Logger LOGGER = Loggers.get(SettingsChangeBroadcaster.class);
+
+  @CheckForNull
+  private final HazelcastMember member;
+
+  public SettingsChangeBroadcaster(HazelcastMember member) {
+    this.member = member;
+  }
+
+  public SettingsChangeBroadcaster() {
+    this(null);
+  }
+
+  @Override
+  public void onChange(PropertyChange change) {
+    ThreadLocalSettings.invalidateSnapshot();
+    if (member == null) {
+      return;
+    }
+    try {
+      member.call(invalidateSnapshotOfNode(), HazelcastMemberSelectors.selectorForProcessIds(ProcessId.WEB_SERVER, ProcessId.COMPUTE_ENGINE), CLUSTER_TIMEOUT_MILLIS)
+        .propagateExceptions();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.warn("Interrupted while invalidating settings of cluster nodes", e);
+    } catch (RuntimeException e) {
+      LOGGER.warn("Fail to invalidate settings of cluster nodes. Change of '{}' will be detected later.", change.getKey(), e);
+    }
+  }
+
+  private static DistributedCall<Object> invalidateSnapshotOfNode() {
+    return () -> {
+      ThreadLocalSettings.invalidateSnapshot();
+      return null;
+    };
+  }
+}
@@ -26,6 +26,10 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
 import org.apache.ibatis.exceptions.PersistenceException;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.ce.ComputeEngineSide;
@@ -33,6 +37,7 @@ import org.sonar.api.config.Encryption;
 import org.sonar.api.config.PropertyDefinitions;
 import org.sonar.api.config.Settings;
 import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
 
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Collections.unmodifiableMap;
@@ -51,25 +56,44 @@ import static java.util.Objects.requireNonNull;
  * been called. That allows to remove complexity with handling of cleanup of thread-local cache
  * on daemon threads (notifications) or startup "main" thread.
  * </p>
+ *
+ * <p>
+ * When the thread-local cache is enabled, db properties are read from a snapshot shared by all the threads
+ * of the process. The snapshot is reloaded when it is invalidated (see {@link #invalidateSnapshot()}) or when
+ * the version of the db properties changed. This version is checked at most every
+ * {@link #VERSION_CHECK_INTERVAL_MS} milliseconds.
+ * </p>
  */
 @ComputeEngineSide
 @ServerSide
 public class ThreadLocalSettings extends Settings {
 
+  static final long VERSION_CHECK_INTERVAL_MS = 5_000L;
+  private static final ThreadLocal<ThreadCache> CACHE = new ThreadLocal<>();
+  private static final AtomicLong INVALIDATIONS = new AtomicLong();
+
   private final Properties systemProps;
-  private static final ThreadLocal<Map<String, String>> CACHE = new ThreadLocal<>();
+  private final System2 system2;
   private Map<String, String> getPropertyDbFailureCache = Collections.emptyMap();
   private Map<String, String> getPropertiesDbFailureCache = Collections.emptyMap();
   private SettingLoader settingLoader;
+  @CheckForNull
+  private volatile Snapshot snapshot;
 
   public ThreadLocalSettings(PropertyDefinitions definitions, Properties props) {
-    this(definitions, props, new NopSettingLoader());
+    this(definitions, props, new NopSettingLoader(), System2.INSTANCE);
   }
 
   @VisibleForTesting
   ThreadLocalSettings(PropertyDefinitions definitions, Properties props, SettingLoader settingLoader) {
+    this(definitions, props, settingLoader, System2.INSTANCE);
+  }
+
+  @VisibleForTesting
+  ThreadLocalSettings(PropertyDefinitions definitions, Properties props, SettingLoader settingLoader, System2 system2) {
     super(definitions, new Encryption(null));
     this.settingLoader = settingLoader;
+    this.system2 = system2;
     this.systemProps = new Properties();
     props.forEach((k, v) -> systemProps.put(k, v == null ? null : v.toString().trim()));
 
@@ -84,6 +108,15 @@ public class ThreadLocalSettings extends Settings {
 
   protected void setSettingLoader(SettingLoader settingLoader) {
     this.settingLoader = Objects.requireNonNull(settingLoader);
+    this.snapshot = null;
+  }
+
+  /**
+   * Forces the reload of the db properties shared by the threads of the current process. The threads which
+   * already read db properties keep their values until {@link #unload()} is called.
+   */
+  public static void invalidateSnapshot() {
+    INVALIDATIONS.incrementAndGet();
   }
 
   @Override
@@ -98,24 +131,25 @@ public class ThreadLocalSettings extends Settings {
       return Optional.of(value);
     }
 
-    Map<String, String> dbProps = CACHE.get();
+    ThreadCache cache = CACHE.get();
     // caching is disabled
-    if (dbProps == null) {
+    if (cache == null) {
       return Optional.ofNullable(load(key));
     }
 
-    String loadedValue;
-    if (dbProps.containsKey(key)) {
-      // property may not exist in db. In this case key is present
-      // in cache but value is null
-      loadedValue = dbProps.get(key);
-    } else {
-      // cache the effective value (null if the property
-      // is not persisted)
-      loadedValue = load(key);
-      dbProps.put(key, loadedValue);
+    if (cache.overrides.containsKey(key)) {
+      return Optional.ofNullable(cache.overrides.get(key));
+    }
+    if (cache.dbProps == null) {
+      // the same values are used until the end of the thread cache, even if the snapshot is reloaded meanwhile
+      cache.dbProps = loadSnapshot();
+    }
+    if (cache.dbProps == null) {
+      // db is not available and no snapshot has been loaded yet
+      return Optional.ofNullable(load(key));
     }
-    return Optional.ofNullable(loadedValue);
+    // property may not exist in db. In this case key is not present in snapshot
+    return Optional.ofNullable(cache.dbProps.get(key));
   }
 
   private String load(String key) {
@@ -126,21 +160,53 @@ public class ThreadLocalSettings extends Settings {
     }
   }
 
+  /**
+   * @return the db properties of the snapshot, reloaded if outdated, or {@code null} if db can't be read and
+   * no snapshot has ever been loaded
+   */
+  @CheckForNull
+  private Map<String, String> loadSnapshot() {
+    long invalidations = INVALIDATIONS.get();
+    Snapshot current = this.snapshot;
+    if (current != null && current.invalidations == invalidations && system2.now() < current.nextVersionCheck) {
+      return current.properties;
+    }
+    synchronized (this) {
+      current = this.snapshot;
+      long now = system2.now();
+      if (current != null && current.invalidations == invalidations && now < current.nextVersionCheck) {
+        return current.properties;
+      }
+      try {
+        String version = settingLoader.loadVersion();
+        if (current != null && current.invalidations == invalidations && Objects.equals(version, current.version)) {
+          this.snapshot = new Snapshot(current.properties, version, invalidations, now + VERSION_CHECK_INTERVAL_MS);
+        } else {
+          this.snapshot = new Snapshot(unmodifiableMap(new HashMap<>(settingLoader.loadAll())), version, invalidations, now + VERSION_CHECK_INTERVAL_MS);
+        }
+        return this.snapshot.properties;
+      } catch (PersistenceException e) {
+        // keep previous snapshot, if any, until db is available again
+        return current == null ? null : current.properties;
+      }
+    }
+  }
+
   @Override
   protected void set(String key, String value) {
     requireNonNull(key, "key can't be null");
     requireNonNull(value, "value can't be null");
-    Map<String, String> dbProps = CACHE.get();
-    if (dbProps != null) {
-      dbProps.put(key, value.trim());
+    ThreadCache cache = CACHE.get();
+    if (cache != null) {
+      cache.overrides.put(key, value.trim());
     }
   }
 
   @Override
   protected void remove(String key) {
-    Map<String, String> dbProps = CACHE.get();
-    if (dbProps != null) {
-      dbProps.remove(key);
+    ThreadCache cache = CACHE.get();
+    if (cache != null) {
+      cache.overrides.remove(key);
     }
   }
 
@@ -152,17 +218,19 @@ public class ThreadLocalSettings extends Settings {
   public void load() {
     checkState(CACHE.get() == null,
       "load called twice for thread '%s' or state wasn't cleared last time it was used", Thread.currentThread().getName());
-    CACHE.set(new HashMap<>());
+    CACHE.set(new ThreadCache());
   }
 
   /**
    * Clears the cache specific to the current thread (if any).
    */
   public void unload() {
-    Map<String, String> settings = CACHE.get();
+    ThreadCache cache = CACHE.get();
     CACHE.remove();
     // update cache of settings to be used in case of DB connectivity error
-    this.getPropertyDbFailureCache = settings;
+    if (cache != null && cache.dbProps != null) {
+      this.getPropertyDbFailureCache = cache.dbProps;
+    }
   }
 
   @Override
@@ -182,4 +250,26 @@ public class ThreadLocalSettings extends Settings {
       appendTo.putAll(getPropertiesDbFailureCache);
     }
   }
+
+  private static class ThreadCache {
+    private final Map<String, String> overrides = new HashMap<>();
+    @CheckForNull
+    private Map<String, String> dbProps;
+  }
+
+  @Immutable
+  private static class Snapshot {
+    private final Map<String, String> properties;
+    @CheckForNull
+    private final String version;
+    private final long invalidations;
+    private final long nextVersionCheck;
+
+    private Snapshot(Map<String, String> properties, @Nullable String version, long invalidations, long nextVersionCheck) {
+      this.properties = properties;
+      this.version = version;
+      this.invalidations = invalidations;
+      this.nextVersionCheck = nextVersionCheck;
+    }
+  }
 }
@@ -22,32 +22,23 @@ package org.sonar.server.webhook;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.sonar.api.config.Configuration;
-import org.sonar.api.utils.log.Logger;
-import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.config.WebhookProperties;
 import org.sonar.core.util.stream.MoreCollectors;
-import org.sonar.server.async.AsyncExecution;
 
 import static java.lang.String.format;
 import static org.sonar.core.config.WebhookProperties.MAX_WEBHOOKS_PER_TYPE;
 
 public class WebHooksImpl implements WebHooks {
 
-  private static final Logger LOGGER = Loggers.get(WebHooksImpl.class);
   private static final String WEBHOOK_PROPERTY_FORMAT = "%s.%s";
 
-  private final WebhookCaller caller;
-  private final WebhookDeliveryStorage deliveryStorage;
-  private final AsyncExecution asyncExecution;
+  private final WebhookDispatcher dispatcher;
 
-  public WebHooksImpl(WebhookCaller caller, WebhookDeliveryStorage deliveryStorage, AsyncExecution asyncExecution) {
-    this.caller = caller;
-    this.deliveryStorage = deliveryStorage;
-    this.asyncExecution = asyncExecution;
+  public WebHooksImpl(WebhookDispatcher dispatcher) {
+    this.dispatcher = dispatcher;
   }
 
   @Override
@@ -91,23 +82,7 @@ public class WebHooksImpl implements WebHooks {
     }
 
     WebhookPayload payload = payloadSupplier.get();
-    webhooks.forEach(webhook -> asyncExecution.addToQueue(() -> {
-      WebhookDelivery delivery = caller.call(webhook, payload);
-      log(delivery);
-      deliveryStorage.persist(delivery);
-    }));
-    asyncExecution.addToQueue(() -> deliveryStorage.purge(analysis.getProjectUuid()));
-  }
-
-  private static void log(WebhookDelivery delivery) {
-    Optional<String> error = delivery.getErrorMessage();
-    if (error.isPresent()) {
-      LOGGER.debug("Failed to send webhook '{}' | url={} | message={}",
-        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), error.get());
-    } else {
-      LOGGER.debug("Sent webhook '{}' | url={} | time={}ms | status={}",
-        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), delivery.getDurationInMs().orElse(-1), delivery.getHttpStatus().orElse(-1));
-    }
+    webhooks.forEach(webhook -> dispatcher.dispatch(webhook, payload));
   }
 
   private static final class NameUrl {
@@ -20,6 +20,7 @@
 package org.sonar.server.webhook;
 
 import com.google.common.base.Throwables;
+import java.util.Collection;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.UuidFactory;
@@ -54,6 +55,20 @@ public class WebhookDeliveryStorage {
     }
   }
 
+  /**
+   * Inserts the deliveries in a single batch session
+   */
+  public void persist(Collection<WebhookDelivery> deliveries) {
+    if (deliveries.isEmpty()) {
+      return;
+    }
+    WebhookDeliveryDao dao = dbClient.webhookDeliveryDao();
+    try (DbSession dbSession = dbClient.openSession(true)) {
+      deliveries.forEach(delivery -> dao.insert(dbSession, toDto(delivery)));
+      dbSession.commit();
+    }
+  }
+
   public void purge(String componentUuid) {
     long beforeDate = system.now() - ALIVE_DELAY_MS;
     try (DbSession dbSession = dbClient.openSession(false)) {
@@ -0,0 +1,328 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.webhook;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.HttpUrl;
+import org.picocontainer.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Sends webhooks in background threads, so that slow receivers do not delay the caller
+ * (typically a Compute Engine worker).
+ * <ul>
+ *   <li>at most {@link #MAX_PENDING_CALLS} webhooks are waiting to be sent, the following ones are dropped</li>
+ *   <li>at most {@link #MAX_CONCURRENT_CALLS_PER_HOST} calls are executed concurrently on the same host</li>
+ *   <li>connection failures and HTTP 5xx responses are retried with an exponential backoff</li>
+ *   <li>deliveries are persisted by batches</li>
+ * </ul>
+ */
+@ServerSide
+@ComputeEngineSide
+public class WebhookDispatcher implements Startable {
+
+  private static final Logger LOGGER = Loggers.get(WebhookDispatcher.class);
+
+  static final int MAX_PENDING_CALLS = 1_000;
+  static final int MAX_CONCURRENT_CALLS_PER_HOST = 2;
+  static final int MAX_ATTEMPTS = 3;
+  static final long INITIAL_BACKOFF_MS = 1_000L;
+  static final int BATCH_SIZE = 50;
+  private static final long FLUSH_DELAY_MS = 1_000L;
+  private static final int THREAD_COUNT = 5;
+  private static final long KEEP_ALIVE_TIME_IN_MINUTES = 5L;
+  private static final long STOP_TIMEOUT_IN_SECONDS = 10L;
+
+  private final WebhookCaller caller;
+  private final WebhookDeliveryStorage deliveryStorage;
+  private final System2 system;
+  private final ExecutorService callExecutor;
+  private final ScheduledExecutorService scheduler;
+  private final int maxAttempts;
+
+  // calls being sent or waiting to be sent, including the ones waiting for a retry
+  private final AtomicInteger pendingCalls = new AtomicInteger();
+  private final AtomicInteger scheduledRetries = new AtomicInteger();
+  // guarded by itself
+  private final Map<String, HostQueue> hostQueues = new HashMap<>();
+  private final BlockingQueue<WebhookDelivery> deliveries = new LinkedBlockingQueue<>();
+  private final Object flushLock = new Object();
+
+  public WebhookDispatcher(WebhookCaller caller, WebhookDeliveryStorage deliveryStorage, System2 system) {
+    this(caller, deliveryStorage, system, createCallExecutor(), createScheduler(), MAX_ATTEMPTS);
+  }
+
+  @VisibleForTesting
+  WebhookDispatcher(WebhookCaller caller, WebhookDeliveryStorage deliveryStorage, System2 system,
+    ExecutorService callExecutor, ScheduledExecutorService scheduler, int maxAttempts) {
+    this.caller = caller;
+    this.deliveryStorage = deliveryStorage;
+    this.system = system;
+    this.callExecutor = callExecutor;
+    this.scheduler = scheduler;
+    this.maxAttempts = maxAttempts;
+  }
+
+  private static ExecutorService createCallExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+      THREAD_COUNT, THREAD_COUNT,
+      KEEP_ALIVE_TIME_IN_MINUTES, MINUTES,
+      new LinkedBlockingQueue<>(),
+      new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat("Webhook-dispatcher-%d")
+        .setUncaughtExceptionHandler((t, e) -> LOGGER.error("Thread " + t + " failed unexpectedly", e))
+        .build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  private static ScheduledExecutorService createScheduler() {
+    return Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+      .setDaemon(true)
+      .setNameFormat("Webhook-delivery-flusher-%d")
+      .build());
+  }
+
+  @Override
+  public void start() {
+    scheduler.scheduleWithFixedDelay(this::safeFlush, FLUSH_DELAY_MS, FLUSH_DELAY_MS, MILLISECONDS);
+  }
+
+  @Override
+  public void stop() {
+    scheduler.shutdownNow();
+    if (scheduledRetries.get() > 0) {
+      LOGGER.warn("{} webhook retries are cancelled", scheduledRetries.get());
+    }
+    callExecutor.shutdown();
+    try {
+      if (!callExecutor.awaitTermination(STOP_TIMEOUT_IN_SECONDS, SECONDS)) {
+        LOGGER.warn("Webhooks are still being sent after {}s, they are interrupted", STOP_TIMEOUT_IN_SECONDS);
+        callExecutor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    safeFlush();
+  }
+
+  /**
+   * Queues the call of the webhook. This method does not block.
+   */
+  public void dispatch(Webhook webhook, WebhookPayload payload) {
+    if (pendingCalls.incrementAndGet() > MAX_PENDING_CALLS) {
+      WebhookDelivery delivery = new WebhookDelivery.Builder()
+        .setAt(system.now())
+        .setWebhook(webhook)
+        .setPayload(payload)
+        .setError(new IllegalStateException("Too many webhooks waiting to be sent, the limit is " + MAX_PENDING_CALLS))
+        .build();
+      done(delivery);
+      return;
+    }
+    submit(new Call(webhook, payload, 1));
+  }
+
+  private void submit(Call call) {
+    boolean runNow;
+    synchronized (hostQueues) {
+      HostQueue hostQueue = hostQueues.computeIfAbsent(call.host, h -> new HostQueue());
+      runNow = hostQueue.running < MAX_CONCURRENT_CALLS_PER_HOST;
+      if (runNow) {
+        hostQueue.running++;
+      } else {
+        hostQueue.waiting.add(call);
+      }
+    }
+    if (runNow) {
+      execute(call);
+    }
+  }
+
+  private void execute(Call call) {
+    try {
+      callExecutor.execute(() -> run(call));
+    } catch (RejectedExecutionException e) {
+      release(call.host);
+      done(failedDelivery(call, e));
+    }
+  }
+
+  private void run(Call call) {
+    try {
+      WebhookDelivery delivery = caller.call(call.webhook, call.payload);
+      if (isRetryable(delivery) && call.attempt < maxAttempts) {
+        retry(call, delivery);
+      } else {
+        done(delivery);
+      }
+    } catch (RuntimeException e) {
+      done(failedDelivery(call, e));
+    } finally {
+      release(call.host);
+    }
+  }
+
+  private void retry(Call call, WebhookDelivery delivery) {
+    long delay = INITIAL_BACKOFF_MS << (call.attempt - 1);
+    LOGGER.debug("Failed to send webhook '{}' | url={} | attempt={} | retry in {}ms",
+      call.webhook.getName(), call.webhook.getUrl(), call.attempt, delay);
+    scheduledRetries.incrementAndGet();
+    try {
+      scheduler.schedule(() -> {
+        scheduledRetries.decrementAndGet();
+        submit(new Call(call.webhook, call.payload, call.attempt + 1));
+      }, delay, MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // dispatcher is being stopped
+      scheduledRetries.decrementAndGet();
+      done(delivery);
+    }
+  }
+
+  private void release(String host) {
+    Call next;
+    synchronized (hostQueues) {
+      HostQueue hostQueue = hostQueues.get(host);
+      next = hostQueue.waiting.poll();
+      if (next == null) {
+        hostQueue.running--;
+        if (hostQueue.running == 0) {
+          hostQueues.remove(host);
+        }
+      }
+    }
+    if (next != null) {
+      execute(next);
+    }
+  }
+
+  private WebhookDelivery failedDelivery(Call call, Exception e) {
+    return new WebhookDelivery.Builder()
+      .setAt(system.now())
+      .setWebhook(call.webhook)
+      .setPayload(call.payload)
+      .setError(e)
+      .build();
+  }
+
+  private void done(WebhookDelivery delivery) {
+    log(delivery);
+    deliveries.add(delivery);
+    pendingCalls.decrementAndGet();
+    if (deliveries.size() >= BATCH_SIZE) {
+      safeFlush();
+    }
+  }
+
+  private static boolean isRetryable(WebhookDelivery delivery) {
+    Optional<Integer> httpStatus = delivery.getHttpStatus();
+    return httpStatus.map(status -> status >= 500).orElse(delivery.getError().isPresent());
+  }
+
+  private void safeFlush() {
+    try {
+      flush();
+    } catch (Exception e) {
+      LOGGER.error("Fail to persist webhook deliveries", e);
+    }
+  }
+
+  /**
+   * Persists the deliveries of the calls that are done, then purges the old deliveries of the related components.
+   */
+  @VisibleForTesting
+  void flush() {
+    synchronized (flushLock) {
+      List<WebhookDelivery> batch = new ArrayList<>();
+      deliveries.drainTo(batch);
+      if (batch.isEmpty()) {
+        return;
+      }
+      deliveryStorage.persist(batch);
+      Set<String> componentUuids = new HashSet<>();
+      batch.forEach(delivery -> componentUuids.add(delivery.getWebhook().getComponentUuid()));
+      componentUuids.forEach(deliveryStorage::purge);
+    }
+  }
+
+  private static void log(WebhookDelivery delivery) {
+    Optional<String> error = delivery.getErrorMessage();
+    if (error.isPresent()) {
+      LOGGER.debug("Failed to send webhook '{}' | url={} | message={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), error.get());
+    } else {
+      LOGGER.debug("Sent webhook '{}' | url={} | time={}ms | status={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), delivery.getDurationInMs().orElse(-1), delivery.getHttpStatus().orElse(-1));
+    }
+  }
+
+  private static String hostOf(Webhook webhook) {
+    HttpUrl url = HttpUrl.parse(webhook.getUrl());
+    // invalid URLs are rejected by the caller
+    return url == null ? webhook.getUrl() : url.host();
+  }
+
+  private static final class Call {
+    private final Webhook webhook;
+    private final WebhookPayload payload;
+    private final String host;
+    private final int attempt;
+
+    private Call(Webhook webhook, WebhookPayload payload, int attempt) {
+      this.webhook = webhook;
+      this.payload = payload;
+      this.host = hostOf(webhook);
+      this.attempt = attempt;
+    }
+  }
+
+  private static final class HostQueue {
+    private final Queue<Call> waiting = new ArrayDeque<>();
+    private int running = 0;
+  }
+}
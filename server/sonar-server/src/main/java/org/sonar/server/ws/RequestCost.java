@@ -0,0 +1,104 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import org.sonar.api.server.ws.Response;
+import org.sonar.core.util.RequestStatistics;
+
+import static java.lang.String.format;
+
+/**
+ * Resources consumed by the execution of a web service request. Recording starts when the instance is created,
+ * in the thread which executes the request.
+ */
+class RequestCost {
+
+  private final long startNanos = System.nanoTime();
+  private final RequestStatistics.Recording sql = RequestStatistics.SQL.startRecording();
+  private final RequestStatistics.Recording es = RequestStatistics.ELASTICSEARCH.startRecording();
+  private String action;
+  private long durationMs = -1L;
+  private long responseBytes = 0L;
+
+  void setAction(String action) {
+    this.action = action;
+  }
+
+  /**
+   * Path of the executed action, for example "api/issues/search", or {@code null} if the URL does not match any action
+   */
+  @CheckForNull
+  String getAction() {
+    return action;
+  }
+
+  void stop(Response response) {
+    durationMs = elapsedMs();
+    sql.stopRecording();
+    es.stopRecording();
+    if (response.stream() instanceof ServletResponse.ServletStream) {
+      responseBytes = ((ServletResponse.ServletStream) response.stream()).getWrittenBytes();
+    }
+  }
+
+  long getDurationMs() {
+    return durationMs < 0L ? elapsedMs() : durationMs;
+  }
+
+  int getSqlCount() {
+    return sql.getCount();
+  }
+
+  long getSqlDurationMs() {
+    return sql.getDurationMs();
+  }
+
+  int getEsCount() {
+    return es.getCount();
+  }
+
+  long getEsDurationMs() {
+    return es.getDurationMs();
+  }
+
+  long getResponseBytes() {
+    return responseBytes;
+  }
+
+  /**
+   * Value of the standard HTTP header "Server-Timing"
+   */
+  String toServerTiming() {
+    return format("db;desc=\"%d SQL requests\";dur=%d, es;desc=\"%d Elasticsearch requests\";dur=%d, total;dur=%d",
+      getSqlCount(), getSqlDurationMs(), getEsCount(), getEsDurationMs(), getDurationMs());
+  }
+
+  @Override
+  public String toString() {
+    return format("%s: %d ms, %d SQL requests in %d ms, %d Elasticsearch requests in %d ms, %d bytes",
+      action, getDurationMs(), getSqlCount(), getSqlDurationMs(), getEsCount(), getEsDurationMs(), responseBytes);
+  }
+
+  private long elapsedMs() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
+}
@@ -19,11 +19,13 @@
  */
 package org.sonar.server.ws;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.function.Supplier;
 import javax.servlet.http.HttpServletResponse;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.utils.text.JsonWriter;
@@ -43,6 +45,10 @@ public class ServletResponse implements Response {
 
   public static class ServletStream implements Stream {
     private final HttpServletResponse response;
+    private OutputStream output;
+    private long writtenBytes = 0L;
+    private String headerBeforeWriteName;
+    private Supplier<String> headerBeforeWriteValue;
 
     public ServletStream(HttpServletResponse response) {
       this.response = response;
@@ -65,10 +71,54 @@ public class ServletResponse implements Response {
 
     @Override
     public OutputStream output() {
-      try {
-        return response.getOutputStream();
-      } catch (IOException e) {
-        throw new IllegalStateException(e);
+      if (output == null) {
+        try {
+          output = new CountingOutputStream(response.getOutputStream());
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return output;
+    }
+
+    /**
+     * Number of bytes written to {@link #output()}
+     */
+    long getWrittenBytes() {
+      return writtenBytes;
+    }
+
+    /**
+     * The header is set when the first byte is written to {@link #output()}, which is the last moment before
+     * the response gets committed. Its value is computed at that time.
+     */
+    void setHeaderBeforeWrite(String name, Supplier<String> value) {
+      this.headerBeforeWriteName = name;
+      this.headerBeforeWriteValue = value;
+    }
+
+    private void beforeWrite(int length) {
+      if (writtenBytes == 0L && headerBeforeWriteName != null && !response.isCommitted()) {
+        response.setHeader(headerBeforeWriteName, headerBeforeWriteValue.get());
+      }
+      writtenBytes += length;
+    }
+
+    private class CountingOutputStream extends FilterOutputStream {
+      private CountingOutputStream(OutputStream out) {
+        super(out);
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+        beforeWrite(1);
+        out.write(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        beforeWrite(len);
+        out.write(b, off, len);
       }
     }
 
@@ -58,16 +58,24 @@ import static org.sonar.server.ws.WsUtils.checkFound;
 public class WebServiceEngine implements LocalConnector, Startable {
 
   private static final Logger LOGGER = Loggers.get(WebServiceEngine.class);
+  private static final String SERVER_TIMING_HEADER = "Server-Timing";
 
   private final WebService.Context context;
+  @Nullable
+  private final WebServicesCost webServicesCost;
 
-  public WebServiceEngine(WebService[] webServices) {
+  public WebServiceEngine(WebService[] webServices, @Nullable WebServicesCost webServicesCost) {
+    this.webServicesCost = webServicesCost;
     context = new WebService.Context();
     for (WebService webService : webServices) {
       webService.define(context);
     }
   }
 
+  public WebServiceEngine(WebService[] webServices) {
+    this(webServices, null);
+  }
+
   @Override
   public void start() {
     // Force execution of constructor to be sure that web services
@@ -91,10 +99,26 @@ public class WebServiceEngine implements LocalConnector, Startable {
   }
 
   public void execute(Request request, Response response) {
+    RequestCost cost = new RequestCost();
+    if (LOGGER.isDebugEnabled() && response.stream() instanceof ServletResponse.ServletStream) {
+      ((ServletResponse.ServletStream) response.stream()).setHeaderBeforeWrite(SERVER_TIMING_HEADER, cost::toServerTiming);
+    }
+    try {
+      execute(request, response, cost);
+    } finally {
+      cost.stop(response);
+      if (webServicesCost != null) {
+        webServicesCost.add(cost);
+      }
+    }
+  }
+
+  private void execute(Request request, Response response, RequestCost cost) {
     try {
       ActionExtractor actionExtractor = new ActionExtractor(request.getPath());
       WebService.Action action = getAction(actionExtractor);
       checkFound(action, "Unknown url : %s", request.getPath());
+      cost.setAction(action.path());
       if (request instanceof ValidatingRequest) {
         ((ValidatingRequest) request).setAction(action);
         ((ValidatingRequest) request).setLocalConnector(this);
@@ -0,0 +1,122 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.picocontainer.Startable;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.process.Jmx;
+
+import static java.lang.String.format;
+
+/**
+ * Cost of web service requests, cumulated by action. Requests which take more than
+ * {@link #SLOW_REQUEST_THRESHOLD_PROPERTY} milliseconds are logged.
+ */
+@ServerSide
+public class WebServicesCost implements WebServicesCostMBean, Startable {
+
+  public static final String SLOW_REQUEST_THRESHOLD_PROPERTY = "sonar.web.slowRequestThreshold";
+
+  private static final Logger LOGGER = Loggers.get(WebServicesCost.class);
+
+  private final long slowRequestThresholdMs;
+  private final Map<String, ActionCost> costsByAction = new ConcurrentHashMap<>();
+
+  public WebServicesCost(Configuration configuration) {
+    this.slowRequestThresholdMs = configuration.getLong(SLOW_REQUEST_THRESHOLD_PROPERTY).orElse(0L);
+  }
+
+  @Override
+  public void start() {
+    Jmx.register(OBJECT_NAME, this);
+  }
+
+  @Override
+  public void stop() {
+    Jmx.unregister(OBJECT_NAME);
+  }
+
+  void add(RequestCost cost) {
+    String action = cost.getAction();
+    if (action == null) {
+      return;
+    }
+    costsByAction.computeIfAbsent(action, ActionCost::new).add(cost);
+    if (slowRequestThresholdMs > 0L && cost.getDurationMs() >= slowRequestThresholdMs) {
+      LOGGER.info("Slow web service request {}", cost);
+    }
+  }
+
+  @Override
+  public long getRequestCount() {
+    return costsByAction.values().stream().mapToLong(cost -> cost.requests.sum()).sum();
+  }
+
+  @Override
+  public String[] getActionsCost() {
+    return costsByAction.values().stream()
+      .sorted(Comparator.comparingLong((ActionCost cost) -> cost.sqlDurationMs.sum()).reversed())
+      .map(ActionCost::toString)
+      .toArray(String[]::new);
+  }
+
+  @Override
+  public void reset() {
+    costsByAction.clear();
+  }
+
+  private static class ActionCost {
+    private final String action;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder durationMs = new LongAdder();
+    private final LongAdder sqlCount = new LongAdder();
+    private final LongAdder sqlDurationMs = new LongAdder();
+    private final LongAdder esCount = new LongAdder();
+    private final LongAdder esDurationMs = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+
+    private ActionCost(String action) {
+      this.action = action;
+    }
+
+    private void add(RequestCost cost) {
+      requests.increment();
+      durationMs.add(cost.getDurationMs());
+      sqlCount.add(cost.getSqlCount());
+      sqlDurationMs.add(cost.getSqlDurationMs());
+      esCount.add(cost.getEsCount());
+      esDurationMs.add(cost.getEsDurationMs());
+      responseBytes.add(cost.getResponseBytes());
+    }
+
+    @Override
+    public String toString() {
+      return format("%s: %d requests in %d ms, %d SQL requests in %d ms, %d Elasticsearch requests in %d ms, %d bytes",
+        action, requests.sum(), durationMs.sum(), sqlCount.sum(), sqlDurationMs.sum(), esCount.sum(), esDurationMs.sum(), responseBytes.sum());
+    }
+  }
+}
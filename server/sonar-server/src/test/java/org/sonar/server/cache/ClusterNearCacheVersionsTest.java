@@ -0,0 +1,52 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.sonar.process.cluster.hz.HazelcastMember;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.process.cluster.hz.HazelcastObjects.NEAR_CACHE_TABLE_VERSIONS;
+
+public class ClusterNearCacheVersionsTest {
+
+  private Map<String, String> replicatedMap = new HashMap<>();
+  private HazelcastMember hzMember = mock(HazelcastMember.class);
+
+  @Test
+  public void versions_of_tables_are_shared_through_hazelcast_replicated_map_when_started() {
+    when(hzMember.<String, String>getReplicatedMap(NEAR_CACHE_TABLE_VERSIONS)).thenReturn(replicatedMap);
+    NearCaches node1 = new NearCaches();
+    NearCaches node2 = new NearCaches();
+    NearCache<String, String> cache = node2.create("test", "table1");
+    assertThat(cache.get("foo", k -> "v1")).isEqualTo("v1");
+
+    new ClusterNearCacheVersions(node1, hzMember).start();
+    new ClusterNearCacheVersions(node2, hzMember).start();
+    node1.onChange("table1");
+
+    assertThat(replicatedMap).containsOnlyKeys("table1");
+    assertThat(cache.get("foo", k -> "v2")).isEqualTo("v2");
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.ObjectName;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NearCachesTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private AtomicInteger loads = new AtomicInteger();
+  private NearCaches underTest = new NearCaches();
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void value_is_loaded_once() {
+    NearCache<String, String> cache = underTest.create("test", "table1");
+
+    assertThat(cache.get("foo", this::load)).isEqualTo("foo1");
+    assertThat(cache.get("foo", this::load)).isEqualTo("foo1");
+    assertThat(cache.get("bar", this::load)).isEqualTo("bar2");
+
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+    assertThat(cache.getSize()).isEqualTo(2);
+  }
+
+  @Test
+  public void cache_is_invalidated_when_one_of_its_tables_is_changed() {
+    NearCache<String, String> cache = underTest.create("test", "table1", "table2");
+    cache.get("foo", this::load);
+
+    underTest.onChange("table3");
+    assertThat(cache.get("foo", this::load)).isEqualTo("foo1");
+
+    underTest.onChange("table2");
+    assertThat(cache.get("foo", this::load)).isEqualTo("foo2");
+  }
+
+  @Test
+  public void clear_drops_all_values() {
+    NearCache<String, String> cache = underTest.create("test", "table1");
+    cache.get("foo", this::load);
+
+    cache.clear();
+
+    assertThat(cache.getSize()).isZero();
+    assertThat(cache.get("foo", this::load)).isEqualTo("foo2");
+  }
+
+  @Test
+  public void loader_must_not_return_null() {
+    NearCache<String, String> cache = underTest.create("test", "table1");
+
+    expectedException.expect(NullPointerException.class);
+    expectedException.expectMessage("Loaded value can't be null");
+
+    cache.get("foo", k -> null);
+  }
+
+  @Test
+  public void versions_of_tables_are_shared_once_shared_map_is_set() {
+    Map<String, String> sharedMap = new HashMap<>();
+    NearCaches node1 = new NearCaches();
+    NearCaches node2 = new NearCaches();
+    NearCache<String, String> cache = node2.create("test", "table1");
+    cache.get("foo", this::load);
+
+    node1.shareTableVersions(sharedMap);
+    node2.shareTableVersions(sharedMap);
+    node1.onChange("table1");
+
+    assertThat(sharedMap).containsOnlyKeys("table1");
+    assertThat(cache.get("foo", this::load)).isEqualTo("foo2");
+  }
+
+  @Test
+  public void versions_changed_before_sharing_are_reported_into_shared_map() {
+    Map<String, String> sharedMap = new HashMap<>();
+    underTest.onChange("table1");
+
+    underTest.shareTableVersions(sharedMap);
+
+    assertThat(sharedMap).containsOnlyKeys("table1");
+  }
+
+  @Test
+  public void caches_are_registered_in_jmx_when_started() throws Exception {
+    ObjectName name = new ObjectName(NearCacheMBean.OBJECT_NAME_PREFIX + "test");
+    underTest.create("test", "table1");
+    assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isFalse();
+
+    underTest.start();
+    assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isTrue();
+    assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Size")).isEqualTo(0L);
+
+    underTest.stop();
+    assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name)).isFalse();
+  }
+
+  private String load(String key) {
+    return key + loads.incrementAndGet();
+  }
+}
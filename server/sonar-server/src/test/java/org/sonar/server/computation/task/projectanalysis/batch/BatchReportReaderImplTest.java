@@ -25,6 +25,7 @@ import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.api.utils.ZipUtils;
 import org.sonar.api.utils.internal.JUnitTempFolder;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -314,4 +315,32 @@ public class BatchReportReaderImplTest {
     assertThat(res).containsExactly(COVERAGE_DETAIL_1, COVERAGE_DETAIL_2);
     res.close();
   }
+
+  @Test
+  public void read_report_from_archive_without_extracting_it() throws IOException {
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("P1").build());
+    writer.writeComponentIssues(COMPONENT_REF, of(ISSUE));
+    writer.writeTests(COMPONENT_REF, of(TEST_1, TEST_2));
+    FileUtils.writeLines(writer.getSourceFile(COMPONENT_REF), of("1", "2", "3"));
+    FileUtils.write(writer.getFileStructure().analysisLog(), "log1\nlog2");
+    File zip = tempFolder.newFile();
+    ZipUtils.zipDir(writer.getFileStructure().root(), zip);
+    BatchReportDirectoryHolderImpl holder = new BatchReportDirectoryHolderImpl();
+    holder.setDirectory(tempFolder.newDir());
+    holder.setArchive(zip);
+    BatchReportReaderImpl archiveReader = new BatchReportReaderImpl(holder);
+
+    try {
+      assertThat(archiveReader.readMetadata().getProjectKey()).isEqualTo("P1");
+      assertThat(archiveReader.readComponentIssues(COMPONENT_REF)).containsExactly(ISSUE);
+      assertThat(archiveReader.readTests(COMPONENT_REF)).containsExactly(TEST_1, TEST_2);
+      assertThat(archiveReader.readFileSource(COMPONENT_REF).get()).containsExactly("1", "2", "3");
+      assertThat(archiveReader.readScannerLogs()).containsExactly("log1", "log2");
+      assertThat(archiveReader.readCoverageDetails(COMPONENT_REF)).isEmpty();
+      // only packed files, which are randomly accessed, are extracted
+      assertThat(holder.getDirectory().list()).containsOnly("issues-packed.pb", "issues-packed.idx");
+    } finally {
+      archiveReader.stop();
+    }
+  }
 }
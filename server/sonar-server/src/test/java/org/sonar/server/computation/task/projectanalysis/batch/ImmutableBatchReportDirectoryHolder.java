@@ -21,6 +21,7 @@ package org.sonar.server.computation.task.projectanalysis.batch;
 
 import java.io.File;
 import java.util.Objects;
+import java.util.Optional;
 
 public class ImmutableBatchReportDirectoryHolder implements BatchReportDirectoryHolder {
   private final File directory;
@@ -33,4 +34,9 @@ public class ImmutableBatchReportDirectoryHolder implements BatchReportDirectory
   public File getDirectory() {
     return directory;
   }
+
+  @Override
+  public Optional<File> getArchive() {
+    return Optional.empty();
+  }
 }
@@ -764,6 +764,58 @@ public class ComponentTreeBuilderTest {
     assertThat(file.getFileAttributes().isUnitTest()).isTrue();
   }
 
+  @Test
+  public void language_and_version_are_shared_between_components() {
+    ScannerReport.Component project = newBuilder()
+      .setType(PROJECT)
+      .setRef(1)
+      .addChildRef(2)
+      .addChildRef(3)
+      .build();
+    scannerComponentProvider.add(newBuilder()
+      .setRef(2)
+      .setType(FILE)
+      .setPath("src/js/Foo.js")
+      .setVersion(new String("1.0"))
+      .setLines(1)
+      .setLanguage(new String("js")));
+    scannerComponentProvider.add(newBuilder()
+      .setRef(3)
+      .setType(FILE)
+      .setPath("src/js/Bar.js")
+      .setVersion(new String("1.0"))
+      .setLines(2)
+      .setLanguage(new String("js")));
+
+    Component root = call(project);
+    Component foo = root.getChildren().get(0);
+    Component bar = root.getChildren().get(1);
+    assertThat(foo.getFileAttributes().getLanguageKey()).isSameAs(bar.getFileAttributes().getLanguageKey());
+    assertThat(foo.getReportAttributes().getVersion()).isSameAs(bar.getReportAttributes().getVersion());
+  }
+
+  @Test
+  public void public_key_is_same_instance_as_key_when_they_are_equal() {
+    ScannerReport.Component project = newBuilder()
+      .setType(PROJECT)
+      .setKey(projectInDb.getKey())
+      .setRef(1)
+      .addChildRef(2)
+      .build();
+    scannerComponentProvider.add(newBuilder()
+      .setRef(2)
+      .setType(FILE)
+      .setPath("src/js/Foo.js")
+      .setLines(1));
+
+    Component root = new ComponentTreeBuilder(KEY_GENERATOR, KEY_GENERATOR, UUID_SUPPLIER, scannerComponentProvider, projectInDb, null)
+      .buildProject(project, NO_SCM_BASE_PATH);
+    Component file = root.getChildren().get(0);
+    assertThat(root.getPublicKey()).isSameAs(root.getKey());
+    assertThat(file.getPublicKey()).isSameAs(file.getKey());
+    assertThat(file.getName()).isSameAs(file.getKey());
+  }
+
   @Test
   public void throw_IAE_if_lines_is_absent_from_report() {
     ScannerReport.Component project = newBuilder()
@@ -19,7 +19,9 @@
  */
 package org.sonar.server.computation.task.projectanalysis.component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -103,6 +105,17 @@ public class ReportVisitorsCrawlerTest {
     inOrder.verify(spyPostOrderTypeAwareVisitor).visitProject(COMPONENT_TREE);
   }
 
+  @Test
+  public void children_are_not_crawled_when_no_visitor_goes_deeper() {
+    RecordingVisitor preOrderVisitor = new RecordingVisitor(CrawlerDepthLimit.MODULE, PRE_ORDER);
+    RecordingVisitor postOrderVisitor = new RecordingVisitor(CrawlerDepthLimit.MODULE, POST_ORDER);
+
+    new VisitorsCrawler(Arrays.asList(preOrderVisitor, postOrderVisitor)).visit(COMPONENT_TREE);
+
+    assertThat(preOrderVisitor.visited).containsExactly(COMPONENT_TREE, MODULE_2, MODULE_3);
+    assertThat(postOrderVisitor.visited).containsExactly(MODULE_3, MODULE_2, COMPONENT_TREE);
+  }
+
   @Test
   public void getCumulativeDurations_returns_an_empty_map_when_computation_is_disabled_in_constructor() {
     VisitorsCrawler underTest = new VisitorsCrawler(Arrays.asList(spyPreOrderTypeAwareVisitor, spyPostOrderTypeAwareVisitor), false);
@@ -142,6 +155,19 @@ public class ReportVisitorsCrawlerTest {
     return ReportComponent.builder(type, ref).addChildren(children).build();
   }
 
+  private static class RecordingVisitor extends TypeAwareVisitorAdapter {
+    private final List<Component> visited = new ArrayList<>();
+
+    private RecordingVisitor(CrawlerDepthLimit maxDepth, ComponentVisitor.Order order) {
+      super(maxDepth, order);
+    }
+
+    @Override
+    public void visitAny(Component any) {
+      visited.add(any);
+    }
+  }
+
   private static class TestTypeAwareVisitor extends TypeAwareVisitorAdapter {
 
     public TestTypeAwareVisitor(CrawlerDepthLimit maxDepth, ComponentVisitor.Order order) {
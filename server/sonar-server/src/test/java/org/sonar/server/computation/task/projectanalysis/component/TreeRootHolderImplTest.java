@@ -109,6 +109,19 @@ public class TreeRootHolderImplTest {
     underTest.getComponentByRef(6);
   }
 
+  @Test
+  public void getComponentByRef_supports_non_contiguous_refs() {
+    underTest.setRoot(ReportComponent.builder(PROJECT, 100)
+      .addChildren(
+        ReportComponent.builder(FILE, 7).build(),
+        ReportComponent.builder(FILE, 42).build())
+      .build());
+
+    assertThat(underTest.getComponentByRef(100).getType()).isEqualTo(PROJECT);
+    assertThat(underTest.getComponentByRef(7).getReportAttributes().getRef()).isEqualTo(7);
+    assertThat(underTest.getComponentByRef(42).getReportAttributes().getRef()).isEqualTo(42);
+  }
+
   @Test
   public void getComponentByRef_throws_IAE_if_holder_contains_View_tree() {
     underTest.setRoot(SOME_VIEWS_COMPONENT_TREE);
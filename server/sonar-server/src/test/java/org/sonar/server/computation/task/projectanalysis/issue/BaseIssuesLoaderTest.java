@@ -0,0 +1,123 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.JUnitTempFolder;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.issue.IssueDto;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRulesHolderRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.component.ComponentTesting.newFileDto;
+
+public class BaseIssuesLoaderTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+  @Rule
+  public JUnitTempFolder tempFolder = new JUnitTempFolder();
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
+  @Rule
+  public ActiveRulesHolderRule activeRulesHolder = new ActiveRulesHolderRule();
+  @Rule
+  public RuleRepositoryRule ruleRepository = new RuleRepositoryRule();
+
+  private RuleDefinitionDto rule;
+  private ComponentDto project;
+  private BaseIssuesLoader underTest = new BaseIssuesLoader(treeRootHolder, new ComponentIssuesLoader(db.getDbClient(), ruleRepository, activeRulesHolder), tempFolder);
+
+  @Before
+  public void setUp() {
+    rule = db.rules().insert();
+    project = db.components().insertPrivateProject();
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(project.uuid()).build());
+  }
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void load_open_issues_of_components() {
+    ComponentDto file1 = db.components().insertComponent(newFileDto(project));
+    ComponentDto file2 = db.components().insertComponent(newFileDto(project));
+    ComponentDto fileWithoutIssues = db.components().insertComponent(newFileDto(project));
+    IssueDto issue1OnFile1 = db.issues().insert(rule, project, file1, i -> i.setStatus("OPEN").setResolution(null));
+    IssueDto issue2OnFile1 = db.issues().insert(rule, project, file1, i -> i.setStatus("OPEN").setResolution(null));
+    db.issues().insert(rule, project, file1, i -> i.setStatus("CLOSED").setResolution("FIXED"));
+    IssueDto issueOnFile2 = db.issues().insert(rule, project, file2, i -> i.setStatus("CONFIRMED").setResolution(null));
+    IssueDto issueOnProject = db.issues().insert(rule, project, project, i -> i.setStatus("OPEN").setResolution(null));
+    ComponentDto anotherProject = db.components().insertPrivateProject();
+    db.issues().insert(rule, anotherProject, anotherProject, i -> i.setStatus("OPEN").setResolution(null));
+
+    assertThat(underTest.loadUuidsOfComponentsWithOpenIssues()).containsOnly(file1.uuid(), file2.uuid(), project.uuid());
+    assertThat(underTest.loadForComponentUuid(file1.uuid())).extracting(DefaultIssue::key).containsOnly(issue1OnFile1.getKey(), issue2OnFile1.getKey());
+    assertThat(underTest.loadForComponentUuid(file2.uuid())).extracting(DefaultIssue::key).containsOnly(issueOnFile2.getKey());
+    assertThat(underTest.loadForComponentUuid(project.uuid())).extracting(DefaultIssue::key).containsOnly(issueOnProject.getKey());
+    assertThat(underTest.loadForComponentUuid(fileWithoutIssues.uuid())).isEmpty();
+    assertThat(underTest.loadForComponentUuid(anotherProject.uuid())).isEmpty();
+  }
+
+  @Test
+  public void issues_are_loaded_from_database_only_once() {
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setResolution(null));
+    assertThat(underTest.loadForComponentUuid(file.uuid())).hasSize(1);
+
+    db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setResolution(null));
+
+    assertThat(underTest.loadForComponentUuid(file.uuid())).hasSize(1);
+  }
+
+  @Test
+  public void return_new_instances_of_issues_at_each_call() {
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setResolution(null));
+
+    List<DefaultIssue> issues = underTest.loadForComponentUuid(file.uuid());
+    issues.get(0).setBeingClosed(false).setStatus("CLOSED");
+
+    DefaultIssue reloaded = underTest.loadForComponentUuid(file.uuid()).get(0);
+    assertThat(reloaded).isNotSameAs(issues.get(0));
+    assertThat(reloaded.status()).isEqualTo("OPEN");
+    // rule is not active
+    assertThat(reloaded.isOnDisabledRule()).isTrue();
+  }
+
+  @Test
+  public void no_open_issues() {
+    assertThat(underTest.loadUuidsOfComponentsWithOpenIssues()).isEmpty();
+    assertThat(underTest.loadForComponentUuid(project.uuid())).isEmpty();
+  }
+}
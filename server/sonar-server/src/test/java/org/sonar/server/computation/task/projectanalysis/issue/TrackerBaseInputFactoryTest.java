@@ -22,12 +22,10 @@ package org.sonar.server.computation.task.projectanalysis.issue;
 import com.google.common.base.Optional;
 import org.junit.Before;
 import org.junit.Test;
-import org.sonar.db.DbClient;
-import org.sonar.db.DbSession;
-import org.sonar.db.source.FileSourceDao;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
+import org.sonar.server.computation.task.projectanalysis.source.PreviousFileSourcesLoader;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
@@ -39,19 +37,15 @@ public class TrackerBaseInputFactoryTest {
   private static final String FILE_UUID = "uuid";
   private static final ReportComponent FILE = ReportComponent.builder(Component.Type.FILE, 1).setUuid(FILE_UUID).build();
 
-  private ComponentIssuesLoader issuesLoader = mock(ComponentIssuesLoader.class);
-  private DbClient dbClient = mock(DbClient.class);
-  private DbSession dbSession = mock(DbSession.class);
-  private FileSourceDao fileSourceDao = mock(FileSourceDao.class);
+  private BaseIssuesLoader issuesLoader = mock(BaseIssuesLoader.class);
+  private PreviousFileSourcesLoader previousFileSourcesLoader = mock(PreviousFileSourcesLoader.class);
 
   private MovedFilesRepository movedFilesRepository = mock(MovedFilesRepository.class);
 
-  private TrackerBaseInputFactory underTest = new TrackerBaseInputFactory(issuesLoader, dbClient, movedFilesRepository);
+  private TrackerBaseInputFactory underTest = new TrackerBaseInputFactory(issuesLoader, previousFileSourcesLoader, movedFilesRepository);
 
   @Before
   public void setUp() throws Exception {
-    when(dbClient.openSession(false)).thenReturn(dbSession);
-    when(dbClient.fileSourceDao()).thenReturn(fileSourceDao);
     when(movedFilesRepository.getOriginalFile(any(Component.class)))
       .thenReturn(Optional.absent());
   }
@@ -60,7 +54,7 @@ public class TrackerBaseInputFactoryTest {
   public void create_returns_Input_which_retrieves_lines_hashes_of_specified_file_component_when_it_has_no_original_file() {
     underTest.create(FILE).getLineHashSequence();
 
-    verify(fileSourceDao).selectLineHashes(dbSession, FILE_UUID);
+    verify(previousFileSourcesLoader).getLineHashes(FILE_UUID);
   }
 
   @Test
@@ -72,8 +66,8 @@ public class TrackerBaseInputFactoryTest {
 
     underTest.create(FILE).getLineHashSequence();
 
-    verify(fileSourceDao).selectLineHashes(dbSession, originalUuid);
-    verify(fileSourceDao, times(0)).selectLineHashes(dbSession, FILE_UUID);
+    verify(previousFileSourcesLoader).getLineHashes(originalUuid);
+    verify(previousFileSourcesLoader, times(0)).getLineHashes(FILE_UUID);
   }
 
   @Test
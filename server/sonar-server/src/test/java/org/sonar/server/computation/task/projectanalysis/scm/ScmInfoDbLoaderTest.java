@@ -27,6 +27,7 @@ import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.JUnitTempFolder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.core.hash.SourceHashComputer;
 import org.sonar.db.DbTester;
@@ -39,7 +40,9 @@ import org.sonar.server.computation.task.projectanalysis.analysis.Branch;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.MergeBranchComponentUuids;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryImpl.NoScmInfo;
+import org.sonar.server.computation.task.projectanalysis.source.PreviousFileSourcesLoader;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepositoryImpl;
 
@@ -69,12 +72,19 @@ public class ScmInfoDbLoaderTest {
   public DbTester dbTester = DbTester.create(System2.INSTANCE);
   @Rule
   public BatchReportReaderRule reportReader = new BatchReportReaderRule();
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule().setRoot(builder(Component.Type.PROJECT, 2).setUuid("PROJECT_UUID").addChildren(FILE).build());
+  @Rule
+  public JUnitTempFolder tempFolder = new JUnitTempFolder();
 
   private Branch branch = mock(Branch.class);
   private SourceHashRepositoryImpl sourceHashRepository = new SourceHashRepositoryImpl(new SourceLinesRepositoryImpl(reportReader));
   private MergeBranchComponentUuids mergeBranchComponentUuids = mock(MergeBranchComponentUuids.class);
 
-  private ScmInfoDbLoader underTest = new ScmInfoDbLoader(analysisMetadataHolder, dbTester.getDbClient(), sourceHashRepository, mergeBranchComponentUuids);
+  private PreviousFileSourcesLoader previousFileSourcesLoader = new PreviousFileSourcesLoader(treeRootHolder, dbTester.getDbClient(), tempFolder);
+
+  private ScmInfoDbLoader underTest = new ScmInfoDbLoader(analysisMetadataHolder, dbTester.getDbClient(), sourceHashRepository, mergeBranchComponentUuids,
+    previousFileSourcesLoader);
 
   @Test
   public void returns_ScmInfo_from_DB_if_hashes_are_the_same() {
@@ -90,6 +100,28 @@ public class ScmInfoDbLoaderTest {
     assertThat(logTester.logs(TRACE)).containsOnly("Reading SCM info from db for file 'FILE_UUID'");
   }
 
+  @Test
+  public void returns_absent_when_file_has_no_source_in_DB() {
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+    analysisMetadataHolder.setBranch(null);
+
+    addFileSourceInReport(1);
+
+    assertThat(underTest.getScmInfoFromDb(FILE)).isEqualTo(NoScmInfo.INSTANCE);
+  }
+
+  @Test
+  public void sources_of_project_are_loaded_from_DB_only_once() {
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+    analysisMetadataHolder.setBranch(null);
+    addFileSourceInReport(1);
+    assertThat(underTest.getScmInfoFromDb(FILE)).isEqualTo(NoScmInfo.INSTANCE);
+
+    addFileSourceInDb("henry", DATE_1, "rev-1", computeSourceHash(1));
+
+    assertThat(underTest.getScmInfoFromDb(FILE)).isEqualTo(NoScmInfo.INSTANCE);
+  }
+
   @Test
   public void read_from_merge_branch_if_no_base() {
     analysisMetadataHolder.setBaseAnalysis(null);
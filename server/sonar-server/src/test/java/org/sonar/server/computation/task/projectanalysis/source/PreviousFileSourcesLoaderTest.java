@@ -0,0 +1,131 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.source;
+
+import javax.annotation.Nullable;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.JUnitTempFolder;
+import org.sonar.db.DbTester;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PreviousFileSourcesLoaderTest {
+
+  private static final String PROJECT_UUID = "PROJECT_UUID";
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+  @Rule
+  public JUnitTempFolder tempFolder = new JUnitTempFolder();
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule().setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).build());
+
+  private PreviousFileSourcesLoader underTest = new PreviousFileSourcesLoader(treeRootHolder, db.getDbClient(), tempFolder);
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void load_line_hashes_and_scm_data_of_files() {
+    insertSource(PROJECT_UUID, "FILE1", "hash1\nhash2", DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("foo").setScmRevision("rev1").setScmAuthor("john").setScmDate(10L))
+      .addLines(DbFileSources.Line.newBuilder().setLine(2).setSource("bar").setScmRevision("rev2").setScmDate(20L))
+      .build());
+    insertSource(PROJECT_UUID, "FILE2", null, DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("baz"))
+      .build());
+    insertSource("OTHER_PROJECT_UUID", "FILE3", "hash3", DbFileSources.Data.newBuilder().build());
+
+    assertThat(underTest.getSrcHash("FILE1")).isEqualTo("SRC_HASH_FILE1");
+    assertThat(underTest.getLineHashes("FILE1")).containsExactly("hash1", "hash2");
+    assertThat(underTest.getScmLines("FILE1")).containsExactly(
+      DbFileSources.Line.newBuilder().setLine(1).setScmRevision("rev1").setScmAuthor("john").setScmDate(10L).build(),
+      DbFileSources.Line.newBuilder().setLine(2).setScmRevision("rev2").setScmDate(20L).build());
+
+    assertThat(underTest.getSrcHash("FILE2")).isEqualTo("SRC_HASH_FILE2");
+    assertThat(underTest.getLineHashes("FILE2")).isEmpty();
+    assertThat(underTest.getScmLines("FILE2")).containsExactly(DbFileSources.Line.newBuilder().setLine(1).build());
+
+    assertThat(underTest.getSrcHash("FILE3")).isNull();
+    assertThat(underTest.getLineHashes("FILE3")).isNull();
+    assertThat(underTest.getScmLines("FILE3")).isEmpty();
+  }
+
+  @Test
+  public void load_data_shared_by_sources_having_same_data_hash() {
+    byte[] binaryData = FileSourceDto.encodeSourceData(DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setScmRevision("rev1").setScmDate(10L))
+      .build());
+    db.getDbClient().fileSourceDao().insert(db.getSession(), new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid("FILE1")
+      .setDataType(FileSourceDto.Type.SOURCE)
+      .setDataHash("DATA_HASH")
+      .setSrcHash("SRC_HASH_FILE1"));
+    db.getDbClient().fileSourceDao().insertBlob(db.getSession(), "DATA_HASH", binaryData, 1_500_000_000L);
+    db.commit();
+
+    assertThat(underTest.getScmLines("FILE1")).extracting(DbFileSources.Line::getScmRevision).containsExactly("rev1");
+  }
+
+  @Test
+  public void sources_are_loaded_only_once() {
+    assertThat(underTest.getLineHashes("FILE1")).isNull();
+
+    insertSource(PROJECT_UUID, "FILE1", "hash1", DbFileSources.Data.newBuilder().build());
+
+    assertThat(underTest.getLineHashes("FILE1")).isNull();
+  }
+
+  @Test
+  public void scm_data_is_loaded_only_when_requested() {
+    insertSource(PROJECT_UUID, "FILE1", "hash1", DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setScmRevision("rev1"))
+      .build());
+    assertThat(underTest.getLineHashes("FILE1")).containsExactly("hash1");
+
+    FileSourceDto dto = db.getDbClient().fileSourceDao().selectSourceByFileUuid(db.getSession(), "FILE1");
+    dto.setSourceData(DbFileSources.Data.newBuilder().addLines(DbFileSources.Line.newBuilder().setLine(1).setScmRevision("rev2")).build());
+    db.getDbClient().fileSourceDao().update(db.getSession(), dto);
+    db.commit();
+
+    assertThat(underTest.getScmLines("FILE1")).extracting(DbFileSources.Line::getScmRevision).containsExactly("rev2");
+  }
+
+  private void insertSource(String projectUuid, String fileUuid, @Nullable String lineHashes, DbFileSources.Data data) {
+    db.getDbClient().fileSourceDao().insert(db.getSession(), new FileSourceDto()
+      .setProjectUuid(projectUuid)
+      .setFileUuid(fileUuid)
+      .setLineHashes(lineHashes)
+      .setSourceData(data)
+      .setSrcHash("SRC_HASH_" + fileUuid));
+    db.commit();
+  }
+}
@@ -22,7 +22,10 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipFile;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -70,7 +73,7 @@ public class ExtractReportStepTest {
   }
 
   @Test
-  public void unzip_report() throws Exception {
+  public void copy_report_archive() throws Exception {
     File reportFile = generateReport();
     try (InputStream input = FileUtils.openInputStream(reportFile)) {
       dbTester.getDbClient().ceTaskInputDao().insert(dbTester.getSession(), TASK_UUID, input);
@@ -80,11 +83,15 @@ public class ExtractReportStepTest {
 
     underTest.execute();
 
-    // directory contains the uncompressed report (which contains only metadata.pb in this test)
-    File unzippedDir = reportDirectoryHolder.getDirectory();
-    assertThat(unzippedDir).isDirectory().exists();
-    assertThat(unzippedDir.listFiles()).hasSize(1);
-    assertThat(new File(unzippedDir, "metadata.pb")).hasContent("{metadata}");
+    // report is not uncompressed, files are read from the archive
+    File dir = reportDirectoryHolder.getDirectory();
+    assertThat(dir).isDirectory().exists();
+    assertThat(dir.listFiles()).isEmpty();
+    File archive = reportDirectoryHolder.getArchive().get();
+    assertThat(archive).hasSameContentAs(reportFile);
+    try (ZipFile zip = new ZipFile(archive)) {
+      assertThat(IOUtils.toString(zip.getInputStream(zip.getEntry("metadata.pb")), StandardCharsets.UTF_8)).isEqualTo("{metadata}");
+    }
   }
 
   private File generateReport() throws IOException {
@@ -122,6 +122,57 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(data.getLines(1).getSource()).isEqualTo("line2");
   }
 
+  @Test
+  public void persist_data_once_for_sources_having_same_data() {
+    initBasicReport(2);
+    underTest.execute();
+    // simulate a new branch containing the same file
+    dbTester.executeUpdateSql("delete from file_sources");
+
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(1);
+    assertThat(dbTester.countRowsOfTable("file_source_blobs")).isEqualTo(1);
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID);
+    assertThat(fileSourceDto.getSourceData().getLinesCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void delete_data_of_previous_version_of_file() {
+    initBasicReport(1);
+    underTest.execute();
+    scmInfoRepository.setScmInfo(FILE1_REF, Changeset.newChangesetBuilder().setDate(1L).setRevision("rev-1").build());
+    underTest.execute();
+    String dataHash = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID).getDataHash();
+    scmInfoRepository.setScmInfo(FILE1_REF, Changeset.newChangesetBuilder().setDate(2L).setRevision("rev-2").build());
+    underTest.execute();
+
+    assertThat(dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID).getDataHash()).isNotEqualTo(dataHash);
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(1);
+    assertThat(dbTester.countRowsOfTable("file_source_blobs")).isEqualTo(1);
+  }
+
+  @Test
+  public void keep_data_of_previous_version_of_file_if_referenced_by_other_file() {
+    initBasicReport(1);
+    underTest.execute();
+    String dataHash = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE1_UUID).getDataHash();
+    // same file in another branch
+    dbClient.fileSourceDao().insert(session, new FileSourceDto()
+      .setProjectUuid("BRANCH_UUID")
+      .setFileUuid("BRANCH_FILE_UUID")
+      .setDataType(Type.SOURCE)
+      .setDataHash(dataHash)
+      .setCreatedAt(NOW)
+      .setUpdatedAt(NOW));
+    session.commit();
+    scmInfoRepository.setScmInfo(FILE1_REF, Changeset.newChangesetBuilder().setDate(1L).setRevision("rev-1").build());
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("file_source_blobs")).isEqualTo(2);
+    assertThat(dbClient.fileSourceDao().blobExists(session, dataHash)).isTrue();
+  }
+
   @Test
   public void persist_source_hashes() {
     initBasicReport(2);
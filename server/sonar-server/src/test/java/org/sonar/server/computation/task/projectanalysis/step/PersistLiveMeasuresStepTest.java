@@ -156,6 +156,24 @@ public class PersistLiveMeasuresStepTest extends BaseStepTest {
     assertThatMeasureHasValue(measureInOtherProject, (int)measureInOtherProject.getValue().doubleValue());
   }
 
+  @Test
+  public void keep_measures_whose_value_did_not_change() {
+    prepareProject();
+    LiveMeasureDto unchangedMeasure = insertMeasure("file-uuid", "project-uuid", INT_METRIC)
+      .setValue(42.0)
+      .setVariation(null)
+      .setData((String) null);
+    dbClient.liveMeasureDao().insertOrUpdate(db.getSession(), unchangedMeasure, null);
+    db.commit();
+
+    measureRepository.addRawMeasure(REF_4, INT_METRIC.getKey(), newMeasureBuilder().create(42));
+
+    step().execute();
+
+    assertThat(db.countRowsOfTable("live_measures")).isEqualTo(1);
+    assertThatMeasureHasValue(unchangedMeasure, 42);
+  }
+
   @Test
   public void do_not_persist_file_measures_with_best_value() {
     prepareProject();
@@ -28,8 +28,15 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureHistory;
+import org.sonar.db.measure.MeasureHistoryDto;
 import org.sonar.db.metric.MetricDto;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.db.purge.PurgeConfiguration;
+import org.sonar.db.purge.PurgeListener;
+import org.sonar.db.purge.PurgeProfiler;
 import org.sonar.server.computation.task.projectanalysis.analysis.MutableAnalysisMetadataHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
@@ -40,7 +47,11 @@ import org.sonar.server.computation.task.projectanalysis.measure.MeasureToMeasur
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepositoryRule;
 import org.sonar.server.computation.task.step.ComputationStep;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.MODULE;
@@ -54,8 +65,10 @@ public class PersistMeasuresStepTest extends BaseStepTest {
 
   private static final Metric STRING_METRIC = new Metric.Builder("string-metric", "String metric", Metric.ValueType.STRING).create();
   private static final Metric INT_METRIC = new Metric.Builder("int-metric", "int metric", Metric.ValueType.INT).create();
+  private static final Metric NEW_METRIC = new Metric.Builder("new-metric", "new metric", Metric.ValueType.INT).setDeleteHistoricalData(true).create();
 
   private static final String ANALYSIS_UUID = "a1";
+  private static final long ANALYSIS_DATE = 3_000L;
 
   private static final int REF_1 = 1;
   private static final int REF_2 = 2;
@@ -74,14 +87,19 @@ public class PersistMeasuresStepTest extends BaseStepTest {
   public MutableAnalysisMetadataHolderRule analysisMetadataHolder = new MutableAnalysisMetadataHolderRule();
 
   private DbClient dbClient = db.getDbClient();
+  private MetricDto intMetricDto;
+  private MetricDto newMetricDto;
 
   @Before
   public void setUp() {
     analysisMetadataHolder.setUuid(ANALYSIS_UUID);
+    analysisMetadataHolder.setAnalysisDate(ANALYSIS_DATE);
     MetricDto stringMetricDto = db.measures().insertMetric(m -> m.setKey(STRING_METRIC.getKey()).setValueType(Metric.ValueType.STRING.name()));
-    MetricDto intMetricDto = db.measures().insertMetric(m -> m.setKey(INT_METRIC.getKey()).setValueType(Metric.ValueType.INT.name()));
+    intMetricDto = db.measures().insertMetric(m -> m.setKey(INT_METRIC.getKey()).setValueType(Metric.ValueType.INT.name()));
     metricRepository.add(stringMetricDto.getId(), STRING_METRIC);
     metricRepository.add(intMetricDto.getId(), INT_METRIC);
+    newMetricDto = db.measures().insertMetric(m -> m.setKey(NEW_METRIC.getKey()).setValueType(Metric.ValueType.INT.name()).setDeleteHistoricalData(true));
+    metricRepository.add(newMetricDto.getId(), NEW_METRIC);
   }
 
   @Test
@@ -165,7 +183,65 @@ public class PersistMeasuresStepTest extends BaseStepTest {
     assertThat(selectMeasure("project-uuid", STRING_METRIC).get().getData()).isEqualTo("project-value");
   }
 
-  private void prepareProject() {
+  @Test
+  public void persist_history_of_measures_of_root_component() {
+    ComponentDto projectDto = prepareProject();
+    SnapshotDto pastAnalysis = db.components().insertSnapshot(projectDto, s -> s.setUuid("past").setCreatedAt(1_000L).setStatus(SnapshotDto.STATUS_PROCESSED));
+    db.measures().insertMeasure(projectDto, pastAnalysis, intMetricDto, m -> m.setValue(10.0).setVariation(null).setData(null));
+    measureRepository.addRawMeasure(REF_1, INT_METRIC.getKey(), newMeasureBuilder().setVariation(2.0).create(12));
+    measureRepository.addRawMeasure(REF_2, INT_METRIC.getKey(), newMeasureBuilder().create(12));
+
+    execute(true);
+
+    // history is initialized from past measures
+    assertThat(selectHistory("project-uuid", intMetricDto).getPoints())
+      .extracting(MeasureHistory.Point::getDate, MeasureHistory.Point::getValue, MeasureHistory.Point::getVariation)
+      .containsExactly(tuple(1_000L, 10.0, null), tuple(ANALYSIS_DATE, 12.0, 2.0));
+    // only root component has histories
+    assertThat(db.countRowsOfTable("measure_histories")).isEqualTo(1);
+  }
+
+  @Test
+  public void points_of_deleted_analyses_are_removed_from_history() {
+    ComponentDto projectDto = prepareProject();
+    db.components().insertSnapshot(projectDto, s -> s.setUuid("past").setCreatedAt(1_000L).setStatus(SnapshotDto.STATUS_PROCESSED));
+    dbClient.measureHistoryDao().insertOrUpdate(db.getSession(), new MeasureHistoryDto()
+      .setComponentUuid("project-uuid")
+      .setMetricId(intMetricDto.getId())
+      .setHistory(new MeasureHistory(asList(
+        new MeasureHistory.Point(500L, 5.0, null, null),
+        new MeasureHistory.Point(1_000L, 10.0, null, null)))));
+    db.commit();
+    measureRepository.addRawMeasure(REF_1, INT_METRIC.getKey(), newMeasureBuilder().create(12));
+
+    execute(true);
+
+    assertThat(selectHistory("project-uuid", intMetricDto).getPoints())
+      .extracting(MeasureHistory.Point::getDate, MeasureHistory.Point::getValue)
+      .containsExactly(tuple(1_000L, 10.0), tuple(ANALYSIS_DATE, 12.0));
+  }
+
+  @Test
+  public void history_of_metric_without_historical_data_keeps_only_last_analysis_as_purged_measures() {
+    ComponentDto projectDto = prepareProject();
+    SnapshotDto pastAnalysis = db.components().insertSnapshot(projectDto, s -> s.setUuid("past").setCreatedAt(1_000L)
+      .setStatus(SnapshotDto.STATUS_PROCESSED).setLast(false));
+    db.measures().insertMeasure(projectDto, pastAnalysis, newMetricDto, m -> m.setValue(null).setVariation(10.0).setData(null));
+    measureRepository.addRawMeasure(REF_1, NEW_METRIC.getKey(), newMeasureBuilder().setVariation(2.0).createNoValue());
+
+    execute(true);
+    dbClient.purgeDao().purge(db.getSession(), new PurgeConfiguration(new IdUuidPair(projectDto.getId(), projectDto.uuid()), emptyList(), 30,
+      Optional.empty(), System2.INSTANCE, emptyList()), PurgeListener.EMPTY, new PurgeProfiler());
+    db.commit();
+
+    // the past measure is deleted by the housekeeping, so is the point of the past analysis
+    assertThat(dbClient.measureDao().selectMeasure(db.getSession(), "past", "project-uuid", NEW_METRIC.getKey())).isEmpty();
+    assertThat(selectHistory("project-uuid", newMetricDto).getPoints())
+      .extracting(MeasureHistory.Point::getDate, MeasureHistory.Point::getVariation)
+      .containsExactly(tuple(ANALYSIS_DATE, 2.0));
+  }
+
+  private ComponentDto prepareProject() {
     // tree of components as defined by scanner report
     Component project = ReportComponent.builder(PROJECT, REF_1).setUuid("project-uuid")
       .addChildren(
@@ -185,7 +261,8 @@ public class PersistMeasuresStepTest extends BaseStepTest {
     ComponentDto moduleDto = insertComponent("module-key", "module-uuid");
     ComponentDto dirDto = insertComponent("dir-key", "dir-uuid");
     ComponentDto fileDto = insertComponent("file-key", "file-uuid");
-    db.components().insertSnapshot(projectDto, s -> s.setUuid(ANALYSIS_UUID));
+    db.components().insertSnapshot(projectDto, s -> s.setUuid(ANALYSIS_UUID).setStatus(SnapshotDto.STATUS_UNPROCESSED));
+    return projectDto;
   }
 
   private void preparePortfolio() {
@@ -217,10 +294,16 @@ public class PersistMeasuresStepTest extends BaseStepTest {
   }
 
   private void execute(boolean persistDirectories) {
-    new PersistMeasuresStep(dbClient, metricRepository, new MeasureToMeasureDto(analysisMetadataHolder, treeRootHolder), treeRootHolder, measureRepository, persistDirectories)
+    new PersistMeasuresStep(dbClient, metricRepository, new MeasureToMeasureDto(analysisMetadataHolder, treeRootHolder), treeRootHolder, measureRepository,
+      analysisMetadataHolder, persistDirectories)
       .execute();
   }
 
+  private MeasureHistory selectHistory(String componentUuid, MetricDto metric) {
+    return dbClient.measureHistoryDao().selectByComponentUuidAndMetricIds(db.getSession(), componentUuid, singletonList(metric.getId()))
+      .get(0).getHistory();
+  }
+
   private Optional<MeasureDto> selectMeasure(String componentUuid, Metric metric) {
     return dbClient.measureDao().selectMeasure(db.getSession(), ANALYSIS_UUID, componentUuid, metric.getKey());
   }
@@ -239,6 +322,7 @@ public class PersistMeasuresStepTest extends BaseStepTest {
 
   @Override
   protected ComputationStep step() {
-    return new PersistMeasuresStep(dbClient, metricRepository, new MeasureToMeasureDto(analysisMetadataHolder, treeRootHolder), treeRootHolder, measureRepository, true);
+    return new PersistMeasuresStep(dbClient, metricRepository, new MeasureToMeasureDto(analysisMetadataHolder, treeRootHolder), treeRootHolder, measureRepository,
+      analysisMetadataHolder, true);
   }
 }
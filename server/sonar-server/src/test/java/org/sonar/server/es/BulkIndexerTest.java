@@ -21,6 +21,7 @@ package org.sonar.server.es;
 
 import com.google.common.collect.ImmutableMap;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
 import org.elasticsearch.action.index.IndexRequest;
@@ -29,6 +30,7 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.internal.TestSystem2;
 import org.sonar.db.DbTester;
 import org.sonar.server.es.BulkIndexer.Size;
@@ -37,13 +39,17 @@ import static java.util.Collections.emptyMap;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.server.es.FakeIndexDefinition.INDEX;
 import static org.sonar.server.es.FakeIndexDefinition.INDEX_TYPE_FAKE;
+import static org.sonar.server.es.NewIndex.SettingsConfiguration.newBuilder;
 
 public class BulkIndexerTest {
 
+  private static final IndexType INDEX_TYPE_SHARDED = new IndexType("shardedfakes", "fake");
+  private static final int SHARDS = 4;
+
   private TestSystem2 testSystem2 = new TestSystem2().setNow(1_000L);
 
   @Rule
-  public EsTester esTester = new EsTester(new FakeIndexDefinition().setReplicas(1));
+  public EsTester esTester = new EsTester(new FakeIndexDefinition().setReplicas(1), new ShardedIndexDefinition());
   @Rule
   public DbTester dbTester = DbTester.create(testSystem2);
 
@@ -114,6 +120,50 @@ public class BulkIndexerTest {
     assertThat(count()).isEqualTo(removeFrom);
   }
 
+  @Test
+  public void bulk_delete_scrolls_all_the_pages_of_documents() {
+    int max = 1_200;
+    int removeFrom = 100;
+    FakeDoc[] docs = new FakeDoc[max];
+    for (int i = 0; i < max; i++) {
+      docs[i] = FakeIndexDefinition.newDoc(i);
+    }
+    esTester.putDocuments(INDEX_TYPE_FAKE, docs);
+
+    SearchRequestBuilder req = esTester.client().prepareSearch(INDEX_TYPE_FAKE)
+      .setQuery(QueryBuilders.rangeQuery(FakeIndexDefinition.INT_FIELD).gte(removeFrom));
+    IndexingResult result = BulkIndexer.delete(esTester.client(), INDEX_TYPE_FAKE, req);
+
+    assertThat(result.getTotal()).isEqualTo(max - removeFrom);
+    assertThat(result.getSuccess()).isEqualTo(max - removeFrom);
+    assertThat(count()).isEqualTo(removeFrom);
+  }
+
+  @Test
+  public void bulk_delete_on_index_with_several_shards_deletes_each_document_once() {
+    assertThat(shards(INDEX_TYPE_SHARDED.getIndex())).isEqualTo(SHARDS);
+    int max = 2_000;
+    int removeFrom = 100;
+    FakeDoc[] docs = new FakeDoc[max];
+    for (int i = 0; i < max; i++) {
+      docs[i] = FakeIndexDefinition.newDoc(i);
+    }
+    esTester.putDocuments(INDEX_TYPE_SHARDED, docs);
+
+    FakeListener listener = new FakeListener();
+    BulkIndexer indexer = new BulkIndexer(esTester.client(), INDEX_TYPE_SHARDED, Size.REGULAR, listener);
+    indexer.start();
+    indexer.addDeletion(esTester.client().prepareSearch(INDEX_TYPE_SHARDED)
+      .setQuery(QueryBuilders.rangeQuery(FakeIndexDefinition.INT_FIELD).gte(removeFrom)));
+    IndexingResult result = indexer.stop();
+
+    assertThat(result.getTotal()).isEqualTo(max - removeFrom);
+    assertThat(result.getSuccess()).isEqualTo(max - removeFrom);
+    assertThat(listener.calledDocIds).hasSize(max - removeFrom);
+    assertThat(new HashSet<>(listener.calledDocIds)).hasSize(max - removeFrom);
+    assertThat(esTester.countDocuments(INDEX_TYPE_SHARDED)).isEqualTo(removeFrom);
+  }
+
   @Test
   public void listener_is_called_on_successful_requests() {
     FakeListener listener = new FakeListener();
@@ -154,6 +204,15 @@ public class BulkIndexerTest {
     assertThat(listener.calledResult.getTotal()).isEqualTo(2);
   }
 
+  private static class ShardedIndexDefinition implements IndexDefinition {
+    @Override
+    public void define(IndexDefinitionContext context) {
+      NewIndex index = context.create(INDEX_TYPE_SHARDED.getIndex(), newBuilder(new MapSettings().asConfig()).setDefaultNbOfShards(SHARDS).build());
+      index.getSettings().put("index.refresh_interval", "-1");
+      index.createType(INDEX_TYPE_SHARDED.getType()).createIntegerField(FakeIndexDefinition.INT_FIELD);
+    }
+  }
+
   private static class FakeListener implements IndexingListener {
     private final List<DocId> calledDocIds = new ArrayList<>();
     private IndexingResult calledResult;
@@ -179,6 +238,12 @@ public class BulkIndexerTest {
     return Integer.parseInt(settingsResp.getSetting(INDEX, IndexMetaData.SETTING_NUMBER_OF_REPLICAS));
   }
 
+  private int shards(String index) {
+    GetSettingsResponse settingsResp = esTester.client().nativeClient().admin().indices()
+      .prepareGetSettings(index).get();
+    return Integer.parseInt(settingsResp.getSetting(index, IndexMetaData.SETTING_NUMBER_OF_SHARDS));
+  }
+
   private IndexRequest newIndexRequest(int intField) {
     return new IndexRequest(INDEX, INDEX_TYPE_FAKE.getType())
       .source(ImmutableMap.of(FakeIndexDefinition.INT_FIELD, intField));
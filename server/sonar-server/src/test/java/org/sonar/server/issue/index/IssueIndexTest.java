@@ -916,6 +916,21 @@ public class IssueIndexTest {
     return new SearchOptions().addFacets("createdAt");
   }
 
+  @Test
+  public void scroll_keys_of_all_issues_matching_query() {
+    ComponentDto project = ComponentTesting.newPrivateProjectDto(newOrganizationDto());
+    ComponentDto file = newFileDto(project, null);
+    indexIssues(IntStream.range(0, 600)
+      .mapToObj(i -> newDoc("I" + i, file).setSeverity(i % 2 == 0 ? Severity.BLOCKER : Severity.MINOR))
+      .toArray(IssueDoc[]::new));
+
+    assertThat(ImmutableSet.copyOf(underTest.scrollKeys(IssueQuery.builder().build()))).hasSize(600);
+    assertThat(ImmutableSet.copyOf(underTest.scrollKeys(IssueQuery.builder().severities(singletonList(Severity.BLOCKER)).build())))
+      .hasSize(300)
+      .contains("I0", "I598")
+      .doesNotContain("I1");
+  }
+
   @Test
   public void paging() {
     ComponentDto project = ComponentTesting.newPrivateProjectDto(newOrganizationDto());
@@ -0,0 +1,223 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import java.io.InputStream;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.resources.Languages;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.Durations;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.issue.IssueDto;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.server.es.EsTester;
+import org.sonar.server.es.StartupIndexer;
+import org.sonar.server.issue.IssueFieldsSetter;
+import org.sonar.server.issue.IssueQueryFactory;
+import org.sonar.server.issue.TransitionService;
+import org.sonar.server.issue.index.IssueIndex;
+import org.sonar.server.issue.index.IssueIndexDefinition;
+import org.sonar.server.issue.index.IssueIndexer;
+import org.sonar.server.issue.index.IssueIteratorFactory;
+import org.sonar.server.issue.workflow.FunctionExecutor;
+import org.sonar.server.issue.workflow.IssueWorkflow;
+import org.sonar.server.permission.index.AuthorizationTypeSupport;
+import org.sonar.server.permission.index.PermissionIndexer;
+import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.ws.WsActionTester;
+import org.sonar.server.ws.WsResponseCommonFormat;
+import org.sonarqube.ws.Issues;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
+import static org.sonar.db.component.ComponentTesting.newFileDto;
+import static org.sonar.db.component.ComponentTesting.newModuleDto;
+import static org.sonarqube.ws.MediaTypes.PROTOBUF;
+
+public class ExportActionTest {
+
+  @Rule
+  public UserSessionRule userSession = UserSessionRule.standalone();
+  @Rule
+  public DbTester db = DbTester.create();
+  @Rule
+  public EsTester es = new EsTester(new IssueIndexDefinition(new MapSettings().asConfig()));
+
+  private DbClient dbClient = db.getDbClient();
+  private IssueIndex issueIndex = new IssueIndex(es.client(), System2.INSTANCE, userSession, new AuthorizationTypeSupport(userSession));
+  private IssueIndexer issueIndexer = new IssueIndexer(es.client(), dbClient, new IssueIteratorFactory(dbClient));
+  private StartupIndexer permissionIndexer = new PermissionIndexer(dbClient, es.client(), issueIndexer);
+  private IssueQueryFactory issueQueryFactory = new IssueQueryFactory(dbClient, Clock.systemUTC(), userSession);
+  private IssueFieldsSetter issueFieldsSetter = new IssueFieldsSetter();
+  private IssueWorkflow issueWorkflow = new IssueWorkflow(new FunctionExecutor(issueFieldsSetter), issueFieldsSetter);
+  private SearchResponseLoader searchResponseLoader = spy(new SearchResponseLoader(userSession, dbClient, new TransitionService(userSession, issueWorkflow)));
+  private Languages languages = new Languages();
+  private SearchResponseFormat searchResponseFormat = new SearchResponseFormat(new Durations(), new WsResponseCommonFormat(languages), languages, new AvatarResolverImpl());
+  private WsActionTester ws = new WsActionTester(new ExportAction(issueIndex, issueQueryFactory, searchResponseLoader, searchResponseFormat));
+
+  @Before
+  public void setUp() {
+    issueWorkflow.start();
+  }
+
+  @Test
+  public void test_definition() {
+    WebService.Action def = ws.getDef();
+
+    assertThat(def.key()).isEqualTo("export");
+    assertThat(def.isInternal()).isTrue();
+    assertThat(def.isPost()).isFalse();
+    assertThat(def.since()).isEqualTo("7.1");
+    assertThat(def.responseExampleAsString()).isNotEmpty();
+    assertThat(def.params()).extracting(WebService.Param::key).containsExactlyInAnyOrder(
+      "additionalFields", "componentKeys", "branch", "organization", "severities", "statuses", "resolutions", "resolved",
+      "rules", "tags", "types", "createdAfter", "createdBefore");
+  }
+
+  @Test
+  public void export_issues_of_several_batches_as_protobuf() throws Exception {
+    ComponentDto project = db.components().insertPublicProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    RuleDefinitionDto rule = db.rules().insert();
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < ExportAction.BATCH_SIZE + 10; i++) {
+      keys.add(db.issues().insert(rule, project, file).getKey());
+    }
+    indexPermissionsAndIssues();
+
+    InputStream input = ws.newRequest()
+      .setMediaType(PROTOBUF)
+      .setParam("componentKeys", project.getKey())
+      .execute()
+      .getInputStream();
+
+    List<Issues.Issue> issues = new ArrayList<>();
+    Issues.Issue issue;
+    while ((issue = Issues.Issue.parseDelimitedFrom(input)) != null) {
+      issues.add(issue);
+    }
+    assertThat(issues).extracting(Issues.Issue::getKey).containsExactlyInAnyOrder(keys.toArray(new String[0]));
+    assertThat(issues).extracting(Issues.Issue::getComponent).containsOnly(file.getKey());
+    assertThat(issues).extracting(Issues.Issue::getProject).containsOnly(project.getKey());
+  }
+
+  @Test
+  public void only_projects_and_modules_are_carried_forward_to_next_batches() throws Exception {
+    ComponentDto project = db.components().insertPublicProject();
+    ComponentDto module = db.components().insertComponent(newModuleDto(project));
+    RuleDefinitionDto rule = db.rules().insert();
+    List<ComponentDto> files = new ArrayList<>();
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 2 * ExportAction.BATCH_SIZE + 10; i++) {
+      if (i % 10 == 0) {
+        files.add(db.components().insertComponent(newFileDto(module)));
+      }
+      keys.add(db.issues().insert(rule, project, files.get(files.size() - 1)).getKey());
+    }
+    indexPermissionsAndIssues();
+
+    InputStream input = ws.newRequest()
+      .setMediaType(PROTOBUF)
+      .setParam("componentKeys", project.getKey())
+      .execute()
+      .getInputStream();
+
+    List<Issues.Issue> issues = new ArrayList<>();
+    Issues.Issue issue;
+    while ((issue = Issues.Issue.parseDelimitedFrom(input)) != null) {
+      issues.add(issue);
+    }
+    assertThat(issues).extracting(Issues.Issue::getKey).containsExactlyInAnyOrder(keys.toArray(new String[0]));
+    assertThat(issues).extracting(Issues.Issue::getComponent)
+      .containsOnly(files.stream().map(ComponentDto::getKey).toArray(String[]::new));
+    ArgumentCaptor<SearchResponseData> preloaded = ArgumentCaptor.forClass(SearchResponseData.class);
+    verify(searchResponseLoader, times(3)).load(preloaded.capture(), any(SearchResponseLoader.Collector.class), isNull());
+    assertThat(preloaded.getAllValues().get(0).getComponents()).isEmpty();
+    assertThat(preloaded.getAllValues().get(1).getComponents())
+      .extracting(ComponentDto::uuid).contains(project.uuid())
+      .doesNotContainAnyElementsOf(files.stream().map(ComponentDto::uuid).collect(toList()));
+    assertThat(preloaded.getAllValues().get(2).getComponents())
+      .extracting(ComponentDto::uuid).contains(project.uuid())
+      .doesNotContainAnyElementsOf(files.stream().map(ComponentDto::uuid).collect(toList()));
+  }
+
+  @Test
+  public void export_issues_matching_criteria_as_json() {
+    ComponentDto project = db.components().insertPublicProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    RuleDefinitionDto rule = db.rules().insert();
+    IssueDto blocker = db.issues().insert(rule, project, file, i -> i.setSeverity(Severity.BLOCKER).setMessage("the blocker"));
+    db.issues().insert(rule, project, file, i -> i.setSeverity(Severity.MINOR));
+    db.issues().insertComment(blocker, "john", "*the comment*");
+    indexPermissionsAndIssues();
+
+    String json = ws.newRequest()
+      .setParam("severities", Severity.BLOCKER)
+      .setParam("additionalFields", "comments")
+      .execute()
+      .getInput();
+
+    assertThat(json)
+      .startsWith("{\"issues\":[{")
+      .contains("\"key\":\"" + blocker.getKey() + "\"", "\"message\":\"the blocker\"", "\"markdown\":\"*the comment*\"")
+      .doesNotContain("MINOR");
+  }
+
+  @Test
+  public void do_not_export_issues_of_projects_that_are_not_browsable() {
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    db.issues().insert(db.rules().insert(), project, file);
+    indexPermissionsAndIssues();
+    userSession.logIn();
+
+    ws.newRequest()
+      .execute()
+      .assertJson("{\"issues\":[]}");
+  }
+
+  @Test
+  public void export_nothing_if_no_issues() {
+    ws.newRequest()
+      .execute()
+      .assertJson("{\"issues\":[]}");
+  }
+
+  private void indexPermissionsAndIssues() {
+    permissionIndexer.indexOnStartup(permissionIndexer.getIndexTypes());
+    issueIndexer.indexOnStartup(issueIndexer.getIndexTypes());
+  }
+}
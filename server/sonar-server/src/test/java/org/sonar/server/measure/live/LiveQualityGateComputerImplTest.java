@@ -37,7 +37,9 @@ import org.sonar.db.measure.LiveMeasureDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.qualitygate.QGateWithOrgDto;
+import org.sonar.db.qualitygate.QualityGateConditionDao;
 import org.sonar.db.qualitygate.QualityGateConditionDto;
+import org.sonar.server.cache.NearCaches;
 import org.sonar.server.qualitygate.Condition;
 import org.sonar.server.qualitygate.EvaluatedCondition;
 import org.sonar.server.qualitygate.EvaluatedQualityGate;
@@ -65,7 +67,9 @@ public class LiveQualityGateComputerImplTest {
   public DbTester db = DbTester.create();
 
   private TestQualityGateEvaluator qualityGateEvaluator = new TestQualityGateEvaluator();
-  private LiveQualityGateComputerImpl underTest = new LiveQualityGateComputerImpl(db.getDbClient(), new QualityGateFinder(db.getDbClient()), qualityGateEvaluator);
+  private NearCaches nearCaches = new NearCaches();
+  private LiveQualityGateComputerImpl underTest = new LiveQualityGateComputerImpl(db.getDbClient(), new QualityGateFinder(db.getDbClient()), qualityGateEvaluator,
+    nearCaches);
 
   @Test
   public void loadQualityGate_returns_hardcoded_gate_for_short_living_branches() {
@@ -103,6 +107,27 @@ public class LiveQualityGateComputerImplTest {
           false));
   }
 
+  @Test
+  public void loadQualityGate_caches_gate_until_its_conditions_are_changed() {
+    OrganizationDto organization = db.organizations().insert();
+    ComponentDto project = db.components().insertPublicProject(organization);
+    BranchDto branch = newBranchDto(project).setBranchType(BranchType.LONG);
+    db.components().insertProjectBranch(project, branch);
+    MetricDto metric = db.measures().insertMetric();
+    QGateWithOrgDto gate = db.qualityGates().insertQualityGate(organization);
+    db.qualityGates().setDefaultQualityGate(organization, gate);
+    db.qualityGates().addCondition(gate, metric);
+
+    QualityGate result = underTest.loadQualityGate(db.getSession(), organization, project, branch);
+    assertThat(result.getConditions()).hasSize(1);
+
+    db.qualityGates().addCondition(gate, metric);
+    assertThat(underTest.loadQualityGate(db.getSession(), organization, project, branch)).isSameAs(result);
+
+    nearCaches.onChange(QualityGateConditionDao.TABLE);
+    assertThat(underTest.loadQualityGate(db.getSession(), organization, project, branch).getConditions()).hasSize(2);
+  }
+
   @Test
   public void getMetricsRelatedTo() {
     Condition condition = new Condition("metric1", Condition.Operator.EQUALS, "10", null, false);
@@ -41,11 +41,13 @@ import org.sonar.db.measure.LiveMeasureDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.metric.MetricTesting;
 import org.sonar.db.organization.OrganizationDto;
+import org.sonar.server.cache.NearCaches;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.i18n.I18nRule;
+import org.sonar.server.metric.MetricCache;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.WsActionTester;
 import org.sonarqube.ws.Common;
@@ -88,6 +90,7 @@ import static org.sonar.server.measure.ws.ComponentTreeAction.LEAVES_STRATEGY;
 import static org.sonar.server.measure.ws.ComponentTreeAction.METRIC_PERIOD_SORT;
 import static org.sonar.server.measure.ws.ComponentTreeAction.METRIC_SORT;
 import static org.sonar.server.measure.ws.ComponentTreeAction.NAME_SORT;
+import static org.sonar.server.measure.ws.ComponentTreeAction.PATH_SORT;
 import static org.sonar.server.measure.ws.ComponentTreeAction.WITH_MEASURES_ONLY_METRIC_SORT_FILTER;
 import static org.sonar.test.JsonAssert.assertJson;
 
@@ -110,7 +113,7 @@ public class ComponentTreeActionTest {
   private WsActionTester ws = new WsActionTester(
     new ComponentTreeAction(
       dbClient, new ComponentFinder(dbClient, resourceTypes), userSession,
-      i18n, resourceTypes));
+      i18n, resourceTypes, new MetricCache(dbClient, new NearCaches())));
 
   @Test
   public void json_example() {
@@ -331,6 +334,79 @@ public class ComponentTreeActionTest {
     assertThat(response.getPaging().getTotal()).isEqualTo(9);
   }
 
+  @Test
+  public void paginate_components_sorted_on_name() {
+    ComponentDto project = db.components().insertPrivateProject();
+    db.components().insertSnapshot(project);
+    ComponentDto file3 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-3").setName("file-3"));
+    ComponentDto file1 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-1").setName("File-1"));
+    ComponentDto file5 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-5").setName("file-5"));
+    ComponentDto file2 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-2").setName("FILE-2"));
+    ComponentDto file4 = componentDb.insertComponent(newFileDto(project, null, "file-uuid-4").setName("file-4"));
+    MetricDto ncloc = insertNclocMetric();
+    db.measures().insertLiveMeasure(file3, ncloc, m -> m.setValue(3.0d));
+    db.measures().insertLiveMeasure(file4, ncloc, m -> m.setValue(4.0d));
+
+    ComponentTreeWsResponse response = ws.newRequest()
+      .setParam(PARAM_COMPONENT, project.getKey())
+      .setParam(SORT, NAME_SORT)
+      .setParam(PARAM_METRIC_KEYS, "ncloc")
+      .setParam(PARAM_STRATEGY, "leaves")
+      .setParam(Param.PAGE, "2")
+      .setParam(Param.PAGE_SIZE, "2")
+      .executeProtobuf(ComponentTreeWsResponse.class);
+
+    assertThat(response.getComponentsList()).extracting("id").containsExactly(file3.uuid(), file4.uuid());
+    assertThat(response.getComponentsList()).extracting(c -> c.getMeasuresList().get(0).getValue()).containsExactly("3", "4");
+    assertThat(response.getPaging().getPageIndex()).isEqualTo(2);
+    assertThat(response.getPaging().getPageSize()).isEqualTo(2);
+    assertThat(response.getPaging().getTotal()).isEqualTo(5);
+
+    response = ws.newRequest()
+      .setParam(PARAM_COMPONENT, project.getKey())
+      .setParam(SORT, NAME_SORT)
+      .setParam(Param.ASCENDING, "false")
+      .setParam(PARAM_METRIC_KEYS, "ncloc")
+      .setParam(PARAM_STRATEGY, "leaves")
+      .setParam(Param.PAGE, "3")
+      .setParam(Param.PAGE_SIZE, "2")
+      .executeProtobuf(ComponentTreeWsResponse.class);
+
+    assertThat(response.getComponentsList()).extracting("id").containsExactly(file1.uuid());
+    assertThat(response.getPaging().getTotal()).isEqualTo(5);
+  }
+
+  @Test
+  public void sort_on_path_puts_components_without_path_last() {
+    ComponentDto project = db.components().insertPrivateProject();
+    db.components().insertSnapshot(project);
+    ComponentDto fileB = componentDb.insertComponent(newFileDto(project, null, "file-uuid-b").setName("B.java").setPath("src/b/B.java"));
+    ComponentDto fileWithoutPath = componentDb.insertComponent(newFileDto(project, null, "file-uuid-none").setName("A.java").setPath(null));
+    ComponentDto fileA = componentDb.insertComponent(newFileDto(project, null, "file-uuid-a").setName("A.java").setPath("src/A/A.java"));
+    ComponentDto fileC = componentDb.insertComponent(newFileDto(project, null, "file-uuid-c").setName("C.java").setPath("src/c/C.java"));
+    insertNclocMetric();
+
+    ComponentTreeWsResponse response = ws.newRequest()
+      .setParam(PARAM_COMPONENT, project.getKey())
+      .setParam(SORT, PATH_SORT)
+      .setParam(PARAM_METRIC_KEYS, "ncloc")
+      .setParam(PARAM_STRATEGY, "leaves")
+      .executeProtobuf(ComponentTreeWsResponse.class);
+
+    assertThat(response.getComponentsList()).extracting("id").containsExactly(fileA.uuid(), fileB.uuid(), fileC.uuid(), fileWithoutPath.uuid());
+    assertThat(response.getPaging().getTotal()).isEqualTo(4);
+
+    response = ws.newRequest()
+      .setParam(PARAM_COMPONENT, project.getKey())
+      .setParam(SORT, PATH_SORT)
+      .setParam(Param.ASCENDING, "false")
+      .setParam(PARAM_METRIC_KEYS, "ncloc")
+      .setParam(PARAM_STRATEGY, "leaves")
+      .executeProtobuf(ComponentTreeWsResponse.class);
+
+    assertThat(response.getComponentsList()).extracting("id").containsExactly(fileC.uuid(), fileB.uuid(), fileA.uuid(), fileWithoutPath.uuid());
+  }
+
   @Test
   public void sort_by_metric_value() {
     ComponentDto project = db.components().insertPrivateProject();
@@ -38,6 +38,8 @@ import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.measure.MeasureDto;
+import org.sonar.db.measure.MeasureHistory;
+import org.sonar.db.measure.MeasureHistoryDto;
 import org.sonar.db.metric.MetricDto;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.server.component.TestComponentFinder;
@@ -193,6 +195,31 @@ public class SearchHistoryActionTest {
       .containsExactly(tuple(analysisDate, "5"), tuple(laterAnalysisDate, "10"));
   }
 
+  @Test
+  public void return_measures_from_history_of_project() {
+    SnapshotDto laterAnalysis = dbClient.snapshotDao().insert(dbSession, newAnalysis(project).setCreatedAt(analysis.getCreatedAt() + 42_000));
+    dbClient.measureHistoryDao().insertOrUpdate(dbSession, new MeasureHistoryDto()
+      .setComponentUuid(project.uuid())
+      .setMetricId(complexityMetric.getId())
+      .setHistory(new MeasureHistory(Arrays.asList(
+        // point of a deleted analysis
+        new MeasureHistory.Point(analysis.getCreatedAt() - 1_000, 99d, null, null),
+        new MeasureHistory.Point(analysis.getCreatedAt(), 101d, null, null),
+        new MeasureHistory.Point(laterAnalysis.getCreatedAt(), 100d, null, null)))));
+    // metric without history
+    dbClient.measureDao().insert(dbSession, newMeasureDto(nclocMetric, project, analysis).setValue(201d));
+    db.commit();
+
+    SearchHistoryResponse result = call();
+
+    String analysisDate = formatDateTime(analysis.getCreatedAt());
+    String laterAnalysisDate = formatDateTime(laterAnalysis.getCreatedAt());
+    assertThat(result.getMeasures(0).getHistoryList()).extracting(HistoryValue::getDate, HistoryValue::getValue)
+      .containsExactly(tuple(analysisDate, "101"), tuple(laterAnalysisDate, "100"));
+    assertThat(result.getMeasures(1).getHistoryList()).extracting(HistoryValue::getDate, HistoryValue::getValue)
+      .containsExactly(tuple(analysisDate, "201"), tuple(laterAnalysisDate, ""));
+  }
+
   @Test
   public void pagination_applies_to_analyses() {
     project = db.components().insertPrivateProject();
@@ -23,6 +23,7 @@ import com.google.common.collect.Multimap;
 import java.io.InvalidClassException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.apache.commons.lang.RandomStringUtils;
@@ -45,11 +46,13 @@ import static com.google.common.collect.Sets.newHashSet;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anySet;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -127,6 +130,50 @@ public class DefaultNotificationManagerTest {
     verify(underTest, times(1)).logDeserializationIssue();
   }
 
+  @Test
+  public void get_batch_from_queue_and_ignore_notifications_which_can_not_be_read() throws Exception {
+    NotificationQueueDto unreadable = mock(NotificationQueueDto.class);
+    when(unreadable.toNotification()).thenThrow(new InvalidClassException("Pouet"));
+    List<NotificationQueueDto> dtos = Arrays.asList(NotificationQueueDto.toNotificationQueueDto(new Notification("test1")), unreadable,
+      NotificationQueueDto.toNotificationQueueDto(new Notification("test2")));
+    when(notificationQueueDao.selectOldest(10)).thenReturn(dtos);
+
+    assertThat(underTest.getFromQueue(10)).extracting(Notification::getType).containsExactly("test1", "test2");
+
+    verify(notificationQueueDao).delete(dtos);
+  }
+
+  @Test
+  public void get_empty_batch_from_empty_queue() {
+    when(notificationQueueDao.selectOldest(10)).thenReturn(Collections.emptyList());
+
+    assertThat(underTest.getFromQueue(10)).isEmpty();
+
+    verify(notificationQueueDao, never()).delete(anyList());
+  }
+
+  @Test
+  public void recipients_are_loaded_once_per_dispatcher_and_project_while_cache_is_opened() {
+    when(propertiesDao.findUsersForNotification("NewViolations", "Email", "uuid_45"))
+      .thenReturn(newHashSet(new Subscriber("user1", false)));
+    when(authorizationDao.keepAuthorizedLoginsOnProject(dbSession, newHashSet("user1"), "uuid_45", "user"))
+      .thenReturn(newHashSet("user1"));
+
+    try (DefaultNotificationManager.RecipientsCache cache = underTest.cacheRecipients()) {
+      assertThat(underTest.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45", SubscriberPermissionsOnProject.ALL_MUST_HAVE_ROLE_USER).keySet())
+        .containsOnly("user1");
+      assertThat(underTest.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45", SubscriberPermissionsOnProject.ALL_MUST_HAVE_ROLE_USER).keySet())
+        .containsOnly("user1");
+      underTest.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_56", SubscriberPermissionsOnProject.ALL_MUST_HAVE_ROLE_USER);
+    }
+    verify(propertiesDao, times(1)).findUsersForNotification("NewViolations", "Email", "uuid_45");
+    verify(propertiesDao, times(1)).findUsersForNotification("NewViolations", "Email", "uuid_56");
+
+    // cache is dropped when closed
+    underTest.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45", SubscriberPermissionsOnProject.ALL_MUST_HAVE_ROLE_USER);
+    verify(propertiesDao, times(2)).findUsersForNotification("NewViolations", "Email", "uuid_45");
+  }
+
   @Test
   public void shouldFindNoRecipient() {
     assertThat(underTest.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45", new SubscriberPermissionsOnProject(UserRole.USER)).asMap().entrySet())
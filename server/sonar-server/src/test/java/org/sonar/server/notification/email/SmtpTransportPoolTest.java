@@ -0,0 +1,134 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification.email;
+
+import java.util.Properties;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.subethamail.wiser.Wiser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SmtpTransportPoolTest {
+
+  private static final String CONFIGURATION_KEY = "localhost";
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000L);
+  private Wiser smtpServer;
+  private Session session;
+  private SmtpTransportPool underTest = new SmtpTransportPool(2, 10_000L, 3, system2);
+
+  @Before
+  public void setUp() {
+    smtpServer = new Wiser(0);
+    smtpServer.start();
+
+    Properties properties = new Properties();
+    properties.setProperty("mail.transport.protocol", "smtp");
+    properties.setProperty("mail.smtp.host", "localhost");
+    properties.setProperty("mail.smtp.port", String.valueOf(smtpServer.getServer().getPort()));
+    session = Session.getInstance(properties);
+  }
+
+  @After
+  public void tearDown() {
+    underTest.clear();
+    smtpServer.stop();
+  }
+
+  @Test
+  public void connection_is_reused_for_several_messages() throws Exception {
+    underTest.send(session, CONFIGURATION_KEY, newMessage("foo"));
+    underTest.send(session, CONFIGURATION_KEY, newMessage("bar"));
+
+    assertThat(smtpServer.getMessages()).hasSize(2);
+    assertThat(underTest.openedConnections()).isEqualTo(1);
+    assertThat(underTest.idleConnections()).isEqualTo(1);
+  }
+
+  @Test
+  public void connection_is_closed_when_max_number_of_messages_is_reached() throws Exception {
+    for (int i = 0; i < 4; i++) {
+      underTest.send(session, CONFIGURATION_KEY, newMessage("message" + i));
+    }
+
+    assertThat(smtpServer.getMessages()).hasSize(4);
+    assertThat(underTest.openedConnections()).isEqualTo(2);
+  }
+
+  @Test
+  public void connection_is_not_reused_after_max_idle_time() throws Exception {
+    underTest.send(session, CONFIGURATION_KEY, newMessage("foo"));
+    system2.setNow(1_000L + 10_001L);
+    underTest.send(session, CONFIGURATION_KEY, newMessage("bar"));
+
+    assertThat(underTest.openedConnections()).isEqualTo(2);
+    assertThat(underTest.idleConnections()).isEqualTo(1);
+  }
+
+  @Test
+  public void connection_is_not_reused_when_configuration_changes() throws Exception {
+    underTest.send(session, CONFIGURATION_KEY, newMessage("foo"));
+    underTest.send(session, "other", newMessage("bar"));
+
+    assertThat(smtpServer.getMessages()).hasSize(2);
+    assertThat(underTest.openedConnections()).isEqualTo(2);
+    assertThat(underTest.idleConnections()).isEqualTo(1);
+  }
+
+  @Test
+  public void fail_when_server_is_not_available() throws Exception {
+    smtpServer.stop();
+
+    expectedException.expect(MessagingException.class);
+
+    underTest.send(session, CONFIGURATION_KEY, newMessage("foo"));
+  }
+
+  @Test
+  public void clear_closes_idle_connections() throws Exception {
+    underTest.send(session, CONFIGURATION_KEY, newMessage("foo"));
+
+    underTest.clear();
+
+    assertThat(underTest.idleConnections()).isZero();
+  }
+
+  private MimeMessage newMessage(String subject) throws MessagingException {
+    MimeMessage message = new MimeMessage(session);
+    message.setFrom(new InternetAddress("server@nowhere"));
+    message.addRecipient(Message.RecipientType.TO, new InternetAddress("user@nowhere"));
+    message.setSubject(subject);
+    message.setText("text");
+    return message;
+  }
+}
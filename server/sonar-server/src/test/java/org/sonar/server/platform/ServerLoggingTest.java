@@ -34,14 +34,12 @@ import org.junit.runner.RunWith;
 import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
-import org.sonar.db.Database;
 import org.sonar.process.logging.LogLevelConfig;
 import org.sonar.process.logging.LogbackHelper;
 import org.sonar.server.app.ServerProcessLogging;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -64,8 +62,7 @@ public class ServerLoggingTest {
   private LogbackHelper logbackHelper = spy(new LogbackHelper());
   private MapSettings settings = new MapSettings();
   private final ServerProcessLogging serverProcessLogging = mock(ServerProcessLogging.class);
-  private final Database database = mock(Database.class);
-  private ServerLogging underTest = new ServerLogging(logbackHelper, settings.asConfig(), serverProcessLogging, database);
+  private ServerLogging underTest = new ServerLogging(logbackHelper, settings.asConfig(), serverProcessLogging);
 
   @Rule
   public LogTester logTester = new LogTester();
@@ -95,24 +92,6 @@ public class ServerLoggingTest {
     verify(logbackHelper).changeRoot(logLevelConfig, Level.valueOf(level.name()));
   }
 
-  @Test
-  public void changeLevel_to_trace_enables_db_logging() {
-    LogLevelConfig logLevelConfig = LogLevelConfig.newBuilder(rootLoggerName).build();
-    when(serverProcessLogging.getLogLevelConfig()).thenReturn(logLevelConfig);
-
-    reset(database);
-    underTest.changeLevel(INFO);
-    verify(database).enableSqlLogging(false);
-
-    reset(database);
-    underTest.changeLevel(DEBUG);
-    verify(database).enableSqlLogging(false);
-
-    reset(database);
-    underTest.changeLevel(TRACE);
-    verify(database).enableSqlLogging(true);
-  }
-
   @DataProvider
   public static Object[][] supportedSonarApiLevels() {
     return new Object[][] {
@@ -0,0 +1,83 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.setting;
+
+import java.util.Properties;
+import org.junit.Test;
+import org.sonar.api.config.GlobalPropertyChangeHandler.PropertyChange;
+import org.sonar.api.config.PropertyDefinitions;
+import org.sonar.process.cluster.hz.DistributedAnswer;
+import org.sonar.process.cluster.hz.DistributedCall;
+import org.sonar.process.cluster.hz.HazelcastMember;
+
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SettingsChangeBroadcasterTest {
+
+  private static final String A_KEY = "a_key";
+
+  private SettingLoader settingLoader = mock(SettingLoader.class);
+  private ThreadLocalSettings settings = new ThreadLocalSettings(new PropertyDefinitions(), new Properties(), settingLoader);
+
+  @Test
+  public void invalidate_settings_of_current_process() {
+    when(settingLoader.loadVersion()).thenReturn("1");
+    when(settingLoader.loadAll()).thenReturn(singletonMap(A_KEY, "v1"));
+    assertThat(getInThreadCache(A_KEY)).isEqualTo("v1");
+
+    when(settingLoader.loadAll()).thenReturn(singletonMap(A_KEY, "v2"));
+    new SettingsChangeBroadcaster().onChange(PropertyChange.create(A_KEY, "v2"));
+
+    assertThat(getInThreadCache(A_KEY)).isEqualTo("v2");
+  }
+
+  @Test
+  public void invalidate_settings_of_cluster_nodes() throws Exception {
+    HazelcastMember member = mock(HazelcastMember.class);
+    when(member.call(any(DistributedCall.class), any(), anyLong())).thenReturn(mock(DistributedAnswer.class));
+
+    new SettingsChangeBroadcaster(member).onChange(PropertyChange.create(A_KEY, "v2"));
+
+    verify(member).call(any(DistributedCall.class), any(), anyLong());
+  }
+
+  @Test
+  public void do_not_fail_if_cluster_nodes_can_not_be_invalidated() throws Exception {
+    HazelcastMember member = mock(HazelcastMember.class);
+    when(member.call(any(DistributedCall.class), any(), anyLong())).thenThrow(new IllegalStateException("node is down"));
+
+    new SettingsChangeBroadcaster(member).onChange(PropertyChange.create(A_KEY, "v2"));
+  }
+
+  private String getInThreadCache(String key) {
+    settings.load();
+    try {
+      return settings.getString(key);
+    } finally {
+      settings.unload();
+    }
+  }
+}
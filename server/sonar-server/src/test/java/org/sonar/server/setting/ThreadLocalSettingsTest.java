@@ -34,6 +34,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.config.PropertyDefinitions;
+import org.sonar.api.utils.internal.TestSystem2;
 
 import static java.util.Collections.unmodifiableMap;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -43,6 +44,7 @@ import static org.assertj.core.data.MapEntry.entry;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class ThreadLocalSettingsTest {
 
@@ -54,6 +56,7 @@ public class ThreadLocalSettingsTest {
   public TemporaryFolder temp = new TemporaryFolder();
 
   private MapSettingLoader dbSettingLoader = new MapSettingLoader();
+  private TestSystem2 system2 = new TestSystem2().setNow(1_000L);
   private ThreadLocalSettings underTest = null;
 
   @After
@@ -140,7 +143,7 @@ public class ThreadLocalSettingsTest {
   private ThreadLocalSettings create(Map<String, String> systemProps) {
     Properties p = new Properties();
     p.putAll(systemProps);
-    return new ThreadLocalSettings(new PropertyDefinitions(), p, dbSettingLoader);
+    return new ThreadLocalSettings(new PropertyDefinitions(), p, dbSettingLoader, system2);
   }
 
   @Test
@@ -210,11 +213,13 @@ public class ThreadLocalSettingsTest {
     assertThat(underTest.get(A_KEY).get()).isEqualTo("v1");
 
     deletePropertyFromDb(A_KEY);
+    system2.setNow(system2.now() + ThreadLocalSettings.VERSION_CHECK_INTERVAL_MS);
     // the main thread still has "v1" in cache, but not new thread
     assertThat(underTest.get(A_KEY).get()).isEqualTo("v1");
     verifyValueInNewThread(underTest, null);
 
     insertPropertyIntoDb(A_KEY, "v2");
+    system2.setNow(system2.now() + ThreadLocalSettings.VERSION_CHECK_INTERVAL_MS);
     // the main thread still has the old value "v1" in cache, but new thread loads "v2"
     assertThat(underTest.get(A_KEY).get()).isEqualTo("v1");
     verifyValueInNewThread(underTest, "v2");
@@ -222,6 +227,73 @@ public class ThreadLocalSettingsTest {
     underTest.unload();
   }
 
+  @Test
+  public void db_properties_are_shared_by_threads_until_version_is_checked() throws InterruptedException {
+    insertPropertyIntoDb(A_KEY, "v1");
+    underTest = create(Collections.emptyMap());
+    underTest.load();
+    assertThat(underTest.get(A_KEY).get()).isEqualTo("v1");
+    underTest.unload();
+
+    insertPropertyIntoDb(A_KEY, "v2");
+    // version is not checked yet
+    verifyValueInNewThread(underTest, "v1");
+
+    system2.setNow(system2.now() + ThreadLocalSettings.VERSION_CHECK_INTERVAL_MS);
+    verifyValueInNewThread(underTest, "v2");
+    assertThat(dbSettingLoader.loadAllCalls).isEqualTo(2);
+  }
+
+  @Test
+  public void db_properties_are_not_reloaded_if_version_did_not_change() throws InterruptedException {
+    insertPropertyIntoDb(A_KEY, "v1");
+    underTest = create(Collections.emptyMap());
+
+    verifyValueInNewThread(underTest, "v1");
+    system2.setNow(system2.now() + ThreadLocalSettings.VERSION_CHECK_INTERVAL_MS);
+    verifyValueInNewThread(underTest, "v1");
+
+    assertThat(dbSettingLoader.loadAllCalls).isEqualTo(1);
+  }
+
+  @Test
+  public void db_properties_are_reloaded_when_snapshot_is_invalidated() throws InterruptedException {
+    insertPropertyIntoDb(A_KEY, "v1");
+    underTest = create(Collections.emptyMap());
+    verifyValueInNewThread(underTest, "v1");
+
+    insertPropertyIntoDb(A_KEY, "v2");
+    ThreadLocalSettings.invalidateSnapshot();
+
+    verifyValueInNewThread(underTest, "v2");
+  }
+
+  @Test
+  public void db_properties_are_not_loaded_if_thread_cache_does_not_read_them() {
+    underTest = create(ImmutableMap.of(A_KEY, "from system"));
+    underTest.load();
+
+    assertThat(underTest.get(A_KEY).get()).isEqualTo("from system");
+    underTest.unload();
+
+    assertThat(dbSettingLoader.loadAllCalls).isZero();
+  }
+
+  @Test
+  public void keep_snapshot_if_DB_error_when_checking_version() throws InterruptedException {
+    SettingLoader settingLoaderMock = mock(SettingLoader.class);
+    when(settingLoaderMock.loadVersion())
+      .thenReturn("1")
+      .thenThrow(new PersistenceException("Faking an error connecting to DB"));
+    when(settingLoaderMock.loadAll()).thenReturn(ImmutableMap.of(A_KEY, "v1"));
+    underTest = new ThreadLocalSettings(new PropertyDefinitions(), new Properties(), settingLoaderMock, system2);
+    verifyValueInNewThread(underTest, "v1");
+
+    system2.setNow(system2.now() + ThreadLocalSettings.VERSION_CHECK_INTERVAL_MS);
+
+    verifyValueInNewThread(underTest, "v1");
+  }
+
   @Test
   public void load_throws_ISE_if_load_called_twice_without_unload_in_between() {
     underTest = create(Collections.emptyMap());
@@ -382,14 +454,18 @@ public class ThreadLocalSettingsTest {
 
   private static class MapSettingLoader implements SettingLoader {
     private final Map<String, String> map = new HashMap<>();
+    private int version = 0;
+    private int loadAllCalls = 0;
 
     public MapSettingLoader put(String key, String value) {
       map.put(key, value);
+      version++;
       return this;
     }
 
     public MapSettingLoader remove(String key) {
       map.remove(key);
+      version++;
       return this;
     }
 
@@ -400,7 +476,13 @@ public class ThreadLocalSettingsTest {
 
     @Override
     public Map<String, String> loadAll() {
+      loadAllCalls++;
       return unmodifiableMap(map);
     }
+
+    @Override
+    public String loadVersion() {
+      return String.valueOf(version);
+    }
   }
 }
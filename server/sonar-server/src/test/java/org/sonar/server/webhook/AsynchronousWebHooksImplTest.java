@@ -20,15 +20,15 @@
 package org.sonar.server.webhook;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.config.internal.MapSettings;
-import org.sonar.server.async.AsyncExecution;
+import org.sonar.api.utils.System2;
 
-import static java.util.Objects.requireNonNull;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -42,9 +42,10 @@ public class AsynchronousWebHooksImplTest {
   private final TestWebhookCaller caller = new TestWebhookCaller();
   private final WebhookDeliveryStorage deliveryStorage = mock(WebhookDeliveryStorage.class);
   private final WebhookPayload mock = mock(WebhookPayload.class);
-  private final RecordingAsyncExecution asyncExecution = new RecordingAsyncExecution();
+  private final ExecutorService executor = mock(ExecutorService.class);
+  private final WebhookDispatcher dispatcher = new WebhookDispatcher(caller, deliveryStorage, System2.INSTANCE, executor, mock(ScheduledExecutorService.class), 1);
 
-  private final WebHooksImpl underTest = new WebHooksImpl(caller, deliveryStorage, asyncExecution);
+  private final WebHooksImpl underTest = new WebHooksImpl(dispatcher);
 
   @Test
   public void send_global_webhooks() {
@@ -61,25 +62,15 @@ public class AsynchronousWebHooksImplTest {
     assertThat(caller.countSent()).isZero();
     verifyZeroInteractions(deliveryStorage);
 
-    asyncExecution.executeRecorded();
+    ArgumentCaptor<Runnable> calls = ArgumentCaptor.forClass(Runnable.class);
+    verify(executor, times(2)).execute(calls.capture());
+    calls.getAllValues().forEach(Runnable::run);
+    dispatcher.flush();
 
     assertThat(caller.countSent()).isEqualTo(2);
-    verify(deliveryStorage, times(2)).persist(any(WebhookDelivery.class));
+    ArgumentCaptor<Collection> persisted = ArgumentCaptor.forClass(Collection.class);
+    verify(deliveryStorage).persist(persisted.capture());
+    assertThat(persisted.getValue()).hasSize(2);
     verify(deliveryStorage).purge(PROJECT_UUID);
   }
-
-  private static class RecordingAsyncExecution implements AsyncExecution {
-    private final List<Runnable> runnableList = new ArrayList<>();
-
-    @Override
-    public void addToQueue(Runnable r) {
-      runnableList.add(requireNonNull(r));
-    }
-
-    public void executeRecorded() {
-      ArrayList<Runnable> runnables = new ArrayList<>(runnableList);
-      runnableList.clear();
-      runnables.forEach(Runnable::run);
-    }
-  }
 }
@@ -19,20 +19,22 @@
  */
 package org.sonar.server.webhook;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
-import org.sonar.server.async.AsyncExecution;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
@@ -48,8 +50,9 @@ public class SynchronousWebHooksImplTest {
   private final TestWebhookCaller caller = new TestWebhookCaller();
   private final WebhookDeliveryStorage deliveryStorage = mock(WebhookDeliveryStorage.class);
   private final WebhookPayload mock = mock(WebhookPayload.class);
-  private final AsyncExecution synchronousAsyncExecution = Runnable::run;
-  private final WebHooksImpl underTest = new WebHooksImpl(caller, deliveryStorage, synchronousAsyncExecution);
+  private final WebhookDispatcher dispatcher = new WebhookDispatcher(caller, deliveryStorage, System2.INSTANCE,
+    MoreExecutors.newDirectExecutorService(), mock(ScheduledExecutorService.class), 1);
+  private final WebHooksImpl underTest = new WebHooksImpl(dispatcher);
 
   @Test
   public void isEnabled_returns_false_if_no_webHoolds() {
@@ -126,11 +129,12 @@ public class SynchronousWebHooksImplTest {
     caller.enqueueFailure(NOW, new IOException("Fail to connect"));
 
     underTest.sendProjectAnalysisUpdate(settings.asConfig(), new WebHooks.Analysis(PROJECT_UUID, "1", "#1"), () -> mock);
+    dispatcher.flush();
 
     assertThat(caller.countSent()).isEqualTo(2);
     assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Sent webhook 'First' | url=http://url1 | time=1234ms | status=200");
     assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Failed to send webhook 'Second' | url=http://url2 | message=Fail to connect");
-    verify(deliveryStorage, times(2)).persist(any(WebhookDelivery.class));
+    verifyPersisted(2);
     verify(deliveryStorage).purge(PROJECT_UUID);
   }
 
@@ -142,10 +146,11 @@ public class SynchronousWebHooksImplTest {
     caller.enqueueSuccess(NOW, 200, 1_234);
 
     underTest.sendProjectAnalysisUpdate(settings.asConfig(), new WebHooks.Analysis(PROJECT_UUID, "1", "#1"), () -> mock);
+    dispatcher.flush();
 
     assertThat(caller.countSent()).isEqualTo(1);
     assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Sent webhook 'First' | url=http://url1 | time=1234ms | status=200");
-    verify(deliveryStorage).persist(any(WebhookDelivery.class));
+    verifyPersisted(1);
     verify(deliveryStorage).purge(PROJECT_UUID);
   }
 
@@ -174,4 +179,9 @@ public class SynchronousWebHooksImplTest {
     assertThat(logTester.logs(LoggerLevel.DEBUG).stream().filter(log -> log.contains("Sent"))).hasSize(10);
   }
 
+  private void verifyPersisted(int expectedDeliveries) {
+    ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
+    verify(deliveryStorage).persist(captor.capture());
+    assertThat(captor.getValue()).hasSize(expectedDeliveries);
+  }
 }
@@ -0,0 +1,190 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.webhook;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.utils.System2;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.webhook.WebhookDispatcher.BATCH_SIZE;
+import static org.sonar.server.webhook.WebhookDispatcher.INITIAL_BACKOFF_MS;
+import static org.sonar.server.webhook.WebhookDispatcher.MAX_CONCURRENT_CALLS_PER_HOST;
+import static org.sonar.server.webhook.WebhookDispatcher.MAX_PENDING_CALLS;
+
+public class WebhookDispatcherTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+  private static final WebhookPayload PAYLOAD = new WebhookPayload("P1", "{json}");
+
+  private TestWebhookCaller caller = new TestWebhookCaller();
+  private WebhookDeliveryStorage deliveryStorage = mock(WebhookDeliveryStorage.class);
+  private System2 system = mock(System2.class);
+  private ExecutorService executor = mock(ExecutorService.class);
+  private ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+
+  @Test
+  public void dispatch_does_not_call_webhook_in_caller_thread() {
+    WebhookDispatcher underTest = newDispatcher(executor, 1);
+
+    underTest.dispatch(newWebhook("http://host1"), PAYLOAD);
+
+    assertThat(caller.countSent()).isZero();
+    verify(executor).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void limit_concurrent_calls_on_the_same_host() {
+    WebhookDispatcher underTest = newDispatcher(executor, 1);
+    IntStream.range(0, MAX_CONCURRENT_CALLS_PER_HOST + 2).forEach(i -> {
+      caller.enqueueSuccess(NOW, 200, 10);
+      underTest.dispatch(newWebhook("http://host1/" + i), PAYLOAD);
+    });
+    caller.enqueueSuccess(NOW, 200, 10);
+    underTest.dispatch(newWebhook("http://host2"), PAYLOAD);
+
+    ArgumentCaptor<Runnable> calls = ArgumentCaptor.forClass(Runnable.class);
+    verify(executor, times(MAX_CONCURRENT_CALLS_PER_HOST + 1)).execute(calls.capture());
+
+    // completion of a call on host1 submits the next waiting one
+    calls.getAllValues().get(0).run();
+    verify(executor, times(MAX_CONCURRENT_CALLS_PER_HOST + 2)).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void retry_failed_calls_with_backoff() {
+    WebhookDispatcher underTest = newDispatcher(MoreExecutors.newDirectExecutorService(), 3);
+    caller.enqueueFailure(NOW, new IOException("Fail to connect"));
+    caller.enqueueSuccess(NOW, 503, 10);
+    caller.enqueueSuccess(NOW, 200, 10);
+
+    underTest.dispatch(newWebhook("http://host1"), PAYLOAD);
+    ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).schedule(retry.capture(), eq(INITIAL_BACKOFF_MS), eq(MILLISECONDS));
+    retry.getValue().run();
+    verify(scheduler).schedule(retry.capture(), eq(2 * INITIAL_BACKOFF_MS), eq(MILLISECONDS));
+    retry.getValue().run();
+    underTest.flush();
+
+    assertThat(caller.countSent()).isEqualTo(3);
+    Collection<WebhookDelivery> persisted = verifyPersisted();
+    assertThat(persisted).hasSize(1);
+    assertThat(persisted.iterator().next().isSuccess()).isTrue();
+  }
+
+  @Test
+  public void do_not_retry_client_errors() {
+    WebhookDispatcher underTest = newDispatcher(MoreExecutors.newDirectExecutorService(), 3);
+    caller.enqueueSuccess(NOW, 404, 10);
+
+    underTest.dispatch(newWebhook("http://host1"), PAYLOAD);
+    underTest.flush();
+
+    assertThat(caller.countSent()).isEqualTo(1);
+    verifyZeroInteractions(scheduler);
+    assertThat(verifyPersisted()).hasSize(1);
+  }
+
+  @Test
+  public void persist_last_failure_when_all_attempts_failed() {
+    WebhookDispatcher underTest = newDispatcher(MoreExecutors.newDirectExecutorService(), 2);
+    caller.enqueueSuccess(NOW, 500, 10);
+    caller.enqueueSuccess(NOW, 502, 10);
+
+    underTest.dispatch(newWebhook("http://host1"), PAYLOAD);
+    ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).schedule(retry.capture(), anyLong(), eq(MILLISECONDS));
+    retry.getValue().run();
+    underTest.flush();
+
+    Collection<WebhookDelivery> persisted = verifyPersisted();
+    assertThat(persisted).extracting(d -> d.getHttpStatus().get()).containsExactly(502);
+  }
+
+  @Test
+  public void drop_calls_when_too_many_are_pending() {
+    when(system.now()).thenReturn(NOW);
+    WebhookDispatcher underTest = newDispatcher(executor, 1);
+    IntStream.range(0, MAX_PENDING_CALLS).forEach(i -> underTest.dispatch(newWebhook("http://host1"), PAYLOAD));
+
+    underTest.dispatch(newWebhook("http://host1"), PAYLOAD);
+    underTest.flush();
+
+    WebhookDelivery dropped = verifyPersisted().iterator().next();
+    assertThat(dropped.isSuccess()).isFalse();
+    assertThat(dropped.getAt()).isEqualTo(NOW);
+    assertThat(dropped.getErrorMessage()).contains("Too many webhooks waiting to be sent, the limit is " + MAX_PENDING_CALLS);
+  }
+
+  @Test
+  public void persist_deliveries_by_batch() {
+    WebhookDispatcher underTest = newDispatcher(MoreExecutors.newDirectExecutorService(), 1);
+    IntStream.range(0, BATCH_SIZE + 1).forEach(i -> {
+      caller.enqueueSuccess(NOW, 200, 10);
+      underTest.dispatch(newWebhook("http://host1"), PAYLOAD);
+    });
+
+    // the first batch is persisted as soon as it is full
+    assertThat(verifyPersisted()).hasSize(BATCH_SIZE);
+    verify(deliveryStorage).purge("COMPONENT1");
+  }
+
+  @Test
+  public void stop_persists_remaining_deliveries() {
+    WebhookDispatcher underTest = newDispatcher(MoreExecutors.newDirectExecutorService(), 1);
+    underTest.start();
+    caller.enqueueSuccess(NOW, 200, 10);
+    underTest.dispatch(newWebhook("http://host1"), PAYLOAD);
+    verifyZeroInteractions(deliveryStorage);
+
+    underTest.stop();
+
+    assertThat(verifyPersisted()).hasSize(1);
+  }
+
+  private WebhookDispatcher newDispatcher(ExecutorService callExecutor, int maxAttempts) {
+    return new WebhookDispatcher(caller, deliveryStorage, system, callExecutor, scheduler, maxAttempts);
+  }
+
+  private Collection<WebhookDelivery> verifyPersisted() {
+    ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
+    verify(deliveryStorage).persist(captor.capture());
+    return captor.getValue();
+  }
+
+  private static Webhook newWebhook(String url) {
+    return new Webhook("COMPONENT1", "TASK1", "ANALYSIS1", "Jenkins", url);
+  }
+}
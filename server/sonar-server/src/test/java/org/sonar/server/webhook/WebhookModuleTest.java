@@ -40,6 +40,6 @@ public class WebhookModuleTest {
 
     underTest.configure(container);
 
-    assertThat(container.size()).isEqualTo(4 + COMPONENTS_IN_EMPTY_COMPONENT_CONTAINER);
+    assertThat(container.size()).isEqualTo(5 + COMPONENTS_IN_EMPTY_COMPONENT_CONTAINER);
   }
 }
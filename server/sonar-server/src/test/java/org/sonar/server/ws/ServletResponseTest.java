@@ -88,8 +88,25 @@ public class ServletResponseTest {
   }
 
   @Test
-  public void test_output() {
-    assertThat(underTest.stream().output()).isEqualTo(output);
+  public void test_output() throws Exception {
+    underTest.stream().output().write(new byte[] {1, 2, 3}, 0, 2);
+    underTest.stream().output().write(4);
+
+    verify(output).write(new byte[] {1, 2, 3}, 0, 2);
+    verify(output).write(4);
+    verify(response).getOutputStream();
+    assertThat(underTest.stream().getWrittenBytes()).isEqualTo(3);
+  }
+
+  @Test
+  public void set_header_before_first_write() throws Exception {
+    underTest.stream().setHeaderBeforeWrite("header", () -> "value");
+    verify(response, never()).setHeader("header", "value");
+
+    underTest.stream().output().write(1);
+    underTest.stream().output().write(2);
+
+    verify(response).setHeader("header", "value");
   }
 
 
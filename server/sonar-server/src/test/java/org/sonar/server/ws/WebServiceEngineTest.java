@@ -26,6 +26,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.Mockito;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.RequestHandler;
 import org.sonar.api.server.ws.Response;
@@ -404,6 +405,21 @@ public class WebServiceEngineTest {
     assertThat(logTester.logs(LoggerLevel.ERROR)).contains("Fail to process request api/foo");
   }
 
+  @Test
+  public void cost_of_requests_is_cumulated_by_action() {
+    WebServicesCost webServicesCost = new WebServicesCost(new MapSettings().asConfig());
+    WebServiceEngine underTest = new WebServiceEngine(new WebService[] {newPingWs(a -> {
+    })}, webServicesCost);
+
+    underTest.execute(new TestRequest().setPath("/api/ping"), new DumbResponse());
+    underTest.execute(new TestRequest().setPath("/api/ping"), new DumbResponse());
+    underTest.execute(new TestRequest().setPath("/api/unknown"), new DumbResponse());
+
+    assertThat(webServicesCost.getRequestCount()).isEqualTo(2);
+    assertThat(webServicesCost.getActionsCost()).hasSize(1);
+    assertThat(webServicesCost.getActionsCost()[0]).startsWith("api/ping: 2 requests in ");
+  }
+
   private static WebService newWs(String path, Consumer<WebService.NewAction> consumer) {
     return context -> {
       WebService.NewController controller = context.createController(substringBeforeLast(path, "/"));
@@ -0,0 +1,95 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.ws.WebServicesCost.SLOW_REQUEST_THRESHOLD_PROPERTY;
+
+public class WebServicesCostTest {
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private MapSettings settings = new MapSettings();
+
+  @Test
+  public void actions_are_sorted_by_decreasing_duration_of_sql_requests() {
+    WebServicesCost underTest = new WebServicesCost(settings.asConfig());
+
+    underTest.add(newCost("api/foo", 10L, 5L));
+    underTest.add(newCost("api/bar", 10L, 8L));
+    underTest.add(newCost("api/foo", 10L, 5L));
+
+    assertThat(underTest.getRequestCount()).isEqualTo(3);
+    assertThat(underTest.getActionsCost()).containsExactly(
+      "api/foo: 2 requests in 20 ms, 0 SQL requests in 10 ms, 0 Elasticsearch requests in 0 ms, 0 bytes",
+      "api/bar: 1 requests in 10 ms, 0 SQL requests in 8 ms, 0 Elasticsearch requests in 0 ms, 0 bytes");
+
+    underTest.reset();
+    assertThat(underTest.getRequestCount()).isZero();
+  }
+
+  @Test
+  public void requests_not_matching_any_action_are_ignored() {
+    WebServicesCost underTest = new WebServicesCost(settings.asConfig());
+
+    underTest.add(newCost(null, 10L, 5L));
+
+    assertThat(underTest.getRequestCount()).isZero();
+  }
+
+  @Test
+  public void slow_requests_are_logged_if_threshold_is_defined() {
+    settings.setProperty(SLOW_REQUEST_THRESHOLD_PROPERTY, 100L);
+    WebServicesCost underTest = new WebServicesCost(settings.asConfig());
+
+    underTest.add(newCost("api/foo", 99L, 0L));
+    underTest.add(newCost("api/bar", 100L, 0L));
+
+    assertThat(logTester.logs(LoggerLevel.INFO)).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.INFO).get(0)).startsWith("Slow web service request api/bar: 100 ms");
+  }
+
+  @Test
+  public void slow_requests_are_not_logged_by_default() {
+    WebServicesCost underTest = new WebServicesCost(settings.asConfig());
+
+    underTest.add(newCost("api/foo", 100_000L, 0L));
+
+    assertThat(logTester.logs()).isEmpty();
+  }
+
+  private static RequestCost newCost(String action, long durationMs, long sqlDurationMs) {
+    RequestCost cost = mock(RequestCost.class);
+    when(cost.getAction()).thenReturn(action);
+    when(cost.getDurationMs()).thenReturn(durationMs);
+    when(cost.getSqlDurationMs()).thenReturn(sqlDurationMs);
+    when(cost.toString()).thenReturn(action + ": " + durationMs + " ms");
+    return cost;
+  }
+}
@@ -47,6 +47,7 @@ public class CorePropertyDefinitions {
   public static final String ONBOARDING_TUTORIAL_SHOW_TO_NEW_USERS = "sonar.onboardingTutorial.showToNewUsers";
   public static final String DISABLE_NOTIFICATION_ON_BUILT_IN_QPROFILES = "sonar.builtInQualityProfiles.disableNotificationOnUpdate";
   public static final String EDITIONS_CONFIG_URL = "sonar.editions.jsonUrl";
+  public static final String CPD_SUFFIX_ARRAY = "sonar.cpd.suffixArray";
 
   private CorePropertyDefinitions() {
     // only static stuff
@@ -223,6 +224,16 @@ public class CorePropertyDefinitions {
         .subCategory(CoreProperties.SUBCATEGORY_DUPLICATIONS_EXCLUSIONS)
         .multiValues(true)
         .build(),
+      PropertyDefinition.builder(CPD_SUFFIX_ARRAY)
+        .defaultValue(Boolean.toString(false))
+        .name("Suffix array based duplication detection")
+        .description("Detect duplications with a suffix array instead of a suffix tree. Detected duplications are the same, "
+          + "but memory consumption of the analysis is lower on files with a lot of duplicated blocks.")
+        .onQualifiers(Qualifiers.PROJECT)
+        .category(CoreProperties.CATEGORY_GENERAL)
+        .subCategory(CoreProperties.SUBCATEGORY_DUPLICATIONS)
+        .type(BOOLEAN)
+        .build(),
 
       // ORGANIZATIONS
       PropertyDefinition.builder(ORGANIZATIONS_ANYONE_CAN_CREATE)
@@ -0,0 +1,88 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.util;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Number and duration of the requests of a given kind executed by the current thread between
+ * {@link #startRecording()} and {@link Recording#stopRecording()}. Recordings can be nested, in which case
+ * the outer recording includes the requests of the inner one.
+ */
+public final class RequestStatistics {
+
+  /**
+   * SQL requests executed through the JDBC proxies of the database
+   */
+  public static final RequestStatistics SQL = new RequestStatistics();
+
+  /**
+   * Requests sent to Elasticsearch
+   */
+  public static final RequestStatistics ELASTICSEARCH = new RequestStatistics();
+
+  private final ThreadLocal<Recording> current = new ThreadLocal<>();
+
+  private RequestStatistics() {
+    // only the constants
+  }
+
+  public Recording startRecording() {
+    Recording recording = new Recording(this, current.get());
+    current.set(recording);
+    return recording;
+  }
+
+  public void record(long durationNanos) {
+    for (Recording recording = current.get(); recording != null; recording = recording.parent) {
+      recording.count++;
+      recording.durationNanos += durationNanos;
+    }
+  }
+
+  public static final class Recording {
+    private final RequestStatistics statistics;
+    private final Recording parent;
+    private int count = 0;
+    private long durationNanos = 0L;
+
+    private Recording(RequestStatistics statistics, @Nullable Recording parent) {
+      this.statistics = statistics;
+      this.parent = parent;
+    }
+
+    public void stopRecording() {
+      if (parent == null) {
+        statistics.current.remove();
+      } else {
+        statistics.current.set(parent);
+      }
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public long getDurationMs() {
+      return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+  }
+}
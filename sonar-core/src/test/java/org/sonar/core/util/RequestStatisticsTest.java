@@ -0,0 +1,73 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.util;
+
+import org.junit.Test;
+import org.sonar.core.util.RequestStatistics.Recording;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.core.util.RequestStatistics.ELASTICSEARCH;
+import static org.sonar.core.util.RequestStatistics.SQL;
+
+public class RequestStatisticsTest {
+
+  @Test
+  public void requests_are_not_recorded_outside_recording() {
+    SQL.record(1_000_000L);
+
+    Recording recording = SQL.startRecording();
+    recording.stopRecording();
+
+    assertThat(recording.getCount()).isZero();
+  }
+
+  @Test
+  public void outer_recording_includes_nested_recording() {
+    Recording outer = SQL.startRecording();
+    SQL.record(2_000_000L);
+    Recording inner = SQL.startRecording();
+    SQL.record(3_000_000L);
+    inner.stopRecording();
+    SQL.record(4_000_000L);
+    outer.stopRecording();
+    SQL.record(5_000_000L);
+
+    assertThat(inner.getCount()).isEqualTo(1);
+    assertThat(inner.getDurationMs()).isEqualTo(3L);
+    assertThat(outer.getCount()).isEqualTo(3);
+    assertThat(outer.getDurationMs()).isEqualTo(9L);
+  }
+
+  @Test
+  public void kinds_of_requests_are_recorded_separately() {
+    Recording sql = SQL.startRecording();
+    Recording es = ELASTICSEARCH.startRecording();
+    SQL.record(2_000_000L);
+    ELASTICSEARCH.record(3_000_000L);
+    ELASTICSEARCH.record(4_000_000L);
+    es.stopRecording();
+    sql.stopRecording();
+
+    assertThat(sql.getCount()).isEqualTo(1);
+    assertThat(sql.getDurationMs()).isEqualTo(2L);
+    assertThat(es.getCount()).isEqualTo(2);
+    assertThat(es.getDurationMs()).isEqualTo(7L);
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector.suffixtree;
+
+import java.util.Arrays;
+
+/**
+ * <a href="http://en.wikipedia.org/wiki/Suffix_array">Suffix array</a> of a sequence of integers, with its
+ * <a href="http://en.wikipedia.org/wiki/LCP_array">LCP array</a>.
+ * <p>
+ * Suffix array is constructed in linear time using the SA-IS algorithm
+ * (Nong, Zhang and Chan, "Linear Suffix Array Construction by Almost Pure Induced-Sorting"),
+ * and LCP array is computed in linear time using the algorithm of Kasai et al.
+ * Unlike {@link SuffixTree}, whole structure is stored in a few arrays of ints.
+ * </p>
+ */
+public final class SuffixArray {
+
+  private final int[] suffixes;
+  private final int[] lcp;
+
+  private SuffixArray(int[] suffixes, int[] lcp) {
+    this.suffixes = suffixes;
+    this.lcp = lcp;
+  }
+
+  /**
+   * @param text symbols, the last one must be the sentinel 0, which must not appear elsewhere
+   * @param alphabetSize all symbols must be lower than this value
+   */
+  public static SuffixArray create(int[] text, int alphabetSize) {
+    int n = text.length;
+    if (n == 0 || text[n - 1] != 0) {
+      throw new IllegalArgumentException("Text must be terminated by sentinel");
+    }
+    int[] suffixes = new int[n];
+    sais(text, suffixes, n, alphabetSize);
+    return new SuffixArray(suffixes, computeLcp(text, suffixes));
+  }
+
+  public int size() {
+    return suffixes.length;
+  }
+
+  /**
+   * @return start position of the i-th suffix in lexicographical order
+   */
+  public int suffix(int i) {
+    return suffixes[i];
+  }
+
+  /**
+   * @return length of the longest common prefix of the (i-1)-th and i-th suffixes, 0 for the first one
+   */
+  public int lcp(int i) {
+    return lcp[i];
+  }
+
+  private static int[] computeLcp(int[] text, int[] suffixes) {
+    int n = text.length;
+    int[] rank = new int[n];
+    for (int i = 0; i < n; i++) {
+      rank[suffixes[i]] = i;
+    }
+    int[] result = new int[n];
+    int h = 0;
+    for (int i = 0; i < n; i++) {
+      if (rank[i] > 0) {
+        int j = suffixes[rank[i] - 1];
+        // sentinel is unique, so comparison always stops before the end of text
+        while (text[i + h] == text[j + h]) {
+          h++;
+        }
+        result[rank[i]] = h;
+        if (h > 0) {
+          h--;
+        }
+      } else {
+        h = 0;
+      }
+    }
+    return result;
+  }
+
+  private static void sais(int[] s, int[] sa, int n, int k) {
+    if (n == 1) {
+      sa[0] = 0;
+      return;
+    }
+    // true for S-type positions, false for L-type positions
+    boolean[] types = new boolean[n];
+    types[n - 1] = true;
+    for (int i = n - 2; i >= 0; i--) {
+      types[i] = s[i] < s[i + 1] || (s[i] == s[i + 1] && types[i + 1]);
+    }
+    int[] buckets = new int[k];
+
+    // Stage 1: sort LMS-substrings
+    bucketEnds(s, buckets, n, k);
+    Arrays.fill(sa, -1);
+    for (int i = 1; i < n; i++) {
+      if (isLms(types, i)) {
+        sa[--buckets[s[i]]] = i;
+      }
+    }
+    induceL(types, sa, s, buckets, n, k);
+    induceS(types, sa, s, buckets, n, k);
+
+    // compact sorted LMS-substrings into the first n1 items of sa
+    int n1 = 0;
+    for (int i = 0; i < n; i++) {
+      if (isLms(types, sa[i])) {
+        sa[n1++] = sa[i];
+      }
+    }
+
+    // name LMS-substrings, two LMS positions are at least 2 apart, so pos/2 is unique
+    Arrays.fill(sa, n1, n, -1);
+    int name = 0;
+    int prev = -1;
+    for (int i = 0; i < n1; i++) {
+      int pos = sa[i];
+      if (prev == -1 || !equalLmsSubstrings(s, types, pos, prev)) {
+        name++;
+        prev = pos;
+      }
+      sa[n1 + pos / 2] = name - 1;
+    }
+    for (int i = n - 1, j = n - 1; i >= n1; i--) {
+      if (sa[i] >= 0) {
+        sa[j--] = sa[i];
+      }
+    }
+
+    // Stage 2: sort reduced problem, recursively if names are not unique
+    int[] s1 = Arrays.copyOfRange(sa, n - n1, n);
+    int[] sa1 = new int[n1];
+    if (name < n1) {
+      sais(s1, sa1, n1, name);
+    } else {
+      for (int i = 0; i < n1; i++) {
+        sa1[s1[i]] = i;
+      }
+    }
+
+    // Stage 3: induce result from sorted LMS-suffixes
+    for (int i = 1, j = 0; i < n; i++) {
+      if (isLms(types, i)) {
+        s1[j++] = i;
+      }
+    }
+    for (int i = 0; i < n1; i++) {
+      sa1[i] = s1[sa1[i]];
+    }
+    bucketEnds(s, buckets, n, k);
+    Arrays.fill(sa, -1);
+    for (int i = n1 - 1; i >= 0; i--) {
+      int j = sa1[i];
+      sa[--buckets[s[j]]] = j;
+    }
+    induceL(types, sa, s, buckets, n, k);
+    induceS(types, sa, s, buckets, n, k);
+  }
+
+  private static boolean equalLmsSubstrings(int[] s, boolean[] types, int pos, int prev) {
+    for (int d = 0;; d++) {
+      if (s[pos + d] != s[prev + d] || types[pos + d] != types[prev + d]) {
+        return false;
+      }
+      if (d > 0 && (isLms(types, pos + d) || isLms(types, prev + d))) {
+        return true;
+      }
+    }
+  }
+
+  private static boolean isLms(boolean[] types, int i) {
+    return i > 0 && types[i] && !types[i - 1];
+  }
+
+  private static void induceL(boolean[] types, int[] sa, int[] s, int[] buckets, int n, int k) {
+    bucketStarts(s, buckets, n, k);
+    for (int i = 0; i < n; i++) {
+      int j = sa[i] - 1;
+      if (j >= 0 && !types[j]) {
+        sa[buckets[s[j]]++] = j;
+      }
+    }
+  }
+
+  private static void induceS(boolean[] types, int[] sa, int[] s, int[] buckets, int n, int k) {
+    bucketEnds(s, buckets, n, k);
+    for (int i = n - 1; i >= 0; i--) {
+      int j = sa[i] - 1;
+      if (j >= 0 && types[j]) {
+        sa[--buckets[s[j]]] = j;
+      }
+    }
+  }
+
+  private static void bucketStarts(int[] s, int[] buckets, int n, int k) {
+    countSymbols(s, buckets, n, k);
+    int sum = 0;
+    for (int i = 0; i < k; i++) {
+      int count = buckets[i];
+      buckets[i] = sum;
+      sum += count;
+    }
+  }
+
+  private static void bucketEnds(int[] s, int[] buckets, int n, int k) {
+    countSymbols(s, buckets, n, k);
+    int sum = 0;
+    for (int i = 0; i < k; i++) {
+      sum += buckets[i];
+      buckets[i] = sum;
+    }
+  }
+
+  private static void countSymbols(int[] s, int[] buckets, int n, int k) {
+    Arrays.fill(buckets, 0, k, 0);
+    for (int i = 0; i < n; i++) {
+      buckets[s[i]]++;
+    }
+  }
+
+}
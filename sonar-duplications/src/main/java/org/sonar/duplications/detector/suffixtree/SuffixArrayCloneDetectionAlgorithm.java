@@ -0,0 +1,52 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector.suffixtree;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.CloneIndex;
+
+/**
+ * Same results as {@link SuffixTreeCloneDetectionAlgorithm}, but computed with {@link SuffixArraySearch},
+ * which requires much less memory and allocations on files with a lot of blocks.
+ */
+public final class SuffixArrayCloneDetectionAlgorithm {
+
+  private SuffixArrayCloneDetectionAlgorithm() {
+    // only statics
+  }
+
+  public static List<CloneGroup> detect(CloneIndex cloneIndex, Collection<Block> fileBlocks) {
+    if (fileBlocks.isEmpty()) {
+      return Collections.emptyList();
+    }
+    TextSet text = SuffixTreeCloneDetectionAlgorithm.createTextSet(cloneIndex, fileBlocks);
+    if (text == null) {
+      return Collections.emptyList();
+    }
+    DuplicationsCollector reporter = new DuplicationsCollector(text);
+    SuffixArraySearch.perform(text, reporter);
+    return reporter.getResult();
+  }
+
+}
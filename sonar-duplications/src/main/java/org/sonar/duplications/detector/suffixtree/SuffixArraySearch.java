@@ -0,0 +1,170 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector.suffixtree;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Alternative to {@link Search}, which reports exactly the same groups to {@link Search.Collector},
+ * but uses {@link SuffixArray} instead of {@link SuffixTree}.
+ * <p>
+ * Each inner node of generalised suffix tree corresponds to an lcp-interval of suffix array,
+ * i.e. to a range of suffixes sharing a common prefix, whose length is the depth of node.
+ * Such intervals are enumerated bottom-up in a single pass over LCP array.
+ * </p>
+ */
+public final class SuffixArraySearch {
+
+  private final TextSet text;
+  private final Search.Collector reporter;
+  private final SuffixArray suffixArray;
+
+  private int intervalsCount = 0;
+  private int[] depths = new int[16];
+  private int[] lefts = new int[16];
+  private int[] rights = new int[16];
+
+  private SuffixArraySearch(TextSet text, Search.Collector reporter) {
+    this.text = text;
+    this.reporter = reporter;
+    this.suffixArray = createSuffixArray(text);
+  }
+
+  public static void perform(TextSet text, Search.Collector reporter) {
+    new SuffixArraySearch(text, reporter).compute();
+  }
+
+  /**
+   * Symbols of text are mapped to ints, the sentinel 0 being appended at the end.
+   */
+  private static SuffixArray createSuffixArray(TextSet text) {
+    Map<Object, Integer> ids = new HashMap<>();
+    int[] symbols = new int[text.length() + 1];
+    for (int i = 0; i < text.length(); i++) {
+      Integer id = ids.get(text.symbolAt(i));
+      if (id == null) {
+        id = ids.size() + 1;
+        ids.put(text.symbolAt(i), id);
+      }
+      symbols[i] = id;
+    }
+    return SuffixArray.create(symbols, ids.size() + 1);
+  }
+
+  private void compute() {
+    // O(N)
+    collectIntervals();
+
+    // O(N)
+    visitIntervals(sortByDescendingDepth());
+  }
+
+  /**
+   * Bottom-up traversal of lcp-intervals, see Kasai et al. "Linear-Time Longest-Common-Prefix Computation in Suffix Arrays
+   * and Its Applications". First suffix in suffix array is the sentinel, so it is ignored.
+   */
+  private void collectIntervals() {
+    int n = suffixArray.size();
+    int[] stackDepths = new int[n];
+    int[] stackLefts = new int[n];
+    int top = 0;
+    stackDepths[0] = 0;
+    stackLefts[0] = 1;
+    for (int i = 2; i <= n; i++) {
+      int depth = i < n ? suffixArray.lcp(i) : 0;
+      int left = i - 1;
+      while (depth < stackDepths[top]) {
+        addInterval(stackDepths[top], stackLefts[top], i - 1);
+        left = stackLefts[top];
+        top--;
+      }
+      if (depth > stackDepths[top]) {
+        top++;
+        stackDepths[top] = depth;
+        stackLefts[top] = left;
+      }
+    }
+  }
+
+  private void addInterval(int depth, int left, int right) {
+    if (intervalsCount == depths.length) {
+      depths = Arrays.copyOf(depths, intervalsCount * 2);
+      lefts = Arrays.copyOf(lefts, intervalsCount * 2);
+      rights = Arrays.copyOf(rights, intervalsCount * 2);
+    }
+    depths[intervalsCount] = depth;
+    lefts[intervalsCount] = left;
+    rights[intervalsCount] = right;
+    intervalsCount++;
+  }
+
+  /**
+   * Counting sort, as depth of intervals is bounded by length of text.
+   */
+  private int[] sortByDescendingDepth() {
+    int maxDepth = 0;
+    for (int i = 0; i < intervalsCount; i++) {
+      maxDepth = Math.max(maxDepth, depths[i]);
+    }
+    int[] counts = new int[maxDepth + 2];
+    for (int i = 0; i < intervalsCount; i++) {
+      counts[maxDepth - depths[i] + 1]++;
+    }
+    for (int i = 1; i < counts.length; i++) {
+      counts[i] += counts[i - 1];
+    }
+    int[] sorted = new int[intervalsCount];
+    for (int i = 0; i < intervalsCount; i++) {
+      sorted[counts[maxDepth - depths[i]]++] = i;
+    }
+    return sorted;
+  }
+
+  private void visitIntervals(int[] sortedIntervals) {
+    for (int interval : sortedIntervals) {
+      if (containsOrigin(interval)) {
+        report(interval);
+      }
+    }
+  }
+
+  private boolean containsOrigin(int interval) {
+    for (int i = lefts[interval]; i <= rights[interval]; i++) {
+      int end = suffixArray.suffix(i) + depths[interval];
+      if (text.isInsideOrigin(end)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void report(int interval) {
+    int depth = depths[interval];
+    reporter.startOfGroup(rights[interval] - lefts[interval] + 1, depth);
+    for (int i = lefts[interval]; i <= rights[interval]; i++) {
+      int start = suffixArray.suffix(i);
+      reporter.part(start, start + depth);
+    }
+    reporter.endOfGroup();
+  }
+
+}
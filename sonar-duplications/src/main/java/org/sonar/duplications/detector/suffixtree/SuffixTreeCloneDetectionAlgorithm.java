@@ -28,6 +28,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import org.sonar.duplications.block.Block;
 import org.sonar.duplications.block.ByteArray;
 import org.sonar.duplications.index.CloneGroup;
@@ -54,7 +55,8 @@ public final class SuffixTreeCloneDetectionAlgorithm {
     return reporter.getResult();
   }
 
-  private static TextSet createTextSet(CloneIndex index, Collection<Block> fileBlocks) {
+  @CheckForNull
+  static TextSet createTextSet(CloneIndex index, Collection<Block> fileBlocks) {
     Set<ByteArray> hashes = new HashSet<>();
     for (Block fileBlock : fileBlocks) {
       hashes.add(fileBlock.getBlockHash());
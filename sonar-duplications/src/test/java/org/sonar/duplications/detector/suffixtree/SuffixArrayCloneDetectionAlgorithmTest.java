@@ -0,0 +1,103 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector.suffixtree;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.detector.DetectorTestCase;
+import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.CloneIndex;
+
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class SuffixArrayCloneDetectionAlgorithmTest extends DetectorTestCase {
+
+  @Test
+  public void noDuplications() {
+    CloneIndex index = createIndex();
+    Block[] fileBlocks = newBlocks("a", "1 2 3");
+    List<CloneGroup> result = detect(index, fileBlocks);
+    assertThat(result, sameInstance(Collections.EMPTY_LIST));
+  }
+
+  @Test
+  public void huge() {
+    CloneIndex index = createIndex();
+    Block[] fileBlocks = new Block[5000];
+    for (int i = 0; i < 5000; i++) {
+      fileBlocks[i] = newBlock("x", new ByteArray("01"), i);
+    }
+    List<CloneGroup> result = detect(index, fileBlocks);
+
+    assertEquals(1, result.size());
+  }
+
+  @Test
+  public void same_result_as_suffix_tree() {
+    CloneIndex index = createIndex(
+      newBlocks("b", "1 2 3 4 1 2 3 4 1 2"),
+      newBlocks("c", "2 3 4 5 6 1 2 3"),
+      newBlocks("d", "5 6 7 1 2"));
+    Block[] fileBlocks = newBlocks("a", "1 2 3 4 5 6 7 1 2 3");
+
+    List<CloneGroup> expected = SuffixTreeCloneDetectionAlgorithm.detect(index, Arrays.asList(fileBlocks));
+    List<CloneGroup> result = detect(index, fileBlocks);
+
+    assertEquals(new HashSet<>(expected), new HashSet<>(result));
+  }
+
+  @Test
+  public void same_result_as_suffix_tree_on_large_index() {
+    Random random = new Random(42);
+    Block[][] otherFilesBlocks = new Block[20][];
+    for (int i = 0; i < otherFilesBlocks.length; i++) {
+      otherFilesBlocks[i] = newBlocks("file" + i, randomHashes(random, 500));
+    }
+    CloneIndex index = createIndex(otherFilesBlocks);
+    Block[] fileBlocks = newBlocks("a", randomHashes(random, 2000));
+
+    List<CloneGroup> expected = SuffixTreeCloneDetectionAlgorithm.detect(index, Arrays.asList(fileBlocks));
+    List<CloneGroup> result = detect(index, fileBlocks);
+
+    assertEquals(new HashSet<>(expected), new HashSet<>(result));
+  }
+
+  private static String randomHashes(Random random, int count) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      sb.append(random.nextInt(8)).append(' ');
+    }
+    return sb.toString().trim();
+  }
+
+  @Override
+  protected List<CloneGroup> detect(CloneIndex index, Block[] fileBlocks) {
+    return SuffixArrayCloneDetectionAlgorithm.detect(index, Arrays.asList(fileBlocks));
+  }
+
+}
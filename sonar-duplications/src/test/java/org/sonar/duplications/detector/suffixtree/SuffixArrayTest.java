@@ -0,0 +1,89 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector.suffixtree;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SuffixArrayTest {
+
+  @Test
+  public void should_sort_suffixes_and_compute_lcp() {
+    // "banana" with a=1, b=2, n=3 and sentinel 0
+    int[] text = {2, 1, 3, 1, 3, 1, 0};
+    SuffixArray sa = SuffixArray.create(text, 4);
+
+    assertThat(sa.size()).isEqualTo(7);
+    int[] suffixes = new int[7];
+    int[] lcp = new int[7];
+    for (int i = 0; i < 7; i++) {
+      suffixes[i] = sa.suffix(i);
+      lcp[i] = sa.lcp(i);
+    }
+    assertThat(suffixes).containsExactly(6, 5, 3, 1, 0, 4, 2);
+    assertThat(lcp).containsExactly(0, 0, 1, 3, 0, 0, 2);
+  }
+
+  @Test
+  public void should_match_naive_sort_on_random_texts() {
+    Random random = new Random(42);
+    for (int round = 0; round < 200; round++) {
+      int alphabetSize = 2 + random.nextInt(5);
+      int[] text = new int[1 + random.nextInt(50)];
+      for (int i = 0; i < text.length - 1; i++) {
+        text[i] = 1 + random.nextInt(alphabetSize - 1);
+      }
+      SuffixArray sa = SuffixArray.create(text, alphabetSize);
+
+      Integer[] expected = new Integer[text.length];
+      for (int i = 0; i < text.length; i++) {
+        expected[i] = i;
+      }
+      Arrays.sort(expected, Comparator.comparing(i -> Arrays.copyOfRange(text, i, text.length), SuffixArrayTest::compare));
+      for (int i = 0; i < text.length; i++) {
+        assertThat(sa.suffix(i)).isEqualTo(expected[i]);
+        if (i > 0) {
+          assertThat(sa.lcp(i)).isEqualTo(commonPrefix(text, expected[i - 1], expected[i]));
+        }
+      }
+    }
+  }
+
+  private static int compare(int[] a, int[] b) {
+    for (int i = 0; i < Math.min(a.length, b.length); i++) {
+      if (a[i] != b[i]) {
+        return Integer.compare(a[i], b[i]);
+      }
+    }
+    return Integer.compare(a.length, b.length);
+  }
+
+  private static int commonPrefix(int[] text, int i, int j) {
+    int l = 0;
+    while (i + l < text.length && j + l < text.length && text[i + l] == text[j + l]) {
+      l++;
+    }
+    return l;
+  }
+}
@@ -75,7 +75,9 @@ class HtmlListChannel extends Channel<MarkdownOutput> {
           while (endOfLine.consume(code, output) && currentChannel.consume(code, output)) {
             // consume input
           }
-          output.append("</" + currentChannel.listElement + ">");
+          output.append("</");
+          output.append(currentChannel.listElement);
+          output.append('>');
           return true;
         }
       }
@@ -109,7 +111,9 @@ class HtmlListChannel extends Channel<MarkdownOutput> {
     @Override
     protected void consume(CharSequence token, MarkdownOutput output) {
       if (!pendingListConstruction) {
-        output.append("<" + listElement + ">");
+        output.append('<');
+        output.append(listElement);
+        output.append('>');
         pendingListConstruction = true;
       }
       output.append("<li>");
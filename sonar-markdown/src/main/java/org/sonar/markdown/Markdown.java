@@ -19,16 +19,32 @@
  */
 package org.sonar.markdown;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.sonar.channel.ChannelDispatcher;
 import org.sonar.channel.CodeReader;
 
 /**
  * Entry point of the Markdown library
+ * <p>
+ * Channels are stateful and compile their regular expressions when instantiated, so a dispatcher
+ * is kept per thread. Conversions of the most recent inputs, for example descriptions of the rules
+ * returned by web services, are cached. The cache is bounded by the total number of characters of the
+ * inputs and of their conversions, so that it keeps a small memory footprint.
+ * </p>
  */
 public final class Markdown {
 
-  private ChannelDispatcher<MarkdownOutput> dispatcher;
+  private static final int CACHE_MAX_CHARS = 2_000_000;
+  private static final int CACHE_MAX_INPUT_LENGTH = 10_000;
+  private static final ThreadLocal<Markdown> INSTANCES = ThreadLocal.withInitial(Markdown::new);
+  private static final Map<String, String> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+  private static int cacheChars = 0;
+
+  private final ChannelDispatcher<MarkdownOutput> dispatcher;
+  private final MarkdownOutput output = new MarkdownOutput();
 
   private Markdown() {
     dispatcher = ChannelDispatcher.builder()
@@ -48,12 +64,40 @@ public final class Markdown {
 
   private String convert(String input) {
     CodeReader reader = new CodeReader(input);
-    MarkdownOutput output = new MarkdownOutput();
+    output.reset();
     dispatcher.consume(reader, output);
     return output.toString();
   }
 
   public static String convertToHtml(String input) {
-    return new Markdown().convert(StringEscapeUtils.escapeHtml(input));
+    if (input.length() > CACHE_MAX_INPUT_LENGTH) {
+      return INSTANCES.get().convert(StringEscapeUtils.escapeHtml(input));
+    }
+    String html = getFromCache(input);
+    if (html == null) {
+      html = INSTANCES.get().convert(StringEscapeUtils.escapeHtml(input));
+      putInCache(input, html);
+    }
+    return html;
+  }
+
+  private static synchronized String getFromCache(String input) {
+    return CACHE.get(input);
+  }
+
+  private static synchronized void putInCache(String input, String html) {
+    String previousHtml = CACHE.put(input, html);
+    if (previousHtml == null) {
+      cacheChars += input.length() + html.length();
+    } else {
+      cacheChars += html.length() - previousHtml.length();
+    }
+    // least recently used entries are evicted first
+    Iterator<Map.Entry<String, String>> it = CACHE.entrySet().iterator();
+    while (cacheChars > CACHE_MAX_CHARS && it.hasNext()) {
+      Map.Entry<String, String> eldest = it.next();
+      cacheChars -= eldest.getKey().length() + eldest.getValue().length();
+      it.remove();
+    }
   }
 }
@@ -21,8 +21,21 @@ package org.sonar.markdown;
 
 class MarkdownOutput {
 
+  /**
+   * Above this capacity, buffer is not kept for the next conversions
+   */
+  private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
   private StringBuilder ouput = new StringBuilder();
 
+  void reset() {
+    if (ouput.capacity() > MAX_RETAINED_CAPACITY) {
+      ouput = new StringBuilder();
+    } else {
+      ouput.setLength(0);
+    }
+  }
+
   public Appendable append(CharSequence charSequence) {
     return ouput.append(charSequence);
   }
@@ -19,6 +19,11 @@
  */
 package org.sonar.markdown;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -117,4 +122,42 @@ public class MarkdownTest {
     assertThat(Markdown.convertToHtml("My text is $123 ''")).isEqualTo("My text is $123 ''");
   }
 
+  @Test
+  public void conversion_of_same_input_is_cached() {
+    String input = "  * cached\r* item";
+
+    String html = Markdown.convertToHtml(input);
+
+    assertThat(html).isEqualTo("<ul><li>cached</li>\r<li>item</li></ul>");
+    assertThat(Markdown.convertToHtml(new String(input))).isSameAs(html);
+  }
+
+  @Test
+  public void conversion_of_large_input_is_not_cached() {
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 2_000; i++) {
+      input.append("line ").append(i).append('\n');
+    }
+
+    String html = Markdown.convertToHtml(input.toString());
+
+    assertThat(Markdown.convertToHtml(input.toString())).isEqualTo(html).isNotSameAs(html);
+  }
+
+  @Test
+  public void convert_concurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        String input = "  1. item " + i + "\r1. two";
+        results.add(executor.submit(() -> Markdown.convertToHtml(input)));
+      }
+      for (int i = 0; i < 200; i++) {
+        assertThat(results.get(i).get()).isEqualTo("<ol><li>item " + i + "</li>\r<li>two</li></ol>");
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
@@ -220,6 +220,8 @@ public class DefaultFileSystem implements FileSystem {
     private final Map<String, InputDir> dirMap = new HashMap<>();
     private final SetMultimap<String, InputFile> filesByNameCache = LinkedHashMultimap.create();
     private final SetMultimap<String, InputFile> filesByExtensionCache = LinkedHashMultimap.create();
+    private final SetMultimap<String, InputFile> filesByLanguageCache = LinkedHashMultimap.create();
+    private final SetMultimap<InputFile.Type, InputFile> filesByTypeCache = LinkedHashMultimap.create();
     private SortedSet<String> languages = new TreeSet<>();
 
     @Override
@@ -247,14 +249,26 @@ public class DefaultFileSystem implements FileSystem {
       return filesByExtensionCache.get(extension);
     }
 
+    @Override
+    public Iterable<InputFile> getFilesByLanguage(String language) {
+      return filesByLanguageCache.get(language);
+    }
+
+    @Override
+    public Iterable<InputFile> getFilesByType(InputFile.Type type) {
+      return filesByTypeCache.get(type);
+    }
+
     @Override
     protected void doAdd(InputFile inputFile) {
       if (inputFile.language() != null) {
         languages.add(inputFile.language());
+        filesByLanguageCache.put(inputFile.language(), inputFile);
       }
       fileMap.put(inputFile.relativePath(), inputFile);
       filesByNameCache.put(inputFile.filename(), inputFile);
       filesByExtensionCache.put(FileExtensionPredicate.getExtension(inputFile), inputFile);
+      filesByTypeCache.put(inputFile.type(), inputFile);
     }
 
     @Override
@@ -20,6 +20,9 @@
 package org.sonar.api.batch.fs.internal;
 
 import java.nio.file.Paths;
+import javax.annotation.CheckForNull;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 
 /**
@@ -28,9 +31,12 @@ import org.sonar.api.batch.fs.InputFile;
 class PathPatternPredicate extends AbstractFilePredicate {
 
   private final PathPattern pattern;
+  @CheckForNull
+  private final String extension;
 
   PathPatternPredicate(PathPattern pattern) {
     this.pattern = pattern;
+    this.extension = literalExtension(pattern.pattern.toString());
   }
 
   @Override
@@ -38,4 +44,30 @@ class PathPatternPredicate extends AbstractFilePredicate {
     return pattern.match(f.path(), Paths.get(f.relativePath()));
   }
 
+  @Override
+  public Iterable<InputFile> get(FileSystem.Index index) {
+    if (extension == null) {
+      return super.get(index);
+    }
+    // Optimization, a pattern like "**/*.java" can only match files indexed with this extension
+    return filter(index.getFilesByExtension(extension));
+  }
+
+  /**
+   * Literal extension that every file matching the pattern must have, for example "java" for "src/**&#47;*.java",
+   * or null if the pattern does not end with such a fixed extension.
+   */
+  @CheckForNull
+  static String literalExtension(String pattern) {
+    int lastWildcard = pattern.lastIndexOf('*');
+    if (lastWildcard < 0 || !pattern.startsWith(".", lastWildcard + 1)) {
+      return null;
+    }
+    String suffix = pattern.substring(lastWildcard + 2);
+    if (suffix.isEmpty() || StringUtils.containsAny(suffix, "?./\\")) {
+      return null;
+    }
+    return FileExtensionPredicate.getExtension(pattern.substring(lastWildcard));
+  }
+
 }
@@ -21,10 +21,14 @@ package org.sonar.api.batch.fs.internal;
 
 import org.junit.Test;
 import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
 
 import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class AndPredicateTest {
 
@@ -72,4 +76,18 @@ public class AndPredicateTest {
     assertThat(andPredicate).isEqualTo(FalsePredicate.FALSE);
   }
 
+  @Test
+  public void getStartsFromSmallestIndexedPredicate() {
+    InputFile mainJava = new TestInputFileBuilder("foo", "src/Foo.java").setLanguage("java").build();
+    InputFile otherMainJava = new TestInputFileBuilder("foo", "src/Bar.java").setLanguage("java").build();
+    InputFile testJava = new TestInputFileBuilder("foo", "test/FooTest.java").setLanguage("java").setType(InputFile.Type.TEST).build();
+    FileSystem.Index index = mock(FileSystem.Index.class);
+    when(index.getFilesByLanguage("java")).thenReturn(Arrays.asList(mainJava, otherMainJava, testJava));
+    when(index.getFilesByType(InputFile.Type.TEST)).thenReturn(Arrays.asList(testJava));
+
+    FilePredicate andPredicate = AndPredicate.create(Arrays.<FilePredicate>asList(new LanguagePredicate("java"), new TypePredicate(InputFile.Type.TEST)));
+
+    assertThat(((AndPredicate) andPredicate).get(index)).containsExactly(testJava);
+  }
+
 }
@@ -27,6 +27,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -113,6 +114,21 @@ public class DefaultFileSystemTest {
     assertThat(fs.languages()).containsOnly("java", "php");
   }
 
+  @Test
+  public void files_by_type_and_pattern_are_found_through_indexes() {
+    fs.add(new TestInputFileBuilder("foo", "src/Foo.php").setLanguage("php").build());
+    fs.add(new TestInputFileBuilder("foo", "src/Bar.java").setLanguage("java").build());
+    fs.add(new TestInputFileBuilder("foo", "test/BarTest.java").setLanguage("java").setType(InputFile.Type.TEST).build());
+    fs.add(new TestInputFileBuilder("foo", "src/Baz.JAVA").build());
+
+    assertThat(fs.inputFiles(fs.predicates().hasType(InputFile.Type.TEST))).extracting(InputFile::relativePath).containsOnly("test/BarTest.java");
+    assertThat(fs.inputFiles(fs.predicates().matchesPathPattern("**/*.java"))).extracting(InputFile::relativePath).containsOnly("src/Bar.java", "test/BarTest.java");
+    assertThat(fs.inputFiles(fs.predicates().matchesPathPattern("src/**/*.JAVA"))).extracting(InputFile::relativePath).containsOnly("src/Baz.JAVA");
+    assertThat(fs.inputFiles(fs.predicates().matchesPathPattern("src/*"))).hasSize(3);
+    assertThat(fs.inputFiles(fs.predicates().and(fs.predicates().hasLanguage("java"), fs.predicates().hasType(InputFile.Type.MAIN))))
+      .extracting(InputFile::relativePath).containsOnly("src/Bar.java");
+  }
+
   @Test
   public void filesWithDefaultPredicate() {
     DefaultInputFile file1 = new TestInputFileBuilder("foo", "src/Foo.php").setLanguage("php").build();
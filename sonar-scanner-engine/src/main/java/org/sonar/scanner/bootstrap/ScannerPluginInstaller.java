@@ -20,15 +20,23 @@
 package org.sonar.scanner.bootstrap;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
 import org.sonar.api.utils.log.Logger;
@@ -50,14 +58,18 @@ public class ScannerPluginInstaller implements PluginInstaller {
   private static final Logger LOG = Loggers.get(ScannerPluginInstaller.class);
   private static final String PLUGINS_WS_URL = "/api/plugins/installed";
 
+  private static final int MAX_DOWNLOAD_THREADS = 4;
+
   private final FileCache fileCache;
   private final ScannerPluginPredicate pluginPredicate;
   private final ScannerWsClient wsClient;
+  private final ScannerPluginJarExploder jarExploder;
 
-  public ScannerPluginInstaller(ScannerWsClient wsClient, FileCache fileCache, ScannerPluginPredicate pluginPredicate) {
+  public ScannerPluginInstaller(ScannerWsClient wsClient, FileCache fileCache, ScannerPluginPredicate pluginPredicate, ScannerPluginJarExploder jarExploder) {
     this.fileCache = fileCache;
     this.pluginPredicate = pluginPredicate;
     this.wsClient = wsClient;
+    this.jarExploder = jarExploder;
   }
 
   @Override
@@ -66,21 +78,52 @@ public class ScannerPluginInstaller implements PluginInstaller {
   }
 
   private Map<String, ScannerPlugin> loadPlugins(InstalledPlugin[] remotePlugins) {
-    Map<String, ScannerPlugin> infosByKey = new HashMap<>(remotePlugins.length);
+    List<InstalledPlugin> pluginsToLoad = Arrays.stream(remotePlugins)
+      .filter(installedPlugin -> pluginPredicate.apply(installedPlugin.key))
+      .collect(Collectors.toList());
+    Map<String, ScannerPlugin> infosByKey = new HashMap<>(pluginsToLoad.size());
 
     Profiler profiler = Profiler.create(LOG).startInfo("Load/download plugins");
-
-    for (InstalledPlugin installedPlugin : remotePlugins) {
-      if (pluginPredicate.apply(installedPlugin.key)) {
-        File jarFile = download(installedPlugin);
-        PluginInfo info = PluginInfo.create(jarFile);
-        infosByKey.put(info.getKey(), new ScannerPlugin(installedPlugin.key, installedPlugin.updatedAt, info));
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(MAX_DOWNLOAD_THREADS, pluginsToLoad.size())),
+      new ThreadFactoryBuilder()
+        .setNameFormat("plugin-download-%d")
+        .setDaemon(true)
+        .build());
+    try {
+      List<Future<ScannerPlugin>> futures = pluginsToLoad.stream()
+        .map(installedPlugin -> executor.submit(() -> loadPlugin(installedPlugin)))
+        .collect(Collectors.toList());
+      for (Future<ScannerPlugin> future : futures) {
+        ScannerPlugin plugin = waitFor(future);
+        infosByKey.put(plugin.getInfo().getKey(), plugin);
       }
+    } finally {
+      executor.shutdownNow();
     }
     profiler.stopInfo();
     return infosByKey;
   }
 
+  private ScannerPlugin loadPlugin(InstalledPlugin installedPlugin) {
+    File jarFile = download(installedPlugin);
+    PluginInfo info = PluginInfo.create(jarFile);
+    // libraries of plugin are extracted while other plugins are downloaded. They are kept in cache for next analyses.
+    jarExploder.explode(info);
+    return new ScannerPlugin(installedPlugin.key, installedPlugin.updatedAt, info);
+  }
+
+  private static ScannerPlugin waitFor(Future<ScannerPlugin> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while loading plugins", e);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
   /**
    * Returns empty on purpose. This method is used only by medium tests.
    * @see org.sonar.scanner.mediumtest.ScannerMediumTester
@@ -20,22 +20,23 @@
 package org.sonar.scanner.bootstrap;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.io.FileUtils;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.utils.ZipUtils;
 import org.sonar.core.platform.ExplodedPlugin;
 import org.sonar.core.platform.PluginInfo;
 import org.sonar.core.platform.PluginJarExploder;
+import org.sonar.home.cache.DirectoryLock;
 import org.sonar.home.cache.FileCache;
 
-import static org.sonar.core.util.FileUtils.deleteQuietly;
-
 @ScannerSide
 public class ScannerPluginJarExploder extends PluginJarExploder {
 
   private final FileCache fileCache;
+  private final Map<String, Object> inProcessLocks = new ConcurrentHashMap<>();
 
   public ScannerPluginJarExploder(FileCache fileCache) {
     this.fileCache = fileCache;
@@ -54,11 +55,12 @@ public class ScannerPluginJarExploder extends PluginJarExploder {
   private File unzipFile(File cachedFile) throws IOException {
     String filename = cachedFile.getName();
     File destDir = new File(cachedFile.getParentFile(), filename + "_unzip");
-    File lockFile = new File(cachedFile.getParentFile(), filename + "_unzip.lock");
     if (!destDir.exists()) {
-      FileOutputStream out = new FileOutputStream(lockFile);
-      try {
-        java.nio.channels.FileLock lock = out.getChannel().lock();
+      // file locks are held by the whole JVM, so threads of the same process must be synchronized separately
+      synchronized (inProcessLocks.computeIfAbsent(destDir.getAbsolutePath(), k -> new Object())) {
+        // the directory of the cached file is named after its hash, so the lock is shared by all processes exploding the same plugin
+        DirectoryLock lock = new DirectoryLock(cachedFile.getParentFile().toPath(), new Slf4jLogger());
+        lock.lock();
         try {
           // Recheck in case of concurrent processes
           if (!destDir.exists()) {
@@ -67,11 +69,8 @@ public class ScannerPluginJarExploder extends PluginJarExploder {
             FileUtils.moveDirectory(tempDir, destDir);
           }
         } finally {
-          lock.release();
+          lock.unlock();
         }
-      } finally {
-        out.close();
-        deleteQuietly(lockFile);
       }
     }
     return destDir;
@@ -36,6 +36,7 @@ import org.sonar.api.batch.fs.internal.DefaultInputComponent;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.duplications.block.Block;
+import org.sonar.duplications.detector.suffixtree.SuffixArrayCloneDetectionAlgorithm;
 import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm;
 import org.sonar.duplications.index.CloneGroup;
 import org.sonar.duplications.index.ClonePart;
@@ -133,7 +134,10 @@ public class CpdExecutor {
     progressReport.message(String.format("%d/%d - current file: %s", count, total, inputFile.absolutePath()));
 
     List<CloneGroup> duplications;
-    Future<List<CloneGroup>> futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
+    boolean useSuffixArray = settings.useSuffixArray();
+    Future<List<CloneGroup>> futureResult = executorService.submit(() -> useSuffixArray
+      ? SuffixArrayCloneDetectionAlgorithm.detect(index, fileBlocks)
+      : SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
     try {
       duplications = futureResult.get(timeout, TimeUnit.MILLISECONDS);
     } catch (TimeoutException e) {
@@ -25,6 +25,8 @@ import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
 import org.sonar.api.config.Configuration;
 import org.sonar.duplications.block.BlockChunker;
 
+import static org.sonar.core.config.CorePropertyDefinitions.CPD_SUFFIX_ARRAY;
+
 public class CpdSettings {
   private final Configuration settings;
   private final String branch;
@@ -40,6 +42,13 @@ public class CpdSettings {
       && StringUtils.isBlank(branch);
   }
 
+  /**
+   * Whether clone detection should use a suffix array instead of a suffix tree. Both detect the same duplications.
+   */
+  boolean useSuffixArray() {
+    return settings.getBoolean(CPD_SUFFIX_ARRAY).orElse(false);
+  }
+
   /**
    * Not applicable to Java, as the {@link BlockChunker} that it uses does not record start and end units of each block. 
    * Also, it uses statements instead of tokens. 
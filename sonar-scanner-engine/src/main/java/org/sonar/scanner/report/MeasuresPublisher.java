@@ -21,8 +21,6 @@ package org.sonar.scanner.report;
 
 import com.google.common.collect.Iterables;
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import org.sonar.api.batch.fs.InputComponent;
@@ -32,10 +30,8 @@ import org.sonar.api.batch.fs.internal.DefaultInputComponent;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.measure.Metric;
 import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
-import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.test.MutableTestPlan;
 import org.sonar.api.test.TestCase.Status;
-import org.sonar.api.utils.KeyValueFormat;
 import org.sonar.scanner.deprecated.test.TestPlanBuilder;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReport.Measure.BoolValue;
@@ -45,10 +41,18 @@ import org.sonar.scanner.protocol.output.ScannerReport.Measure.LongValue;
 import org.sonar.scanner.protocol.output.ScannerReport.Measure.StringValue;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
+import org.sonar.scanner.scan.measure.CoverageCache;
+import org.sonar.scanner.scan.measure.FileCoverage;
 import org.sonar.scanner.scan.measure.MeasureCache;
 
+import static org.sonar.api.measures.CoreMetrics.CONDITIONS_BY_LINE;
+import static org.sonar.api.measures.CoreMetrics.CONDITIONS_BY_LINE_KEY;
 import static org.sonar.api.measures.CoreMetrics.CONDITIONS_TO_COVER;
 import static org.sonar.api.measures.CoreMetrics.CONDITIONS_TO_COVER_KEY;
+import static org.sonar.api.measures.CoreMetrics.COVERAGE_LINE_HITS_DATA;
+import static org.sonar.api.measures.CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY;
+import static org.sonar.api.measures.CoreMetrics.COVERED_CONDITIONS_BY_LINE;
+import static org.sonar.api.measures.CoreMetrics.COVERED_CONDITIONS_BY_LINE_KEY;
 import static org.sonar.api.measures.CoreMetrics.LINES_TO_COVER;
 import static org.sonar.api.measures.CoreMetrics.LINES_TO_COVER_KEY;
 import static org.sonar.api.measures.CoreMetrics.SKIPPED_TESTS;
@@ -70,11 +74,13 @@ public class MeasuresPublisher implements ReportPublisherStep {
 
   private final InputComponentStore componentStore;
   private final MeasureCache measureCache;
+  private final CoverageCache coverageCache;
   private final TestPlanBuilder testPlanBuilder;
 
-  public MeasuresPublisher(InputComponentStore componentStore, MeasureCache measureCache, TestPlanBuilder testPlanBuilder) {
+  public MeasuresPublisher(InputComponentStore componentStore, MeasureCache measureCache, CoverageCache coverageCache, TestPlanBuilder testPlanBuilder) {
     this.componentStore = componentStore;
     this.measureCache = measureCache;
+    this.coverageCache = coverageCache;
     this.testPlanBuilder = testPlanBuilder;
   }
 
@@ -86,7 +92,7 @@ public class MeasuresPublisher implements ReportPublisherStep {
       DefaultInputComponent component = (DefaultInputComponent) c;
       if (component.isFile()) {
         DefaultInputFile file = (DefaultInputFile) component;
-        // Recompute all coverage measures from line data to take into account the possible merge of several reports
+        // Compute all coverage measures from line coverage, which merges the possible several reports
         updateCoverageFromLineData(file);
         // Recompute test execution measures from MutableTestPlan to take into account the possible merge of several reports
         updateTestExecutionFromTestPlan(file);
@@ -148,32 +154,23 @@ public class MeasuresPublisher implements ReportPublisherStep {
     if (inputFile.type() != Type.MAIN) {
       return;
     }
-    DefaultMeasure<String> lineHitsMeasure = (DefaultMeasure<String>) measureCache.byMetric(inputFile.key(), CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY);
-    if (lineHitsMeasure != null) {
-      Map<Integer, Integer> lineHits = KeyValueFormat.parseIntInt(lineHitsMeasure.value());
-      measureCache.put(inputFile.key(), LINES_TO_COVER_KEY, new DefaultMeasure<Integer>().forMetric(LINES_TO_COVER).withValue(lineHits.keySet().size()));
-      measureCache.put(inputFile.key(), UNCOVERED_LINES_KEY,
-        new DefaultMeasure<Integer>().forMetric(UNCOVERED_LINES).withValue((int) lineHits.values()
-          .stream()
-          .filter(hit -> hit == 0)
-          .count()));
+    FileCoverage coverage = coverageCache.byFile(inputFile.key());
+    if (coverage == null) {
+      return;
+    }
+    if (coverage.hasHits()) {
+      measureCache.put(inputFile.key(), COVERAGE_LINE_HITS_DATA_KEY, new DefaultMeasure<String>().forMetric(COVERAGE_LINE_HITS_DATA).withValue(coverage.hitsData()));
+      measureCache.put(inputFile.key(), LINES_TO_COVER_KEY, new DefaultMeasure<Integer>().forMetric(LINES_TO_COVER).withValue(coverage.linesToCover()));
+      measureCache.put(inputFile.key(), UNCOVERED_LINES_KEY, new DefaultMeasure<Integer>().forMetric(UNCOVERED_LINES).withValue(coverage.uncoveredLines()));
     }
-    DefaultMeasure<String> conditionsMeasure = (DefaultMeasure<String>) measureCache.byMetric(inputFile.key(), CoreMetrics.CONDITIONS_BY_LINE_KEY);
-    DefaultMeasure<String> coveredConditionsMeasure = (DefaultMeasure<String>) measureCache.byMetric(inputFile.key(), CoreMetrics.COVERED_CONDITIONS_BY_LINE_KEY);
-    if (conditionsMeasure != null) {
-      Map<Integer, Integer> conditions = KeyValueFormat.parseIntInt(conditionsMeasure.value());
-      Map<Integer, Integer> coveredConditions = coveredConditionsMeasure != null ? KeyValueFormat.parseIntInt(coveredConditionsMeasure.value()) : Collections.emptyMap();
-      measureCache.put(inputFile.key(), CONDITIONS_TO_COVER_KEY, new DefaultMeasure<Integer>().forMetric(CONDITIONS_TO_COVER).withValue(conditions
-        .values()
-        .stream()
-        .mapToInt(Integer::intValue)
-        .sum()));
-      measureCache.put(inputFile.key(), UNCOVERED_CONDITIONS_KEY,
-        new DefaultMeasure<Integer>().forMetric(UNCOVERED_CONDITIONS)
-          .withValue((int) conditions.keySet()
-            .stream()
-            .mapToInt(line -> conditions.get(line) - coveredConditions.get(line))
-            .sum()));
+    if (coverage.hasConditions()) {
+      measureCache.put(inputFile.key(), CONDITIONS_BY_LINE_KEY, new DefaultMeasure<String>().forMetric(CONDITIONS_BY_LINE).withValue(coverage.conditionsData()));
+      String coveredConditions = coverage.coveredConditionsData();
+      if (coveredConditions != null) {
+        measureCache.put(inputFile.key(), COVERED_CONDITIONS_BY_LINE_KEY, new DefaultMeasure<String>().forMetric(COVERED_CONDITIONS_BY_LINE).withValue(coveredConditions));
+      }
+      measureCache.put(inputFile.key(), CONDITIONS_TO_COVER_KEY, new DefaultMeasure<Integer>().forMetric(CONDITIONS_TO_COVER).withValue(coverage.conditionsToCover()));
+      measureCache.put(inputFile.key(), UNCOVERED_CONDITIONS_KEY, new DefaultMeasure<Integer>().forMetric(UNCOVERED_CONDITIONS).withValue(coverage.uncoveredConditions()));
     }
   }
 
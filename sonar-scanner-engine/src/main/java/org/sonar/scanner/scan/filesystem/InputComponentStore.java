@@ -29,6 +29,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import javax.annotation.CheckForNull;
@@ -61,8 +62,10 @@ public class InputComponentStore {
   // indexed by key with branch
   private final Map<String, InputModule> inputModuleCache = new HashMap<>();
   private final Map<String, InputComponent> inputComponents = new HashMap<>();
-  private final SetMultimap<String, InputFile> filesByNameCache = LinkedHashMultimap.create();
-  private final SetMultimap<String, InputFile> filesByExtensionCache = LinkedHashMultimap.create();
+  private final FilesIndex<String> filesByNameCache = new FilesIndex<>();
+  private final FilesIndex<String> filesByExtensionCache = new FilesIndex<>();
+  private final FilesIndex<String> filesByLanguageCache = new FilesIndex<>();
+  private final FilesIndex<InputFile.Type> filesByTypeCache = new FilesIndex<>();
   private final InputModule root;
   private final BranchConfiguration branchConfiguration;
 
@@ -108,6 +111,7 @@ public class InputComponentStore {
   }
 
   public InputComponentStore removeModule(String moduleKey) {
+    inputFileCache.row(moduleKey).values().forEach(f -> removeFromIndexes((DefaultInputFile) f));
     inputFileCache.row(moduleKey).clear();
     inputDirCache.row(moduleKey).clear();
     return this;
@@ -115,10 +119,22 @@ public class InputComponentStore {
 
   public InputComponentStore remove(InputFile inputFile) {
     DefaultInputFile file = (DefaultInputFile) inputFile;
-    inputFileCache.remove(file.moduleKey(), file.getModuleRelativePath());
+    if (inputFileCache.remove(file.moduleKey(), file.getModuleRelativePath()) != null) {
+      removeFromIndexes(file);
+    }
     return this;
   }
 
+  private void removeFromIndexes(DefaultInputFile file) {
+    filesByNameCache.remove(file.filename(), file);
+    filesByExtensionCache.remove(FileExtensionPredicate.getExtension(file), file);
+    filesByTypeCache.remove(file.type(), file);
+    String language = file.language();
+    if (language != null) {
+      filesByLanguageCache.remove(language, file);
+    }
+  }
+
   public InputComponentStore remove(InputDir inputDir) {
     DefaultInputDir dir = (DefaultInputDir) inputDir;
     inputDirCache.remove(dir.moduleKey(), inputDir.relativePath());
@@ -131,8 +147,9 @@ public class InputComponentStore {
     inputFileCache.put(file.moduleKey(), file.getModuleRelativePath(), inputFile);
     globalInputFileCache.put(file.getProjectRelativePath(), inputFile);
     inputComponents.put(inputFile.key(), inputFile);
-    filesByNameCache.put(inputFile.filename(), inputFile);
-    filesByExtensionCache.put(FileExtensionPredicate.getExtension(inputFile), inputFile);
+    filesByNameCache.put(inputFile.filename(), file);
+    filesByExtensionCache.put(FileExtensionPredicate.getExtension(inputFile), file);
+    filesByTypeCache.put(inputFile.type(), file);
     return this;
   }
 
@@ -141,6 +158,7 @@ public class InputComponentStore {
     if (language != null) {
       globalLanguagesCache.add(language);
       languagesCache.computeIfAbsent(inputFile.moduleKey(), k -> new TreeSet<>()).add(language);
+      filesByLanguageCache.put(language, inputFile);
     }
   }
 
@@ -200,10 +218,34 @@ public class InputComponentStore {
     return filesByNameCache.get(filename);
   }
 
+  public Iterable<InputFile> getFilesByName(String moduleKey, String filename) {
+    return filesByNameCache.get(moduleKey, filename);
+  }
+
   public Iterable<InputFile> getFilesByExtension(String extension) {
     return filesByExtensionCache.get(extension);
   }
 
+  public Iterable<InputFile> getFilesByExtension(String moduleKey, String extension) {
+    return filesByExtensionCache.get(moduleKey, extension);
+  }
+
+  public Iterable<InputFile> getFilesByLanguage(String language) {
+    return filesByLanguageCache.get(language);
+  }
+
+  public Iterable<InputFile> getFilesByLanguage(String moduleKey, String language) {
+    return filesByLanguageCache.get(moduleKey, language);
+  }
+
+  public Iterable<InputFile> getFilesByType(InputFile.Type type) {
+    return filesByTypeCache.get(type);
+  }
+
+  public Iterable<InputFile> getFilesByType(String moduleKey, InputFile.Type type) {
+    return filesByTypeCache.get(moduleKey, type);
+  }
+
   public SortedSet<String> getLanguages() {
     return globalLanguagesCache;
   }
@@ -211,4 +253,34 @@ public class InputComponentStore {
   public SortedSet<String> getLanguages(String moduleKey) {
     return languagesCache.getOrDefault(moduleKey, Collections.emptySortedSet());
   }
+
+  /**
+   * Files indexed by some attribute, for the whole project and by module.
+   */
+  private static class FilesIndex<K> {
+    private final SetMultimap<K, InputFile> global = LinkedHashMultimap.create();
+    private final Map<String, SetMultimap<K, InputFile>> byModule = new HashMap<>();
+
+    void put(K key, DefaultInputFile file) {
+      global.put(key, file);
+      byModule.computeIfAbsent(file.moduleKey(), k -> LinkedHashMultimap.create()).put(key, file);
+    }
+
+    void remove(K key, DefaultInputFile file) {
+      global.remove(key, file);
+      SetMultimap<K, InputFile> moduleFiles = byModule.get(file.moduleKey());
+      if (moduleFiles != null) {
+        moduleFiles.remove(key, file);
+      }
+    }
+
+    Set<InputFile> get(K key) {
+      return global.get(key);
+    }
+
+    Set<InputFile> get(String moduleKey, K key) {
+      SetMultimap<K, InputFile> moduleFiles = byModule.get(moduleKey);
+      return moduleFiles == null ? Collections.emptySet() : moduleFiles.get(key);
+    }
+  }
 }
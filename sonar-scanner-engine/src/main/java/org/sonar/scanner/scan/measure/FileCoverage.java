@@ -0,0 +1,204 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.measure;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import javax.annotation.CheckForNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Line coverage of a file, merged from all the coverage reports imported during analysis. Values are
+ * stored in arrays indexed by line, so that reports are merged in place without formatting them as measures.
+ * For each line, hits are summed and conditions are the max of the reported values. Lines must be in range of
+ * the lines of the file.
+ */
+public class FileCoverage {
+
+  /**
+   * Value of a line which is not reported
+   */
+  public static final int NO_VALUE = -1;
+
+  private final int lines;
+  private int[] hits;
+  private int[] conditions;
+  private int[] coveredConditions;
+
+  public FileCoverage(int lines) {
+    this.lines = lines;
+  }
+
+  public int lines() {
+    return lines;
+  }
+
+  public FileCoverage addHits(int line, int lineHits) {
+    checkLine(line);
+    hits = ensureCapacity(hits);
+    hits[line] = hits[line] == NO_VALUE ? lineHits : (hits[line] + lineHits);
+    return this;
+  }
+
+  public FileCoverage mergeConditions(int line, int lineConditions) {
+    checkLine(line);
+    conditions = ensureCapacity(conditions);
+    conditions[line] = Math.max(conditions[line], lineConditions);
+    return this;
+  }
+
+  public FileCoverage mergeCoveredConditions(int line, int lineCoveredConditions) {
+    checkLine(line);
+    coveredConditions = ensureCapacity(coveredConditions);
+    coveredConditions[line] = Math.max(coveredConditions[line], lineCoveredConditions);
+    return this;
+  }
+
+  /**
+   * @return the hits of the line or {@link #NO_VALUE}
+   */
+  public int hits(int line) {
+    return valueOf(hits, line);
+  }
+
+  /**
+   * @return the number of conditions of the line or {@link #NO_VALUE}
+   */
+  public int conditions(int line) {
+    return valueOf(conditions, line);
+  }
+
+  /**
+   * @return the number of covered conditions of the line or {@link #NO_VALUE}
+   */
+  public int coveredConditions(int line) {
+    return valueOf(coveredConditions, line);
+  }
+
+  public boolean hasHits() {
+    return hits != null;
+  }
+
+  public boolean hasConditions() {
+    return conditions != null;
+  }
+
+  public int linesToCover() {
+    return count(hits, hit -> hit != NO_VALUE);
+  }
+
+  public int uncoveredLines() {
+    return count(hits, hit -> hit == 0);
+  }
+
+  public int conditionsToCover() {
+    int result = 0;
+    for (int line = 1; line <= lines; line++) {
+      result += Math.max(conditions(line), 0);
+    }
+    return result;
+  }
+
+  public int uncoveredConditions() {
+    int result = 0;
+    for (int line = 1; line <= lines; line++) {
+      int lineConditions = conditions(line);
+      if (lineConditions != NO_VALUE) {
+        result += lineConditions - Math.max(coveredConditions(line), 0);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Hits by line, in the format of measure {@link org.sonar.api.measures.CoreMetrics#COVERAGE_LINE_HITS_DATA}
+   */
+  @CheckForNull
+  public String hitsData() {
+    return format(hits);
+  }
+
+  /**
+   * Conditions by line, in the format of measure {@link org.sonar.api.measures.CoreMetrics#CONDITIONS_BY_LINE}
+   */
+  @CheckForNull
+  public String conditionsData() {
+    return format(conditions);
+  }
+
+  /**
+   * Covered conditions by line, in the format of measure {@link org.sonar.api.measures.CoreMetrics#COVERED_CONDITIONS_BY_LINE}
+   */
+  @CheckForNull
+  public String coveredConditionsData() {
+    return format(coveredConditions);
+  }
+
+  private void checkLine(int line) {
+    checkArgument(line > 0 && line <= lines, "Line %s is out of range of file with %s lines", line, lines);
+  }
+
+  private int[] ensureCapacity(int[] values) {
+    if (values != null) {
+      return values;
+    }
+    int[] result = new int[lines + 1];
+    Arrays.fill(result, NO_VALUE);
+    return result;
+  }
+
+  private static int valueOf(int[] values, int line) {
+    if (values == null || line >= values.length) {
+      return NO_VALUE;
+    }
+    return values[line];
+  }
+
+  private static int count(int[] values, IntPredicate predicate) {
+    if (values == null) {
+      return 0;
+    }
+    int result = 0;
+    for (int line = 1; line < values.length; line++) {
+      if (predicate.test(values[line])) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  @CheckForNull
+  private static String format(int[] values) {
+    if (values == null) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (int line = 1; line < values.length; line++) {
+      if (values[line] != NO_VALUE) {
+        if (sb.length() > 0) {
+          sb.append(';');
+        }
+        sb.append(line).append('=').append(values[line]);
+      }
+    }
+    return sb.toString();
+  }
+}
@@ -21,15 +21,12 @@ package org.sonar.scanner.sensor;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.TextRange;
@@ -63,6 +60,8 @@ import org.sonar.scanner.report.ReportPublisher;
 import org.sonar.scanner.report.ScannerReportUtils;
 import org.sonar.scanner.repository.ContextPropertiesCache;
 import org.sonar.scanner.scan.branch.BranchConfiguration;
+import org.sonar.scanner.scan.measure.CoverageCache;
+import org.sonar.scanner.scan.measure.FileCoverage;
 import org.sonar.scanner.scan.measure.MeasureCache;
 
 import static java.util.stream.Collectors.toList;
@@ -143,6 +142,7 @@ public class DefaultSensorStorage implements SensorStorage {
   private final ModuleIssues moduleIssues;
   private final ReportPublisher reportPublisher;
   private final MeasureCache measureCache;
+  private final CoverageCache coverageCache;
   private final SonarCpdBlockIndex index;
   private final ContextPropertiesCache contextPropertiesCache;
   private final Configuration settings;
@@ -154,13 +154,14 @@ public class DefaultSensorStorage implements SensorStorage {
   private final Set<String> alreadyLogged = new HashSet<>();
 
   public DefaultSensorStorage(MetricFinder metricFinder, ModuleIssues moduleIssues, Configuration settings,
-    ReportPublisher reportPublisher, MeasureCache measureCache, SonarCpdBlockIndex index,
+    ReportPublisher reportPublisher, MeasureCache measureCache, CoverageCache coverageCache, SonarCpdBlockIndex index,
     ContextPropertiesCache contextPropertiesCache, ScannerMetrics scannerMetrics, BranchConfiguration branchConfiguration) {
     this.metricFinder = metricFinder;
     this.moduleIssues = moduleIssues;
     this.settings = settings;
     this.reportPublisher = reportPublisher;
     this.measureCache = measureCache;
+    this.coverageCache = coverageCache;
     this.index = index;
     this.contextPropertiesCache = contextPropertiesCache;
     this.scannerMetrics = scannerMetrics;
@@ -274,13 +275,17 @@ public class DefaultSensorStorage implements SensorStorage {
   private void saveCoverageMetricInternal(InputFile file, Metric<?> metric, DefaultMeasure<?> measure) {
     if (isLineMetrics(metric)) {
       validateCoverageMeasure((String) measure.value(), file);
-      DefaultMeasure<?> previousMeasure = measureCache.byMetric(file.key(), metric.key());
-      if (previousMeasure != null) {
-        measureCache.put(file.key(), metric.key(), new DefaultMeasure<String>()
-          .forMetric((Metric<String>) metric)
-          .withValue(mergeCoverageLineMetric(metric, (String) previousMeasure.value(), (String) measure.value())));
+      Map<Integer, Integer> valuesByLine = KeyValueFormat.parseIntInt((String) measure.value());
+      if (valuesByLine.isEmpty()) {
+        return;
+      }
+      FileCoverage coverage = coverageCache.getOrCreate(file);
+      if (metric.key().equals(CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY)) {
+        valuesByLine.forEach(coverage::addHits);
+      } else if (metric.key().equals(CoreMetrics.CONDITIONS_BY_LINE_KEY)) {
+        valuesByLine.forEach(coverage::mergeConditions);
       } else {
-        measureCache.put(file.key(), metric.key(), measure);
+        valuesByLine.forEach(coverage::mergeCoveredConditions);
       }
     } else {
       // Other coverage metrics are all integer values. Just erase value, it will be recomputed at the end anyway
@@ -288,36 +293,6 @@ public class DefaultSensorStorage implements SensorStorage {
     }
   }
 
-  /**
-   * Merge the two line coverage data measures. For lines hits use the sum, and for conditions 
-   * keep max value in case they both contains a value for the same line.
-   */
-  static String mergeCoverageLineMetric(Metric<?> metric, String value1, String value2) {
-    Map<Integer, Integer> data1 = KeyValueFormat.parseIntInt(value1);
-    Map<Integer, Integer> data2 = KeyValueFormat.parseIntInt(value2);
-    if (metric.key().equals(CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY)) {
-      return KeyValueFormat.format(Stream.of(data1, data2)
-        .map(Map::entrySet)
-        .flatMap(Collection::stream)
-        .collect(
-          Collectors.toMap(
-            Map.Entry::getKey,
-            Map.Entry::getValue,
-            Integer::sum,
-            TreeMap::new)));
-    } else {
-      return KeyValueFormat.format(Stream.of(data1, data2)
-        .map(Map::entrySet)
-        .flatMap(Collection::stream)
-        .collect(
-          Collectors.toMap(
-            Map.Entry::getKey,
-            Map.Entry::getValue,
-            Integer::max,
-            TreeMap::new)));
-    }
-  }
-
   public static boolean isDeprecatedMetric(String metricKey) {
     return DEPRECATED_METRICS_KEYS.contains(metricKey);
   }
@@ -444,23 +419,15 @@ public class DefaultSensorStorage implements SensorStorage {
       return;
     }
     inputFile.setPublished(true);
-    if (defaultCoverage.linesToCover() > 0) {
-      saveCoverageMetricInternal(inputFile, LINES_TO_COVER, new DefaultMeasure<Integer>().forMetric(LINES_TO_COVER).withValue(defaultCoverage.linesToCover()));
-      saveCoverageMetricInternal(inputFile, UNCOVERED_LINES,
-        new DefaultMeasure<Integer>().forMetric(UNCOVERED_LINES).withValue(defaultCoverage.linesToCover() - defaultCoverage.coveredLines()));
-      saveCoverageMetricInternal(inputFile, COVERAGE_LINE_HITS_DATA,
-        new DefaultMeasure<String>().forMetric(COVERAGE_LINE_HITS_DATA).withValue(KeyValueFormat.format(defaultCoverage.hitsByLine())));
-    }
-    if (defaultCoverage.conditions() > 0) {
-      saveCoverageMetricInternal(inputFile, CONDITIONS_TO_COVER,
-        new DefaultMeasure<Integer>().forMetric(CONDITIONS_TO_COVER).withValue(defaultCoverage.conditions()));
-      saveCoverageMetricInternal(inputFile, UNCOVERED_CONDITIONS,
-        new DefaultMeasure<Integer>().forMetric(UNCOVERED_CONDITIONS).withValue(defaultCoverage.conditions() - defaultCoverage.coveredConditions()));
-      saveCoverageMetricInternal(inputFile, COVERED_CONDITIONS_BY_LINE,
-        new DefaultMeasure<String>().forMetric(COVERED_CONDITIONS_BY_LINE).withValue(KeyValueFormat.format(defaultCoverage.coveredConditionsByLine())));
-      saveCoverageMetricInternal(inputFile, CONDITIONS_BY_LINE,
-        new DefaultMeasure<String>().forMetric(CONDITIONS_BY_LINE).withValue(KeyValueFormat.format(defaultCoverage.conditionsByLine())));
+    if (defaultCoverage.hitsByLine().isEmpty() && defaultCoverage.conditionsByLine().isEmpty()) {
+      // an empty report must not prevent ZeroCoverageSensor from computing coverage of the file
+      return;
     }
+    // measures are computed from the merged coverage of the file when publishing report, see MeasuresPublisher
+    FileCoverage coverage = coverageCache.getOrCreate(inputFile);
+    defaultCoverage.hitsByLine().forEach(coverage::addHits);
+    defaultCoverage.conditionsByLine().forEach(coverage::mergeConditions);
+    defaultCoverage.coveredConditionsByLine().forEach(coverage::mergeCoveredConditions);
   }
 
   @Override
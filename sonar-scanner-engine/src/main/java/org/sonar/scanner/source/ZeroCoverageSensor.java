@@ -37,6 +37,7 @@ import org.sonar.api.batch.sensor.coverage.NewCoverage;
 import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.utils.KeyValueFormat;
+import org.sonar.scanner.scan.measure.CoverageCache;
 import org.sonar.scanner.scan.measure.MeasureCache;
 
 import static org.sonar.core.util.stream.MoreCollectors.toSet;
@@ -45,9 +46,11 @@ import static org.sonar.core.util.stream.MoreCollectors.toSet;
 public final class ZeroCoverageSensor implements Sensor {
 
   private final MeasureCache measureCache;
+  private final CoverageCache coverageCache;
 
-  public ZeroCoverageSensor(MeasureCache measureCache) {
+  public ZeroCoverageSensor(MeasureCache measureCache, CoverageCache coverageCache) {
     this.measureCache = measureCache;
+    this.coverageCache = coverageCache;
   }
 
   @Override
@@ -85,6 +88,9 @@ public final class ZeroCoverageSensor implements Sensor {
   }
 
   private boolean isCoverageMeasuresAlreadyDefined(InputFile f) {
+    if (coverageCache.byFile(f.key()) != null) {
+      return true;
+    }
     Set<String> metricKeys = StreamSupport.stream(measureCache.byComponentKey(f.key()).spliterator(), false)
       .map(m -> m.metric().key()).collect(toSet());
     Set<String> allCoverageMetricKeys = CoverageType.UNIT.allMetrics().stream().map(Metric::key).collect(toSet());
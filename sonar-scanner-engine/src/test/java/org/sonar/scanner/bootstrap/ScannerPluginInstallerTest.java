@@ -22,6 +22,8 @@ package org.sonar.scanner.bootstrap;
 import java.io.File;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -33,8 +35,11 @@ import org.sonar.scanner.bootstrap.ScannerPluginInstaller.InstalledPlugin;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ScannerPluginInstallerTest {
@@ -48,6 +53,7 @@ public class ScannerPluginInstallerTest {
   private FileCache fileCache = mock(FileCache.class);
   private ScannerWsClient wsClient;
   private ScannerPluginPredicate pluginPredicate = mock(ScannerPluginPredicate.class);
+  private ScannerPluginJarExploder jarExploder = mock(ScannerPluginJarExploder.class);
 
   @Before
   public void setUp() {
@@ -58,7 +64,7 @@ public class ScannerPluginInstallerTest {
   public void listRemotePlugins() {
     WsTestUtil.mockReader(wsClient, "/api/plugins/installed",
       new InputStreamReader(this.getClass().getResourceAsStream("ScannerPluginInstallerTest/installed-plugins-ws.json"), StandardCharsets.UTF_8));
-    ScannerPluginInstaller underTest = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate);
+    ScannerPluginInstaller underTest = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate, jarExploder);
 
     InstalledPlugin[] remotePlugins = underTest.listInstalledPlugins();
     assertThat(remotePlugins).extracting("key").containsOnly("scmgit", "java", "scmsvn");
@@ -69,7 +75,7 @@ public class ScannerPluginInstallerTest {
     File pluginJar = temp.newFile();
     when(fileCache.get(eq("checkstyle-plugin.jar"), eq("fakemd5_1"), any(FileCache.Downloader.class))).thenReturn(pluginJar);
 
-    ScannerPluginInstaller underTest = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate);
+    ScannerPluginInstaller underTest = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate, jarExploder);
 
     InstalledPlugin remote = new InstalledPlugin();
     remote.key = "checkstyle";
@@ -85,7 +91,7 @@ public class ScannerPluginInstallerTest {
     File pluginJar = temp.newFile();
     when(fileCache.getCompressed(eq("checkstyle-plugin.pack.gz"), eq("hash"), any(FileCache.Downloader.class))).thenReturn(pluginJar);
 
-    ScannerPluginInstaller underTest = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate);
+    ScannerPluginInstaller underTest = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate, jarExploder);
 
     InstalledPlugin remote = new InstalledPlugin();
     remote.key = "checkstyle";
@@ -103,6 +109,36 @@ public class ScannerPluginInstallerTest {
     WsTestUtil.mockException(wsClient, "/api/plugins/installed", new IllegalStateException());
     thrown.expect(IllegalStateException.class);
 
-    new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate).installRemotes();
+    new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate, jarExploder).installRemotes();
+  }
+
+  @Test
+  public void download_and_explode_plugins_accepted_by_predicate() throws Exception {
+    WsTestUtil.mockReader(wsClient, "/api/plugins/installed",
+      new InputStreamReader(this.getClass().getResourceAsStream("ScannerPluginInstallerTest/installed-plugins-ws.json"), StandardCharsets.UTF_8));
+    File pluginJar = temp.newFile();
+    FileUtils.copyURLToFile(getClass().getResource("ScannerPluginJarExploderTest/sonar-checkstyle-plugin-2.8.jar"), pluginJar);
+    when(fileCache.get(eq("sonar-java-plugin-3.0.jar"), eq("abcdef123456"), any(FileCache.Downloader.class))).thenReturn(pluginJar);
+    when(pluginPredicate.apply("java")).thenReturn(true);
+
+    Map<String, ScannerPlugin> plugins = new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate, jarExploder).installRemotes();
+
+    assertThat(plugins).containsOnlyKeys("checkstyle");
+    assertThat(plugins.get("checkstyle").getKey()).isEqualTo("java");
+    verify(jarExploder).explode(plugins.get("checkstyle").getInfo());
+    verify(fileCache, never()).get(eq("sonar-scm-git-plugin-1.0.jar"), anyString(), any(FileCache.Downloader.class));
+  }
+
+  @Test
+  public void fail_when_a_plugin_can_not_be_downloaded() {
+    WsTestUtil.mockReader(wsClient, "/api/plugins/installed",
+      new InputStreamReader(this.getClass().getResourceAsStream("ScannerPluginInstallerTest/installed-plugins-ws.json"), StandardCharsets.UTF_8));
+    when(fileCache.get(anyString(), anyString(), any(FileCache.Downloader.class))).thenThrow(new IllegalStateException("INVALID HASH"));
+    when(pluginPredicate.apply(anyString())).thenReturn(true);
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Fail to download plugin: ");
+
+    new ScannerPluginInstaller(wsClient, fileCache, pluginPredicate, jarExploder).installRemotes();
   }
 }
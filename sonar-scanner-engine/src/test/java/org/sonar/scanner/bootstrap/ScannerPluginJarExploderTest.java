@@ -70,6 +70,20 @@ public class ScannerPluginJarExploderTest {
     assertThat(new File(fileFromCache.getParent(), "sonar-checkstyle-plugin-2.8.jar_unzip/org/sonar/plugins/checkstyle/CheckstyleVersion.class")).doesNotExist();
   }
 
+  @Test
+  public void reuse_libs_extracted_by_previous_analysis() throws IOException {
+    File fileFromCache = getFileFromCache("sonar-checkstyle-plugin-2.8.jar");
+    underTest.explode(PluginInfo.create(fileFromCache));
+    File lib = new File(fileFromCache.getParent(), "sonar-checkstyle-plugin-2.8.jar_unzip/META-INF/lib/checkstyle-5.1.jar");
+    long lastModified = lib.lastModified();
+
+    FileCache fileCache = new FileCacheBuilder(new Slf4jLogger()).setUserHome(userHome).build();
+    ExplodedPlugin exploded = new ScannerPluginJarExploder(fileCache).explode(PluginInfo.create(fileFromCache));
+
+    assertThat(exploded.getLibs()).extracting("name").contains("checkstyle-5.1.jar");
+    assertThat(lib.lastModified()).isEqualTo(lastModified);
+  }
+
   File getFileFromCache(String filename) throws IOException {
     File src = FileUtils.toFile(getClass().getResource(this.getClass().getSimpleName() + "/" + filename));
     File destFile = new File(new File(userHome, "" + filename.hashCode()), filename);
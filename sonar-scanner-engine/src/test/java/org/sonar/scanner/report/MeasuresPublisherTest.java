@@ -40,6 +40,7 @@ import org.sonar.scanner.protocol.output.ScannerReportReader;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.branch.BranchConfiguration;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
+import org.sonar.scanner.scan.measure.CoverageCache;
 import org.sonar.scanner.scan.measure.MeasureCache;
 
 import static java.util.Arrays.asList;
@@ -47,6 +48,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class MeasuresPublisherTest {
@@ -57,6 +59,7 @@ public class MeasuresPublisherTest {
   public TemporaryFolder temp = new TemporaryFolder();
 
   private MeasureCache measureCache;
+  private CoverageCache coverageCache = new CoverageCache();
   private MeasuresPublisher publisher;
 
   private File outputDir;
@@ -68,12 +71,12 @@ public class MeasuresPublisherTest {
   public void prepare() throws IOException {
     String moduleKey = "foo";
     inputModule = TestInputFileBuilder.newDefaultInputModule(moduleKey, temp.newFolder());
-    inputFile = new TestInputFileBuilder(moduleKey, "src/Foo.php").setPublish(true).build();
+    inputFile = new TestInputFileBuilder(moduleKey, "src/Foo.php").setLines(10).setPublish(true).build();
     InputComponentStore componentCache = new InputComponentStore(inputModule, mock(BranchConfiguration.class));
     componentCache.put(inputFile);
     measureCache = mock(MeasureCache.class);
     when(measureCache.byComponentKey(anyString())).thenReturn(Collections.<DefaultMeasure<?>>emptyList());
-    publisher = new MeasuresPublisher(componentCache, measureCache, mock(TestPlanBuilder.class));
+    publisher = new MeasuresPublisher(componentCache, measureCache, coverageCache, mock(TestPlanBuilder.class));
     outputDir = temp.newFolder();
     writer = new ScannerReportWriter(outputDir);
   }
@@ -109,4 +112,28 @@ public class MeasuresPublisherTest {
     }
   }
 
+  @Test
+  public void compute_coverage_measures_from_merged_line_coverage() {
+    coverageCache.getOrCreate(inputFile)
+      .addHits(1, 2)
+      .addHits(2, 0)
+      .addHits(1, 3)
+      .mergeConditions(2, 4)
+      .mergeCoveredConditions(2, 1)
+      .mergeCoveredConditions(2, 3);
+
+    publisher.publish(writer);
+
+    verify(measureCache).put(inputFile.key(), CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY,
+      new DefaultMeasure<String>().forMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA).withValue("1=5;2=0"));
+    verify(measureCache).put(inputFile.key(), CoreMetrics.LINES_TO_COVER_KEY, new DefaultMeasure<Integer>().forMetric(CoreMetrics.LINES_TO_COVER).withValue(2));
+    verify(measureCache).put(inputFile.key(), CoreMetrics.UNCOVERED_LINES_KEY, new DefaultMeasure<Integer>().forMetric(CoreMetrics.UNCOVERED_LINES).withValue(1));
+    verify(measureCache).put(inputFile.key(), CoreMetrics.CONDITIONS_BY_LINE_KEY,
+      new DefaultMeasure<String>().forMetric(CoreMetrics.CONDITIONS_BY_LINE).withValue("2=4"));
+    verify(measureCache).put(inputFile.key(), CoreMetrics.COVERED_CONDITIONS_BY_LINE_KEY,
+      new DefaultMeasure<String>().forMetric(CoreMetrics.COVERED_CONDITIONS_BY_LINE).withValue("2=3"));
+    verify(measureCache).put(inputFile.key(), CoreMetrics.CONDITIONS_TO_COVER_KEY, new DefaultMeasure<Integer>().forMetric(CoreMetrics.CONDITIONS_TO_COVER).withValue(4));
+    verify(measureCache).put(inputFile.key(), CoreMetrics.UNCOVERED_CONDITIONS_KEY, new DefaultMeasure<Integer>().forMetric(CoreMetrics.UNCOVERED_CONDITIONS).withValue(1));
+  }
+
 }
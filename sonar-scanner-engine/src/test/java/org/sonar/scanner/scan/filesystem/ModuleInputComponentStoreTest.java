@@ -113,8 +113,37 @@ public class ModuleInputComponentStoreTest {
     assertThat(store.getFilesByExtension("nonexistent")).isEmpty();
   }
 
+  @Test
+  public void lookups_are_restricted_to_module_with_non_global_strategy() {
+    ModuleInputComponentStore store = newModuleInputComponentStore();
+    InputFile moduleFile = new TestInputFileBuilder(moduleKey, "src/Program.java").setLanguage("java").setType(InputFile.Type.MAIN).build();
+    store.doAdd(moduleFile);
+    store.doAdd(new TestInputFileBuilder("other module", "src/Program.java").setLanguage("java").setType(InputFile.Type.MAIN).build());
+
+    assertThat(store.getFilesByName("Program.java")).containsExactly(moduleFile);
+    assertThat(store.getFilesByExtension("java")).containsExactly(moduleFile);
+    assertThat(store.getFilesByLanguage("java")).containsExactly(moduleFile);
+    assertThat(store.getFilesByType(InputFile.Type.MAIN)).containsExactly(moduleFile);
+    assertThat(componentStore.getFilesByName("Program.java")).hasSize(2);
+  }
+
+  @Test
+  public void removed_files_are_removed_from_lookups() {
+    ModuleInputComponentStore store = newModuleInputComponentStore();
+    InputFile inputFile = new TestInputFileBuilder(moduleKey, "src/Program.java").setLanguage("java").build();
+    store.doAdd(inputFile);
+
+    componentStore.remove(inputFile);
+
+    assertThat(store.getFilesByName("Program.java")).isEmpty();
+    assertThat(store.getFilesByLanguage("java")).isEmpty();
+    assertThat(componentStore.getFilesByExtension("java")).isEmpty();
+  }
+
   private ModuleInputComponentStore newModuleInputComponentStore() {
-    return new ModuleInputComponentStore(mock(InputModule.class), componentStore, mock(SensorStrategy.class));
+    InputModule module = mock(InputModule.class);
+    when(module.key()).thenReturn(moduleKey);
+    return new ModuleInputComponentStore(module, componentStore, mock(SensorStrategy.class));
   }
 
   @Test
@@ -137,6 +166,12 @@ public class ModuleInputComponentStoreTest {
 
     store.languages();
     verify(inputComponentStore).getLanguages(any(String.class));
+
+    store.getFilesByName("Program.java");
+    verify(inputComponentStore).getFilesByName("foo", "Program.java");
+
+    store.getFilesByLanguage("java");
+    verify(inputComponentStore).getFilesByLanguage("foo", "java");
   }
 
   @Test
@@ -159,5 +194,11 @@ public class ModuleInputComponentStoreTest {
 
     store.languages();
     verify(inputComponentStore).getLanguages();
+
+    store.getFilesByName("Program.java");
+    verify(inputComponentStore).getFilesByName("Program.java");
+
+    store.getFilesByLanguage("java");
+    verify(inputComponentStore).getFilesByLanguage("java");
   }
 }
@@ -0,0 +1,100 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.measure;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.scanner.scan.measure.FileCoverage.NO_VALUE;
+
+public class FileCoverageTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private FileCoverage underTest = new FileCoverage(10);
+
+  @Test
+  public void fail_if_line_is_greater_than_lines_of_file() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Line 11 is out of range of file with 10 lines");
+
+    underTest.addHits(11, 1);
+  }
+
+  @Test
+  public void fail_if_line_is_not_strictly_positive() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Line 0 is out of range of file with 10 lines");
+
+    underTest.mergeConditions(0, 2);
+  }
+
+  @Test
+  public void no_coverage() {
+    assertThat(underTest.hasHits()).isFalse();
+    assertThat(underTest.hasConditions()).isFalse();
+    assertThat(underTest.hits(1)).isEqualTo(NO_VALUE);
+    assertThat(underTest.conditions(1)).isEqualTo(NO_VALUE);
+    assertThat(underTest.coveredConditions(1)).isEqualTo(NO_VALUE);
+    assertThat(underTest.linesToCover()).isZero();
+    assertThat(underTest.uncoveredLines()).isZero();
+    assertThat(underTest.conditionsToCover()).isZero();
+    assertThat(underTest.uncoveredConditions()).isZero();
+    assertThat(underTest.hitsData()).isNull();
+    assertThat(underTest.conditionsData()).isNull();
+    assertThat(underTest.coveredConditionsData()).isNull();
+  }
+
+  @Test
+  public void hits_are_summed() {
+    underTest.addHits(1, 1).addHits(1, 1).addHits(2, 0).addHits(4, 3).addHits(2, 0);
+
+    assertThat(underTest.hits(1)).isEqualTo(2);
+    assertThat(underTest.hits(2)).isEqualTo(0);
+    assertThat(underTest.hits(3)).isEqualTo(NO_VALUE);
+    assertThat(underTest.linesToCover()).isEqualTo(3);
+    assertThat(underTest.uncoveredLines()).isEqualTo(1);
+    assertThat(underTest.hitsData()).isEqualTo("1=2;2=0;4=3");
+  }
+
+  @Test
+  public void data_is_sorted_by_line() {
+    underTest.addHits(10, 1).addHits(2, 1).addHits(5, 0);
+
+    assertThat(underTest.hitsData()).isEqualTo("2=1;5=0;10=1");
+  }
+
+  @Test
+  public void conditions_keep_max_value() {
+    underTest.mergeConditions(3, 2).mergeConditions(3, 4).mergeConditions(5, 2);
+    underTest.mergeCoveredConditions(3, 3).mergeCoveredConditions(3, 1);
+
+    assertThat(underTest.conditions(3)).isEqualTo(4);
+    assertThat(underTest.coveredConditions(3)).isEqualTo(3);
+    assertThat(underTest.coveredConditions(5)).isEqualTo(NO_VALUE);
+    assertThat(underTest.conditionsToCover()).isEqualTo(6);
+    assertThat(underTest.uncoveredConditions()).isEqualTo(3);
+    assertThat(underTest.conditionsData()).isEqualTo("3=4;5=2");
+    assertThat(underTest.coveredConditionsData()).isEqualTo("3=3");
+  }
+}
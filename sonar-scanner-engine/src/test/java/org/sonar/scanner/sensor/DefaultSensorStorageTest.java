@@ -21,6 +21,7 @@ package org.sonar.scanner.sensor;
 
 import com.google.common.collect.ImmutableMap;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Map;
 import org.junit.Before;
 import org.junit.Rule;
@@ -30,10 +31,13 @@ import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.sonar.api.batch.bootstrap.ProjectDefinition;
 import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.measure.MetricFinder;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.coverage.internal.DefaultCoverage;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.batch.sensor.highlighting.internal.DefaultHighlighting;
 import org.sonar.api.batch.sensor.issue.Issue;
@@ -52,11 +56,15 @@ import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.report.ReportPublisher;
 import org.sonar.scanner.repository.ContextPropertiesCache;
 import org.sonar.scanner.scan.branch.BranchConfiguration;
+import org.sonar.scanner.scan.measure.CoverageCache;
+import org.sonar.scanner.scan.measure.FileCoverage;
 import org.sonar.scanner.scan.measure.MeasureCache;
+import org.sonar.scanner.source.ZeroCoverageSensor;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.data.MapEntry.entry;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -74,6 +82,7 @@ public class DefaultSensorStorageTest {
   private MapSettings settings;
   private ModuleIssues moduleIssues;
   private MeasureCache measureCache;
+  private CoverageCache coverageCache = new CoverageCache();
   private ScannerReportWriter reportWriter;
   private ContextPropertiesCache contextPropertiesCache = new ContextPropertiesCache();
   private BranchConfiguration branchConfiguration;
@@ -83,6 +92,7 @@ public class DefaultSensorStorageTest {
     MetricFinder metricFinder = mock(MetricFinder.class);
     when(metricFinder.<Integer>findByKey(CoreMetrics.NCLOC_KEY)).thenReturn(CoreMetrics.NCLOC);
     when(metricFinder.<String>findByKey(CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION_KEY)).thenReturn(CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION);
+    when(metricFinder.<String>findByKey(CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY)).thenReturn(CoreMetrics.COVERAGE_LINE_HITS_DATA);
 
     settings = new MapSettings();
     moduleIssues = mock(ModuleIssues.class);
@@ -95,7 +105,7 @@ public class DefaultSensorStorageTest {
     branchConfiguration = mock(BranchConfiguration.class);
 
     underTest = new DefaultSensorStorage(metricFinder,
-      moduleIssues, settings.asConfig(), reportPublisher, measureCache,
+      moduleIssues, settings.asConfig(), reportPublisher, measureCache, coverageCache,
       mock(SonarCpdBlockIndex.class), contextPropertiesCache, new ScannerMetrics(), branchConfiguration);
   }
 
@@ -254,14 +264,52 @@ public class DefaultSensorStorageTest {
   }
 
   @Test
-  public void mergeCoverageLineMetrics_should_be_sorted() {
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA, "1=1", "1=1")).isEqualTo("1=2");
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA, "1=1", "2=1")).isEqualTo("1=1;2=1");
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA, "2=1", "1=1")).isEqualTo("1=1;2=1");
-
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERED_CONDITIONS_BY_LINE, "1=1", "1=1")).isEqualTo("1=1");
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERED_CONDITIONS_BY_LINE, "1=1", "2=1")).isEqualTo("1=1;2=1");
-    assertThat(DefaultSensorStorage.mergeCoverageLineMetric(CoreMetrics.COVERED_CONDITIONS_BY_LINE, "2=1", "1=1")).isEqualTo("1=1;2=1");
+  public void fail_to_save_line_data_measure_out_of_lines_of_file() {
+    DefaultInputFile file = new TestInputFileBuilder("foo", "src/Foo.php").setLines(5).build();
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Can't create measure for line 6");
+
+    underTest.store(new DefaultMeasure()
+      .on(file)
+      .forMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA)
+      .withValue("1=1;6=1"));
+  }
+
+  @Test
+  public void merge_coverage_of_several_reports() {
+    DefaultInputFile file = new TestInputFileBuilder("foo", "src/Foo.php").setLines(5).build();
+
+    DefaultCoverage report1 = new DefaultCoverage().onFile(file);
+    report1.lineHits(1, 1).lineHits(2, 0).conditions(2, 4, 1);
+    DefaultCoverage report2 = new DefaultCoverage().onFile(file);
+    report2.lineHits(1, 2).lineHits(3, 0).conditions(2, 4, 3);
+
+    underTest.store(report1);
+    underTest.store(report2);
+
+    FileCoverage coverage = coverageCache.byFile(file.key());
+    assertThat(coverage.hitsData()).isEqualTo("1=3;2=0;3=0");
+    assertThat(coverage.conditionsData()).isEqualTo("2=4");
+    assertThat(coverage.coveredConditionsData()).isEqualTo("2=3");
+    verifyZeroInteractions(measureCache);
+  }
+
+  @Test
+  public void empty_coverage_does_not_prevent_zero_coverage() throws Exception {
+    DefaultInputFile file = new TestInputFileBuilder("foo", "src/Foo.php").setLines(5).build();
+    doReturn(new DefaultMeasure<String>().forMetric(CoreMetrics.EXECUTABLE_LINES_DATA).withValue("1=1;3=1;4=0"))
+      .when(measureCache).byMetric(file.key(), CoreMetrics.EXECUTABLE_LINES_DATA_KEY);
+    when(measureCache.byComponentKey(file.key())).thenReturn(Collections.emptyList());
+    SensorContext context = mock(SensorContext.class);
+    when(context.fileSystem()).thenReturn(new DefaultFileSystem(temp.newFolder()).add(file));
+    when(context.newCoverage()).thenAnswer(invocation -> new DefaultCoverage(underTest));
+
+    underTest.store(new DefaultCoverage().onFile(file));
+    assertThat(coverageCache.byFile(file.key())).isNull();
+
+    new ZeroCoverageSensor(measureCache, coverageCache).execute(context);
+    assertThat(coverageCache.byFile(file.key()).hitsData()).isEqualTo("1=0;3=0");
   }
 
 }
@@ -30,26 +30,36 @@ import javax.annotation.concurrent.Immutable;
 public class FileStructure {
 
   public enum Domain {
-    ISSUES("issues-", Domain.PB),
-    COMPONENT("component-", Domain.PB),
-    MEASURES("measures-", Domain.PB),
-    DUPLICATIONS("duplications-", Domain.PB),
-    CPD_TEXT_BLOCKS("cpd-text-block-", Domain.PB),
-    SYNTAX_HIGHLIGHTINGS("syntax-highlightings-", Domain.PB),
-    CHANGESETS("changesets-", Domain.PB),
-    SYMBOLS("symbols-", Domain.PB),
-    COVERAGES("coverages-", Domain.PB),
-    TESTS("tests-", Domain.PB),
-    COVERAGE_DETAILS("coverage-details-", Domain.PB),
-    SOURCE("source-", ".txt");
+    ISSUES("issues-", Domain.PB, true),
+    COMPONENT("component-", Domain.PB, true),
+    MEASURES("measures-", Domain.PB, true),
+    DUPLICATIONS("duplications-", Domain.PB, true),
+    CPD_TEXT_BLOCKS("cpd-text-block-", Domain.PB, true),
+    SYNTAX_HIGHLIGHTINGS("syntax-highlightings-", Domain.PB, true),
+    CHANGESETS("changesets-", Domain.PB, true),
+    SYMBOLS("symbols-", Domain.PB, true),
+    COVERAGES("coverages-", Domain.PB, true),
+    TESTS("tests-", Domain.PB, false),
+    COVERAGE_DETAILS("coverage-details-", Domain.PB, false),
+    SOURCE("source-", ".txt", false);
 
     private static final String PB = ".pb";
     private final String filePrefix;
     private final String fileSuffix;
+    private final boolean packed;
 
-    Domain(String filePrefix, String fileSuffix) {
+    Domain(String filePrefix, String fileSuffix, boolean packed) {
       this.filePrefix = filePrefix;
       this.fileSuffix = fileSuffix;
+      this.packed = packed;
+    }
+
+    /**
+     * Data of packed domains is written in {@link #packedFileFor(Domain)} for all the components,
+     * instead of one file per component.
+     */
+    public boolean isPacked() {
+      return packed;
     }
   }
 
@@ -78,6 +88,20 @@ public class FileStructure {
     return new File(dir, domain.filePrefix + componentRef + domain.fileSuffix);
   }
 
+  /**
+   * File containing the data of all the components, when {@link Domain#isPacked()}
+   */
+  public File packedFileFor(Domain domain) {
+    return new File(dir, domain.filePrefix + "packed" + domain.fileSuffix);
+  }
+
+  /**
+   * Offsets of the data of components in {@link #packedFileFor(Domain)}
+   */
+  public File packedIndexFor(Domain domain) {
+    return new File(dir, domain.filePrefix + "packed.idx");
+  }
+
   public File contextProperties() {
     return new File(dir, "context-props.pb");
   }
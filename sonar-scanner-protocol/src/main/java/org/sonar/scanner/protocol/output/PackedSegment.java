@@ -0,0 +1,181 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2018 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
+import org.apache.commons.io.IOUtils;
+import org.sonar.core.util.ContextException;
+
+/**
+ * Data of all the components for a {@link FileStructure.Domain}, appended to a single file instead
+ * of one file per component.
+ * <p>
+ * Each write is recorded in an index file as a fixed-size entry (component ref, offset, length, mode),
+ * so the data of a component can be spread over several writes, for example when issues are
+ * appended one by one. The index is loaded in memory on first access and is then refreshed
+ * incrementally when it grows.
+ * </p>
+ */
+class PackedSegment {
+
+  static final int INDEX_ENTRY_SIZE = 4 + 8 + 4 + 1;
+  private static final byte REPLACE = 0;
+  private static final byte APPEND = 1;
+
+  private final File dataFile;
+  private final File indexFile;
+  private final Map<Integer, List<Chunk>> chunksByComponentRef = new HashMap<>();
+  private long loadedIndexLength = 0L;
+
+  PackedSegment(File dataFile, File indexFile) {
+    this.dataFile = dataFile;
+    this.indexFile = indexFile;
+  }
+
+  File getDataFile() {
+    return dataFile;
+  }
+
+  boolean exists() {
+    return indexFile.isFile();
+  }
+
+  /**
+   * @param append if {@code false}, the data previously written for the component is replaced
+   */
+  synchronized void write(int componentRef, boolean append, Consumer<OutputStream> writer) {
+    refreshIndex();
+    try (FileOutputStream data = new FileOutputStream(dataFile, true)) {
+      long offset = data.getChannel().size();
+      OutputStream out = new BufferedOutputStream(data);
+      writer.accept(out);
+      out.flush();
+      long length = data.getChannel().size() - offset;
+      if (length > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Data of component #" + componentRef + " is too large: " + length + " bytes");
+      }
+      try (DataOutputStream index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)))) {
+        index.writeInt(componentRef);
+        index.writeLong(offset);
+        index.writeInt((int) length);
+        index.writeByte(append ? APPEND : REPLACE);
+      }
+      loadedIndexLength += INDEX_ENTRY_SIZE;
+      addChunk(componentRef, new Chunk(offset, (int) length), append);
+    } catch (IOException e) {
+      throw ContextException.of("Unable to write report data", e).addContext("file", dataFile);
+    }
+  }
+
+  synchronized boolean contains(int componentRef) {
+    refreshIndex();
+    return chunksByComponentRef.containsKey(componentRef);
+  }
+
+  /**
+   * @return the data written for the component, or {@code null} if there is none
+   */
+  @CheckForNull
+  synchronized InputStream read(int componentRef) {
+    refreshIndex();
+    List<Chunk> chunks = chunksByComponentRef.get(componentRef);
+    if (chunks == null) {
+      return null;
+    }
+    int size = chunks.stream().mapToInt(chunk -> chunk.length).sum();
+    byte[] bytes = new byte[size];
+    try (FileChannel channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ)) {
+      int position = 0;
+      for (Chunk chunk : chunks) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, position, chunk.length);
+        long offset = chunk.offset;
+        while (buffer.hasRemaining()) {
+          int read = channel.read(buffer, offset);
+          if (read < 0) {
+            throw new EOFException("Unexpected end of file at offset " + offset);
+          }
+          offset += read;
+        }
+        position += chunk.length;
+      }
+    } catch (IOException e) {
+      throw ContextException.of("Unable to read report data", e).addContext("file", dataFile).addContext("componentRef", componentRef);
+    }
+    return new ByteArrayInputStream(bytes);
+  }
+
+  private void refreshIndex() {
+    long indexLength = indexFile.length();
+    if (indexLength == loadedIndexLength) {
+      return;
+    }
+    try (DataInputStream index = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+      IOUtils.skipFully(index, loadedIndexLength);
+      for (long entries = (indexLength - loadedIndexLength) / INDEX_ENTRY_SIZE; entries > 0; entries--) {
+        int componentRef = index.readInt();
+        long offset = index.readLong();
+        int length = index.readInt();
+        boolean append = index.readByte() == APPEND;
+        addChunk(componentRef, new Chunk(offset, length), append);
+        loadedIndexLength += INDEX_ENTRY_SIZE;
+      }
+    } catch (IOException e) {
+      throw ContextException.of("Unable to read report index", e).addContext("file", indexFile);
+    }
+  }
+
+  private void addChunk(int componentRef, Chunk chunk, boolean append) {
+    List<Chunk> chunks = chunksByComponentRef.computeIfAbsent(componentRef, ref -> new ArrayList<>(1));
+    if (!append) {
+      chunks.clear();
+    }
+    chunks.add(chunk);
+  }
+
+  private static final class Chunk {
+    private final long offset;
+    private final int length;
+
+    private Chunk(long offset, int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+}
@@ -19,9 +19,25 @@
  */
 package org.sonar.scanner.protocol.output;
 
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.ContextException;
 import org.sonar.core.util.Protobuf;
 
 import static org.sonar.core.util.CloseableIterator.emptyCloseableIterator;
@@ -29,145 +45,250 @@ import static org.sonar.core.util.CloseableIterator.emptyCloseableIterator;
 public class ScannerReportReader {
 
   private final FileStructure fileStructure;
+  @CheckForNull
+  private final ZipFile archive;
+  private final Map<FileStructure.Domain, PackedSegment> packedSegments = new EnumMap<>(FileStructure.Domain.class);
+  private final Set<FileStructure.Domain> extractedDomains = EnumSet.noneOf(FileStructure.Domain.class);
 
   public ScannerReportReader(File dir) {
+    this(dir, null);
+  }
+
+  /**
+   * Reads the report from its zip archive, when not null. Entries are decompressed on the fly, except
+   * the packed files of domains, which require random access and are extracted to {@code dir} when
+   * the domain is read for the first time. The archive is not closed by the reader.
+   */
+  public ScannerReportReader(File dir, @Nullable ZipFile archive) {
     this.fileStructure = new FileStructure(dir);
+    this.archive = archive;
+    for (FileStructure.Domain domain : FileStructure.Domain.values()) {
+      if (domain.isPacked()) {
+        packedSegments.put(domain, new PackedSegment(fileStructure.packedFileFor(domain), fileStructure.packedIndexFor(domain)));
+      }
+    }
   }
 
   public ScannerReport.Metadata readMetadata() {
     File file = fileStructure.metadataFile();
-    if (!fileExists(file)) {
+    InputStream input = open(file);
+    if (input == null) {
       throw new IllegalStateException("Metadata file is missing in analysis report: " + file);
     }
-    return Protobuf.read(file, ScannerReport.Metadata.parser());
+    return Protobuf.read(input, ScannerReport.Metadata.parser());
   }
 
   public CloseableIterator<ScannerReport.ActiveRule> readActiveRules() {
-    File file = fileStructure.activeRules();
-    if (!fileExists(file)) {
+    InputStream input = open(fileStructure.activeRules());
+    if (input == null) {
       return emptyCloseableIterator();
     }
-    return Protobuf.readStream(file, ScannerReport.ActiveRule.parser());
+    return Protobuf.readStream(input, ScannerReport.ActiveRule.parser());
   }
 
   public CloseableIterator<ScannerReport.Measure> readComponentMeasures(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.MEASURES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Measure.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.MEASURES, componentRef, ScannerReport.Measure.parser());
   }
 
   @CheckForNull
   public ScannerReport.Changesets readChangesets(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CHANGESETS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.read(file, ScannerReport.Changesets.parser());
+    InputStream input = openComponentData(FileStructure.Domain.CHANGESETS, componentRef);
+    if (input != null) {
+      return Protobuf.read(input, ScannerReport.Changesets.parser());
     }
     return null;
   }
 
   public ScannerReport.Component readComponent(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COMPONENT, componentRef);
-    if (!fileExists(file)) {
-      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + file);
+    InputStream input = openComponentData(FileStructure.Domain.COMPONENT, componentRef);
+    if (input == null) {
+      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: "
+        + fileStructure.fileFor(FileStructure.Domain.COMPONENT, componentRef));
     }
-    return Protobuf.read(file, ScannerReport.Component.parser());
+    return Protobuf.read(input, ScannerReport.Component.parser());
   }
 
   public CloseableIterator<ScannerReport.Issue> readComponentIssues(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Issue.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.ISSUES, componentRef, ScannerReport.Issue.parser());
   }
 
   public CloseableIterator<ScannerReport.Duplication> readComponentDuplications(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.DUPLICATIONS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Duplication.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.DUPLICATIONS, componentRef, ScannerReport.Duplication.parser());
   }
 
   public CloseableIterator<ScannerReport.CpdTextBlock> readCpdTextBlocks(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.CpdTextBlock.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef, ScannerReport.CpdTextBlock.parser());
   }
 
   public CloseableIterator<ScannerReport.Symbol> readComponentSymbols(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYMBOLS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Symbol.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.SYMBOLS, componentRef, ScannerReport.Symbol.parser());
   }
 
   public boolean hasSyntaxHighlighting(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
-    return file.exists();
+    return hasComponentData(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
   }
 
   public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.SyntaxHighlightingRule.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef, ScannerReport.SyntaxHighlightingRule.parser());
   }
 
   public boolean hasCoverage(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, componentRef);
-    return file.exists();
+    return hasComponentData(FileStructure.Domain.COVERAGES, componentRef);
   }
 
   public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.LineCoverage.parser());
+    return readStream(FileStructure.Domain.COVERAGES, fileRef, ScannerReport.LineCoverage.parser());
+  }
+
+  /**
+   * When the report is read from its archive, the file is extracted
+   */
+  @CheckForNull
+  public File readFileSource(int fileRef) {
+    return extract(fileStructure.fileFor(FileStructure.Domain.SOURCE, fileRef));
+  }
+
+  @CheckForNull
+  public InputStream openFileSource(int fileRef) {
+    return open(fileStructure.fileFor(FileStructure.Domain.SOURCE, fileRef));
+  }
+
+  /**
+   * When the report is read from its archive, the file is extracted
+   */
+  @CheckForNull
+  public File readTests(int testFileRef) {
+    return extract(fileStructure.fileFor(FileStructure.Domain.TESTS, testFileRef));
+  }
+
+  @CheckForNull
+  public InputStream openTests(int testFileRef) {
+    return open(fileStructure.fileFor(FileStructure.Domain.TESTS, testFileRef));
+  }
+
+  /**
+   * When the report is read from its archive, the file is extracted
+   */
+  @CheckForNull
+  public File readCoverageDetails(int testFileRef) {
+    return extract(fileStructure.fileFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef));
+  }
+
+  @CheckForNull
+  public InputStream openCoverageDetails(int testFileRef) {
+    return open(fileStructure.fileFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef));
+  }
+
+  @CheckForNull
+  public InputStream openAnalysisLog() {
+    return open(fileStructure.analysisLog());
+  }
+
+  public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
+    InputStream input = open(fileStructure.contextProperties());
+    if (input == null) {
+      return emptyCloseableIterator();
+    }
+    return Protobuf.readStream(input, ScannerReport.ContextProperty.parser());
+  }
+
+  private <MSG extends Message> CloseableIterator<MSG> readStream(FileStructure.Domain domain, int componentRef, Parser<MSG> parser) {
+    InputStream input = openComponentData(domain, componentRef);
+    if (input != null) {
+      return Protobuf.readStream(input, parser);
     }
     return emptyCloseableIterator();
   }
 
+  private boolean hasComponentData(FileStructure.Domain domain, int componentRef) {
+    PackedSegment segment = packedSegment(domain);
+    if (segment != null) {
+      return segment.contains(componentRef);
+    }
+    File file = fileStructure.fileFor(domain, componentRef);
+    return fileExists(file) || archiveEntry(file) != null;
+  }
+
+  /**
+   * Reports generated by older scanners have one file per component, even for packed domains.
+   */
   @CheckForNull
-  public File readFileSource(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SOURCE, fileRef);
-    if (fileExists(file)) {
-      return file;
+  private InputStream openComponentData(FileStructure.Domain domain, int componentRef) {
+    PackedSegment segment = packedSegment(domain);
+    if (segment != null) {
+      return segment.read(componentRef);
     }
-    return null;
+    return open(fileStructure.fileFor(domain, componentRef));
   }
 
   @CheckForNull
-  public File readTests(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.TESTS, testFileRef);
-    if (fileExists(file)) {
-      return file;
+  private PackedSegment packedSegment(FileStructure.Domain domain) {
+    PackedSegment segment = packedSegments.get(domain);
+    if (segment == null) {
+      return null;
+    }
+    if (archive != null) {
+      synchronized (extractedDomains) {
+        if (extractedDomains.add(domain)) {
+          extract(fileStructure.packedFileFor(domain));
+          extract(fileStructure.packedIndexFor(domain));
+        }
+      }
     }
+    return segment.exists() ? segment : null;
+  }
 
-    return null;
+  /**
+   * Opens the file, or its entry in the archive without extracting it.
+   *
+   * @return {@code null} if the file does not exist
+   */
+  @CheckForNull
+  private InputStream open(File file) {
+    try {
+      if (fileExists(file)) {
+        return new BufferedInputStream(new FileInputStream(file));
+      }
+      ZipEntry entry = archiveEntry(file);
+      if (entry != null) {
+        return new BufferedInputStream(archive.getInputStream(entry));
+      }
+      return null;
+    } catch (IOException e) {
+      throw ContextException.of("Unable to read report data", e).addContext("file", file);
+    }
   }
 
+  /**
+   * Extracts the file from the archive if it has not been extracted yet.
+   *
+   * @return {@code null} if the file does not exist
+   */
   @CheckForNull
-  public File readCoverageDetails(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
+  private synchronized File extract(File file) {
     if (fileExists(file)) {
       return file;
     }
-
-    return null;
+    ZipEntry entry = archiveEntry(file);
+    if (entry == null) {
+      return null;
+    }
+    File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+    try (InputStream input = archive.getInputStream(entry)) {
+      Files.copy(input, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw ContextException.of("Unable to extract report data", e).addContext("file", file);
+    }
+    return file;
   }
 
-  public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
-    File file = fileStructure.contextProperties();
-    if (!fileExists(file)) {
-      return emptyCloseableIterator();
+  @CheckForNull
+  private ZipEntry archiveEntry(File file) {
+    if (archive == null) {
+      return null;
     }
-    return Protobuf.readStream(file, ScannerReport.ContextProperty.parser());
+    return archive.getEntry(file.getName());
   }
 
   private static boolean fileExists(File file) {
@@ -19,24 +19,29 @@
  */
 package org.sonar.scanner.protocol.output;
 
-import java.io.BufferedOutputStream;
+import com.google.protobuf.Message;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import javax.annotation.concurrent.Immutable;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
 import org.sonar.core.util.ContextException;
 import org.sonar.core.util.Protobuf;
 
-@Immutable
 public class ScannerReportWriter {
 
   private final FileStructure fileStructure;
+  private final Map<FileStructure.Domain, PackedSegment> packedSegments = new EnumMap<>(FileStructure.Domain.class);
 
   public ScannerReportWriter(File dir) {
     if (!dir.exists() && !dir.mkdirs()) {
       throw new IllegalStateException("Unable to create directory: " + dir);
     }
     this.fileStructure = new FileStructure(dir);
+    for (FileStructure.Domain domain : FileStructure.Domain.values()) {
+      if (domain.isPacked()) {
+        packedSegments.put(domain, new PackedSegment(fileStructure.packedFileFor(domain), fileStructure.packedIndexFor(domain)));
+      }
+    }
   }
 
   public FileStructure getFileStructure() {
@@ -44,6 +49,10 @@ public class ScannerReportWriter {
   }
 
   public boolean hasComponentData(FileStructure.Domain domain, int componentRef) {
+    PackedSegment segment = packedSegments.get(domain);
+    if (segment != null) {
+      return segment.contains(componentRef);
+    }
     File file = fileStructure.fileFor(domain, componentRef);
     return file.exists() && file.isFile();
   }
@@ -62,66 +71,49 @@ public class ScannerReportWriter {
   }
 
   public File writeComponent(ScannerReport.Component component) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COMPONENT, component.getRef());
-    Protobuf.write(component, file);
-    return file;
+    return writePacked(FileStructure.Domain.COMPONENT, component.getRef(), component);
   }
 
   public File writeComponentIssues(int componentRef, Iterable<ScannerReport.Issue> issues) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    Protobuf.writeStream(issues, file, false);
-    return file;
+    return writePackedStream(FileStructure.Domain.ISSUES, componentRef, issues);
   }
 
   public void appendComponentIssue(int componentRef, ScannerReport.Issue issue) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file, true))) {
-      issue.writeDelimitedTo(out);
-    } catch (Exception e) {
-      throw ContextException.of("Unable to write issue", e).addContext("file", file);
-    }
+    packedSegments.get(FileStructure.Domain.ISSUES).write(componentRef, true, out -> {
+      try {
+        issue.writeDelimitedTo(out);
+      } catch (IOException e) {
+        throw ContextException.of("Unable to write issue", e).addContext("componentRef", componentRef);
+      }
+    });
   }
 
   public File writeComponentMeasures(int componentRef, Iterable<ScannerReport.Measure> measures) {
-    File file = fileStructure.fileFor(FileStructure.Domain.MEASURES, componentRef);
-    Protobuf.writeStream(measures, file, false);
-    return file;
+    return writePackedStream(FileStructure.Domain.MEASURES, componentRef, measures);
   }
 
   public File writeComponentChangesets(ScannerReport.Changesets changesets) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CHANGESETS, changesets.getComponentRef());
-    Protobuf.write(changesets, file);
-    return file;
+    return writePacked(FileStructure.Domain.CHANGESETS, changesets.getComponentRef(), changesets);
   }
 
   public File writeComponentDuplications(int componentRef, Iterable<ScannerReport.Duplication> duplications) {
-    File file = fileStructure.fileFor(FileStructure.Domain.DUPLICATIONS, componentRef);
-    Protobuf.writeStream(duplications, file, false);
-    return file;
+    return writePackedStream(FileStructure.Domain.DUPLICATIONS, componentRef, duplications);
   }
 
   public File writeCpdTextBlocks(int componentRef, Iterable<ScannerReport.CpdTextBlock> blocks) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef);
-    Protobuf.writeStream(blocks, file, false);
-    return file;
+    return writePackedStream(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef, blocks);
   }
 
   public File writeComponentSymbols(int componentRef, Iterable<ScannerReport.Symbol> symbols) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYMBOLS, componentRef);
-    Protobuf.writeStream(symbols, file, false);
-    return file;
+    return writePackedStream(FileStructure.Domain.SYMBOLS, componentRef, symbols);
   }
 
   public File writeComponentSyntaxHighlighting(int componentRef, Iterable<ScannerReport.SyntaxHighlightingRule> syntaxHighlightingRules) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
-    Protobuf.writeStream(syntaxHighlightingRules, file, false);
-    return file;
+    return writePackedStream(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef, syntaxHighlightingRules);
   }
 
   public File writeComponentCoverage(int componentRef, Iterable<ScannerReport.LineCoverage> coverageList) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, componentRef);
-    Protobuf.writeStream(coverageList, file, false);
-    return file;
+    return writePackedStream(FileStructure.Domain.COVERAGES, componentRef, coverageList);
   }
 
   public File writeTests(int componentRef, Iterable<ScannerReport.Test> tests) {
@@ -146,4 +138,28 @@ public class ScannerReportWriter {
     return fileStructure.fileFor(FileStructure.Domain.SOURCE, componentRef);
   }
 
+  /**
+   * Replaces the message of the component. Returns the file containing the data of all the components of the domain.
+   */
+  private File writePacked(FileStructure.Domain domain, int componentRef, Message message) {
+    PackedSegment segment = packedSegments.get(domain);
+    segment.write(componentRef, false, out -> {
+      try {
+        message.writeTo(out);
+      } catch (IOException e) {
+        throw ContextException.of("Unable to write message", e).addContext("componentRef", componentRef);
+      }
+    });
+    return segment.getDataFile();
+  }
+
+  /**
+   * Replaces the messages of the component. Returns the file containing the data of all the components of the domain.
+   */
+  private <MSG extends Message> File writePackedStream(FileStructure.Domain domain, int componentRef, Iterable<MSG> messages) {
+    PackedSegment segment = packedSegments.get(domain);
+    segment.write(componentRef, false, out -> Protobuf.writeStream(messages, out));
+    return segment.getDataFile();
+  }
+
 }
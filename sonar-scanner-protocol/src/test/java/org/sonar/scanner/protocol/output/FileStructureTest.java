@@ -71,6 +71,17 @@ public class FileStructureTest {
     assertThat(structure.fileFor(FileStructure.Domain.ISSUES, 42)).doesNotExist();
   }
 
+  @Test
+  public void locate_packed_files() throws Exception {
+    File dir = temp.newFolder();
+
+    FileStructure structure = new FileStructure(dir);
+    assertThat(structure.packedFileFor(FileStructure.Domain.ISSUES)).isEqualTo(new File(dir, "issues-packed.pb"));
+    assertThat(structure.packedIndexFor(FileStructure.Domain.ISSUES)).isEqualTo(new File(dir, "issues-packed.idx"));
+    assertThat(FileStructure.Domain.ISSUES.isPacked()).isTrue();
+    assertThat(FileStructure.Domain.SOURCE.isPacked()).isFalse();
+  }
+
   @Test
   public void contextProperties_file() throws Exception {
     File dir = temp.newFolder();
@@ -23,6 +23,9 @@ import com.google.common.collect.Lists;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
@@ -30,6 +33,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.Protobuf;
 import org.sonar.scanner.protocol.output.ScannerReport.Measure.StringValue;
 import org.sonar.scanner.protocol.output.ScannerReport.SyntaxHighlightingRule.HighlightingType;
 import org.sonar.scanner.protocol.output.ScannerReport.Test.TestStatus;
@@ -104,6 +108,17 @@ public class ScannerReportReaderTest {
     assertThat(underTest.readComponentIssues(200)).isEmpty();
   }
 
+  @Test
+  public void read_issues_of_report_with_one_file_per_component() {
+    ScannerReport.Issue issue = ScannerReport.Issue.newBuilder()
+      .setMsg("the message")
+      .build();
+    Protobuf.writeStream(asList(issue), underTest.getFileStructure().fileFor(FileStructure.Domain.ISSUES, 1), false);
+
+    assertThat(underTest.readComponentIssues(1)).hasSize(1);
+    assertThat(underTest.readComponentIssues(2)).isEmpty();
+  }
+
   @Test
   public void empty_list_if_no_issue_found() {
     assertThat(underTest.readComponentIssues(UNKNOWN_COMPONENT_REF)).isEmpty();
@@ -377,4 +392,39 @@ public class ScannerReportReaderTest {
   public void return_null_when_no_file_source() throws Exception {
     assertThat(underTest.readFileSource(UNKNOWN_COMPONENT_REF)).isNull();
   }
+
+  @Test
+  public void read_report_from_archive() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("PROJECT_A").build());
+    writer.writeComponentIssues(1, singletonList(ScannerReport.Issue.newBuilder().setRuleKey("foo").build()));
+    try (FileOutputStream outputStream = new FileOutputStream(writer.getSourceFile(1))) {
+      IOUtils.write("line1\nline2", outputStream);
+    }
+    File zip = temp.newFile();
+    try (ZipOutputStream output = new ZipOutputStream(new FileOutputStream(zip))) {
+      for (File file : dir.listFiles()) {
+        output.putNextEntry(new ZipEntry(file.getName()));
+        FileUtils.copyFile(file, output);
+        output.closeEntry();
+      }
+    }
+    File extractionDir = temp.newFolder();
+
+    try (ZipFile archive = new ZipFile(zip)) {
+      underTest = new ScannerReportReader(extractionDir, archive);
+
+      assertThat(underTest.readMetadata().getProjectKey()).isEqualTo("PROJECT_A");
+      assertThat(underTest.readComponentIssues(1)).hasSize(1);
+      assertThat(underTest.readComponentIssues(UNKNOWN_COMPONENT_REF)).isEmpty();
+      try (InputStream inputStream = underTest.openFileSource(1)) {
+        assertThat(IOUtils.readLines(inputStream)).containsOnly("line1", "line2");
+      }
+      assertThat(underTest.openFileSource(UNKNOWN_COMPONENT_REF)).isNull();
+      assertThat(extractionDir.list()).containsOnly("issues-packed.pb", "issues-packed.idx");
+
+      assertThat(underTest.readFileSource(1)).hasContent("line1\nline2");
+      assertThat(underTest.readFileSource(1).getParentFile()).isEqualTo(extractionDir);
+    }
+  }
 }
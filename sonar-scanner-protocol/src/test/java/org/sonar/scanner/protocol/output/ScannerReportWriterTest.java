@@ -87,9 +87,8 @@ public class ScannerReportWriterTest {
     underTest.writeComponent(component.build());
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.COMPONENT, 1)).isTrue();
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.COMPONENT, 1);
-    assertThat(file).exists().isFile();
-    ScannerReport.Component read = Protobuf.read(file, ScannerReport.Component.parser());
+    assertThat(underTest.getFileStructure().fileFor(FileStructure.Domain.COMPONENT, 1)).doesNotExist();
+    ScannerReport.Component read = new ScannerReportReader(dir).readComponent(1);
     assertThat(read.getRef()).isEqualTo(1);
     assertThat(read.getChildRefList()).containsOnly(5, 42);
     assertThat(read.getName()).isEmpty();
@@ -109,9 +108,8 @@ public class ScannerReportWriterTest {
     underTest.writeComponentIssues(1, asList(issue));
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.ISSUES, 1)).isTrue();
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.ISSUES, 1);
-    assertThat(file).exists().isFile();
-    try (CloseableIterator<ScannerReport.Issue> read = Protobuf.readStream(file, ScannerReport.Issue.parser())) {
+    assertThat(underTest.getFileStructure().fileFor(FileStructure.Domain.ISSUES, 1)).doesNotExist();
+    try (CloseableIterator<ScannerReport.Issue> read = new ScannerReportReader(dir).readComponentIssues(1)) {
       assertThat(Iterators.size(read)).isEqualTo(1);
     }
   }
@@ -127,9 +125,8 @@ public class ScannerReportWriterTest {
     underTest.writeComponentMeasures(1, asList(measure));
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.MEASURES, 1)).isTrue();
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.MEASURES, 1);
-    assertThat(file).exists().isFile();
-    try (CloseableIterator<ScannerReport.Measure> read = Protobuf.readStream(file, ScannerReport.Measure.parser())) {
+    assertThat(underTest.getFileStructure().fileFor(FileStructure.Domain.MEASURES, 1)).doesNotExist();
+    try (CloseableIterator<ScannerReport.Measure> read = new ScannerReportReader(dir).readComponentMeasures(1)) {
       assertThat(Iterators.size(read)).isEqualTo(1);
     }
   }
@@ -150,9 +147,8 @@ public class ScannerReportWriterTest {
     underTest.writeComponentChangesets(scm);
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.CHANGESETS, 1)).isTrue();
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.CHANGESETS, 1);
-    assertThat(file).exists().isFile();
-    ScannerReport.Changesets read = Protobuf.read(file, ScannerReport.Changesets.parser());
+    assertThat(underTest.getFileStructure().fileFor(FileStructure.Domain.CHANGESETS, 1)).doesNotExist();
+    ScannerReport.Changesets read = new ScannerReportReader(dir).readChangesets(1);
     assertThat(read.getComponentRef()).isEqualTo(1);
     assertThat(read.getChangesetCount()).isEqualTo(1);
     assertThat(read.getChangesetList()).hasSize(1);
@@ -179,9 +175,8 @@ public class ScannerReportWriterTest {
     underTest.writeComponentDuplications(1, asList(duplication));
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.DUPLICATIONS, 1)).isTrue();
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.DUPLICATIONS, 1);
-    assertThat(file).exists().isFile();
-    try (CloseableIterator<ScannerReport.Duplication> duplications = Protobuf.readStream(file, ScannerReport.Duplication.parser())) {
+    assertThat(underTest.getFileStructure().fileFor(FileStructure.Domain.DUPLICATIONS, 1)).doesNotExist();
+    try (CloseableIterator<ScannerReport.Duplication> duplications = new ScannerReportReader(dir).readComponentDuplications(1)) {
       ScannerReport.Duplication dup = duplications.next();
       assertThat(dup.getOriginPosition()).isNotNull();
       assertThat(dup.getDuplicateList()).hasSize(1);
@@ -202,9 +197,8 @@ public class ScannerReportWriterTest {
     underTest.writeCpdTextBlocks(1, asList(duplicationBlock));
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.CPD_TEXT_BLOCKS, 1)).isTrue();
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, 1);
-    assertThat(file).exists().isFile();
-    try (CloseableIterator<ScannerReport.CpdTextBlock> duplicationBlocks = Protobuf.readStream(file, ScannerReport.CpdTextBlock.parser())) {
+    assertThat(underTest.getFileStructure().fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, 1)).doesNotExist();
+    try (CloseableIterator<ScannerReport.CpdTextBlock> duplicationBlocks = new ScannerReportReader(dir).readCpdTextBlocks(1)) {
       ScannerReport.CpdTextBlock duplicationBlockResult = duplicationBlocks.next();
       assertThat(duplicationBlockResult.getHash()).isEqualTo("abcdefghijklmnop");
       assertThat(duplicationBlockResult.getStartLine()).isEqualTo(1);
@@ -239,9 +233,8 @@ public class ScannerReportWriterTest {
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.SYMBOLS, 1)).isTrue();
 
-    File file = underTest.getFileStructure().fileFor(FileStructure.Domain.SYMBOLS, 1);
-    assertThat(file).exists().isFile();
-    try (CloseableIterator<ScannerReport.Symbol> read = Protobuf.readStream(file, ScannerReport.Symbol.parser())) {
+    assertThat(underTest.getFileStructure().fileFor(FileStructure.Domain.SYMBOLS, 1)).doesNotExist();
+    try (CloseableIterator<ScannerReport.Symbol> read = new ScannerReportReader(dir).readComponentSymbols(1)) {
       assertThat(read).hasSize(1);
     }
   }
@@ -299,4 +292,45 @@ public class ScannerReportWriterTest {
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.COVERAGE_DETAILS, 1)).isTrue();
   }
+
+  @Test
+  public void append_issues_of_several_components_to_the_same_file() {
+    ScannerReport.Issue issue1 = ScannerReport.Issue.newBuilder().setMsg("first").build();
+    ScannerReport.Issue issue2 = ScannerReport.Issue.newBuilder().setMsg("second").build();
+    ScannerReport.Issue issue3 = ScannerReport.Issue.newBuilder().setMsg("third").build();
+
+    underTest.appendComponentIssue(1, issue1);
+    underTest.appendComponentIssue(2, issue2);
+    underTest.appendComponentIssue(1, issue3);
+
+    assertThat(underTest.hasComponentData(FileStructure.Domain.ISSUES, 1)).isTrue();
+    assertThat(underTest.hasComponentData(FileStructure.Domain.ISSUES, 2)).isTrue();
+    assertThat(underTest.hasComponentData(FileStructure.Domain.ISSUES, 3)).isFalse();
+    assertThat(dir.list()).containsOnly("issues-packed.pb", "issues-packed.idx");
+    ScannerReportReader reader = new ScannerReportReader(dir);
+    try (CloseableIterator<ScannerReport.Issue> read = reader.readComponentIssues(1)) {
+      assertThat(read).extracting(ScannerReport.Issue::getMsg).containsExactly("first", "third");
+    }
+    try (CloseableIterator<ScannerReport.Issue> read = reader.readComponentIssues(2)) {
+      assertThat(read).extracting(ScannerReport.Issue::getMsg).containsExactly("second");
+    }
+  }
+
+  @Test
+  public void write_replaces_previous_data_of_component() {
+    ScannerReport.Measure measure1 = ScannerReport.Measure.newBuilder().setMetricKey("lines").build();
+    ScannerReport.Measure measure2 = ScannerReport.Measure.newBuilder().setMetricKey("ncloc").build();
+
+    underTest.writeComponentMeasures(1, asList(measure1));
+    underTest.writeComponentMeasures(2, asList(measure1));
+    underTest.writeComponentMeasures(1, asList(measure2));
+
+    ScannerReportReader reader = new ScannerReportReader(dir);
+    try (CloseableIterator<ScannerReport.Measure> read = reader.readComponentMeasures(1)) {
+      assertThat(read).extracting(ScannerReport.Measure::getMetricKey).containsExactly("ncloc");
+    }
+    try (CloseableIterator<ScannerReport.Measure> read = reader.readComponentMeasures(2)) {
+      assertThat(read).extracting(ScannerReport.Measure::getMetricKey).containsExactly("lines");
+    }
+  }
 }
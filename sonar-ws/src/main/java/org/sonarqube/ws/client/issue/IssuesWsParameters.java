@@ -43,6 +43,7 @@ public class IssuesWsParameters {
   public static final String ACTION_SET_TYPE = "set_type";
   public static final String ACTION_BULK_CHANGE = "bulk_change";
   public static final String ACTION_TAGS = "tags";
+  public static final String ACTION_EXPORT = "export";
 
   public static final String PARAM_ISSUE = "issue";
   public static final String PARAM_COMMENT = "comment";